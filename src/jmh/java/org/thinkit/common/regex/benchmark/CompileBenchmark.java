@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thinkit.common.regex.Epitaph;
+import org.thinkit.common.regex.EpitaphPattern;
+import org.thinkit.common.regex.PatternCache;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The benchmark of the overhead of building a pattern per match compared to
+ * reusing the compiled pattern, with {@link java.util.regex.Pattern} as the
+ * baseline.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+
+    /**
+     * The preset
+     */
+    @Param
+    public RegexPattern preset;
+
+    /**
+     * The regex pattern of the preset, which is built as a custom pattern
+     */
+    private String regexPattern;
+
+    /**
+     * The value matching the preset
+     */
+    private String value;
+
+    /**
+     * The cache that never caches, which makes every build compile the pattern
+     */
+    private PatternCache disabledCache;
+
+    /**
+     * The compiled preset
+     */
+    private EpitaphPattern epitaphPattern;
+
+    /**
+     * The matcher of the compiled preset
+     */
+    private Epitaph epitaph;
+
+    /**
+     * The preset compiled by {@link Pattern}
+     */
+    private Pattern pattern;
+
+    /**
+     * Prepares the value and the compiled patterns to be reused.
+     */
+    @Setup
+    public void setUp() {
+        Corpus.verify(this.preset);
+
+        this.regexPattern = this.preset.getTag();
+        this.value = Corpus.matchingValue(this.preset);
+        this.disabledCache = PatternCache.disabled();
+        this.epitaphPattern = EpitaphPattern.builder().pattern(this.preset).build();
+        this.epitaph = this.epitaphPattern.epitaph(this.value);
+        this.pattern = Pattern.compile(this.regexPattern);
+    }
+
+    @Benchmark
+    public boolean buildPreset() {
+        return Epitaph.builder().pattern(this.preset).input(this.value).build().matches();
+    }
+
+    @Benchmark
+    public boolean buildCached() {
+        return Epitaph.builder().pattern(this.regexPattern).input(this.value).build().matches();
+    }
+
+    @Benchmark
+    public boolean buildUncached() {
+        return Epitaph.builder().pattern(this.regexPattern).cache(this.disabledCache).input(this.value).build()
+                .matches();
+    }
+
+    @Benchmark
+    public boolean reusePattern() {
+        return this.epitaphPattern.matches(this.value);
+    }
+
+    @Benchmark
+    public boolean reuseEpitaph() {
+        return this.epitaph.reset(this.value).matches();
+    }
+
+    @Benchmark
+    public boolean jdkCompile() {
+        return Pattern.compile(this.regexPattern).matcher(this.value).matches();
+    }
+
+    @Benchmark
+    public boolean jdkReuse() {
+        return this.pattern.matcher(this.value).matches();
+    }
+}
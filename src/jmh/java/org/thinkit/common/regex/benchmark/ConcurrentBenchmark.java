@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thinkit.common.regex.Epitaph;
+import org.thinkit.common.regex.EpitaphPattern;
+import org.thinkit.common.regex.PatternMatch;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The benchmark of the throughput of a compiled pattern shared between
+ * threads, compared to a matcher confined to each thread, and of the parallel
+ * search of a single large document.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentBenchmark {
+
+    /**
+     * The length of the document searched
+     */
+    private static final int DOCUMENT_LENGTH = 1_000_000;
+
+    /**
+     * The preset
+     */
+    @Param
+    public RegexPattern preset;
+
+    /**
+     * The compiled preset shared between the threads
+     */
+    private EpitaphPattern epitaphPattern;
+
+    /**
+     * The value matching the preset
+     */
+    private String matchingValue;
+
+    /**
+     * The value nearly matching but not matching the preset
+     */
+    private String nonMatchingValue;
+
+    /**
+     * The document in which the values matching the preset are scattered
+     */
+    private String document;
+
+    /**
+     * Compiles the preset and prepares the values and the document.
+     */
+    @Setup
+    public void setUp() {
+        Corpus.verify(this.preset);
+
+        this.matchingValue = Corpus.matchingValue(this.preset);
+        this.nonMatchingValue = Corpus.nonMatchingValue(this.preset);
+        this.document = Corpus.document(this.preset, Corpus.Script.ASCII, DOCUMENT_LENGTH, true);
+        this.epitaphPattern = EpitaphPattern.builder().pattern(this.preset).build();
+    }
+
+    /**
+     * The matcher confined to a thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadMatcher {
+
+        /**
+         * The matcher
+         */
+        private Epitaph epitaph;
+
+        /**
+         * Creates the matcher of the shared pattern.
+         *
+         * @param benchmark The benchmark holding the shared pattern
+         */
+        @Setup
+        public void setUp(ConcurrentBenchmark benchmark) {
+            this.epitaph = benchmark.epitaphPattern.epitaph(benchmark.matchingValue);
+        }
+    }
+
+    @Benchmark
+    public boolean sharedMatches() {
+        return this.epitaphPattern.matches(this.matchingValue);
+    }
+
+    @Benchmark
+    public boolean sharedMatchesNonMatching() {
+        return this.epitaphPattern.matches(this.nonMatchingValue);
+    }
+
+    @Benchmark
+    public boolean confinedMatches(ThreadMatcher threadMatcher) {
+        return threadMatcher.epitaph.reset(this.matchingValue).matches();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<PatternMatch> parallelFindAll() {
+        return this.epitaphPattern.findAll(this.document);
+    }
+}
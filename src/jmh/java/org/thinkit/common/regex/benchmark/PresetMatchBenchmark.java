@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thinkit.common.regex.Epitaph;
+import org.thinkit.common.regex.EpitaphPattern;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The benchmark of matching a short value against every preset, as in the
+ * validation of the fields of a form.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PresetMatchBenchmark {
+
+    /**
+     * The preset
+     */
+    @Param
+    public RegexPattern preset;
+
+    /**
+     * The compiled preset
+     */
+    private EpitaphPattern epitaphPattern;
+
+    /**
+     * The matcher of the compiled preset
+     */
+    private Epitaph epitaph;
+
+    /**
+     * The value matching the preset
+     */
+    private String matchingValue;
+
+    /**
+     * The value nearly matching but not matching the preset
+     */
+    private String nonMatchingValue;
+
+    /**
+     * Compiles the preset and prepares the values.
+     */
+    @Setup
+    public void setUp() {
+        Corpus.verify(this.preset);
+
+        this.matchingValue = Corpus.matchingValue(this.preset);
+        this.nonMatchingValue = Corpus.nonMatchingValue(this.preset);
+        this.epitaphPattern = EpitaphPattern.builder().pattern(this.preset).build();
+        this.epitaph = this.epitaphPattern.epitaph(this.matchingValue);
+    }
+
+    @Benchmark
+    public boolean matchesMatching() {
+        return this.epitaphPattern.matches(this.matchingValue);
+    }
+
+    @Benchmark
+    public boolean matchesNonMatching() {
+        return this.epitaphPattern.matches(this.nonMatchingValue);
+    }
+
+    @Benchmark
+    public boolean findMatching() {
+        return this.epitaphPattern.find(this.matchingValue);
+    }
+
+    @Benchmark
+    public boolean findNonMatching() {
+        return this.epitaphPattern.find(this.nonMatchingValue);
+    }
+
+    @Benchmark
+    public boolean lookingAtMatching() {
+        return this.epitaphPattern.lookingAt(this.matchingValue);
+    }
+
+    @Benchmark
+    public boolean epitaphMatches() {
+        return this.epitaph.reset(this.matchingValue).matches();
+    }
+
+    @Benchmark
+    public String epitaphReplaceAll() {
+        return this.epitaph.reset(this.matchingValue).replaceAll("<redacted>");
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thinkit.common.regex.Epitaph;
+import org.thinkit.common.regex.EpitaphPattern;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The benchmark of searching documents of prose in ASCII and Japanese for the
+ * matches of every preset, as in the extraction or the masking of personal
+ * information in logs.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PresetSearchBenchmark {
+
+    /**
+     * The preset
+     */
+    @Param
+    public RegexPattern preset;
+
+    /**
+     * The script of the prose of the documents
+     */
+    @Param
+    public Corpus.Script script;
+
+    /**
+     * The length of the documents
+     */
+    @Param({ "1000", "100000" })
+    public int length;
+
+    /**
+     * The compiled preset
+     */
+    private EpitaphPattern epitaphPattern;
+
+    /**
+     * The matcher of the compiled preset
+     */
+    private Epitaph epitaph;
+
+    /**
+     * The document in which the values matching the preset are scattered
+     */
+    private String document;
+
+    /**
+     * The document in which the values nearly matching the preset are scattered
+     */
+    private String nearMissDocument;
+
+    /**
+     * The array the offsets of the matches are written to, which is reused
+     */
+    private final int[] offsets = new int[256];
+
+    /**
+     * Compiles the preset and prepares the documents.
+     */
+    @Setup
+    public void setUp() {
+        Corpus.verify(this.preset);
+
+        this.document = Corpus.document(this.preset, this.script, this.length, true);
+        this.nearMissDocument = Corpus.document(this.preset, this.script, this.length, false);
+        this.epitaphPattern = EpitaphPattern.builder().pattern(this.preset).build();
+        this.epitaph = this.epitaphPattern.epitaph(this.document);
+    }
+
+    @Benchmark
+    public int findEach() {
+        return count(this.epitaph.reset(this.document));
+    }
+
+    @Benchmark
+    public int findEachNearMiss() {
+        return count(this.epitaph.reset(this.nearMissDocument));
+    }
+
+    @Benchmark
+    public int findAllOffsets() {
+
+        this.epitaph.reset(this.document);
+        int total = 0;
+
+        for (int count; (count = this.epitaph.findAll(this.offsets)) > 0;) {
+            total += count;
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public String replaceAll() {
+        return this.epitaph.reset(this.document).replaceAll("<redacted>");
+    }
+
+    @Benchmark
+    public boolean matchesDocument() {
+        return this.epitaphPattern.matches(this.document);
+    }
+
+    /**
+     * Returns the number of the matches found by the matcher passed as an
+     * argument.
+     *
+     * @param epitaph The matcher
+     * @return The number of the matches
+     */
+    private static int count(Epitaph epitaph) {
+
+        int count = 0;
+
+        while (epitaph.find()) {
+            count++;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.thinkit.common.regex.Epitaph;
+import org.thinkit.common.regex.EpitaphPattern;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * The performance regression gate of the hot paths of Epitaph, run by
+ * {@code gradlew perfGate} , or as a part of {@code gradlew check} if the
+ * property {@code perfGate} is set.
+ * <p>
+ * Each hot path is measured against {@link Pattern} running the same workload
+ * in the same process, and its throughput is recorded as the ratio to that of
+ * {@link Pattern} , so that the baseline recorded on one machine holds on
+ * another. The bytes allocated per operation are recorded as they are. The
+ * gate fails if the relative throughput of a hot path drops, or its allocation
+ * rises, beyond the tolerance compared to the baseline checked in by
+ * {@code gradlew perfBaseline} .
+ *
+ * <pre>
+ * Usage:
+ * <code>
+ * RegressionGate record &lt;baseline&gt;
+ * RegressionGate check &lt;baseline&gt; &lt;throughput tolerance&gt; &lt;allocation tolerance&gt;
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class RegressionGate {
+
+    /**
+     * The milliseconds each hot path and its reference are warmed up for
+     */
+    private static final long WARMUP_MILLIS = 1_000;
+
+    /**
+     * The milliseconds of a round of a measurement
+     */
+    private static final long ROUND_MILLIS = 300;
+
+    /**
+     * The number of the rounds of a measurement, whose median is taken
+     */
+    private static final int ROUNDS = 7;
+
+    /**
+     * The number of the operations whose allocation is measured
+     */
+    private static final int ALLOCATION_OPERATIONS = 1_000;
+
+    /**
+     * The bytes per operation an allocation may rise by regardless of the
+     * tolerance, which absorbs the noise of the hot paths allocating little
+     */
+    private static final double ALLOCATION_SLACK = 8;
+
+    /**
+     * The format of an entry of the baseline
+     */
+    private static final Pattern ENTRY = Pattern.compile("\"([^\"]+)\"\\s*:\\s*\\{"
+            + "\\s*\"relativeThroughput\"\\s*:\\s*([-+.0-9eE]+)\\s*,"
+            + "\\s*\"bytesPerOperation\"\\s*:\\s*([-+.0-9eE]+)\\s*\\}");
+
+    /**
+     * The sink of the results of the operations, which keeps the JIT compiler
+     * from eliminating them
+     */
+    private static volatile int sink;
+
+    /**
+     * Constructor
+     */
+    private RegressionGate() {
+    }
+
+    /**
+     * Records or checks the baseline.
+     *
+     * @param args The mode, the path of the baseline, and the tolerances of the
+     *             throughput and the allocation in the mode {@code check}
+     * @throws IOException If the baseline cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+
+        if (args.length == 2 && "record".equals(args[0])) {
+            record(Paths.get(args[1]));
+        } else if (args.length == 4 && "check".equals(args[0])) {
+            if (!check(Paths.get(args[1]), Double.parseDouble(args[2]), Double.parseDouble(args[3]))) {
+                System.exit(1);
+            }
+        } else {
+            throw new IllegalArgumentException("Unexpected arguments: " + Arrays.toString(args));
+        }
+    }
+
+    /**
+     * Measures the hot paths and writes the results to the baseline.
+     *
+     * @param baseline The path of the baseline
+     * @throws IOException If the baseline cannot be written
+     */
+    private static void record(Path baseline) throws IOException {
+
+        final Map<String, Result> results = measure();
+        final StringBuilder json = new StringBuilder("{\n");
+
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            json.append(String.format(Locale.ROOT,
+                    "  \"%s\": { \"relativeThroughput\": %.4f, \"bytesPerOperation\": %.1f },\n", entry.getKey(),
+                    entry.getValue().relativeThroughput, entry.getValue().bytesPerOperation));
+        }
+
+        json.setLength(json.length() - 2);
+        json.append("\n}\n");
+
+        Files.createDirectories(baseline.toAbsolutePath().getParent());
+        Files.write(baseline, json.toString().getBytes(StandardCharsets.UTF_8));
+
+        System.out.println("Recorded the baseline: " + baseline);
+    }
+
+    /**
+     * Measures the hot paths and compares the results with the baseline.
+     *
+     * @param baseline            The path of the baseline
+     * @param throughputTolerance The ratio the relative throughput may drop by
+     * @param allocationTolerance The ratio the allocation may rise by
+     * @return {@code true} if no hot path regresses, otherwise {@code false}
+     * @throws IOException If the baseline cannot be read
+     */
+    private static boolean check(Path baseline, double throughputTolerance, double allocationTolerance)
+            throws IOException {
+
+        final Map<String, Result> expected = parse(new String(Files.readAllBytes(baseline), StandardCharsets.UTF_8));
+        final Map<String, Result> actual = measure();
+        final List<String> regressions = new ArrayList<>();
+
+        System.out.println(String.format(Locale.ROOT, "%-40s %12s %12s %12s %12s", "hot path", "throughput",
+                "baseline", "bytes/op", "baseline"));
+
+        for (Map.Entry<String, Result> entry : actual.entrySet()) {
+            final String name = entry.getKey();
+            final Result result = entry.getValue();
+            final Result base = expected.get(name);
+
+            System.out.println(String.format(Locale.ROOT, "%-40s %12.4f %12s %12.1f %12s", name,
+                    result.relativeThroughput,
+                    base == null ? "-" : String.format(Locale.ROOT, "%.4f", base.relativeThroughput),
+                    result.bytesPerOperation,
+                    base == null ? "-" : String.format(Locale.ROOT, "%.1f", base.bytesPerOperation)));
+
+            if (base == null) {
+                continue;
+            }
+
+            if (result.relativeThroughput < base.relativeThroughput * (1 - throughputTolerance)) {
+                regressions.add(String.format(Locale.ROOT, "The throughput of %s dropped from %.4f to %.4f", name,
+                        base.relativeThroughput, result.relativeThroughput));
+            }
+
+            if (result.bytesPerOperation > base.bytesPerOperation * (1 + allocationTolerance) + ALLOCATION_SLACK) {
+                regressions.add(String.format(Locale.ROOT, "The allocation of %s rose from %.1f to %.1f bytes/op",
+                        name, base.bytesPerOperation, result.bytesPerOperation));
+            }
+        }
+
+        regressions.forEach(System.err::println);
+        return regressions.isEmpty();
+    }
+
+    /**
+     * Parses the baseline passed as an argument.
+     *
+     * @param json The baseline
+     * @return The results of the hot paths
+     */
+    private static Map<String, Result> parse(String json) {
+
+        final Map<String, Result> results = new LinkedHashMap<>();
+        final Matcher matcher = ENTRY.matcher(json);
+
+        while (matcher.find()) {
+            results.put(matcher.group(1),
+                    new Result(Double.parseDouble(matcher.group(2)), Double.parseDouble(matcher.group(3))));
+        }
+
+        return results;
+    }
+
+    /**
+     * Measures the hot paths.
+     *
+     * @return The results of the hot paths
+     */
+    private static Map<String, Result> measure() {
+
+        final Map<String, Result> results = new LinkedHashMap<>();
+
+        for (HotPath hotPath : hotPaths()) {
+            results.put(hotPath.name, measure(hotPath));
+        }
+
+        return results;
+    }
+
+    /**
+     * Measures the hot path passed as an argument, alternating the rounds of the
+     * hot path and its reference so that both see the same state of the machine.
+     *
+     * @param hotPath The hot path
+     * @return The result of the hot path
+     */
+    private static Result measure(HotPath hotPath) {
+
+        run(hotPath.operation, WARMUP_MILLIS);
+        run(hotPath.reference, WARMUP_MILLIS);
+
+        final double[] ratios = new double[ROUNDS];
+
+        for (int i = 0; i < ROUNDS; i++) {
+            ratios[i] = run(hotPath.operation, ROUND_MILLIS) / run(hotPath.reference, ROUND_MILLIS);
+        }
+
+        Arrays.sort(ratios);
+
+        final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        for (int i = 0; i < ALLOCATION_OPERATIONS; i++) {
+            sink += hotPath.operation.getAsInt();
+        }
+
+        return new Result(ratios[ROUNDS / 2],
+                (double) (threadMXBean.getThreadAllocatedBytes(threadId) - allocated) / ALLOCATION_OPERATIONS);
+    }
+
+    /**
+     * Runs the operation passed as an argument repeatedly for the milliseconds.
+     *
+     * @param operation The operation
+     * @param millis    The milliseconds
+     * @return The number of the operations per second
+     */
+    private static double run(IntSupplier operation, long millis) {
+
+        final long start = System.nanoTime();
+        final long deadline = start + millis * 1_000_000;
+        long operations = 0;
+        long now;
+
+        do {
+            for (int i = 0; i < 16; i++) {
+                sink += operation.getAsInt();
+            }
+
+            operations += 16;
+            now = System.nanoTime();
+        } while (now < deadline);
+
+        return operations * 1e9 / (now - start);
+    }
+
+    /**
+     * Returns the hot paths, each of which is paired with {@link Pattern} running
+     * the same workload.
+     *
+     * @return The hot paths
+     */
+    private static List<HotPath> hotPaths() {
+
+        final List<HotPath> hotPaths = new ArrayList<>();
+
+        for (RegexPattern preset : new RegexPattern[] { RegexPattern.EMAIL_ADDRESS, RegexPattern.POST_CODE_JP,
+                RegexPattern.XML_FILE, RegexPattern.PASSWORD }) {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(preset).build();
+            final Pattern pattern = Pattern.compile(preset.getTag());
+            final String value = Corpus.matchingValue(preset);
+            final String nonMatchingValue = Corpus.nonMatchingValue(preset);
+
+            hotPaths.add(new HotPath("matches." + preset.name(),
+                    () -> (epitaphPattern.matches(value) ? 1 : 0)
+                            + (epitaphPattern.matches(nonMatchingValue) ? 1 : 0),
+                    () -> (pattern.matcher(value).matches() ? 1 : 0)
+                            + (pattern.matcher(nonMatchingValue).matches() ? 1 : 0)));
+        }
+
+        for (RegexPattern preset : new RegexPattern[] { RegexPattern.EMAIL_ADDRESS, RegexPattern.IP_ADDRESS,
+                RegexPattern.JAPANESE_KANJI }) {
+            // The prose of the other script keeps the prose itself from matching the
+            // kanji.
+            final Corpus.Script script = preset == RegexPattern.JAPANESE_KANJI ? Corpus.Script.ASCII
+                    : Corpus.Script.JAPANESE;
+            final String document = Corpus.document(preset, script, 10_000, true);
+            final Epitaph epitaph = EpitaphPattern.builder().pattern(preset).build().epitaph(document);
+            final Matcher matcher = Pattern.compile(preset.getTag()).matcher(document);
+
+            hotPaths.add(new HotPath("find." + preset.name(), () -> {
+                epitaph.reset(document);
+                int count = 0;
+
+                while (epitaph.find()) {
+                    count++;
+                }
+
+                return count;
+            }, () -> {
+                matcher.reset(document);
+                int count = 0;
+
+                while (matcher.find()) {
+                    count++;
+                }
+
+                return count;
+            }));
+        }
+
+        final RegexPattern masked = RegexPattern.CELL_PHONE_WITH_HYPHEN_JP;
+        final String document = Corpus.document(masked, Corpus.Script.ASCII, 10_000, true);
+        final Epitaph epitaph = EpitaphPattern.builder().pattern(masked).build().epitaph(document);
+        final Matcher matcher = Pattern.compile(masked.getTag()).matcher(document);
+
+        hotPaths.add(new HotPath("replaceAll." + masked.name(),
+                () -> epitaph.reset(document).replaceAll("<redacted>").length(),
+                () -> matcher.reset(document).replaceAll("<redacted>").length()));
+
+        final RegexPattern built = RegexPattern.EMAIL_ADDRESS;
+        final String value = Corpus.matchingValue(built);
+
+        hotPaths.add(new HotPath("build." + built.name(),
+                () -> Epitaph.builder().pattern(built).input(value).build().matches() ? 1 : 0,
+                () -> Pattern.compile(built.getTag()).matcher(value).matches() ? 1 : 0));
+
+        return hotPaths;
+    }
+
+    /**
+     * The hot path paired with its reference.
+     */
+    private static final class HotPath {
+
+        /**
+         * The name
+         */
+        private final String name;
+
+        /**
+         * The operation of the hot path
+         */
+        private final IntSupplier operation;
+
+        /**
+         * The same workload run by {@link Pattern}
+         */
+        private final IntSupplier reference;
+
+        /**
+         * Constructor
+         *
+         * @param name      The name
+         * @param operation The operation of the hot path
+         * @param reference The same workload run by {@link Pattern}
+         */
+        HotPath(String name, IntSupplier operation, IntSupplier reference) {
+            this.name = name;
+            this.operation = operation;
+            this.reference = reference;
+        }
+    }
+
+    /**
+     * The result of a hot path.
+     */
+    private static final class Result {
+
+        /**
+         * The throughput relative to that of {@link Pattern}
+         */
+        private final double relativeThroughput;
+
+        /**
+         * The bytes allocated per operation
+         */
+        private final double bytesPerOperation;
+
+        /**
+         * Constructor
+         *
+         * @param relativeThroughput The throughput relative to that of
+         *                           {@link Pattern}
+         * @param bytesPerOperation  The bytes allocated per operation
+         */
+        Result(double relativeThroughput, double bytesPerOperation) {
+            this.relativeThroughput = relativeThroughput;
+            this.bytesPerOperation = bytesPerOperation;
+        }
+    }
+}
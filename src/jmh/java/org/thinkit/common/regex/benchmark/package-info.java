@@ -0,0 +1,9 @@
+/**
+ * The package for the JMH benchmarks of the presets and the hot paths of
+ * Epitaph, run by {@code gradlew jmh} , and for the performance regression gate
+ * of the hot paths, run by {@code gradlew perfGate} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+package org.thinkit.common.regex.benchmark;
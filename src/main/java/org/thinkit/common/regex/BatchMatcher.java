@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+
+/**
+ * The matcher of many values against a pattern at once, which records whether
+ * each value matches in a bitmap.
+ * <p>
+ * The values can be tested in parallel on a {@link ForkJoinPool} , in which
+ * case the values are split into chunks of a multiple of {@value Long#SIZE}
+ * values. Each chunk then writes its own words of the bitmap, so the chunks
+ * need no synchronization with each other.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class BatchMatcher {
+
+    /**
+     * The maximum number of values of a chunk, under which splitting the values
+     * costs more than it saves
+     */
+    private static final int CHUNK_LENGTH = 1 << 12;
+
+    /**
+     * The test of the value at an index, which can be called by many threads at a
+     * time
+     */
+    private final IntPredicate test;
+
+    /**
+     * The number of values
+     */
+    private final int count;
+
+    /**
+     * Constructor
+     *
+     * @param test  The test of the value at an index, which can be called by many
+     *              threads at a time
+     * @param count The number of values
+     */
+    BatchMatcher(IntPredicate test, int count) {
+        this.test = test;
+        this.count = count;
+    }
+
+    /**
+     * Tests all values in the calling thread.
+     *
+     * @return The bitmap whose bits are set at the indexes of the values matching
+     *         the pattern
+     */
+    BitSet matchAll() {
+
+        final long[] words = new long[wordCount(this.count)];
+        this.match(words, 0, this.count);
+
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Tests all values in chunks in parallel on the pool.
+     *
+     * @param pool The pool to test the chunks on
+     * @return The bitmap whose bits are set at the indexes of the values matching
+     *         the pattern
+     */
+    BitSet matchAll(ForkJoinPool pool) {
+
+        final long[] words = new long[wordCount(this.count)];
+        pool.invoke(new Chunk(words, 0, this.count));
+
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Tests the values in the range, and sets the bits of the matching values in
+     * the words.
+     *
+     * @param words The words of the bitmap
+     * @param start The index of the first value
+     * @param end   The index after the last value
+     */
+    private void match(long[] words, int start, int end) {
+        for (int index = start; index < end; index++) {
+            if (this.test.test(index)) {
+                words[index >>> 6] |= 1L << index;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of words of the bitmap of the values.
+     *
+     * @param count The number of values
+     * @return The number of words
+     */
+    private static int wordCount(int count) {
+        return (count + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * The chunk of values, which is split in halves until it is small enough to
+     * be tested by a single thread.
+     */
+    private final class Chunk extends RecursiveAction {
+
+        /**
+         * The serial version UID
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The words of the bitmap
+         */
+        private final long[] words;
+
+        /**
+         * The index of the first value, which is a multiple of {@value Long#SIZE}
+         */
+        private final int start;
+
+        /**
+         * The index after the last value
+         */
+        private final int end;
+
+        /**
+         * Constructor
+         *
+         * @param words The words of the bitmap
+         * @param start The index of the first value, which is a multiple of
+         *              {@value Long#SIZE}
+         * @param end   The index after the last value
+         */
+        Chunk(long[] words, int start, int end) {
+            this.words = words;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (this.end - this.start <= CHUNK_LENGTH) {
+                match(this.words, this.start, this.end);
+                return;
+            }
+
+            final int middle = this.start + ((this.end - this.start) / 2 & -Long.SIZE);
+            invokeAll(new Chunk(this.words, this.start, middle), new Chunk(this.words, middle, this.end));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.time.Duration;
+
+/**
+ * The input of a match operation that counts the characters read by the
+ * engine, and throws {@link MatchBudgetExceededException} once the number of
+ * the reads exceeds the step budget or the time elapsed since the start of the
+ * operation exceeds the timeout. The clock is read only once every
+ * {@link #CHECK_INTERVAL} reads, so the budget costs little more than a counter.
+ * <p>
+ * The instance of this class is not thread-safe, and is created for each
+ * operation or each thread of an operation. An instance held across the
+ * operations on the same input is rearmed by {@link #rearm(CharSequence)} at
+ * the start of each operation.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class BudgetedCharSequence implements CharSequence {
+
+    /**
+     * The number of reads between the checks of the clock
+     */
+    static final int CHECK_INTERVAL = 1 << 10;
+
+    /**
+     * The input
+     */
+    private final CharSequence input;
+
+    /**
+     * The regex pattern
+     */
+    private final String regexPattern;
+
+    /**
+     * The maximum number of reads, or {@link Long#MAX_VALUE} if unlimited
+     */
+    private final long stepBudget;
+
+    /**
+     * The maximum nanoseconds of the operation, or {@link Long#MAX_VALUE} if
+     * unlimited
+     */
+    private final long timeoutNanos;
+
+    /**
+     * The value of {@link System#nanoTime()} at the start of the operation
+     */
+    private long startNanos;
+
+    /**
+     * The number of reads
+     */
+    private long steps;
+
+    /**
+     * The number of reads at which the budget is checked next
+     */
+    private long nextCheck;
+
+    /**
+     * The number of reads when the counting was suspended
+     */
+    private long suspendedSteps;
+
+    /**
+     * The number of reads at which the budget is checked next when the counting
+     * was suspended
+     */
+    private long suspendedNextCheck;
+
+    /**
+     * Constructor
+     *
+     * @param input        The input
+     * @param regexPattern The regex pattern
+     * @param stepBudget   The maximum number of reads, or {@link Long#MAX_VALUE}
+     *                     if unlimited
+     * @param timeoutNanos The maximum nanoseconds of the operation, or
+     *                     {@link Long#MAX_VALUE} if unlimited
+     */
+    BudgetedCharSequence(CharSequence input, String regexPattern, long stepBudget, long timeoutNanos) {
+        this.input = input;
+        this.regexPattern = regexPattern;
+        this.stepBudget = stepBudget;
+        this.timeoutNanos = timeoutNanos;
+        this.startNanos = System.nanoTime();
+        this.nextCheck = Math.min(stepBudget, CHECK_INTERVAL);
+    }
+
+    /**
+     * Starts a new operation on the input if it enforces a budget, so that the
+     * steps and the time of the previous operations are not counted against it.
+     *
+     * @param input The input read by the engine
+     */
+    static void rearm(CharSequence input) {
+        if (input instanceof BudgetedCharSequence) {
+            ((BudgetedCharSequence) input).rearm();
+        }
+    }
+
+    /**
+     * Stops counting the reads of the input if it enforces a budget, while the
+     * characters are copied to report a match rather than read to find it.
+     *
+     * @param input The input read by the engine
+     */
+    static void suspend(CharSequence input) {
+        if (input instanceof BudgetedCharSequence) {
+            final BudgetedCharSequence budgeted = (BudgetedCharSequence) input;
+            budgeted.suspendedSteps = budgeted.steps;
+            budgeted.suspendedNextCheck = budgeted.nextCheck;
+            budgeted.nextCheck = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Resumes counting the reads of the input suspended by
+     * {@link #suspend(CharSequence)} .
+     *
+     * @param input The input read by the engine
+     */
+    static void resume(CharSequence input) {
+        if (input instanceof BudgetedCharSequence) {
+            final BudgetedCharSequence budgeted = (BudgetedCharSequence) input;
+            budgeted.steps = budgeted.suspendedSteps;
+            budgeted.nextCheck = budgeted.suspendedNextCheck;
+        }
+    }
+
+    /**
+     * Resets the steps and the start time of the operation.
+     */
+    private void rearm() {
+        this.steps = 0;
+        this.nextCheck = Math.min(this.stepBudget, CHECK_INTERVAL);
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public int length() {
+        return this.input.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+
+        if (++this.steps > this.nextCheck) {
+            this.check(index);
+        }
+
+        return this.input.charAt(index);
+    }
+
+    /**
+     * Returns the subsequence of the input, which is not counted against the
+     * budget since it is read to report a match rather than to find it.
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return this.input.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return this.input.toString();
+    }
+
+    /**
+     * Throws {@link MatchBudgetExceededException} if the budget is exceeded, and
+     * otherwise schedules the next check.
+     *
+     * @param index The index of the character being read
+     *
+     * @exception MatchBudgetExceededException If the step budget or the timeout
+     *                                         is exceeded
+     */
+    private void check(int index) {
+
+        final long elapsed = System.nanoTime() - this.startNanos;
+
+        if (this.steps > this.stepBudget || elapsed > this.timeoutNanos) {
+            throw new MatchBudgetExceededException(this.regexPattern, index, this.steps, Duration.ofNanos(elapsed));
+        }
+
+        this.nextCheck = Math.min(this.stepBudget, this.steps + CHECK_INTERVAL);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The Java Flight Recorder event emitted by {@link FlightRecorderSink} for the
+ * lookup of a compiled pattern.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@Name("org.thinkit.common.regex.Compile")
+@Label("Regex Compile")
+@Category("Epitaph")
+@Enabled(false)
+@Description("The lookup of a compiled pattern, including the compilation if it was not cached")
+@StackTrace(false)
+final class CompileEvent extends jdk.jfr.Event {
+
+    /**
+     * The regex pattern
+     */
+    @Label("Regex Pattern")
+    String regexPattern;
+
+    /**
+     * The combined regex option flags
+     */
+    @Label("Flags")
+    int flags;
+
+    /**
+     * The nanoseconds taken by the lookup
+     */
+    @Label("Elapsed Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsedTime;
+
+    /**
+     * Whether the compiled pattern was cached
+     */
+    @Label("Cache Hit")
+    boolean cacheHit;
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The histogram of non-negative values recorded by any number of threads
+ * without locking, used by {@link InMemoryMetricsSink} for latencies and input
+ * lengths.
+ * <p>
+ * As in HdrHistogram, the values under {@code 32} are counted exactly and each
+ * larger power of two is divided into {@code 16} buckets of equal width, so a
+ * value is reported with a relative error of at most {@code 1/16} in a fixed
+ * number of buckets. The values of {@code 2^41} and more, which are more than
+ * half an hour in nanoseconds, are counted in the last bucket.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class ConcurrentHistogram {
+
+    /**
+     * The number of bits dividing a power of two into buckets
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of buckets per power of two
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of the values counted exactly
+     */
+    private static final int LINEAR_COUNT = SUB_BUCKET_COUNT << 1;
+
+    /**
+     * The exponent of the highest power of two divided into buckets
+     */
+    private static final int MAXIMUM_EXPONENT = 40;
+
+    /**
+     * The number of buckets
+     */
+    static final int BUCKET_COUNT = LINEAR_COUNT + (MAXIMUM_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    /**
+     * The highest value counted in its own bucket
+     */
+    private static final long MAXIMUM_VALUE = (1L << (MAXIMUM_EXPONENT + 1)) - 1;
+
+    /**
+     * The counts of the buckets
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * The sum of the recorded values
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * The maximum of the recorded values
+     */
+    private final LongAccumulator maximum = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Default constructor
+     */
+    ConcurrentHistogram() {
+    }
+
+    /**
+     * Records the value passed as an argument. A negative value is recorded as
+     * {@code 0} .
+     *
+     * @param value The value
+     */
+    void record(long value) {
+
+        final long recorded = Math.max(value, 0);
+
+        this.counts.incrementAndGet(indexOf(recorded));
+        this.sum.add(recorded);
+        this.maximum.accumulate(recorded);
+    }
+
+    /**
+     * Returns the snapshot of the recorded values. The snapshot taken while other
+     * threads are recording may miss some of their values.
+     *
+     * @return The snapshot
+     */
+    HistogramSnapshot snapshot() {
+
+        final long[] snapshot = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = this.counts.get(i);
+        }
+
+        return new HistogramSnapshot(snapshot, this.sum.sum(), this.maximum.get());
+    }
+
+    /**
+     * Returns the index of the bucket counting the value passed as an argument.
+     *
+     * @param value The non-negative value
+     * @return The index of the bucket
+     */
+    static int indexOf(long value) {
+
+        if (value < LINEAR_COUNT) {
+            return (int) value;
+        }
+
+        final long bounded = Math.min(value, MAXIMUM_VALUE);
+        final int exponent = 63 - Long.numberOfLeadingZeros(bounded);
+        final int subBucket = (int) (bounded >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+        return LINEAR_COUNT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the highest value counted by the bucket at the index passed as an
+     * argument.
+     *
+     * @param index The index of the bucket
+     * @return The highest value of the bucket
+     */
+    static long highestValueOf(int index) {
+
+        if (index < LINEAR_COUNT) {
+            return index;
+        }
+
+        final int exponent = (index - LINEAR_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS + 1;
+        final int subBucket = (index - LINEAR_COUNT) % SUB_BUCKET_COUNT;
+        final long width = 1L << (exponent - SUB_BUCKET_BITS);
+
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
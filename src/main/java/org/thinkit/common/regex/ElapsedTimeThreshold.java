@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.SettingControl;
+
+/**
+ * The setting of the {@link SlowMatchEvent} of {@link FlightRecorderSink} that
+ * filters out the events whose elapsed time is less than the threshold. The
+ * events are emitted after the operations they describe, so the built-in
+ * {@code threshold} setting, which compares the duration of an event, cannot
+ * filter them.
+ * <p>
+ * The value is a timespan such as {@code 20 ms} , and the smallest value is
+ * used if several recordings set it. The setting is named
+ * {@code elapsedTimeThreshold} , which can be set in a {@code .jfc} file or by
+ * {@link jdk.jfr.EventSettings#with(String, String)} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class ElapsedTimeThreshold extends SettingControl {
+
+    /**
+     * The default threshold
+     */
+    static final String DEFAULT_VALUE = "20 ms";
+
+    /**
+     * The threshold
+     */
+    private String value = DEFAULT_VALUE;
+
+    /**
+     * The threshold in nanoseconds
+     */
+    private volatile long nanos = parse(DEFAULT_VALUE);
+
+    /**
+     * Default constructor
+     */
+    ElapsedTimeThreshold() {
+    }
+
+    /**
+     * Tests if the elapsed time reaches the threshold.
+     *
+     * @param elapsedTime The elapsed time in nanoseconds
+     * @return {@code true} if the elapsed time reaches the threshold, otherwise
+     *         {@code false}
+     */
+    boolean accepts(long elapsedTime) {
+        return elapsedTime >= this.nanos;
+    }
+
+    @Override
+    public String combine(Set<String> values) {
+
+        String combined = DEFAULT_VALUE;
+        long minimum = Long.MAX_VALUE;
+
+        for (String value : values) {
+            final long nanos = parse(value);
+
+            if (nanos < minimum) {
+                combined = value;
+                minimum = nanos;
+            }
+        }
+
+        return combined;
+    }
+
+    @Override
+    public void setValue(String value) {
+        this.value = value;
+        this.nanos = parse(value);
+    }
+
+    @Override
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Returns the nanoseconds of the timespan such as {@code 20 ms} , or
+     * {@link Long#MAX_VALUE} if the timespan is not valid, which filters out all
+     * events.
+     *
+     * @param value The timespan
+     * @return The nanoseconds of the timespan
+     */
+    private static long parse(String value) {
+
+        final String[] parts = value.trim().split("\\s+");
+
+        if (parts.length != 2) {
+            return Long.MAX_VALUE;
+        }
+
+        final long amount;
+
+        try {
+            amount = Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+
+        switch (parts[1]) {
+            case "ns":
+                return amount;
+
+            case "us":
+                return TimeUnit.MICROSECONDS.toNanos(amount);
+
+            case "ms":
+                return TimeUnit.MILLISECONDS.toNanos(amount);
+
+            case "s":
+                return TimeUnit.SECONDS.toNanos(amount);
+
+            case "m":
+                return TimeUnit.MINUTES.toNanos(amount);
+
+            case "h":
+                return TimeUnit.HOURS.toNanos(amount);
+
+            case "d":
+                return TimeUnit.DAYS.toNanos(amount);
+
+            default:
+                return Long.MAX_VALUE;
+        }
+    }
+}
@@ -14,13 +14,22 @@
 
 package org.thinkit.common.regex;
 
+import java.nio.IntBuffer;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.thinkit.common.base.precondition.Preconditions;
+import org.thinkit.common.regex.catalog.BacktrackingPolicy;
+import org.thinkit.common.regex.catalog.MatchOperation;
+import org.thinkit.common.regex.catalog.RegexEngine;
 import org.thinkit.common.regex.catalog.RegexOption;
 import org.thinkit.common.regex.catalog.RegexPattern;
+import org.thinkit.common.regex.engine.Automaton;
 
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
@@ -42,7 +51,22 @@ import lombok.ToString;
  * For regular expression parsing, the {@link #find()} , {@link #lookingAt()}
  * and {@link #matches()} methods are provided. For strings matched in the
  * regular expression parsing process, you can use {@link #group()} method to
- * get the string within the range of the currently matched index.
+ * get the string within the range of the currently matched index. The indexes
+ * themselves are reported by {@link #start()} and {@link #end()} without
+ * allocating a string, and {@link #findAll(int[])} writes the indexes of many
+ * matches to an array at once. {@link #groupView()} returns a {@link MatchView}
+ * reading the matched characters from the input without copying them.
+ * <p>
+ * The pattern is run by the engine selected by {@link EpitaphPattern} , which
+ * can be inspected by {@link #getEngine()} or forced by
+ * {@link Builder#engine(RegexEngine)} . The results do not depend on the
+ * engine.
+ * <p>
+ * The compilation and the operations {@link #find()} , {@link #lookingAt()} ,
+ * {@link #matches()} , {@link #replaceFirst(String)} and
+ * {@link #replaceAll(String)} are reported to the sinks registered by
+ * {@link EpitaphMetrics#register(MetricsSink)} , such as
+ * {@link InMemoryMetricsSink} .
  *
  * <pre>
  * Specify the regex pattern as preset:
@@ -66,6 +90,18 @@ import lombok.ToString;
  * </code>
  * </pre>
  *
+ * <pre>
+ * Reuse the instance for each record in a loop:
+ * <code>
+ * Epitaph epitaph = Epitaph.builder().pattern(RegexPattern.EMAIL_ADDRESS).input("").build();
+ * for (String record : records) {
+ *     if (epitaph.reset(record).matches()) {
+ *         ...
+ *     }
+ * }
+ * </code>
+ * </pre>
+ *
  * @author Kato Shinya
  * @since 1.0.0
  */
@@ -74,14 +110,110 @@ import lombok.ToString;
 public final class Epitaph {
 
     /**
-     * The matcher
+     * The operation {@link #find()}
+     */
+    private static final int FIND = 0;
+
+    /**
+     * The operation {@link #lookingAt()}
+     */
+    private static final int LOOKING_AT = 1;
+
+    /**
+     * The operation {@link #matches()}
+     */
+    private static final int MATCHES = 2;
+
+    /**
+     * The compiled pattern
+     */
+    private final EpitaphPattern epitaphPattern;
+
+    /**
+     * The matcher, which also holds the region and the matching state when the
+     * automaton is not used
+     */
+    private final Matcher matcher;
+
+    /**
+     * The automaton of the compiled pattern, or {@code null}
+     */
+    @ToString.Exclude
+    private final Automaton automaton;
+
+    /**
+     * The slots of the previous match and its groups
+     */
+    @ToString.Exclude
+    private final int[] slots;
+
+    /**
+     * The input
+     */
+    @ToString.Exclude
+    private CharSequence input;
+
+    /**
+     * The input read by the engines, which enforces the budget of the pattern and
+     * is rearmed at the start of each match operation
+     */
+    @ToString.Exclude
+    private CharSequence guardedInput;
+
+    /**
+     * The start index of the previous match, or {@code -1} if the previous match
+     * operation failed
+     */
+    @ToString.Exclude
+    private int first;
+
+    /**
+     * The end index of the previous match
+     */
+    @ToString.Exclude
+    private int last;
+
+    /**
+     * Whether the matching state is held by this instance using the automaton
+     * instead of the matcher
+     */
+    @ToString.Exclude
+    private boolean automatonEnabled;
+
+    /**
+     * Whether the slots hold the groups of the previous match
+     */
+    @ToString.Exclude
+    private boolean captured;
+
+    /**
+     * The operation of the previous match
+     */
+    @ToString.Exclude
+    private int operation;
+
+    /**
+     * The index at which the previous match operation started
      */
-    private Matcher matcher;
+    @ToString.Exclude
+    private int from;
 
     /**
-     * Default constructor
+     * Constructor
+     *
+     * @param epitaphPattern The compiled pattern
+     * @param input          The input
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
      */
-    private Epitaph() {
+    Epitaph(@NonNull EpitaphPattern epitaphPattern, @NonNull CharSequence input) {
+        this.epitaphPattern = epitaphPattern;
+        this.guardedInput = epitaphPattern.guard(input);
+        this.matcher = epitaphPattern.getPattern().matcher(this.guardedInput);
+        this.automaton = epitaphPattern.getAutomaton();
+        this.slots = new int[(this.matcher.groupCount() + 1) * 2];
+        this.input = input;
+        this.resetState();
     }
 
     /**
@@ -99,20 +231,15 @@ public final class Epitaph {
     public static class Builder {
 
         /**
-         * The regex pattern
+         * The builder of the compiled pattern
          */
-        private String regexPattern;
+        private final EpitaphPattern.Builder patternBuilder = EpitaphPattern.builder();
 
         /**
          * The input
          */
         private CharSequence input;
 
-        /**
-         * The regex option set
-         */
-        private EnumSet<RegexOption> regexOptionSet = EnumSet.noneOf(RegexOption.class);
-
         /**
          * Defalut constructor
          */
@@ -128,7 +255,8 @@ public final class Epitaph {
          * @exception NullPointerException If {@code null} is passed as an argument
          */
         public Builder pattern(@NonNull RegexPattern regexPattern) {
-            return this.pattern(regexPattern.getTag());
+            this.patternBuilder.pattern(regexPattern);
+            return this;
         }
 
         /**
@@ -140,7 +268,7 @@ public final class Epitaph {
          * @exception NullPointerException If {@code null} is passed as an argument
          */
         public Builder pattern(@NonNull String regexPattern) {
-            this.regexPattern = regexPattern;
+            this.patternBuilder.pattern(regexPattern);
             return this;
         }
 
@@ -166,50 +294,130 @@ public final class Epitaph {
          * @exception NullPointerException If {@code null} is passed as an argument
          */
         public Builder option(@NonNull EnumSet<RegexOption> regexOptionSet) {
-            this.regexOptionSet = regexOptionSet;
+            this.patternBuilder.option(regexOptionSet);
             return this;
         }
 
         /**
-         * Returns the new instance of {@link Epitaph} .
+         * Sets the cache of compiled patterns. The cache returned by
+         * {@link PatternCache#getDefault()} is used if this method is not called, and
+         * caching can be disabled by passing {@link PatternCache#disabled()} .
+         * <p>
+         * Presets specified by {@link #pattern(RegexPattern)} are not cached since
+         * they hold their own compiled patterns.
          *
-         * @return The new instance of {@link Epitaph}
+         * @param patternCache The pattern cache
+         * @return The instance of {@link Builder}
          *
-         * @exception IllegalStateException If {@link #pattern(RegexPattern)} or
-         *                                  {@link #input(CharSequence)} is not called
+         * @exception NullPointerException If {@code null} is passed as an argument
          */
-        public Epitaph build() {
-            Preconditions.requireNonNull(this.regexPattern, new IllegalStateException("The regex pattern is required"));
-            Preconditions.requireNonNull(this.input, new IllegalStateException("The input is required"));
-
-            final Epitaph epitaph = new Epitaph();
+        public Builder cache(@NonNull PatternCache patternCache) {
+            this.patternBuilder.cache(patternCache);
+            return this;
+        }
 
-            if (this.regexOptionSet.isEmpty()) {
-                epitaph.matcher = Pattern.compile(this.regexPattern).matcher(this.input);
-            } else {
-                epitaph.matcher = Pattern.compile(this.regexPattern, this.getRegexOption()).matcher(this.input);
-            }
+        /**
+         * Sets the engine running the pattern. The engine is selected automatically
+         * if this method is not called.
+         *
+         * @param engine The engine
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         * @see EpitaphPattern.Builder#engine(RegexEngine)
+         */
+        public Builder engine(@NonNull RegexEngine engine) {
+            this.patternBuilder.engine(engine);
+            return this;
+        }
 
-            return epitaph;
+        /**
+         * Sets the maximum number of characters of the input a match operation reads
+         * before it throws {@link MatchBudgetExceededException} .
+         *
+         * @param stepBudget The maximum number of characters read
+         * @return The instance of {@link Builder}
+         *
+         * @exception IllegalArgumentException If the step budget is not positive
+         * @see EpitaphPattern.Builder#stepBudget(long)
+         */
+        public Builder stepBudget(long stepBudget) {
+            this.patternBuilder.stepBudget(stepBudget);
+            return this;
         }
 
         /**
-         * Return the total of the regex options that were set.
+         * Sets the maximum time a match operation runs before it throws
+         * {@link MatchBudgetExceededException} .
          *
-         * @return The total of the regex options
+         * @param timeout The maximum time of an operation
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException     If {@code null} is passed as an
+         *                                     argument
+         * @exception IllegalArgumentException If the timeout is not positive
+         * @see EpitaphPattern.Builder#timeout(Duration)
          */
-        private int getRegexOption() {
+        public Builder timeout(@NonNull Duration timeout) {
+            this.patternBuilder.timeout(timeout);
+            return this;
+        }
 
-            int regexOption = 0;
+        /**
+         * Sets the policy for the patterns that {@link RegexEngine#JDK} may match in
+         * more than linear time.
+         *
+         * @param backtrackingPolicy The policy
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         * @see EpitaphPattern.Builder#backtrackingPolicy(BacktrackingPolicy)
+         */
+        public Builder backtrackingPolicy(@NonNull BacktrackingPolicy backtrackingPolicy) {
+            this.patternBuilder.backtrackingPolicy(backtrackingPolicy);
+            return this;
+        }
 
-            for (RegexOption option : this.regexOptionSet) {
-                regexOption |= option.getTag();
-            }
+        /**
+         * Returns the new instance of {@link Epitaph} .
+         *
+         * @return The new instance of {@link Epitaph}
+         *
+         * @exception IllegalStateException If {@link #pattern(RegexPattern)} or
+         *                                  {@link #input(CharSequence)} is not
+         *                                  called, if the pattern cannot be run by
+         *                                  the engine set by
+         *                                  {@link #engine(RegexEngine)} , or if the
+         *                                  pattern is rejected by the policy set by
+         *                                  {@link #backtrackingPolicy(BacktrackingPolicy)}
+         */
+        public Epitaph build() {
+            final EpitaphPattern epitaphPattern = this.patternBuilder.build();
+            Preconditions.requireNonNull(this.input, new IllegalStateException("The input is required"));
 
-            return regexOption;
+            return new Epitaph(epitaphPattern, this.input);
         }
     }
 
+    /**
+     * Returns the compiled pattern of this instance, which can be shared between
+     * threads.
+     *
+     * @return The compiled pattern
+     */
+    public EpitaphPattern pattern() {
+        return this.epitaphPattern;
+    }
+
+    /**
+     * Returns the engine running the pattern of this instance.
+     *
+     * @return The engine
+     */
+    public RegexEngine getEngine() {
+        return this.epitaphPattern.getEngine();
+    }
+
     /**
      * Attempts to find the next subsequence of the input sequence that matches the
      * pattern.
@@ -228,7 +436,9 @@ public final class Epitaph {
      *         matches this matcher's pattern
      */
     public boolean find() {
-        return this.matcher.find();
+        final long start = EpitaphMetrics.start();
+        return EpitaphMetrics.recordMatch(start, this.epitaphPattern.getRegexPattern(), MatchOperation.FIND,
+                this.input.length(), this.findNext());
     }
 
     /**
@@ -249,7 +459,9 @@ public final class Epitaph {
      *         this matcher's pattern
      */
     public boolean lookingAt() {
-        return this.matcher.lookingAt();
+        final long start = EpitaphMetrics.start();
+        return EpitaphMetrics.recordMatch(start, this.epitaphPattern.getRegexPattern(), MatchOperation.LOOKING_AT,
+                this.input.length(), this.matchPrefix());
     }
 
     /**
@@ -264,7 +476,9 @@ public final class Epitaph {
      *         matcher's pattern
      */
     public boolean matches() {
-        return this.matcher.matches();
+        final long start = EpitaphMetrics.start();
+        return EpitaphMetrics.recordMatch(start, this.epitaphPattern.getRegexPattern(), MatchOperation.MATCHES,
+                this.input.length(), this.matchRegion());
     }
 
     /**
@@ -305,7 +519,7 @@ public final class Epitaph {
      * @exception NullPointerException If {@code null} is passed as an argument
      */
     public String replaceFirst(@NonNull String replacement) {
-        return this.matcher.replaceFirst(replacement);
+        return this.replace(replacement, MatchOperation.REPLACE_FIRST);
     }
 
     /**
@@ -346,7 +560,192 @@ public final class Epitaph {
      * @exception NullPointerException If {@code null} is passed as an argument
      */
     public String replaceAll(@NonNull String replacement) {
-        return this.matcher.replaceAll(replacement);
+        return this.replace(replacement, MatchOperation.REPLACE_ALL);
+    }
+
+    /**
+     * Returns the start index of the previous match. Unlike {@link #group()} ,
+     * this method allocates nothing.
+     *
+     * @return The index of the first character matched
+     * @throws IllegalStateException If no match has yet been attempted, or if the
+     *                               previous match operation failed
+     */
+    public int start() {
+
+        if (!this.automatonEnabled) {
+            return this.matcher.start();
+        }
+
+        this.requireMatch();
+
+        return this.first;
+    }
+
+    /**
+     * Returns the start index of the subsequence captured by the given group
+     * during the previous match operation.
+     * <p>
+     * Capturing groups are indexed from left to right, starting at one. Group zero
+     * denotes the entire pattern, so the expression {@code m.start(0)} is
+     * equivalent to {@code m.start()}.
+     * </p>
+     *
+     * @param group The index of a capturing group in this matcher's pattern
+     * @return The index of the first character captured by the group, or
+     *         {@code -1} if the match was successful but the group itself did not
+     *         match anything
+     * @throws IllegalStateException     If no match has yet been attempted, or if
+     *                                   the previous match operation failed
+     * @throws IndexOutOfBoundsException If there is no capturing group in the
+     *                                   pattern with the given index
+     */
+    public int start(int group) {
+
+        if (!this.automatonEnabled) {
+            return this.matcher.start(group);
+        }
+
+        this.requireGroup(group);
+
+        return this.slots[group * 2];
+    }
+
+    /**
+     * Returns the offset after the last character matched. Unlike
+     * {@link #group()} , this method allocates nothing.
+     *
+     * @return The offset after the last character matched
+     * @throws IllegalStateException If no match has yet been attempted, or if the
+     *                               previous match operation failed
+     */
+    public int end() {
+
+        if (!this.automatonEnabled) {
+            return this.matcher.end();
+        }
+
+        this.requireMatch();
+
+        return this.last;
+    }
+
+    /**
+     * Returns the offset after the last character of the subsequence captured by
+     * the given group during the previous match operation.
+     * <p>
+     * Capturing groups are indexed from left to right, starting at one. Group zero
+     * denotes the entire pattern, so the expression {@code m.end(0)} is
+     * equivalent to {@code m.end()}.
+     * </p>
+     *
+     * @param group The index of a capturing group in this matcher's pattern
+     * @return The offset after the last character captured by the group, or
+     *         {@code -1} if the match was successful but the group itself did not
+     *         match anything
+     * @throws IllegalStateException     If no match has yet been attempted, or if
+     *                                   the previous match operation failed
+     * @throws IndexOutOfBoundsException If there is no capturing group in the
+     *                                   pattern with the given index
+     */
+    public int end(int group) {
+
+        if (!this.automatonEnabled) {
+            return this.matcher.end(group);
+        }
+
+        this.requireGroup(group);
+
+        return this.slots[group * 2 + 1];
+    }
+
+    /**
+     * Returns the number of capturing groups in this instance's pattern.
+     * <p>
+     * Group zero denotes the entire pattern by convention. It is not included in
+     * this count.
+     * </p>
+     *
+     * @return The number of capturing groups in this instance's pattern
+     */
+    public int groupCount() {
+        return this.matcher.groupCount();
+    }
+
+    /**
+     * Finds the next matches one after another as repeated calls of
+     * {@link #find()} would, and writes their start and end indexes in pairs to
+     * the array from its beginning until the array is full or no more match is
+     * found. Nothing is allocated per match, so a whole input can be scanned
+     * with a single array by calling this method until it returns zero. The last
+     * match written is the previous match of this instance, and the next call
+     * continues after it.
+     *
+     * @param offsets The array to write the start and end indexes of the matches
+     *                to in pairs
+     * @return The number of the matches written
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public int findAll(@NonNull int[] offsets) {
+
+        int count = 0;
+
+        while (count * 2 + 1 < offsets.length && this.find()) {
+            offsets[count * 2] = this.start();
+            offsets[count * 2 + 1] = this.end();
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Finds the next matches one after another as repeated calls of
+     * {@link #find()} would, and puts their start and end indexes in pairs to the
+     * buffer until fewer than two elements remain or no more match is found.
+     * Nothing is allocated per match, and the next call continues after the last
+     * match put to the buffer.
+     *
+     * @param offsets The buffer to put the start and end indexes of the matches to
+     *                in pairs
+     * @return The number of the matches put
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public int findAll(@NonNull IntBuffer offsets) {
+
+        int count = 0;
+
+        while (offsets.remaining() >= 2 && this.find()) {
+            offsets.put(this.start()).put(this.end());
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the lazy stream of the matches in the region of this instance,
+     * which are those found by repeated calls of {@link #find()} after
+     * {@link #reset()} . Each match is searched for only when the stream asks for
+     * it, and the groups of a match are determined on the first call asking for
+     * them.
+     * <p>
+     * Unlike {@link Matcher#results()} , the stream always starts at the
+     * beginning of the region and does not change the matching state of this
+     * instance, so it can be consumed in parallel and alongside other match
+     * operations.
+     * </p>
+     *
+     * @return The stream of the matches ordered by the start index
+     * @see EpitaphPattern#results(CharSequence)
+     */
+    public Stream<MatchResult> results() {
+        return StreamSupport.stream(
+                new MatchSpliterator(this.epitaphPattern, this.input, this.matcher.regionStart(),
+                        this.matcher.regionEnd()),
+                false);
     }
 
     /**
@@ -372,6 +771,458 @@ public final class Epitaph {
      *                               previous match operation failed
      */
     public String group() {
-        return this.matcher.group();
+
+        if (!this.automatonEnabled) {
+            return this.matcher.group();
+        }
+
+        this.requireMatch();
+
+        return this.slots[0] < 0 ? null : this.input.subSequence(this.slots[0], this.slots[1]).toString();
+    }
+
+    /**
+     * Returns the input subsequence captured by the given group during the
+     * previous match operation.
+     *
+     * <p>
+     * For a matcher <i>m</i>, input sequence <i>s</i>, and group index <i>g</i>,
+     * the expressions <i>m.</i>{@code group(}<i>g</i>{@code )} and
+     * <i>s.</i>{@code substring(}<i>m.</i>{@code start(}<i>g</i>{@code
+     * ),}&nbsp;<i>m.</i>{@code end(}<i>g</i>{@code ))} are equivalent.
+     * </p>
+     *
+     * <p>
+     * Capturing groups are indexed from left to right, starting at one. Group zero
+     * denotes the entire pattern, so the expression {@code m.group(0)} is
+     * equivalent to {@code m.group()}.
+     * </p>
+     *
+     * <p>
+     * If the match was successful but the group specified failed to match any part
+     * of the input sequence, then {@code null} is returned. When the match was
+     * found by a deterministic automaton, which does not determine the groups,
+     * the groups are determined by the matcher on the first call of this method
+     * after the match.
+     * </p>
+     *
+     * @param group The index of a capturing group in this matcher's pattern
+     * @return The (possibly empty) subsequence captured by the group during the
+     *         previous match, or {@code null} if the group failed to match part of
+     *         the input
+     *
+     * @throws IllegalStateException     If no match has yet been attempted, or if
+     *                                   the previous match operation failed
+     * @throws IndexOutOfBoundsException If there is no capturing group in the
+     *                                   pattern with the given index
+     */
+    public String group(int group) {
+
+        if (!this.automatonEnabled) {
+            return this.matcher.group(group);
+        }
+
+        this.requireGroup(group);
+
+        return this.slots[group * 2] < 0 ? null
+                : this.input.subSequence(this.slots[group * 2], this.slots[group * 2 + 1]).toString();
+    }
+
+    /**
+     * Returns the view of the input subsequence matched by the previous match,
+     * which reads the characters of the input instead of copying them as
+     * {@link #group()} does.
+     *
+     * @return The view of the subsequence matched by the previous match
+     * @throws IllegalStateException If no match has yet been attempted, or if the
+     *                               previous match operation failed
+     */
+    public CharSequence groupView() {
+        return this.groupView(0);
+    }
+
+    /**
+     * Returns the view of the input subsequence captured by the given group
+     * during the previous match operation, which reads the characters of the
+     * input instead of copying them as {@link #group(int)} does.
+     *
+     * @param group The index of a capturing group in this matcher's pattern
+     * @return The view of the subsequence captured by the group during the
+     *         previous match, or {@code null} if the group failed to match part of
+     *         the input
+     * @throws IllegalStateException     If no match has yet been attempted, or if
+     *                                   the previous match operation failed
+     * @throws IndexOutOfBoundsException If there is no capturing group in the
+     *                                   pattern with the given index
+     */
+    public CharSequence groupView(int group) {
+
+        final int start = this.start(group);
+
+        return start < 0 ? null : new MatchView(this.input, start, this.end(group));
+    }
+
+    /**
+     * Moves the view to the input subsequence matched by the previous match.
+     * Reusing a single view for all matches allocates nothing per match.
+     *
+     * @param view The view to move
+     * @return The view passed as an argument
+     * @throws IllegalStateException If no match has yet been attempted, or if the
+     *                               previous match operation failed
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public MatchView groupView(@NonNull MatchView view) {
+        return this.groupView(0, view);
+    }
+
+    /**
+     * Moves the view to the input subsequence captured by the given group during
+     * the previous match operation. Reusing a single view for all matches
+     * allocates nothing per match.
+     *
+     * @param group The index of a capturing group in this matcher's pattern
+     * @param view  The view to move
+     * @return The view passed as an argument, or {@code null} if the group failed
+     *         to match part of the input, in which case the view is not moved
+     * @throws IllegalStateException     If no match has yet been attempted, or if
+     *                                   the previous match operation failed
+     * @throws IndexOutOfBoundsException If there is no capturing group in the
+     *                                   pattern with the given index
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public MatchView groupView(int group, @NonNull MatchView view) {
+
+        final int start = this.start(group);
+
+        return start < 0 ? null : view.set(this.input, start, this.end(group));
+    }
+
+    /**
+     * Resets this instance.
+     *
+     * <p>
+     * Resetting discards its explicit state information and sets its append
+     * position to zero. The region is set to the default region, which is its
+     * entire input sequence.
+     * </p>
+     *
+     * @return This instance
+     */
+    public Epitaph reset() {
+        this.matcher.reset();
+        this.resetState();
+        return this;
+    }
+
+    /**
+     * Resets this instance with a new input sequence.
+     *
+     * <p>
+     * Resetting discards its explicit state information and sets its append
+     * position to zero. The region is set to the default region, which is the
+     * entire new input sequence. The compiled pattern is reused as is, so this
+     * method allocates nothing and is suitable for validating many inputs in a
+     * loop.
+     * </p>
+     *
+     * @param input The new input sequence
+     * @return This instance
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public Epitaph reset(@NonNull CharSequence input) {
+        this.guardedInput = this.epitaphPattern.guard(input);
+        this.matcher.reset(this.guardedInput);
+        this.input = input;
+        this.resetState();
+        return this;
+    }
+
+    /**
+     * Sets the limits of this instance's region. The region is the part of the
+     * input sequence that will be searched to find a match. Invoking this method
+     * resets this instance, and then sets the region to start at the index
+     * specified by the {@code start} parameter and end at the index specified by
+     * the {@code end} parameter.
+     *
+     * @param start The index to start searching at (inclusive)
+     * @param end   The index to end searching at (exclusive)
+     * @return This instance
+     *
+     * @throws IndexOutOfBoundsException If start or end is less than zero, if
+     *                                   start is greater than the length of the
+     *                                   input sequence, if end is greater than the
+     *                                   length of the input sequence, or if start
+     *                                   is greater than end.
+     */
+    public Epitaph region(int start, int end) {
+        this.matcher.region(start, end);
+        this.resetState();
+        return this;
+    }
+
+    /**
+     * Reports the start index of this instance's region. The searches this
+     * instance conducts are limited to finding matches within
+     * {@link #regionStart() regionStart} (inclusive) and {@link #regionEnd()
+     * regionEnd} (exclusive).
+     *
+     * @return The starting point of this instance's region
+     */
+    public int regionStart() {
+        return this.matcher.regionStart();
+    }
+
+    /**
+     * Reports the end index (exclusive) of this instance's region. The searches
+     * this instance conducts are limited to finding matches within
+     * {@link #regionStart() regionStart} (inclusive) and {@link #regionEnd()
+     * regionEnd} (exclusive).
+     *
+     * @return The ending point of this instance's region
+     */
+    public int regionEnd() {
+        return this.matcher.regionEnd();
+    }
+
+    /**
+     * Checks that the previous match operation held by this instance succeeded.
+     *
+     * @throws IllegalStateException If no match has yet been attempted, or if the
+     *                               previous match operation failed
+     */
+    private void requireMatch() {
+        if (this.first < 0) {
+            throw new IllegalStateException("No match found");
+        }
+    }
+
+    /**
+     * Checks that the previous match operation held by this instance succeeded
+     * and that the group exists, and determines the groups of the match if they
+     * have not been determined. The bounds of the whole match are always known
+     * after a match, so group {@code 0} never determines the groups.
+     *
+     * @param group The index of a capturing group
+     * @throws IllegalStateException     If no match has yet been attempted, or if
+     *                                   the previous match operation failed
+     * @throws IndexOutOfBoundsException If there is no capturing group in the
+     *                                   pattern with the given index
+     */
+    private void requireGroup(int group) {
+
+        this.requireMatch();
+
+        if (group < 0 || group > this.matcher.groupCount()) {
+            throw new IndexOutOfBoundsException("No group " + group);
+        }
+
+        if (group > 0 && !this.captured) {
+            this.capture();
+        }
+    }
+
+    /**
+     * Discards the matching state held by this instance, and enables the
+     * automaton unless the end of the region splits a surrogate pair.
+     */
+    private void resetState() {
+        this.first = -1;
+        this.last = 0;
+        Arrays.fill(this.slots, -1);
+        this.captured = true;
+        this.automatonEnabled = this.automaton != null
+                && !Automaton.splitsSurrogatePair(this.input, this.matcher.regionEnd());
+    }
+
+    /**
+     * Determines the groups of the previous match by repeating the match
+     * operation with the matcher from the index at which it started, so that the
+     * groups are exactly those reported by {@link Matcher} .
+     */
+    private void capture() {
+
+        final int regionStart = this.matcher.regionStart();
+        final int regionEnd = this.matcher.regionEnd();
+        this.matcher.region(this.from, regionEnd);
+        this.rearm();
+
+        final boolean matched;
+
+        switch (this.operation) {
+            case FIND:
+                matched = this.matcher.find();
+                break;
+
+            case LOOKING_AT:
+                matched = this.matcher.lookingAt();
+                break;
+
+            default:
+                matched = this.matcher.matches();
+                break;
+        }
+
+        if (matched) {
+            for (int group = 1; group <= this.matcher.groupCount(); group++) {
+                this.slots[group * 2] = this.matcher.start(group);
+                this.slots[group * 2 + 1] = this.matcher.end(group);
+            }
+        }
+
+        this.matcher.region(regionStart, regionEnd);
+        this.captured = true;
+    }
+
+    /**
+     * Starts a new match operation on the input, so that the budget of the
+     * pattern applies to each operation rather than to all operations on the
+     * input.
+     *
+     */
+    private void rearm() {
+        BudgetedCharSequence.rearm(this.guardedInput);
+    }
+
+    /**
+     * Replaces the first or every subsequence of the input that matches the
+     * pattern with the replacement string as {@link Matcher#replaceFirst(String)}
+     * and {@link Matcher#replaceAll(String)} do, and reports whether any
+     * subsequence matched to {@link EpitaphMetrics} . The characters copied to
+     * the result are not counted against the budget of the pattern.
+     *
+     * @param replacement The replacement string
+     * @param operation   {@link MatchOperation#REPLACE_FIRST} or
+     *                    {@link MatchOperation#REPLACE_ALL}
+     * @return The string constructed by replacing the matching subsequences by
+     *         the replacement string
+     */
+    private String replace(String replacement, MatchOperation operation) {
+        this.automatonEnabled = false;
+
+        final long start = EpitaphMetrics.start();
+        this.matcher.reset();
+        this.rearm();
+
+        final boolean matched = this.matcher.find();
+        final String result;
+
+        if (matched) {
+            final StringBuilder builder = new StringBuilder();
+
+            do {
+                BudgetedCharSequence.suspend(this.guardedInput);
+                this.matcher.appendReplacement(builder, replacement);
+                BudgetedCharSequence.resume(this.guardedInput);
+            } while (operation == MatchOperation.REPLACE_ALL && this.matcher.find());
+
+            BudgetedCharSequence.suspend(this.guardedInput);
+            result = this.matcher.appendTail(builder).toString();
+        } else {
+            result = this.input.toString();
+        }
+
+        if (start != EpitaphMetrics.DISABLED) {
+            EpitaphMetrics.recordMatch(start, this.epitaphPattern.getRegexPattern(), operation, this.input.length(),
+                    matched);
+        }
+
+        return result;
+    }
+
+    /**
+     * Attempts to find the next subsequence of the input that matches the pattern.
+     *
+     * @return {@code true} if, and only if, the match succeeds
+     */
+    private boolean findNext() {
+
+        this.rearm();
+
+        if (!this.automatonEnabled) {
+            return this.matcher.find();
+        }
+
+        int from = this.last == this.first ? this.last + 1 : this.last;
+
+        if (from < this.matcher.regionStart()) {
+            from = this.matcher.regionStart();
+        }
+
+        if (from > this.matcher.regionEnd()) {
+            Arrays.fill(this.slots, -1);
+            this.captured = true;
+            return false;
+        }
+
+        this.operation = FIND;
+        this.from = from;
+
+        return this.updateState(this.automaton.find(this.guardedInput, from, this.matcher.regionEnd(), this.slots));
+    }
+
+    /**
+     * Attempts to match the region, starting at its beginning, against the pattern.
+     *
+     * @return {@code true} if, and only if, the match succeeds
+     */
+    private boolean matchPrefix() {
+
+        this.rearm();
+
+        if (!this.automatonEnabled) {
+            return this.matcher.lookingAt();
+        }
+
+        this.operation = LOOKING_AT;
+        this.from = this.matcher.regionStart();
+
+        return this.updateState(this.automaton.lookingAt(this.guardedInput, this.matcher.regionStart(),
+                this.matcher.regionEnd(), this.slots));
+    }
+
+    /**
+     * Attempts to match the entire region against the pattern.
+     *
+     * @return {@code true} if, and only if, the match succeeds
+     */
+    private boolean matchRegion() {
+
+        this.rearm();
+
+        if (!this.automatonEnabled) {
+            return this.matcher.matches();
+        }
+
+        this.operation = MATCHES;
+        this.from = this.matcher.regionStart();
+
+        return this.updateState(
+                this.automaton.matches(this.guardedInput, this.matcher.regionStart(), this.matcher.regionEnd(),
+                        this.slots));
+    }
+
+    /**
+     * Updates the matching state held by this instance with the result of the
+     * automaton.
+     *
+     * @param matched Whether the automaton found a match, in which case the match
+     *                is stored in the slots
+     * @return {@code matched}
+     */
+    private boolean updateState(boolean matched) {
+
+        if (matched) {
+            this.first = this.slots[0];
+            this.last = this.slots[1];
+            this.captured = this.automaton.isCapturing();
+        } else {
+            this.first = -1;
+        }
+
+        return matched;
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.ToString;
+
+/**
+ * The immutable {@link MatchResult} of
+ * {@link EpitaphPattern#results(CharSequence)} . The match itself is held as
+ * its indexes, and the groups of a match found by a deterministic automaton,
+ * which does not determine them, are determined by {@link Matcher} on the
+ * first call of a method asking for them, so that a result whose groups are
+ * not asked for costs nothing more than its indexes.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString
+final class EpitaphMatchResult implements MatchResult {
+
+    /**
+     * The pattern
+     */
+    @ToString.Exclude
+    private final Pattern pattern;
+
+    /**
+     * The input
+     */
+    @ToString.Exclude
+    private final CharSequence input;
+
+    /**
+     * The end index of the range searched for the match
+     */
+    private final int regionEnd;
+
+    /**
+     * The number of capturing groups of the pattern
+     */
+    private final int groupCount;
+
+    /**
+     * The start index of the match
+     */
+    private final int start;
+
+    /**
+     * The end index of the match
+     */
+    private final int end;
+
+    /**
+     * The slots of the match and its groups, or {@code null} until the groups are
+     * determined
+     */
+    @ToString.Exclude
+    private volatile int[] slots;
+
+    /**
+     * Constructor
+     *
+     * @param pattern    The pattern
+     * @param input      The input
+     * @param regionEnd  The end index of the range searched for the match
+     * @param groupCount The number of capturing groups of the pattern
+     * @param slots      The slots of the match, which also hold its groups if
+     *                   they have as many elements as the pattern has groups
+     */
+    EpitaphMatchResult(Pattern pattern, CharSequence input, int regionEnd, int groupCount, int[] slots) {
+        this.pattern = pattern;
+        this.input = input;
+        this.regionEnd = regionEnd;
+        this.groupCount = groupCount;
+        this.start = slots[0];
+        this.end = slots[1];
+        this.slots = slots.length == (groupCount + 1) * 2 ? slots : null;
+    }
+
+    @Override
+    public int start() {
+        return this.start;
+    }
+
+    @Override
+    public int start(int group) {
+        return this.getSlots(group)[group * 2];
+    }
+
+    @Override
+    public int end() {
+        return this.end;
+    }
+
+    @Override
+    public int end(int group) {
+        return this.getSlots(group)[group * 2 + 1];
+    }
+
+    @Override
+    public String group() {
+        return this.input.subSequence(this.start, this.end).toString();
+    }
+
+    @Override
+    public String group(int group) {
+
+        final int[] slots = this.getSlots(group);
+
+        return slots[group * 2] < 0 ? null
+                : this.input.subSequence(slots[group * 2], slots[group * 2 + 1]).toString();
+    }
+
+    @Override
+    public int groupCount() {
+        return this.groupCount;
+    }
+
+    /**
+     * Returns the slots of the match and its groups, determining the groups on
+     * first use.
+     *
+     * @param group The index of the group asked for
+     * @return The slots
+     *
+     * @exception IndexOutOfBoundsException If there is no capturing group in the
+     *                                      pattern with the given index
+     */
+    private int[] getSlots(int group) {
+
+        if (group < 0 || group > this.groupCount) {
+            throw new IndexOutOfBoundsException("No group " + group);
+        }
+
+        int[] slots = this.slots;
+
+        if (slots == null) {
+            slots = new int[(this.groupCount + 1) * 2];
+            slots[0] = this.start;
+            slots[1] = this.end;
+
+            final Matcher matcher = this.pattern.matcher(this.input).region(this.start, this.regionEnd);
+
+            if (matcher.lookingAt()) {
+                for (int i = 1; i <= this.groupCount; i++) {
+                    slots[i * 2] = matcher.start(i);
+                    slots[i * 2 + 1] = matcher.end(i);
+                }
+            }
+
+            this.slots = slots;
+        }
+
+        return slots;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import java.util.Arrays;
+
+import org.thinkit.common.regex.catalog.MatchOperation;
+
+import lombok.NonNull;
+
+/**
+ * The registry of the {@link MetricsSink} that the compilation and the match
+ * operations of {@link Epitaph} and {@link EpitaphPattern} are reported to.
+ * <p>
+ * No sink is registered by default, in which case an operation only reads a
+ * volatile field and neither reads the clock nor calls any sink. The sinks are
+ * held in an array copied on registration, so an operation reads them without
+ * locking.
+ *
+ * <pre>
+ * Scrape the metrics of the patterns:
+ * <code>
+ * InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+ * EpitaphMetrics.register(metricsSink);
+ * Epitaph.builder().pattern(RegexPattern.EMAIL_ADDRESS).input("test@gmail.com").build().matches();
+ * metricsSink.getMetrics(RegexPattern.EMAIL_ADDRESS.getTag()).getOperation(MatchOperation.MATCHES).getMatchRatio();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class EpitaphMetrics {
+
+    /**
+     * The start time returned while no sink is registered
+     */
+    static final long DISABLED = Long.MIN_VALUE;
+
+    /**
+     * The empty array of sinks
+     */
+    private static final MetricsSink[] NO_SINKS = new MetricsSink[0];
+
+    /**
+     * The registered sinks
+     */
+    private static volatile MetricsSink[] sinks = NO_SINKS;
+
+    /**
+     * Default constructor
+     */
+    private EpitaphMetrics() {
+    }
+
+    /**
+     * Registers the sink passed as an argument. A sink already registered is not
+     * registered twice.
+     *
+     * @param metricsSink The sink
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public static synchronized void register(@NonNull MetricsSink metricsSink) {
+
+        if (Arrays.asList(sinks).contains(metricsSink)) {
+            return;
+        }
+
+        final MetricsSink[] registered = Arrays.copyOf(sinks, sinks.length + 1);
+        registered[sinks.length] = metricsSink;
+        sinks = registered;
+    }
+
+    /**
+     * Unregisters the sink passed as an argument. Nothing happens if the sink is
+     * not registered.
+     *
+     * @param metricsSink The sink
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public static synchronized void unregister(@NonNull MetricsSink metricsSink) {
+        sinks = Arrays.stream(sinks).filter(sink -> sink != metricsSink).toArray(MetricsSink[]::new);
+    }
+
+    /**
+     * Tests if any sink is registered.
+     *
+     * @return {@code true} if any sink is registered, otherwise {@code false}
+     */
+    public static boolean isEnabled() {
+        return sinks.length > 0;
+    }
+
+    /**
+     * Returns the start time of an operation to be passed to
+     * {@link #recordCompile(long, String, int, boolean)} or
+     * {@link #recordMatch(long, String, MatchOperation, int, boolean)} .
+     *
+     * @return The current value of {@link System#nanoTime()} , or
+     *         {@link #DISABLED} if no sink is registered
+     */
+    static long start() {
+        return sinks.length == 0 ? DISABLED : System.nanoTime();
+    }
+
+    /**
+     * Reports the lookup of the compiled pattern started at the time passed as an
+     * argument to the registered sinks.
+     *
+     * @param start        The start time returned by {@link #start()}
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @param cacheHit     {@code true} if the compiled pattern was cached,
+     *                     otherwise {@code false}
+     */
+    static void recordCompile(long start, String regexPattern, int flags, boolean cacheHit) {
+
+        if (start == DISABLED) {
+            return;
+        }
+
+        final long nanos = System.nanoTime() - start;
+
+        for (MetricsSink metricsSink : sinks) {
+            metricsSink.recordCompile(regexPattern, flags, nanos, cacheHit);
+        }
+    }
+
+    /**
+     * Reports the match operation started at the time passed as an argument to
+     * the registered sinks, and returns its result so that the operation can
+     * return it as is.
+     *
+     * @param start        The start time returned by {@link #start()}
+     * @param regexPattern The regex pattern
+     * @param operation    The operation
+     * @param inputLength  The length of the input
+     * @param matched      {@code true} if the operation found a match, otherwise
+     *                     {@code false}
+     * @return The result of the operation
+     */
+    static boolean recordMatch(long start, String regexPattern, MatchOperation operation, int inputLength,
+            boolean matched) {
+
+        if (start == DISABLED) {
+            return matched;
+        }
+
+        final long nanos = System.nanoTime() - start;
+
+        for (MetricsSink metricsSink : sinks) {
+            metricsSink.recordMatch(regexPattern, operation, inputLength, matched, nanos);
+        }
+
+        return matched;
+    }
+}
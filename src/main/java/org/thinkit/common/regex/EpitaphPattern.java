@@ -0,0 +1,1436 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.thinkit.common.base.precondition.Preconditions;
+import org.thinkit.common.regex.catalog.BacktrackingPolicy;
+import org.thinkit.common.regex.catalog.MatchOperation;
+import org.thinkit.common.regex.catalog.RegexEngine;
+import org.thinkit.common.regex.catalog.RegexOption;
+import org.thinkit.common.regex.catalog.RegexPattern;
+import org.thinkit.common.regex.engine.Automaton;
+import org.thinkit.common.regex.engine.BacktrackingAnalyzer;
+import org.thinkit.common.regex.engine.BacktrackingReport;
+import org.thinkit.common.regex.engine.DfaAutomaton;
+import org.thinkit.common.regex.engine.HandCodedAutomaton;
+import org.thinkit.common.regex.engine.LazyDfaAutomaton;
+import org.thinkit.common.regex.engine.PikeVmAutomaton;
+import org.thinkit.common.regex.engine.UnsupportedPatternException;
+import org.thinkit.common.regex.engine.Utf8Automaton;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * The immutable and thread-safe compiled representation of a regular
+ * expression.
+ * <p>
+ * Unlike {@link Epitaph} , which holds the matching state for a single input,
+ * an instance of this class holds only the compiled pattern and can be shared
+ * by any number of threads. The one-shot methods {@link #matches(CharSequence)}
+ * , {@link #find(CharSequence)} and {@link #lookingAt(CharSequence)} run on a
+ * matcher pooled per thread, so they do not allocate a matcher per call. Call
+ * {@link #epitaph(CharSequence)} when the matching state such as
+ * {@link Epitaph#group()} is needed, and {@link #scanner(Reader)} to scan an
+ * input too large to be held in memory.
+ * <p>
+ * The presets of a fixed shape such as {@link RegexPattern#POST_CODE_JP} are
+ * run by the matchers hand-coded for them ( {@link RegexEngine#HAND_CODED} ).
+ * Any other pattern without lookarounds, back references and anchors is run by
+ * a deterministic automaton ( {@link RegexEngine#DFA} ) in time linear to the
+ * length of the input. If the automaton of such a pattern would be too large,
+ * its states are built on demand into a cache of bounded size per thread (
+ * {@link RegexEngine#LAZY_DFA} ). The other patterns are run by
+ * {@link java.util.regex.Pattern} ( {@link RegexEngine#JDK} ). All engines
+ * report the same matches, and the engine can be inspected by
+ * {@link #getEngine()} or forced by {@link Builder#engine(RegexEngine)} . The
+ * Pike VM ( {@link RegexEngine#PIKE_VM} ) also determines the capturing groups
+ * in linear time, which makes it the safe choice for untrusted patterns.
+ * <p>
+ * The input encoded in UTF-8 can be matched as {@code byte[]} or
+ * {@link ByteBuffer} without being decoded, by a deterministic automaton over
+ * bytes ( {@link Utf8Automaton} ) reporting byte offsets. The patterns it cannot
+ * run, and all patterns forced to {@link RegexEngine#JDK} , are decoded and
+ * matched as characters instead.
+ * <p>
+ * {@link #findAll(CharSequence)} splits a large input into segments searched
+ * in parallel on a {@link ForkJoinPool} , and merges the matches crossing the
+ * boundaries of the segments so that the result is exactly that of repeated
+ * calls of {@link Epitaph#find()} . The input of a pattern run by
+ * {@link java.util.regex.Pattern} is searched in a single pass instead. {@link #results(CharSequence)} streams the
+ * same matches lazily, searching for each only when it is asked for.
+ * <p>
+ * {@link #matchesEach(List)} validates a column of many values at once, and
+ * reports the matching values in a {@link BitSet} .
+ * <p>
+ * A pattern or an input from an untrusted source can be limited by
+ * {@link Builder#stepBudget(long)} and {@link Builder#timeout(Duration)} , in
+ * which case an operation exceeding the limit throws
+ * {@link MatchBudgetExceededException} instead of running for minutes. Such a
+ * pattern can also be screened before it is accepted by
+ * {@link Builder#backtrackingPolicy(BacktrackingPolicy)} , which rejects it or
+ * runs it by {@link RegexEngine#PIKE_VM} if {@link BacktrackingAnalyzer} finds
+ * that {@link RegexEngine#JDK} may match it in more than linear time.
+ * <p>
+ * The compilation and the one-shot methods are reported to the sinks
+ * registered by {@link EpitaphMetrics#register(MetricsSink)} , which cost no
+ * more than reading a volatile field while no sink is registered.
+ *
+ * <pre>
+ * Share the compiled pattern between threads:
+ * <code>
+ * EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.EMAIL_ADDRESS).build();
+ * epitaphPattern.matches("test@gmail.com");
+ * epitaphPattern.find("mail to test@gmail.com");
+ * epitaphPattern.lookingAt("test@gmail.com is my address");
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public final class EpitaphPattern {
+
+    /**
+     * The operation finding a match
+     */
+    private static final int FIND = 0;
+
+    /**
+     * The operation matching a prefix
+     */
+    private static final int LOOKING_AT = 1;
+
+    /**
+     * The operation matching the entire input
+     */
+    private static final int MATCHES = 2;
+
+    /**
+     * The operations reported to {@link EpitaphMetrics} indexed by the operation
+     */
+    private static final MatchOperation[] OPERATIONS = { MatchOperation.FIND, MatchOperation.LOOKING_AT,
+            MatchOperation.MATCHES };
+
+    /**
+     * The compiled patterns of presets keyed by the combined regex option flags
+     */
+    private static final Map<RegexPattern, Map<Integer, EpitaphPattern>> PRESETS = createPresets();
+
+    /**
+     * The compiled pattern
+     */
+    @Getter
+    @ToString.Include
+    private final Pattern pattern;
+
+    /**
+     * The combined regex option flags
+     */
+    private final int flags;
+
+    /**
+     * The engine running this pattern
+     */
+    @Getter
+    @ToString.Include
+    private final RegexEngine engine;
+
+    /**
+     * The automaton, or {@code null} if the engine is {@link RegexEngine#JDK}
+     */
+    private final Automaton automaton;
+
+    /**
+     * The matchers pooled per thread
+     */
+    private final ThreadLocal<Matcher> matchers;
+
+    /**
+     * The variants of this pattern run by the other engines
+     */
+    private final Map<RegexEngine, EpitaphPattern> variants = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum number of characters an operation reads, or
+     * {@link Long#MAX_VALUE} if unlimited
+     */
+    private final long stepBudget;
+
+    /**
+     * The maximum nanoseconds of an operation, or {@link Long#MAX_VALUE} if
+     * unlimited
+     */
+    private final long timeoutNanos;
+
+    /**
+     * The automaton matching the bytes of the input encoded in UTF-8, compiled on
+     * first use
+     */
+    private volatile Utf8Automaton utf8Automaton;
+
+    /**
+     * Whether the pattern cannot be run by {@link Utf8Automaton}
+     */
+    private volatile boolean utf8Unsupported;
+
+    /**
+     * Constructor that selects the engine automatically.
+     *
+     * @param pattern The compiled pattern
+     * @param flags   The combined regex option flags
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    EpitaphPattern(Pattern pattern, int flags) {
+        this(pattern, flags, compileAutomaton(pattern.pattern(), flags), Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param pattern      The compiled pattern
+     * @param flags        The combined regex option flags
+     * @param automaton    The automaton, or {@code null} to run the pattern by
+     *                     {@link java.util.regex.Pattern}
+     * @param stepBudget   The maximum number of characters an operation reads, or
+     *                     {@link Long#MAX_VALUE} if unlimited
+     * @param timeoutNanos The maximum nanoseconds of an operation, or
+     *                     {@link Long#MAX_VALUE} if unlimited
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    private EpitaphPattern(@NonNull Pattern pattern, int flags, Automaton automaton, long stepBudget,
+            long timeoutNanos) {
+        this.pattern = pattern;
+        this.flags = flags;
+        this.engine = engineOf(automaton);
+        this.automaton = automaton;
+        this.stepBudget = stepBudget;
+        this.timeoutNanos = timeoutNanos;
+        this.matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+    }
+
+    /**
+     * Returns the new instance of {@link Builder} .
+     *
+     * @return The new instance of {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The builder class for {@link EpitaphPattern} .
+     */
+    public static class Builder {
+
+        /**
+         * The regex pattern
+         */
+        private String regexPattern;
+
+        /**
+         * The preset of the regex pattern, {@code null} if the regex pattern is not a
+         * preset
+         */
+        private RegexPattern preset;
+
+        /**
+         * The regex option set
+         */
+        private EnumSet<RegexOption> regexOptionSet = EnumSet.noneOf(RegexOption.class);
+
+        /**
+         * The pattern cache
+         */
+        private PatternCache patternCache = PatternCache.getDefault();
+
+        /**
+         * The engine, {@code null} if the engine is selected automatically
+         */
+        private RegexEngine engine;
+
+        /**
+         * The maximum number of characters an operation reads, or
+         * {@link Long#MAX_VALUE} if unlimited
+         */
+        private long stepBudget = Long.MAX_VALUE;
+
+        /**
+         * The maximum nanoseconds of an operation, or {@link Long#MAX_VALUE} if
+         * unlimited
+         */
+        private long timeoutNanos = Long.MAX_VALUE;
+
+        /**
+         * The policy for the patterns prone to catastrophic backtracking
+         */
+        private BacktrackingPolicy backtrackingPolicy = BacktrackingPolicy.ALLOW;
+
+        /**
+         * Defalut constructor
+         */
+        Builder() {
+        }
+
+        /**
+         * Sets the regex pattern.
+         *
+         * @param regexPattern The regex pattern
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder pattern(@NonNull RegexPattern regexPattern) {
+            this.regexPattern = regexPattern.getTag();
+            this.preset = regexPattern;
+            return this;
+        }
+
+        /**
+         * Sets the regex pattern.
+         *
+         * @param regexPattern The regex pattern
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder pattern(@NonNull String regexPattern) {
+            this.regexPattern = regexPattern;
+            this.preset = null;
+            return this;
+        }
+
+        /**
+         * Sets the regex option set.
+         *
+         * @param regexOptionSet The regex option set
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder option(@NonNull EnumSet<RegexOption> regexOptionSet) {
+            this.regexOptionSet = regexOptionSet;
+            return this;
+        }
+
+        /**
+         * Sets the cache of compiled patterns. The cache returned by
+         * {@link PatternCache#getDefault()} is used if this method is not called, and
+         * caching can be disabled by passing {@link PatternCache#disabled()} .
+         * <p>
+         * Presets specified by {@link #pattern(RegexPattern)} are not cached since
+         * they hold their own compiled patterns.
+         *
+         * @param patternCache The pattern cache
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder cache(@NonNull PatternCache patternCache) {
+            this.patternCache = patternCache;
+            return this;
+        }
+
+        /**
+         * Sets the engine running the pattern. The engine is selected automatically
+         * if this method is not called, preferring {@link RegexEngine#HAND_CODED} ,
+         * {@link RegexEngine#DFA} and {@link RegexEngine#LAZY_DFA} in this order
+         * whenever the pattern can be run by them.
+         *
+         * @param engine The engine
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder engine(@NonNull RegexEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of characters of the input a match operation reads
+         * before it throws {@link MatchBudgetExceededException} . The engines read a
+         * character again whenever they backtrack over it, so the budget bounds the
+         * work of a pattern prone to catastrophic backtracking on a hostile input.
+         * The operations are not limited if this method is not called.
+         * <p>
+         * The budget applies to each call of the one-shot methods such as
+         * {@link EpitaphPattern#find(CharSequence)} , to each match operation of an
+         * {@link Epitaph} , to each value of
+         * {@link EpitaphPattern#matchesEach(List)} , to each thread of
+         * {@link EpitaphPattern#findAll(CharSequence)} , to each match searched by
+         * {@link EpitaphPattern#results(CharSequence)} and to each call of
+         * {@link EpitaphScanner#find()} . The input encoded in UTF-8
+         * is limited only when it is decoded to be matched as characters.
+         *
+         * @param stepBudget The maximum number of characters read
+         * @return The instance of {@link Builder}
+         *
+         * @exception IllegalArgumentException If the step budget is not positive
+         */
+        public Builder stepBudget(long stepBudget) {
+
+            if (stepBudget <= 0) {
+                throw new IllegalArgumentException("The step budget must be positive: " + stepBudget);
+            }
+
+            this.stepBudget = stepBudget;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time a match operation runs before it throws
+         * {@link MatchBudgetExceededException} . The time is measured from the start
+         * of the operation as {@link #stepBudget(long)} counts its steps, and the
+         * clock is read only every thousand or so steps. The operations are not
+         * limited if this method is not called.
+         *
+         * @param timeout The maximum time of an operation
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException     If {@code null} is passed as an
+         *                                     argument
+         * @exception IllegalArgumentException If the timeout is not positive
+         */
+        public Builder timeout(@NonNull Duration timeout) {
+
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("The timeout must be positive: " + timeout);
+            }
+
+            this.timeoutNanos = timeout.compareTo(Duration.ofNanos(Long.MAX_VALUE)) < 0 ? timeout.toNanos()
+                    : Long.MAX_VALUE;
+            return this;
+        }
+
+        /**
+         * Sets the policy for the patterns that {@link RegexEngine#JDK} may match in
+         * more than linear time. Unless the policy is
+         * {@link BacktrackingPolicy#ALLOW} , the pattern that would be run by
+         * {@link RegexEngine#JDK} is analyzed by {@link BacktrackingAnalyzer} when it
+         * is built, and if its complexity is not linear, it is rejected or run by
+         * {@link RegexEngine#PIKE_VM} instead. The patterns run by the other engines
+         * never backtrack and are accepted as they are. The patterns are accepted
+         * without analysis if this method is not called.
+         *
+         * @param backtrackingPolicy The policy
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder backtrackingPolicy(@NonNull BacktrackingPolicy backtrackingPolicy) {
+            this.backtrackingPolicy = backtrackingPolicy;
+            return this;
+        }
+
+        /**
+         * Returns the compiled instance of {@link EpitaphPattern} .
+         *
+         * @return The compiled instance of {@link EpitaphPattern}
+         *
+         * @exception IllegalStateException If {@link #pattern(RegexPattern)} is not
+         *                                  called, if the pattern cannot be run by
+         *                                  the engine set by
+         *                                  {@link #engine(RegexEngine)} , or if the
+         *                                  pattern is rejected by the policy set by
+         *                                  {@link #backtrackingPolicy(BacktrackingPolicy)}
+         */
+        public EpitaphPattern build() {
+            Preconditions.requireNonNull(this.regexPattern, new IllegalStateException("The regex pattern is required"));
+
+            final int flags = RegexOption.toFlags(this.regexOptionSet);
+            final EpitaphPattern epitaphPattern;
+
+            if (this.preset != null) {
+                final long start = EpitaphMetrics.start();
+                final Map<Integer, EpitaphPattern> variants = PRESETS.get(this.preset);
+                final EpitaphPattern cached = variants.get(flags);
+
+                epitaphPattern = cached != null ? cached
+                        : variants.computeIfAbsent(flags, key -> new EpitaphPattern(this.preset.getPattern(key), key));
+                EpitaphMetrics.recordCompile(start, this.regexPattern, flags, cached != null);
+            } else {
+                epitaphPattern = this.patternCache.get(this.regexPattern, flags);
+            }
+
+            final EpitaphPattern variant = this.screen(
+                    this.engine == null ? epitaphPattern : epitaphPattern.withEngine(this.engine));
+
+            if (this.stepBudget == Long.MAX_VALUE && this.timeoutNanos == Long.MAX_VALUE) {
+                return variant;
+            }
+
+            return new EpitaphPattern(variant.pattern, variant.flags, variant.automaton, this.stepBudget,
+                    this.timeoutNanos);
+        }
+
+        /**
+         * Applies the backtracking policy to the pattern passed as an argument.
+         *
+         * @param epitaphPattern The pattern
+         * @return The pattern, or its variant run by {@link RegexEngine#PIKE_VM}
+         *
+         * @exception IllegalStateException If the pattern is rejected by the policy
+         */
+        private EpitaphPattern screen(EpitaphPattern epitaphPattern) {
+
+            if (this.backtrackingPolicy == BacktrackingPolicy.ALLOW || epitaphPattern.engine != RegexEngine.JDK) {
+                return epitaphPattern;
+            }
+
+            final BacktrackingReport report;
+
+            try {
+                report = BacktrackingAnalyzer.analyze(epitaphPattern.pattern.pattern(), epitaphPattern.flags);
+            } catch (UnsupportedPatternException e) {
+                throw new IllegalStateException("The regex pattern cannot be analyzed: " + e.getMessage(), e);
+            }
+
+            if (report.isLinear()) {
+                return epitaphPattern;
+            }
+
+            if (this.backtrackingPolicy == BacktrackingPolicy.LINEAR_ENGINE) {
+                return epitaphPattern.withEngine(RegexEngine.PIKE_VM);
+            }
+
+            throw new IllegalStateException(String.format("The regex pattern may backtrack in %s time: %s",
+                    report.getComplexity().getTag(), String.join(", ", report.getFindings())));
+        }
+    }
+
+    /**
+     * Returns the new instance of {@link Epitaph} bound to the input passed as an
+     * argument.
+     *
+     * @param input The input
+     * @return The new instance of {@link Epitaph}
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public Epitaph epitaph(@NonNull CharSequence input) {
+        return new Epitaph(this, input);
+    }
+
+    /**
+     * Returns the new instance of {@link EpitaphScanner} scanning the input read
+     * from the reader passed as an argument with the default buffer size.
+     *
+     * @param reader The reader of the input
+     * @return The new instance of {@link EpitaphScanner}
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public EpitaphScanner scanner(@NonNull Reader reader) {
+        return EpitaphScanner.builder().pattern(this).input(reader).build();
+    }
+
+    /**
+     * Attempts to match the entire input against the pattern.
+     *
+     * @param input The input
+     * @return {@code true} if, and only if, the entire input matches the pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean matches(@NonNull CharSequence input) {
+        final long start = EpitaphMetrics.start();
+        return EpitaphMetrics.recordMatch(start, this.pattern.pattern(), MatchOperation.MATCHES, input.length(),
+                this.matchChars(MATCHES, input));
+    }
+
+    /**
+     * Attempts to find a subsequence of the input that matches the pattern.
+     *
+     * @param input The input
+     * @return {@code true} if, and only if, a subsequence of the input matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean find(@NonNull CharSequence input) {
+        final long start = EpitaphMetrics.start();
+        return EpitaphMetrics.recordMatch(start, this.pattern.pattern(), MatchOperation.FIND, input.length(),
+                this.matchChars(FIND, input));
+    }
+
+    /**
+     * Attempts to match the input, starting at the beginning, against the pattern.
+     *
+     * @param input The input
+     * @return {@code true} if, and only if, a prefix of the input matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean lookingAt(@NonNull CharSequence input) {
+        final long start = EpitaphMetrics.start();
+        return EpitaphMetrics.recordMatch(start, this.pattern.pattern(), MatchOperation.LOOKING_AT, input.length(),
+                this.matchChars(LOOKING_AT, input));
+    }
+
+    /**
+     * Attempts to match the entire bytes of the input encoded in UTF-8 against the
+     * pattern.
+     *
+     * @param input The bytes of the input encoded in UTF-8
+     * @return {@code true} if, and only if, the entire input matches the pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean matches(@NonNull byte[] input) {
+        return this.matchBytes(MATCHES, input, null, 0, input.length, null);
+    }
+
+    /**
+     * Attempts to match the remaining bytes of the buffer of the input encoded in
+     * UTF-8 against the pattern. The position of the buffer is not moved.
+     *
+     * @param input The buffer of the input encoded in UTF-8
+     * @return {@code true} if, and only if, the remaining bytes match the pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean matches(@NonNull ByteBuffer input) {
+        return this.matchBytes(MATCHES, null, input, input.position(), input.limit(), null);
+    }
+
+    /**
+     * Attempts to find a subsequence of the bytes of the input encoded in UTF-8
+     * that matches the pattern.
+     *
+     * @param input The bytes of the input encoded in UTF-8
+     * @return {@code true} if, and only if, a subsequence of the input matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean find(@NonNull byte[] input) {
+        return this.matchBytes(FIND, input, null, 0, input.length, null);
+    }
+
+    /**
+     * Attempts to find a subsequence of the remaining bytes of the buffer of the
+     * input encoded in UTF-8 that matches the pattern. The position of the buffer
+     * is not moved.
+     *
+     * @param input The buffer of the input encoded in UTF-8
+     * @return {@code true} if, and only if, a subsequence of the remaining bytes
+     *         matches the pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean find(@NonNull ByteBuffer input) {
+        return this.matchBytes(FIND, null, input, input.position(), input.limit(), null);
+    }
+
+    /**
+     * Attempts to find the first subsequence of the bytes of the input encoded in
+     * UTF-8 that starts at or after the index passed as an argument and matches
+     * the pattern, and stores the byte offsets of its start and end into the
+     * first two elements of the array of offsets.
+     *
+     * @param input   The bytes of the input encoded in UTF-8
+     * @param from    The index to start the search at
+     * @param offsets The array to store the byte offsets of the match
+     * @return {@code true} if, and only if, a subsequence of the input matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean find(@NonNull byte[] input, int from, @NonNull int[] offsets) {
+        return this.matchBytes(FIND, input, null, from, input.length, offsets);
+    }
+
+    /**
+     * Attempts to find the first subsequence of the bytes of the buffer of the
+     * input encoded in UTF-8 that starts at or after the index passed as an
+     * argument, ends before the limit of the buffer and matches the pattern, and
+     * stores the byte offsets of its start and end into the first two elements of
+     * the array of offsets. The position of the buffer is not used.
+     *
+     * @param input   The buffer of the input encoded in UTF-8
+     * @param from    The index to start the search at
+     * @param offsets The array to store the byte offsets of the match
+     * @return {@code true} if, and only if, a subsequence of the buffer matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean find(@NonNull ByteBuffer input, int from, @NonNull int[] offsets) {
+        return this.matchBytes(FIND, null, input, from, input.limit(), offsets);
+    }
+
+    /**
+     * Attempts to match the bytes of the input encoded in UTF-8, starting at the
+     * beginning, against the pattern.
+     *
+     * @param input The bytes of the input encoded in UTF-8
+     * @return {@code true} if, and only if, a prefix of the input matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean lookingAt(@NonNull byte[] input) {
+        return this.matchBytes(LOOKING_AT, input, null, 0, input.length, null);
+    }
+
+    /**
+     * Attempts to match the remaining bytes of the buffer of the input encoded in
+     * UTF-8, starting at the position, against the pattern. The position of the
+     * buffer is not moved.
+     *
+     * @param input The buffer of the input encoded in UTF-8
+     * @return {@code true} if, and only if, a prefix of the remaining bytes matches
+     *         the pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean lookingAt(@NonNull ByteBuffer input) {
+        return this.matchBytes(LOOKING_AT, null, input, input.position(), input.limit(), null);
+    }
+
+    /**
+     * Returns all matches in the input, which are those found by repeated calls
+     * of {@link Epitaph#find()} . A large input is split into segments searched
+     * in parallel on the common pool of {@link ForkJoinPool} , unless the pattern
+     * is run by {@link java.util.regex.Pattern} .
+     *
+     * @param input The input
+     * @return The matches ordered by the start index
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public List<PatternMatch> findAll(@NonNull CharSequence input) {
+        return this.findAll(input, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns all matches in the input, which are those found by repeated calls
+     * of {@link Epitaph#find()} . A large input is split into segments searched
+     * in parallel on the pool passed as an argument, unless the pattern is run by
+     * {@link java.util.regex.Pattern} .
+     *
+     * @param input The input
+     * @param pool  The pool to search the segments on
+     * @return The matches ordered by the start index
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public List<PatternMatch> findAll(@NonNull CharSequence input, @NonNull ForkJoinPool pool) {
+        return toMatches(this.findAllOffsets(input, pool));
+    }
+
+    /**
+     * Returns all matches in the remaining bytes of the buffer of the input
+     * encoded in UTF-8, reported as byte offsets from the beginning of the
+     * buffer. A large input is split into segments searched in parallel on the
+     * common pool of {@link ForkJoinPool} . The position of the buffer is not
+     * moved. The matches between the halves of a surrogate pair, which can be
+     * found only if the pattern is run by decoding the input, have no byte
+     * offsets and are not reported.
+     * <p>
+     * A large file can be searched in place by passing the buffer mapped by
+     * {@link java.nio.channels.FileChannel#map} .
+     *
+     * @param input The buffer of the input encoded in UTF-8
+     * @return The matches ordered by the start index
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public List<PatternMatch> findAll(@NonNull ByteBuffer input) {
+        return this.findAll(input, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns all matches in the remaining bytes of the buffer of the input
+     * encoded in UTF-8, reported as byte offsets from the beginning of the
+     * buffer. A large input is split into segments searched in parallel on the
+     * pool passed as an argument. The position of the buffer is not moved.
+     *
+     * @param input The buffer of the input encoded in UTF-8
+     * @param pool  The pool to search the segments on
+     * @return The matches ordered by the start index
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public List<PatternMatch> findAll(@NonNull ByteBuffer input, @NonNull ForkJoinPool pool) {
+
+        final int start = input.position();
+        final int end = input.limit();
+        final Utf8Automaton utf8Automaton = this.getUtf8Automaton();
+
+        if (utf8Automaton == null) {
+            final String decoded = StandardCharsets.UTF_8.decode(input.duplicate()).toString();
+            final int[] offsets = this.findAllOffsets(decoded, pool);
+            final List<PatternMatch> matches = new ArrayList<>(offsets.length / 2);
+            int index = 0;
+            int offset = start;
+
+            for (int i = 0; i < offsets.length; i += 2) {
+                if (Automaton.splitsSurrogatePair(decoded, offsets[i])
+                        || Automaton.splitsSurrogatePair(decoded, offsets[i + 1])) {
+                    continue;
+                }
+
+                offset += utf8Length(decoded, index, offsets[i]);
+                final int matchStart = offset;
+                offset += utf8Length(decoded, offsets[i], offsets[i + 1]);
+                index = offsets[i + 1];
+                matches.add(new PatternMatch(matchStart, offset));
+            }
+
+            return matches;
+        }
+
+        return toMatches(new ParallelFinder(() -> {
+            final ByteBuffer buffer = input.duplicate();
+            return (from, limit, slots) -> utf8Automaton.find(buffer, from, limit, end, slots);
+        }, start, end).findAll(pool, index -> {
+            int aligned = index;
+
+            while (aligned < end && (input.get(aligned) & 0xc0) == 0x80) {
+                aligned++;
+            }
+
+            return aligned;
+        }));
+    }
+
+    /**
+     * Attempts to match each entire input against the pattern, and returns the
+     * bitmap whose bits are set at the indexes of the matching inputs. The inputs
+     * are matched one after another in the calling thread, reusing its matcher
+     * if the pattern is not run by an automaton. The bitmap can be converted into
+     * the words of {@code long} by {@link BitSet#toLongArray()} .
+     *
+     * @param inputs The inputs
+     * @return The bitmap of the matching inputs
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument or
+     *                                 is contained in the inputs
+     */
+    public BitSet matchesEach(@NonNull List<? extends CharSequence> inputs) {
+        return this.batchOf(inputs).matchAll();
+    }
+
+    /**
+     * Attempts to match each entire input against the pattern in parallel chunks
+     * on the pool, and returns the bitmap whose bits are set at the indexes of
+     * the matching inputs.
+     *
+     * @param inputs The inputs
+     * @param pool   The pool to match the chunks on
+     * @return The bitmap of the matching inputs
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument or
+     *                                 is contained in the inputs
+     */
+    public BitSet matchesEach(@NonNull List<? extends CharSequence> inputs, @NonNull ForkJoinPool pool) {
+        return this.batchOf(inputs).matchAll(pool);
+    }
+
+    /**
+     * Attempts to match each entire input against the pattern, and returns the
+     * bitmap whose bits are set at the indexes of the matching inputs.
+     *
+     * @param inputs The inputs
+     * @return The bitmap of the matching inputs
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument or
+     *                                 is contained in the inputs
+     */
+    public BitSet matchesEach(@NonNull CharSequence[] inputs) {
+        return this.batchOf(Arrays.asList(inputs)).matchAll();
+    }
+
+    /**
+     * Attempts to match each entire input against the pattern in parallel chunks
+     * on the pool, and returns the bitmap whose bits are set at the indexes of
+     * the matching inputs.
+     *
+     * @param inputs The inputs
+     * @param pool   The pool to match the chunks on
+     * @return The bitmap of the matching inputs
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument or
+     *                                 is contained in the inputs
+     */
+    public BitSet matchesEach(@NonNull CharSequence[] inputs, @NonNull ForkJoinPool pool) {
+        return this.batchOf(Arrays.asList(inputs)).matchAll(pool);
+    }
+
+    /**
+     * Attempts to match each value stored in the buffer against the pattern, and
+     * returns the bitmap whose bits are set at the indexes of the matching
+     * values. The value at the index {@code i} is the range from
+     * {@code offsets[i]} to {@code offsets[i + 1]} of the buffer, so the offsets
+     * of {@code n} values have {@code n + 1} elements. The values are matched in
+     * place without being copied out of the buffer.
+     *
+     * @param buffer  The buffer of the values
+     * @param offsets The non-decreasing offsets of the values in the buffer
+     * @return The bitmap of the matching values
+     *
+     * @exception NullPointerException      If {@code null} is passed as an
+     *                                      argument
+     * @exception IndexOutOfBoundsException If an offset is out of the buffer or
+     *                                      is less than the previous one
+     */
+    public BitSet matchesEach(@NonNull CharSequence buffer, @NonNull int[] offsets) {
+        return this.batchOf(buffer, offsets).matchAll();
+    }
+
+    /**
+     * Attempts to match each value stored in the buffer against the pattern in
+     * parallel chunks on the pool, and returns the bitmap whose bits are set at
+     * the indexes of the matching values. The value at the index {@code i} is the
+     * range from {@code offsets[i]} to {@code offsets[i + 1]} of the buffer.
+     *
+     * @param buffer  The buffer of the values
+     * @param offsets The non-decreasing offsets of the values in the buffer
+     * @param pool    The pool to match the chunks on
+     * @return The bitmap of the matching values
+     *
+     * @exception NullPointerException      If {@code null} is passed as an
+     *                                      argument
+     * @exception IndexOutOfBoundsException If an offset is out of the buffer or
+     *                                      is less than the previous one
+     */
+    public BitSet matchesEach(@NonNull CharSequence buffer, @NonNull int[] offsets, @NonNull ForkJoinPool pool) {
+        return this.batchOf(buffer, offsets).matchAll(pool);
+    }
+
+    /**
+     * Returns the lazy stream of the matches in the input, which are those found
+     * by repeated calls of {@link Epitaph#find()} . Each match is searched for
+     * only when the stream asks for it, so a short-circuiting operation such as
+     * {@link Stream#findFirst()} or {@link Stream#limit(long)} searches the input
+     * only as far as its result needs. The groups of a match are determined on
+     * the first call asking for them.
+     * <p>
+     * A parallel stream splits the input at the indexes where no match crosses,
+     * if the pattern is run by an automaton that can find them.
+     *
+     * @param input The input
+     * @return The stream of the matches ordered by the start index
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public Stream<MatchResult> results(@NonNull CharSequence input) {
+        return StreamSupport.stream(new MatchSpliterator(this, input, 0, input.length()), false);
+    }
+
+    /**
+     * Returns the regex pattern from which this pattern was compiled.
+     *
+     * @return The regex pattern
+     */
+    public String getRegexPattern() {
+        return this.pattern.pattern();
+    }
+
+    /**
+     * Returns the combined regex option flags with which this pattern was
+     * compiled.
+     *
+     * @return The combined regex option flags
+     */
+    public int getFlags() {
+        return this.pattern.flags();
+    }
+
+    /**
+     * Returns the variant of this pattern run by the engine passed as an argument.
+     * The variant shares the compiled pattern with this instance and is created
+     * only once.
+     *
+     * @param engine The engine
+     * @return The variant of this pattern run by the engine
+     *
+     * @exception NullPointerException  If {@code null} is passed as an argument
+     * @exception IllegalStateException If the pattern cannot be run by the engine
+     */
+    public EpitaphPattern withEngine(@NonNull RegexEngine engine) {
+
+        if (engine == this.engine) {
+            return this;
+        }
+
+        return this.variants.computeIfAbsent(engine, key -> {
+            try {
+                switch (key) {
+                    case DFA:
+                        return new EpitaphPattern(this.pattern, this.flags,
+                                DfaAutomaton.compile(this.pattern.pattern(), this.flags), this.stepBudget,
+                                this.timeoutNanos);
+
+                    case LAZY_DFA:
+                        return new EpitaphPattern(this.pattern, this.flags,
+                                LazyDfaAutomaton.compile(this.pattern.pattern(), this.flags), this.stepBudget,
+                                this.timeoutNanos);
+
+                    case PIKE_VM:
+                        return new EpitaphPattern(this.pattern, this.flags,
+                                PikeVmAutomaton.compile(this.pattern.pattern(), this.flags), this.stepBudget,
+                                this.timeoutNanos);
+
+                    case HAND_CODED:
+                        return new EpitaphPattern(this.pattern, this.flags,
+                                HandCodedAutomaton.compile(this.pattern.pattern(), this.flags), this.stepBudget,
+                                this.timeoutNanos);
+
+                    default:
+                        return new EpitaphPattern(this.pattern, this.flags, null, this.stepBudget,
+                                this.timeoutNanos);
+                }
+            } catch (UnsupportedPatternException e) {
+                throw new IllegalStateException(String.format("The regex pattern cannot be run by the %s engine: %s",
+                        key.getTag(), e.getMessage()), e);
+            }
+        });
+    }
+
+    /**
+     * Runs the operation on the input by the automaton if this pattern has one,
+     * and otherwise by the matcher pooled per thread.
+     *
+     * @param operation The operation
+     * @param input     The input
+     * @return {@code true} if the operation succeeds, otherwise {@code false}
+     */
+    private boolean matchChars(int operation, CharSequence input) {
+
+        final CharSequence guarded = this.guard(input);
+
+        if (this.automaton != null) {
+            switch (operation) {
+                case FIND:
+                    return this.automaton.find(guarded, 0, guarded.length(), null);
+
+                case LOOKING_AT:
+                    return this.automaton.lookingAt(guarded, 0, guarded.length(), null);
+
+                default:
+                    return this.automaton.matches(guarded, 0, guarded.length(), null);
+            }
+        }
+
+        final Matcher matcher = this.matchers.get().reset(guarded);
+
+        try {
+            switch (operation) {
+                case FIND:
+                    return matcher.find();
+
+                case LOOKING_AT:
+                    return matcher.lookingAt();
+
+                default:
+                    return matcher.matches();
+            }
+        } finally {
+            matcher.reset("");
+        }
+    }
+
+    /**
+     * Runs the operation on the range of the bytes of the input encoded in UTF-8
+     * and reports it to {@link EpitaphMetrics} .
+     *
+     * @param operation The operation
+     * @param array     The bytes of the input, or {@code null} if the input is a
+     *                  buffer
+     * @param buffer    The buffer of the input, or {@code null} if the input is an
+     *                  array
+     * @param start     The start index of the range
+     * @param end       The end index of the range
+     * @param offsets   The array to store the byte offsets of the match, or
+     *                  {@code null}
+     * @return {@code true} if the operation succeeds, otherwise {@code false}
+     */
+    private boolean matchBytes(int operation, byte[] array, ByteBuffer buffer, int start, int end, int[] offsets) {
+        final long startTime = EpitaphMetrics.start();
+        return EpitaphMetrics.recordMatch(startTime, this.pattern.pattern(), OPERATIONS[operation], end - start,
+                this.runBytes(operation, array, buffer, start, end, offsets));
+    }
+
+    /**
+     * Runs the operation on the range of the bytes of the input encoded in UTF-8.
+     * The bytes are matched by {@link Utf8Automaton} if the pattern can be run by
+     * it and this pattern is not forced to {@link RegexEngine#JDK} , and are
+     * otherwise decoded and matched by the matcher.
+     *
+     * @param operation The operation
+     * @param array     The bytes of the input, or {@code null} if the input is a
+     *                  buffer
+     * @param buffer    The buffer of the input, or {@code null} if the input is an
+     *                  array
+     * @param start     The start index of the range
+     * @param end       The end index of the range
+     * @param offsets   The array to store the byte offsets of the match, or
+     *                  {@code null}
+     * @return {@code true} if the operation succeeds, otherwise {@code false}
+     */
+    private boolean runBytes(int operation, byte[] array, ByteBuffer buffer, int start, int end, int[] offsets) {
+
+        final Utf8Automaton utf8Automaton = this.getUtf8Automaton();
+
+        if (utf8Automaton != null) {
+            switch (operation) {
+                case FIND:
+                    return array != null ? utf8Automaton.find(array, start, end, offsets)
+                            : utf8Automaton.find(buffer, start, end, offsets);
+
+                case LOOKING_AT:
+                    return array != null ? utf8Automaton.lookingAt(array, start, end, offsets)
+                            : utf8Automaton.lookingAt(buffer, start, end, offsets);
+
+                default:
+                    return array != null ? utf8Automaton.matches(array, start, end, offsets)
+                            : utf8Automaton.matches(buffer, start, end, offsets);
+            }
+        }
+
+        final String input = array != null ? new String(array, start, end - start, StandardCharsets.UTF_8)
+                : StandardCharsets.UTF_8.decode(buffer.duplicate().limit(end).position(start)).toString();
+        final Matcher matcher = this.matchers.get().reset(this.guard(input));
+
+        try {
+            final boolean matched;
+
+            switch (operation) {
+                case FIND:
+                    matched = matcher.find();
+                    break;
+
+                case LOOKING_AT:
+                    matched = matcher.lookingAt();
+                    break;
+
+                default:
+                    matched = matcher.matches();
+                    break;
+            }
+
+            if (matched && offsets != null) {
+                offsets[0] = start + utf8Length(input, 0, matcher.start());
+                offsets[1] = offsets[0] + utf8Length(input, matcher.start(), matcher.end());
+            }
+
+            return matched;
+        } finally {
+            matcher.reset("");
+        }
+    }
+
+    /**
+     * Returns the input read by the engine in an operation, which enforces the
+     * step budget and the timeout of this pattern if any.
+     *
+     * @param input The input
+     * @return The input enforcing the budget, or the input itself if this pattern
+     *         has no budget
+     */
+    CharSequence guard(CharSequence input) {
+
+        if (this.stepBudget == Long.MAX_VALUE && this.timeoutNanos == Long.MAX_VALUE) {
+            return input;
+        }
+
+        return new BudgetedCharSequence(input, this.pattern.pattern(), this.stepBudget, this.timeoutNanos);
+    }
+
+    /**
+     * Returns the start and end indexes of all matches in the input, searching
+     * the segments of a large input in parallel on the pool. The input of a
+     * pattern not run by the automaton is searched in a single pass, since the
+     * matcher cannot stop looking for the next match at the end of a segment.
+     *
+     * @param input The input
+     * @param pool  The pool to search the segments on
+     * @return The start and end indexes of the matches in pairs
+     */
+    private int[] findAllOffsets(CharSequence input, ForkJoinPool pool) {
+
+        final int end = input.length();
+        final Automaton automaton = this.automaton;
+
+        if (automaton == null) {
+            return new ParallelFinder(() -> {
+                final Matcher matcher = this.pattern.matcher(this.guard(input));
+
+                return (from, limit, slots) -> {
+                    if (from >= limit || !matcher.find(from)) {
+                        return false;
+                    }
+
+                    slots[0] = matcher.start();
+                    slots[1] = matcher.end();
+                    return true;
+                };
+            }, 0, end).findAllSequentially();
+        }
+
+        return new ParallelFinder(() -> {
+            final CharSequence guarded = this.guard(input);
+            return (from, limit, slots) -> automaton.find(guarded, from, limit, end, slots);
+        }, 0, end).findAll(pool, index -> Automaton.splitsSurrogatePair(input, index) ? index + 1 : index);
+    }
+
+    /**
+     * Returns the batch matching each input entirely against this pattern.
+     *
+     * @param inputs The inputs
+     * @return The batch
+     */
+    private BatchMatcher batchOf(List<? extends CharSequence> inputs) {
+
+        final List<? extends CharSequence> values = inputs instanceof RandomAccess ? inputs : new ArrayList<>(inputs);
+
+        return new BatchMatcher(index -> {
+            final CharSequence value = values.get(index);
+            return this.matches(value, 0, value.length());
+        }, values.size());
+    }
+
+    /**
+     * Returns the batch matching each value stored in the buffer entirely against
+     * this pattern.
+     *
+     * @param buffer  The buffer of the values
+     * @param offsets The non-decreasing offsets of the values in the buffer
+     * @return The batch
+     *
+     * @exception IndexOutOfBoundsException If an offset is out of the buffer or
+     *                                      is less than the previous one
+     */
+    private BatchMatcher batchOf(CharSequence buffer, int[] offsets) {
+
+        for (int i = 0; i < offsets.length; i++) {
+            if (offsets[i] < (i == 0 ? 0 : offsets[i - 1]) || offsets[i] > buffer.length()) {
+                throw new IndexOutOfBoundsException("Invalid offset " + offsets[i] + " at " + i);
+            }
+        }
+
+        return new BatchMatcher(index -> this.matches(buffer, offsets[index], offsets[index + 1]),
+                Math.max(offsets.length - 1, 0));
+    }
+
+    /**
+     * Attempts to match the entire range of the input against the pattern as if
+     * the range were a separate input, using the matcher of the calling thread if
+     * the pattern is not run by the automaton. The range is copied only if its
+     * end splits a surrogate pair, where neither the automaton nor the matcher
+     * would see the high surrogate as a separate character.
+     *
+     * @param input The input
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     * @return {@code true} if, and only if, the entire range matches the pattern
+     */
+    private boolean matches(CharSequence input, int start, int end) {
+
+        if (Automaton.splitsSurrogatePair(input, end)) {
+            return this.matches(input.subSequence(start, end), 0, end - start);
+        }
+
+        final CharSequence guarded = this.guard(input);
+
+        if (this.automaton != null) {
+            return this.automaton.matches(guarded, start, end, null);
+        }
+
+        final Matcher matcher = this.matchers.get().reset(guarded).region(start, end);
+
+        try {
+            return matcher.matches();
+        } finally {
+            matcher.reset("");
+        }
+    }
+
+    /**
+     * Returns the matches of the start and end indexes in pairs.
+     *
+     * @param offsets The start and end indexes of the matches in pairs
+     * @return The matches
+     */
+    private static List<PatternMatch> toMatches(int[] offsets) {
+
+        final List<PatternMatch> matches = new ArrayList<>(offsets.length / 2);
+
+        for (int i = 0; i < offsets.length; i += 2) {
+            matches.add(new PatternMatch(offsets[i], offsets[i + 1]));
+        }
+
+        return matches;
+    }
+
+    /**
+     * Returns the automaton matching the bytes of the input encoded in UTF-8,
+     * compiling it on first use.
+     *
+     * @return The automaton, or {@code null} if this pattern is forced to
+     *         {@link RegexEngine#JDK} or cannot be run by the automaton
+     */
+    private Utf8Automaton getUtf8Automaton() {
+
+        if (this.engine == RegexEngine.JDK || this.utf8Unsupported) {
+            return null;
+        } else if (this.utf8Automaton == null) {
+            try {
+                this.utf8Automaton = Utf8Automaton.compile(this.pattern.pattern(), this.flags);
+            } catch (UnsupportedPatternException e) {
+                this.utf8Unsupported = true;
+            }
+        }
+
+        return this.utf8Automaton;
+    }
+
+    /**
+     * Returns the number of bytes of the characters in the range encoded in
+     * UTF-8.
+     *
+     * @param input The input
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     * @return The number of bytes
+     */
+    private static int utf8Length(CharSequence input, int start, int end) {
+
+        int length = 0;
+
+        for (int index = start; index < end; index++) {
+            final char character = input.charAt(index);
+
+            if (character < 0x80) {
+                length++;
+            } else if (character < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(character) && index + 1 < end
+                    && Character.isLowSurrogate(input.charAt(index + 1))) {
+                length += 4;
+                index++;
+            } else {
+                length += 3;
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Returns the automaton of this pattern, or {@code null} if this pattern is run
+     * by {@link java.util.regex.Pattern} .
+     *
+     * @return The automaton, or {@code null}
+     */
+    Automaton getAutomaton() {
+        return this.automaton;
+    }
+
+    /**
+     * Returns the engine running the automaton passed as an argument.
+     *
+     * @param automaton The automaton, or {@code null}
+     * @return The engine
+     */
+    private static RegexEngine engineOf(Automaton automaton) {
+
+        if (automaton == null) {
+            return RegexEngine.JDK;
+        } else if (automaton instanceof LazyDfaAutomaton) {
+            return RegexEngine.LAZY_DFA;
+        } else if (automaton instanceof PikeVmAutomaton) {
+            return RegexEngine.PIKE_VM;
+        } else if (automaton instanceof HandCodedAutomaton) {
+            return RegexEngine.HAND_CODED;
+        }
+
+        return RegexEngine.DFA;
+    }
+
+    /**
+     * Compiles the regex pattern into the automaton hand-coded for the pattern if
+     * any, or into the deterministic automaton built ahead of time if possible,
+     * and otherwise into the one built on demand.
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @return The automaton, or {@code null} if the pattern cannot be run by a
+     *         deterministic automaton
+     */
+    private static Automaton compileAutomaton(String regexPattern, int flags) {
+        try {
+            return HandCodedAutomaton.compile(regexPattern, flags);
+        } catch (UnsupportedPatternException e) {
+            // The pattern is not a preset of a fixed shape
+        }
+
+        try {
+            return DfaAutomaton.compile(regexPattern, flags);
+        } catch (UnsupportedPatternException e) {
+            // The pattern is not supported, or its automaton is too large to build
+        }
+
+        try {
+            return LazyDfaAutomaton.compile(regexPattern, flags);
+        } catch (UnsupportedPatternException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates the holder of compiled patterns of presets.
+     *
+     * @return The holder of compiled patterns of presets
+     */
+    private static Map<RegexPattern, Map<Integer, EpitaphPattern>> createPresets() {
+
+        final Map<RegexPattern, Map<Integer, EpitaphPattern>> presets = new EnumMap<>(RegexPattern.class);
+
+        for (RegexPattern regexPattern : RegexPattern.values()) {
+            presets.put(regexPattern, new ConcurrentHashMap<>());
+        }
+
+        return presets;
+    }
+}
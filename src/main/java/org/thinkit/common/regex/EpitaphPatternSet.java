@@ -0,0 +1,393 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.thinkit.common.regex.catalog.RegexOption;
+import org.thinkit.common.regex.catalog.RegexPattern;
+import org.thinkit.common.regex.engine.PatternSetScanner;
+import org.thinkit.common.regex.engine.ProgramCompiler;
+import org.thinkit.common.regex.engine.RegexNode;
+import org.thinkit.common.regex.engine.RegexParser;
+import org.thinkit.common.regex.engine.UnsupportedPatternException;
+
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * The immutable and thread-safe set of regular expressions scanned together in
+ * a single pass over the input.
+ * <p>
+ * The patterns are compiled into one combined automaton, so the cost of
+ * {@link #findAll(CharSequence)} stays close to that of a single pattern as
+ * more patterns are added. The matches reported for each pattern are the same
+ * as those of repeated calls of {@link Epitaph#find()} . Patterns using the
+ * constructs that an automaton cannot run, such as lookarounds and back
+ * references, are matched by {@link java.util.regex.Pattern} separately and
+ * their matches are merged into the result. No automaton is compiled for each
+ * pattern on its own, and {@link #getPattern(int)} compiles the pattern only
+ * when it is called.
+ *
+ * <pre>
+ * Scan the input with multiple patterns at once:
+ * <code>
+ * EpitaphPatternSet patternSet = EpitaphPatternSet.builder().add(RegexPattern.EMAIL_ADDRESS)
+ *         .add(RegexPattern.WEB_URL).add("#[a-z]+").build();
+ * List&lt;PatternSetMatch&gt; matches = patternSet.findAll("mail to test@gmail.com #contact");
+ * BitSet matchingPatterns = patternSet.matchingPatterns("see https://example.com");
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public final class EpitaphPatternSet {
+
+    /**
+     * The order of the matches in {@link #findAll(CharSequence)}
+     */
+    private static final Comparator<PatternSetMatch> MATCH_ORDER = Comparator.comparingInt(PatternSetMatch::getStart)
+            .thenComparingInt(PatternSetMatch::getIndex).thenComparingInt(PatternSetMatch::getEnd);
+
+    /**
+     * The regex patterns
+     */
+    @ToString.Include
+    private final List<String> regexPatterns;
+
+    /**
+     * The presets of the patterns, or {@code null} for the patterns added as
+     * strings
+     */
+    private final List<RegexPattern> presets;
+
+    /**
+     * The patterns compiled by {@link java.util.regex.Pattern}
+     */
+    private final List<Pattern> patterns;
+
+    /**
+     * The regex option set
+     */
+    private final EnumSet<RegexOption> regexOptionSet;
+
+    /**
+     * The scanner of the patterns compiled into the combined automaton, or
+     * {@code null} if there are no such patterns
+     */
+    private final PatternSetScanner scanner;
+
+    /**
+     * The indexes in this set of the patterns compiled into the combined automaton
+     */
+    private final int[] automatonIndexes;
+
+    /**
+     * The indexes in this set of the patterns matched by
+     * {@link java.util.regex.Pattern}
+     */
+    private final int[] fallbackIndexes;
+
+    /**
+     * Constructor
+     *
+     * @param regexPatterns  The regex patterns
+     * @param presets        The presets of the patterns, or {@code null} for the
+     *                       patterns added as strings
+     * @param regexOptionSet The regex option set
+     */
+    private EpitaphPatternSet(List<String> regexPatterns, List<RegexPattern> presets,
+            EnumSet<RegexOption> regexOptionSet) {
+
+        final int flags = RegexOption.toFlags(regexOptionSet);
+        final List<Pattern> patterns = new ArrayList<>(regexPatterns.size());
+
+        for (int i = 0; i < regexPatterns.size(); i++) {
+            final RegexPattern preset = presets.get(i);
+            patterns.add(preset != null ? preset.getPattern(flags) : Pattern.compile(regexPatterns.get(i), flags));
+        }
+
+        final List<RegexNode> roots = new ArrayList<>();
+        final List<Integer> automatonIndexes = new ArrayList<>();
+        final List<Integer> fallbackIndexes = new ArrayList<>();
+
+        for (int i = 0; i < regexPatterns.size(); i++) {
+            try {
+                final RegexNode root = RegexParser.parse(regexPatterns.get(i), flags);
+                ProgramCompiler.compile(root);
+                roots.add(root);
+                automatonIndexes.add(i);
+            } catch (UnsupportedPatternException e) {
+                fallbackIndexes.add(i);
+            }
+        }
+
+        PatternSetScanner scanner = null;
+
+        if (!roots.isEmpty()) {
+            try {
+                scanner = new PatternSetScanner(ProgramCompiler.compile(roots));
+            } catch (UnsupportedPatternException e) {
+                fallbackIndexes.addAll(automatonIndexes);
+                automatonIndexes.clear();
+            }
+        }
+
+        this.regexPatterns = List.copyOf(regexPatterns);
+        this.presets = Collections.unmodifiableList(new ArrayList<>(presets));
+        this.patterns = List.copyOf(patterns);
+        this.regexOptionSet = EnumSet.copyOf(regexOptionSet);
+        this.scanner = scanner;
+        this.automatonIndexes = automatonIndexes.stream().mapToInt(Integer::intValue).toArray();
+        this.fallbackIndexes = fallbackIndexes.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * Returns the new instance of {@link Builder} .
+     *
+     * @return The new instance of {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The builder class for {@link EpitaphPatternSet} .
+     */
+    public static class Builder {
+
+        /**
+         * The regex patterns in the order of addition
+         */
+        private final List<String> regexPatterns = new ArrayList<>();
+
+        /**
+         * The presets of the patterns in the order of addition, or {@code null} for
+         * the patterns added as strings
+         */
+        private final List<RegexPattern> presets = new ArrayList<>();
+
+        /**
+         * The regex option set
+         */
+        private EnumSet<RegexOption> regexOptionSet = EnumSet.noneOf(RegexOption.class);
+
+        /**
+         * Defalut constructor
+         */
+        Builder() {
+        }
+
+        /**
+         * Adds the regex pattern to the set. The index of the pattern is the number of
+         * patterns added before.
+         *
+         * @param regexPattern The regex pattern
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder add(@NonNull RegexPattern regexPattern) {
+            this.regexPatterns.add(regexPattern.getTag());
+            this.presets.add(regexPattern);
+            return this;
+        }
+
+        /**
+         * Adds the regex pattern to the set. The index of the pattern is the number of
+         * patterns added before.
+         *
+         * @param regexPattern The regex pattern
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder add(@NonNull String regexPattern) {
+            this.regexPatterns.add(regexPattern);
+            this.presets.add(null);
+            return this;
+        }
+
+        /**
+         * Sets the regex option set applied to all patterns.
+         *
+         * @param regexOptionSet The regex option set
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder option(@NonNull EnumSet<RegexOption> regexOptionSet) {
+            this.regexOptionSet = regexOptionSet;
+            return this;
+        }
+
+        /**
+         * Returns the compiled instance of {@link EpitaphPatternSet} .
+         *
+         * @return The compiled instance of {@link EpitaphPatternSet}
+         *
+         * @exception IllegalStateException If no regex pattern is added
+         */
+        public EpitaphPatternSet build() {
+
+            if (this.regexPatterns.isEmpty()) {
+                throw new IllegalStateException("At least one regex pattern is required");
+            }
+
+            return new EpitaphPatternSet(this.regexPatterns, this.presets, this.regexOptionSet);
+        }
+    }
+
+    /**
+     * Returns all matches of all patterns in the input, ordered by the start index
+     * and then by the index of the pattern. The matches of each pattern are those
+     * found by repeated calls of {@link Epitaph#find()} .
+     *
+     * @param input The input
+     * @return The matches
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public List<PatternSetMatch> findAll(@NonNull CharSequence input) {
+
+        final List<PatternSetMatch> matches = new ArrayList<>();
+
+        if (this.scanner != null) {
+            this.scanner.scan(input,
+                    (pattern, start, end) -> matches.add(this.createMatch(this.automatonIndexes[pattern], start, end)));
+        }
+
+        for (int index : this.fallbackIndexes) {
+            final Matcher matcher = this.patterns.get(index).matcher(input);
+
+            while (matcher.find()) {
+                matches.add(this.createMatch(index, matcher.start(), matcher.end()));
+            }
+        }
+
+        matches.sort(MATCH_ORDER);
+
+        return matches;
+    }
+
+    /**
+     * Returns the indexes of the patterns that match a subsequence of the input.
+     *
+     * @param input The input
+     * @return The indexes of the matching patterns
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public BitSet matchingPatterns(@NonNull CharSequence input) {
+
+        final BitSet matchingPatterns = new BitSet(this.patterns.size());
+
+        if (this.scanner != null) {
+            this.scanner.findAny(input).stream().forEach(i -> matchingPatterns.set(this.automatonIndexes[i]));
+        }
+
+        for (int index : this.fallbackIndexes) {
+            if (this.patterns.get(index).matcher(input).find()) {
+                matchingPatterns.set(index);
+            }
+        }
+
+        return matchingPatterns;
+    }
+
+    /**
+     * Returns the indexes of the patterns that match the entire input.
+     *
+     * @param input The input
+     * @return The indexes of the matching patterns
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public BitSet matches(@NonNull CharSequence input) {
+
+        final BitSet matchingPatterns = new BitSet(this.patterns.size());
+
+        if (this.scanner != null) {
+            this.scanner.matchEntire(input).stream().forEach(i -> matchingPatterns.set(this.automatonIndexes[i]));
+        }
+
+        for (int index : this.fallbackIndexes) {
+            if (this.patterns.get(index).matcher(input).matches()) {
+                matchingPatterns.set(index);
+            }
+        }
+
+        return matchingPatterns;
+    }
+
+    /**
+     * Returns the compiled pattern at the index. The pattern is compiled by
+     * {@link EpitaphPattern.Builder} when this method is called, and is not used
+     * by the other methods of this set.
+     *
+     * @param index The index of the pattern
+     * @return The compiled pattern
+     *
+     * @exception IndexOutOfBoundsException If the index is out of range
+     */
+    public EpitaphPattern getPattern(int index) {
+
+        final RegexPattern preset = this.presets.get(index);
+        final EpitaphPattern.Builder patternBuilder = preset != null ? EpitaphPattern.builder().pattern(preset)
+                : EpitaphPattern.builder().pattern(this.regexPatterns.get(index));
+
+        return patternBuilder.option(this.regexOptionSet).build();
+    }
+
+    /**
+     * Returns the number of patterns in this set.
+     *
+     * @return The number of patterns
+     */
+    public int size() {
+        return this.patterns.size();
+    }
+
+    /**
+     * Returns the number of patterns compiled into the combined automaton. The
+     * other patterns are matched by {@link java.util.regex.Pattern} one by one.
+     *
+     * @return The number of patterns compiled into the combined automaton
+     */
+    public int getAutomatonPatternCount() {
+        return this.automatonIndexes.length;
+    }
+
+    /**
+     * Creates the match of the pattern at the index.
+     *
+     * @param index The index of the pattern
+     * @param start The start index of the match
+     * @param end   The end index of the match
+     * @return The match
+     */
+    private PatternSetMatch createMatch(int index, int start, int end) {
+        return new PatternSetMatch(index, this.regexPatterns.get(index), start, end);
+    }
+}
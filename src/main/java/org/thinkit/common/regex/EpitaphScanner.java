@@ -0,0 +1,785 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+
+import org.thinkit.common.base.precondition.Preconditions;
+import org.thinkit.common.regex.catalog.RegexPattern;
+import org.thinkit.common.regex.engine.Automaton;
+
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * Scans the input read from a {@link Reader} , an {@link InputStream} or a
+ * {@link ReadableByteChannel} for the matches of a pattern, without loading the
+ * entire input into memory.
+ * <p>
+ * The input is read through a buffer, so the memory used does not depend on
+ * the length of the input. When the buffer is refilled, the characters from
+ * which a match can still start are kept at the beginning of the buffer, so a
+ * match crossing the boundary between two reads is found as if the entire input
+ * was in memory. A match attempt that still looks at the end of the buffer is
+ * never reported as found there: the buffer is enlarged until the attempt ends
+ * within it, up to {@link Builder#maximumBufferSize(int)} characters, beyond
+ * which {@link ScanBufferOverflowException} is thrown instead of returning a
+ * truncated match. The step budget and the timeout of the pattern apply to each
+ * call of {@link #find()} .
+ * <p>
+ * The start and end indexes of the matches are the offsets of the characters
+ * from the beginning of the input, which are {@code long} values since the
+ * input can be longer than a {@link String} . The bytes read from an
+ * {@link InputStream} or a {@link ReadableByteChannel} are decoded with the
+ * charset, replacing malformed and unmappable input as
+ * {@link InputStreamReader} does.
+ * <p>
+ * A file given as a {@link FileChannel} is mapped into memory a part at a time
+ * instead of being read into the heap, so files larger than 2 GB can be
+ * scanned from the page cache. The bytes of a file encoded in
+ * {@link StandardCharsets#ISO_8859_1} are viewed as characters through the
+ * mapping without being copied or decoded, in which case the offsets of the
+ * characters are also the offsets of the bytes.
+ *
+ * <pre>
+ * Scan a large log file for email addresses:
+ * <code>
+ * try (EpitaphScanner scanner = EpitaphScanner.builder().pattern(RegexPattern.EMAIL_ADDRESS)
+ *         .input(FileChannel.open(path), StandardCharsets.UTF_8).build()) {
+ *     while (scanner.find()) {
+ *         scanner.start();
+ *         scanner.group();
+ *     }
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public final class EpitaphScanner implements Closeable {
+
+    /**
+     * The default number of characters of the buffer
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The default number of bytes of a file mapped at a time
+     */
+    public static final int DEFAULT_MAPPING_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The minimum number of characters of the buffer
+     */
+    public static final int MINIMUM_BUFFER_SIZE = 256;
+
+    /**
+     * The default maximum number of characters the buffer is enlarged to
+     */
+    public static final int DEFAULT_MAXIMUM_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The number of characters kept before the characters from which a match can
+     * still start, which are seen by the lookbehinds of the pattern
+     */
+    private static final int CONTEXT_LENGTH = 64;
+
+    /**
+     * The compiled pattern
+     */
+    @ToString.Include
+    private final EpitaphPattern epitaphPattern;
+
+    /**
+     * The window of the input
+     */
+    private final ScanWindow window;
+
+    /**
+     * The matcher of the window
+     */
+    private final Matcher matcher;
+
+    /**
+     * The automaton, or {@code null} if the pattern is run by the matcher
+     */
+    private final Automaton automaton;
+
+    /**
+     * The slots to store the match found by the automaton
+     */
+    private final int[] slots = new int[2];
+
+    /**
+     * The slots to store the match of an attempt that may still be pending
+     */
+    private final int[] attemptSlots = new int[2];
+
+    /**
+     * The characters of the window read by the engine
+     */
+    private final WindowText text = new WindowText();
+
+    /**
+     * The maximum number of characters the buffer is enlarged to
+     */
+    @ToString.Include
+    private final int maximumBufferSize;
+
+    /**
+     * Whether the engine is run on the window, otherwise the matcher
+     */
+    private boolean automatonEnabled;
+
+    /**
+     * Whether the last search looked at the end of the window
+     */
+    private boolean hitEnd;
+
+    /**
+     * The index of the window at which the next search starts
+     */
+    private int from;
+
+    /**
+     * The index of the window at which the last match starts, or {@code -1} if
+     * there is no match
+     */
+    private int first = -1;
+
+    /**
+     * The index of the window at which the last match ends, or {@code -1} if
+     * there is no match
+     */
+    private int last = -1;
+
+    /**
+     * Constructor
+     *
+     * @param epitaphPattern    The compiled pattern
+     * @param window            The window of the input
+     * @param maximumBufferSize The maximum number of characters the buffer is
+     *                          enlarged to
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    private EpitaphScanner(@NonNull EpitaphPattern epitaphPattern, @NonNull ScanWindow window,
+            int maximumBufferSize) {
+        this.epitaphPattern = epitaphPattern;
+        this.window = window;
+        this.matcher = epitaphPattern.getPattern().matcher("").useTransparentBounds(true).useAnchoringBounds(false);
+        this.automaton = epitaphPattern.getAutomaton();
+        this.maximumBufferSize = Math.max(maximumBufferSize, window.getCapacity());
+    }
+
+    /**
+     * Returns the new instance of {@link Builder} .
+     *
+     * @return The new instance of {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The builder class for {@link EpitaphScanner} .
+     */
+    public static class Builder {
+
+        /**
+         * The compiled pattern
+         */
+        private EpitaphPattern epitaphPattern;
+
+        /**
+         * The reader of the input, {@code null} if the input is a file
+         */
+        private Reader reader;
+
+        /**
+         * The channel of the file of the input, {@code null} if the input is read by
+         * a reader
+         */
+        private FileChannel fileChannel;
+
+        /**
+         * The charset of the file of the input
+         */
+        private Charset charset;
+
+        /**
+         * The number of characters of the buffer, {@code 0} if the default size is
+         * used
+         */
+        private int bufferSize;
+
+        /**
+         * The maximum number of characters the buffer is enlarged to
+         */
+        private int maximumBufferSize = DEFAULT_MAXIMUM_BUFFER_SIZE;
+
+        /**
+         * Default constructor
+         */
+        Builder() {
+        }
+
+        /**
+         * Sets the regex pattern.
+         *
+         * @param regexPattern The regex pattern
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder pattern(@NonNull RegexPattern regexPattern) {
+            this.epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+            return this;
+        }
+
+        /**
+         * Sets the regex pattern.
+         *
+         * @param regexPattern The regex pattern
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder pattern(@NonNull String regexPattern) {
+            this.epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+            return this;
+        }
+
+        /**
+         * Sets the compiled pattern.
+         *
+         * @param epitaphPattern The compiled pattern
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder pattern(@NonNull EpitaphPattern epitaphPattern) {
+            this.epitaphPattern = epitaphPattern;
+            return this;
+        }
+
+        /**
+         * Sets the reader of the input.
+         *
+         * @param reader The reader of the input
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder input(@NonNull Reader reader) {
+            this.reader = reader;
+            this.fileChannel = null;
+            return this;
+        }
+
+        /**
+         * Sets the input stream of the input encoded in the charset.
+         *
+         * @param inputStream The input stream of the input
+         * @param charset     The charset of the input
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder input(@NonNull InputStream inputStream, @NonNull Charset charset) {
+            return this.input(new InputStreamReader(inputStream, charset));
+        }
+
+        /**
+         * Sets the channel of the input encoded in the charset.
+         *
+         * @param channel The channel of the input
+         * @param charset The charset of the input
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder input(@NonNull ReadableByteChannel channel, @NonNull Charset charset) {
+            return this.input(Channels.newReader(channel, charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE), -1));
+        }
+
+        /**
+         * Sets the channel of the file of the input encoded in the charset. The file
+         * is mapped into memory a part at a time instead of being read into the
+         * heap, and the bytes of a file encoded in
+         * {@link StandardCharsets#ISO_8859_1} are matched through the mapping
+         * without being decoded. The size of the file is read when the scan starts.
+         *
+         * @param fileChannel The channel of the file of the input
+         * @param charset     The charset of the input
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder input(@NonNull FileChannel fileChannel, @NonNull Charset charset) {
+            this.reader = null;
+            this.fileChannel = fileChannel;
+            this.charset = charset;
+            return this;
+        }
+
+        /**
+         * Sets the number of characters of the buffer. The buffer of
+         * {@link #DEFAULT_BUFFER_SIZE} characters is used if this method is not
+         * called. When a file encoded in {@link StandardCharsets#ISO_8859_1} is
+         * matched through its mapping, this is the number of bytes mapped at a time,
+         * which is {@link #DEFAULT_MAPPING_SIZE} if this method is not called.
+         *
+         * @param bufferSize The number of characters of the buffer
+         * @return The instance of {@link Builder}
+         *
+         * @exception IllegalArgumentException If the buffer size is less than
+         *                                     {@link #MINIMUM_BUFFER_SIZE}
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < MINIMUM_BUFFER_SIZE) {
+                throw new IllegalArgumentException("The buffer size must be at least " + MINIMUM_BUFFER_SIZE);
+            }
+
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of characters the buffer is enlarged to when a
+         * match attempt looks at more characters than the buffer holds. The maximum
+         * of {@link #DEFAULT_MAXIMUM_BUFFER_SIZE} characters is used if this method
+         * is not called, and the buffer is never made smaller than the buffer size.
+         *
+         * @param maximumBufferSize The maximum number of characters of the buffer
+         * @return The instance of {@link Builder}
+         *
+         * @exception IllegalArgumentException If the maximum buffer size is less
+         *                                     than {@link #MINIMUM_BUFFER_SIZE}
+         */
+        public Builder maximumBufferSize(int maximumBufferSize) {
+            if (maximumBufferSize < MINIMUM_BUFFER_SIZE) {
+                throw new IllegalArgumentException("The maximum buffer size must be at least " + MINIMUM_BUFFER_SIZE);
+            }
+
+            this.maximumBufferSize = maximumBufferSize;
+            return this;
+        }
+
+        /**
+         * Returns the new instance of {@link EpitaphScanner} .
+         *
+         * @return The new instance of {@link EpitaphScanner}
+         *
+         * @exception IllegalStateException If the pattern or the input is not set
+         */
+        public EpitaphScanner build() {
+            Preconditions.requireNonNull(this.epitaphPattern, new IllegalStateException("The regex pattern is required"));
+
+            if (this.fileChannel == null) {
+                Preconditions.requireNonNull(this.reader, new IllegalStateException("The input is required"));
+                return new EpitaphScanner(this.epitaphPattern, new ReaderScanWindow(this.reader, this.bufferSize()),
+                        this.maximumBufferSize);
+            } else if (this.charset.equals(StandardCharsets.ISO_8859_1)) {
+                return new EpitaphScanner(this.epitaphPattern, new MappedScanWindow(this.fileChannel,
+                        this.bufferSize == 0 ? DEFAULT_MAPPING_SIZE : this.bufferSize), this.maximumBufferSize);
+            }
+
+            return new EpitaphScanner(this.epitaphPattern, new ReaderScanWindow(
+                    new MappedFileReader(this.fileChannel, this.charset, DEFAULT_MAPPING_SIZE), this.bufferSize()),
+                    this.maximumBufferSize);
+        }
+
+        /**
+         * Returns the number of characters of the buffer.
+         *
+         * @return The number of characters of the buffer
+         */
+        private int bufferSize() {
+            return this.bufferSize == 0 ? DEFAULT_BUFFER_SIZE : this.bufferSize;
+        }
+    }
+
+    /**
+     * Attempts to find the next subsequence of the input that matches the
+     * pattern, following the rules of {@link Matcher#find()} . The input is read
+     * as far as needed to determine the match.
+     *
+     * @return {@code true} if, and only if, a subsequence of the rest of the input
+     *         matches the pattern
+     *
+     * @throws IOException                  If an I/O error occurs while reading
+     *                                      the input
+     * @throws ScanBufferOverflowException  If the match cannot be determined
+     *                                      within the maximum buffer size
+     * @throws MatchBudgetExceededException If the search exceeds the step budget
+     *                                      or the timeout of the pattern
+     */
+    public boolean find() throws IOException {
+
+        this.first = -1;
+        this.last = -1;
+
+        final CharSequence input = this.epitaphPattern.guard(this.text);
+        this.matcher.reset(input);
+
+        while (true) {
+            final CharSequence characters = this.window.getText();
+            final int limit = characters.length();
+            final int end = this.window.isEndOfInput() || limit == 0
+                    || !Character.isHighSurrogate(characters.charAt(limit - 1)) ? limit : limit - 1;
+
+            this.text.bind(characters, end);
+            this.automatonEnabled = this.automaton != null && !Automaton.splitsSurrogatePair(characters, end);
+
+            final boolean found = this.from <= end && this.search(input, this.from, end);
+            final int pending = this.window.isEndOfInput() || !this.hitEnd ? -1
+                    : this.pendingStart(input, found ? this.slots[0] : end, end);
+
+            if (pending >= 0) {
+                this.extend(pending);
+            } else if (found) {
+                this.first = this.slots[0];
+                this.last = this.slots[1];
+                this.from = this.last == this.first ? this.last + 1 : this.last;
+                return true;
+            } else if (this.window.isEndOfInput()) {
+                return false;
+            } else {
+                this.fill(end);
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of the first character of the last match from the
+     * beginning of the input.
+     *
+     * @return The start offset of the last match
+     *
+     * @exception IllegalStateException If no match has yet been attempted, or if
+     *                                  the last match operation failed
+     */
+    public long start() {
+        this.requireMatch();
+        return this.window.getOffset() + this.first;
+    }
+
+    /**
+     * Returns the offset after the last character of the last match from the
+     * beginning of the input.
+     *
+     * @return The end offset of the last match
+     *
+     * @exception IllegalStateException If no match has yet been attempted, or if
+     *                                  the last match operation failed
+     */
+    public long end() {
+        this.requireMatch();
+        return this.window.getOffset() + this.last;
+    }
+
+    /**
+     * Returns the subsequence of the input matched by the last match.
+     *
+     * @return The (possibly empty) subsequence matched by the last match
+     *
+     * @exception IllegalStateException If no match has yet been attempted, or if
+     *                                  the last match operation failed
+     */
+    public String group() {
+        this.requireMatch();
+        return this.window.getText().subSequence(this.first, this.last).toString();
+    }
+
+    /**
+     * Returns the compiled pattern.
+     *
+     * @return The compiled pattern
+     */
+    public EpitaphPattern pattern() {
+        return this.epitaphPattern;
+    }
+
+    /**
+     * Returns the maximum number of characters the buffer is enlarged to.
+     *
+     * @return The maximum buffer size
+     */
+    public int getMaximumBufferSize() {
+        return this.maximumBufferSize;
+    }
+
+    /**
+     * Closes the input.
+     *
+     * @throws IOException If an I/O error occurs while closing the input
+     */
+    @Override
+    public void close() throws IOException {
+        this.window.close();
+    }
+
+    /**
+     * Searches the window for the first match starting in the range and stores it
+     * in the slots, recording whether the search looked at the end of the range.
+     * The automaton may skip to the end of the range without reading it when no
+     * match is found, and may accept a match ending at the end of the range
+     * without reading anything, as the empty match of an empty window, so a
+     * failed search and a match ending at the end of the range are taken as
+     * looking at the end.
+     *
+     * @param input The characters of the window read by the engine
+     * @param from  The index of the window to start the search at
+     * @param end   The end index of the range
+     * @return {@code true} if a match is found, otherwise {@code false}
+     */
+    private boolean search(CharSequence input, int from, int end) {
+
+        if (this.automatonEnabled) {
+            final boolean found = this.automaton.find(input, from, end, this.slots);
+            this.hitEnd = !found || this.slots[1] == end || this.text.isHitEnd();
+            return found;
+        }
+
+        final boolean found = this.matcher.region(from, end).find();
+        this.hitEnd = this.matcher.hitEnd();
+
+        if (!found) {
+            return false;
+        }
+
+        this.slots[0] = this.matcher.start();
+        this.slots[1] = this.matcher.end();
+        return true;
+    }
+
+    /**
+     * Returns the first index from which a match attempt looks at the end of the
+     * range, whose result can change with the following input.
+     *
+     * @param input The characters of the window read by the engine
+     * @param bound The last index to attempt, which is the end of the range if no
+     *              match is found
+     * @param end   The end index of the range
+     * @return The index from which a match can still start, or {@code -1} if the
+     *         result of the search is final
+     */
+    private int pendingStart(CharSequence input, int bound, int end) {
+
+        for (int index = this.from; index <= bound && index < end; index++) {
+            if (this.attemptHitsEnd(input, index, end)) {
+                return index;
+            }
+        }
+
+        return bound == end ? end : -1;
+    }
+
+    /**
+     * Tests if the match attempt anchored at the index looks at the end of the
+     * range. An attempt of the automaton that reads no character is rejected by
+     * the length of the rest of the range, so it is taken as looking at the end.
+     *
+     * @param input The characters of the window read by the engine
+     * @param index The index of the window to attempt at
+     * @param end   The end index of the range
+     * @return {@code true} if the attempt looks at the end of the range,
+     *         otherwise {@code false}
+     */
+    private boolean attemptHitsEnd(CharSequence input, int index, int end) {
+
+        if (this.automatonEnabled) {
+            this.text.clear();
+            this.automaton.lookingAt(input, index, end, this.attemptSlots);
+            return this.text.isHitEnd() || !this.text.isRead();
+        }
+
+        this.matcher.region(index, end).lookingAt();
+        return this.matcher.hitEnd();
+    }
+
+    /**
+     * Reads more input keeping the index from which a match can still start,
+     * enlarging the full window if sliding it would free less than a quarter of
+     * it.
+     *
+     * @param pending The index of the window from which a match can still start
+     *
+     * @throws IOException                 If an I/O error occurs while reading the
+     *                                     input
+     * @throws ScanBufferOverflowException If the window cannot be enlarged any
+     *                                     more
+     */
+    private void extend(int pending) throws IOException {
+
+        final int capacity = this.window.getCapacity();
+
+        if (this.window.getText().length() == capacity && pending - CONTEXT_LENGTH < capacity / 4) {
+            if (capacity >= this.maximumBufferSize) {
+                throw new ScanBufferOverflowException(this.epitaphPattern.getRegexPattern(),
+                        this.window.getOffset() + pending, this.maximumBufferSize);
+            }
+
+            this.window.grow((int) Math.min(2L * capacity, this.maximumBufferSize));
+        }
+
+        this.fill(pending);
+    }
+
+    /**
+     * Slides the window to the index from which a match can still start, keeping
+     * {@link #CONTEXT_LENGTH} characters before it.
+     *
+     * @param discard The index of the window from which a match can still start
+     *
+     * @throws IOException If an I/O error occurs while reading the input
+     */
+    private void fill(int discard) throws IOException {
+
+        final int shift = Math.max(0, discard - CONTEXT_LENGTH);
+
+        this.from = Math.max(this.from, discard) - shift;
+        this.window.slide(shift);
+    }
+
+    /**
+     * Ensures that the last match operation succeeded.
+     *
+     * @exception IllegalStateException If no match has yet been attempted, or if
+     *                                  the last match operation failed
+     */
+    private void requireMatch() {
+        if (this.first < 0) {
+            throw new IllegalStateException("No match found");
+        }
+    }
+
+    /**
+     * The characters of the window, which records whether the engine has read any
+     * character and the last character of the range being searched.
+     */
+    private static final class WindowText implements CharSequence {
+
+        /**
+         * The characters of the window
+         */
+        private CharSequence characters = "";
+
+        /**
+         * The index of the last character of the range
+         */
+        private int edge;
+
+        /**
+         * Whether any character has been read
+         */
+        private boolean read;
+
+        /**
+         * Whether the last character of the range has been read
+         */
+        private boolean hitEnd;
+
+        /**
+         * Default constructor
+         */
+        WindowText() {
+        }
+
+        /**
+         * Sets the characters of the window and the end of the range, and clears the
+         * record of the reads.
+         *
+         * @param characters The characters of the window
+         * @param end        The end index of the range
+         */
+        void bind(CharSequence characters, int end) {
+            this.characters = characters;
+            this.edge = end - 1;
+            this.clear();
+        }
+
+        /**
+         * Clears the record of the reads.
+         */
+        void clear() {
+            this.read = false;
+            this.hitEnd = false;
+        }
+
+        /**
+         * Tests if any character has been read.
+         *
+         * @return {@code true} if any character has been read, otherwise
+         *         {@code false}
+         */
+        boolean isRead() {
+            return this.read;
+        }
+
+        /**
+         * Tests if the last character of the range has been read.
+         *
+         * @return {@code true} if the last character of the range has been read,
+         *         otherwise {@code false}
+         */
+        boolean isHitEnd() {
+            return this.hitEnd;
+        }
+
+        @Override
+        public int length() {
+            return this.characters.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+
+            this.read = true;
+
+            if (index >= this.edge) {
+                this.hitEnd = true;
+            }
+
+            return this.characters.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return this.characters.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return this.characters.toString();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import org.thinkit.common.regex.catalog.MatchOperation;
+
+import jdk.jfr.EventType;
+
+/**
+ * The {@link MetricsSink} emitting Java Flight Recorder events, so that the hot
+ * spots of the patterns can be diagnosed from a recording of the production
+ * without attaching a profiler.
+ * <p>
+ * The event {@code org.thinkit.common.regex.Compile} is emitted for each lookup
+ * of a compiled pattern with the regex pattern, the flags, the elapsed time and
+ * whether the pattern was cached. The event
+ * {@code org.thinkit.common.regex.SlowMatch} is emitted for each match
+ * operation with the regex pattern, the operation, the input length, the
+ * elapsed time, and the thread and the stack trace of the operation.
+ * <p>
+ * Both events are disabled unless a recording enables them, and are controlled
+ * by the settings of the recording as the events of the JDK are. Since the
+ * events are emitted after the operations, the setting
+ * {@code elapsedTimeThreshold} of the event
+ * {@code org.thinkit.common.regex.SlowMatch} , which defaults to
+ * {@code 20 ms} , filters it by its elapsed time instead of the built-in
+ * {@code threshold} . The event {@code org.thinkit.common.regex.Compile} has no
+ * threshold, so that the cache hits taking a few microseconds are recorded as
+ * well. While no recording enables an event, the sink neither allocates nor
+ * fills it.
+ *
+ * <pre>
+ * Record the match operations taking 10 milliseconds or more:
+ * <code>
+ * EpitaphMetrics.register(new FlightRecorderSink());
+ *
+ * Recording recording = new Recording();
+ * recording.enable("org.thinkit.common.regex.SlowMatch").with("elapsedTimeThreshold", "10 ms");
+ * recording.start();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class FlightRecorderSink implements MetricsSink {
+
+    /**
+     * The type of the event of the lookups of compiled patterns
+     */
+    private static final EventType COMPILE_EVENT_TYPE = EventType.getEventType(CompileEvent.class);
+
+    /**
+     * The type of the event of the match operations
+     */
+    private static final EventType SLOW_MATCH_EVENT_TYPE = EventType.getEventType(SlowMatchEvent.class);
+
+    /**
+     * Default constructor
+     */
+    public FlightRecorderSink() {
+    }
+
+    @Override
+    public void recordCompile(String regexPattern, int flags, long nanos, boolean cacheHit) {
+
+        if (!COMPILE_EVENT_TYPE.isEnabled()) {
+            return;
+        }
+
+        final CompileEvent event = new CompileEvent();
+        event.regexPattern = regexPattern;
+        event.flags = flags;
+        event.elapsedTime = nanos;
+        event.cacheHit = cacheHit;
+        event.commit();
+    }
+
+    @Override
+    public void recordMatch(String regexPattern, MatchOperation operation, int inputLength, boolean matched,
+            long nanos) {
+
+        if (!SLOW_MATCH_EVENT_TYPE.isEnabled()) {
+            return;
+        }
+
+        final SlowMatchEvent event = new SlowMatchEvent();
+        event.regexPattern = regexPattern;
+        event.operation = operation.getTag();
+        event.inputLength = inputLength;
+        event.matched = matched;
+        event.elapsedTime = nanos;
+        event.commit();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The immutable snapshot of the values recorded in a histogram of
+ * {@link InMemoryMetricsSink} , such as latencies in nanoseconds or input
+ * lengths. The values derived from the buckets are the highest value of their
+ * bucket, and are at most {@code 1/16} higher than the recorded value.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString(onlyExplicitlyIncluded = true)
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class HistogramSnapshot {
+
+    /**
+     * The empty snapshot
+     */
+    static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[ConcurrentHistogram.BUCKET_COUNT], 0, 0);
+
+    /**
+     * The counts of the buckets
+     */
+    private final long[] counts;
+
+    /**
+     * The sum of the recorded values
+     */
+    @Getter
+    @ToString.Include
+    private final long sum;
+
+    /**
+     * The maximum of the recorded values, or {@code 0} if no value is recorded
+     */
+    @Getter
+    @ToString.Include
+    private final long maximum;
+
+    /**
+     * Returns the number of the recorded values.
+     *
+     * @return The number of the recorded values
+     */
+    @ToString.Include
+    public long getCount() {
+
+        long count = 0;
+
+        for (long bucketCount : this.counts) {
+            count += bucketCount;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the mean of the recorded values, or {@code 0.0} if no value is
+     * recorded.
+     *
+     * @return The mean
+     */
+    @ToString.Include
+    public double getMean() {
+        final long count = this.getCount();
+        return count == 0 ? 0.0 : (double) this.sum / count;
+    }
+
+    /**
+     * Returns the value that the percentage of the recorded values passed as an
+     * argument are at or below, or {@code 0} if no value is recorded.
+     *
+     * @param percentile The percentage from {@code 0.0} to {@code 100.0}
+     * @return The value at the percentile
+     *
+     * @exception IllegalArgumentException If the percentile is out of range
+     */
+    public long getValueAtPercentile(double percentile) {
+
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            throw new IllegalArgumentException("The percentile must be from 0.0 to 100.0");
+        }
+
+        final long count = this.getCount();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+
+            if (seen >= rank) {
+                return Math.min(ConcurrentHistogram.highestValueOf(i), this.maximum);
+            }
+        }
+
+        return this.maximum;
+    }
+}
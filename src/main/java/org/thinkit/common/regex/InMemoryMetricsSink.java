@@ -0,0 +1,277 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.thinkit.common.regex.catalog.MatchOperation;
+
+import lombok.NonNull;
+
+/**
+ * The built-in {@link MetricsSink} holding the metrics of each pattern in
+ * memory, to be scraped by {@link #getMetrics()} .
+ * <p>
+ * For each pattern, the number of lookups and cache hits with a histogram of
+ * their latencies, and for each operation, the number of operations that found
+ * a match and that did not with histograms of the input lengths and the
+ * latencies are recorded. The patterns differing only in the regex option
+ * flags are recorded together. All of them are recorded by counters and
+ * {@link ConcurrentHistogram} without locking, and are held until
+ * {@link #reset()} is called.
+ *
+ * <pre>
+ * Scrape the metrics of the patterns:
+ * <code>
+ * InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+ * EpitaphMetrics.register(metricsSink);
+ * ...
+ * metricsSink.getMetrics().forEach((regexPattern, patternMetrics) -&gt; {
+ *     OperationMetrics find = patternMetrics.getOperation(MatchOperation.FIND);
+ *     log(regexPattern, find.getCount(), find.getMatchRatio(), find.getLatency().getValueAtPercentile(99.0));
+ * });
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class InMemoryMetricsSink implements MetricsSink {
+
+    /**
+     * The recorders keyed by the regex pattern
+     */
+    private final Map<String, PatternRecorder> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * Default constructor
+     */
+    public InMemoryMetricsSink() {
+    }
+
+    @Override
+    public void recordCompile(@NonNull String regexPattern, int flags, long nanos, boolean cacheHit) {
+        this.recorderOf(regexPattern).recordCompile(nanos, cacheHit);
+    }
+
+    @Override
+    public void recordMatch(@NonNull String regexPattern, @NonNull MatchOperation operation, int inputLength,
+            boolean matched, long nanos) {
+        this.recorderOf(regexPattern).recorderOf(operation).record(inputLength, matched, nanos);
+    }
+
+    /**
+     * Returns the snapshots of the metrics of all recorded patterns keyed and
+     * ordered by the regex pattern.
+     *
+     * @return The metrics of the patterns
+     */
+    public Map<String, PatternMetrics> getMetrics() {
+
+        final Map<String, PatternMetrics> metrics = new TreeMap<>();
+        this.recorders.forEach((regexPattern, recorder) -> metrics.put(regexPattern, recorder.snapshot(regexPattern)));
+
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Returns the snapshot of the metrics of the pattern passed as an argument.
+     *
+     * @param regexPattern The regex pattern
+     * @return The metrics of the pattern, or {@code null} if the pattern has not
+     *         been recorded
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public PatternMetrics getMetrics(@NonNull String regexPattern) {
+        final PatternRecorder recorder = this.recorders.get(regexPattern);
+        return recorder == null ? null : recorder.snapshot(regexPattern);
+    }
+
+    /**
+     * Discards the metrics of all patterns.
+     */
+    public void reset() {
+        this.recorders.clear();
+    }
+
+    /**
+     * Returns the recorder of the pattern passed as an argument, creating it if
+     * it is not present.
+     *
+     * @param regexPattern The regex pattern
+     * @return The recorder of the pattern
+     */
+    private PatternRecorder recorderOf(String regexPattern) {
+
+        final PatternRecorder recorder = this.recorders.get(regexPattern);
+
+        if (recorder != null) {
+            return recorder;
+        }
+
+        return this.recorders.computeIfAbsent(regexPattern, key -> new PatternRecorder());
+    }
+
+    /**
+     * The recorder of the metrics of a pattern.
+     */
+    private static final class PatternRecorder {
+
+        /**
+         * The number of lookups
+         */
+        private final LongAdder compileCount = new LongAdder();
+
+        /**
+         * The number of lookups that returned a cached pattern
+         */
+        private final LongAdder cacheHitCount = new LongAdder();
+
+        /**
+         * The latencies of the lookups
+         */
+        private final ConcurrentHistogram compileLatency = new ConcurrentHistogram();
+
+        /**
+         * The recorders of the operations indexed by their code, created when the
+         * operation is recorded first
+         */
+        private final AtomicReferenceArray<OperationRecorder> operations = new AtomicReferenceArray<>(
+                MatchOperation.values().length);
+
+        /**
+         * Records the lookup of the compiled pattern.
+         *
+         * @param nanos    The nanoseconds taken by the lookup
+         * @param cacheHit {@code true} if the compiled pattern was cached, otherwise
+         *                 {@code false}
+         */
+        void recordCompile(long nanos, boolean cacheHit) {
+
+            this.compileCount.increment();
+
+            if (cacheHit) {
+                this.cacheHitCount.increment();
+            }
+
+            this.compileLatency.record(nanos);
+        }
+
+        /**
+         * Returns the recorder of the operation passed as an argument, creating it if
+         * it is not present.
+         *
+         * @param operation The operation
+         * @return The recorder of the operation
+         */
+        OperationRecorder recorderOf(MatchOperation operation) {
+
+            final OperationRecorder recorder = this.operations.get(operation.getCode());
+
+            if (recorder != null) {
+                return recorder;
+            }
+
+            this.operations.compareAndSet(operation.getCode(), null, new OperationRecorder());
+
+            return this.operations.get(operation.getCode());
+        }
+
+        /**
+         * Returns the snapshot of the metrics of the pattern.
+         *
+         * @param regexPattern The regex pattern
+         * @return The snapshot
+         */
+        PatternMetrics snapshot(String regexPattern) {
+
+            final Map<MatchOperation, OperationMetrics> operationMetrics = new EnumMap<>(MatchOperation.class);
+
+            for (MatchOperation operation : MatchOperation.values()) {
+                final OperationRecorder recorder = this.operations.get(operation.getCode());
+
+                if (recorder != null) {
+                    operationMetrics.put(operation, recorder.snapshot());
+                }
+            }
+
+            return new PatternMetrics(regexPattern, this.compileCount.sum(), this.cacheHitCount.sum(),
+                    this.compileLatency.snapshot(), Collections.unmodifiableMap(operationMetrics));
+        }
+    }
+
+    /**
+     * The recorder of the metrics of an operation on a pattern.
+     */
+    private static final class OperationRecorder {
+
+        /**
+         * The number of operations that found a match
+         */
+        private final LongAdder matchCount = new LongAdder();
+
+        /**
+         * The number of operations that found no match
+         */
+        private final LongAdder noMatchCount = new LongAdder();
+
+        /**
+         * The lengths of the inputs
+         */
+        private final ConcurrentHistogram inputLength = new ConcurrentHistogram();
+
+        /**
+         * The latencies of the operations
+         */
+        private final ConcurrentHistogram latency = new ConcurrentHistogram();
+
+        /**
+         * Records the operation.
+         *
+         * @param inputLength The length of the input
+         * @param matched     {@code true} if the operation found a match, otherwise
+         *                    {@code false}
+         * @param nanos       The nanoseconds taken by the operation
+         */
+        void record(int inputLength, boolean matched, long nanos) {
+
+            if (matched) {
+                this.matchCount.increment();
+            } else {
+                this.noMatchCount.increment();
+            }
+
+            this.inputLength.record(inputLength);
+            this.latency.record(nanos);
+        }
+
+        /**
+         * Returns the snapshot of the metrics of the operation.
+         *
+         * @return The snapshot
+         */
+        OperationMetrics snapshot() {
+            return new OperationMetrics(this.matchCount.sum(), this.noMatchCount.sum(), this.inputLength.snapshot(),
+                    this.latency.snapshot());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * The {@link Reader} that decodes a file by mapping a part of it into memory at
+ * a time, instead of copying its bytes into the heap.
+ * <p>
+ * The mapping is moved forward when its bytes are decoded, starting at the
+ * first byte of a character cut by its end, so files of any size can be read
+ * although a single mapping is limited to {@link Integer#MAX_VALUE} bytes.
+ * Malformed and unmappable input is replaced as
+ * {@link java.io.InputStreamReader} does.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class MappedFileReader extends Reader {
+
+    /**
+     * The channel of the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * The decoder of the charset
+     */
+    private final CharsetDecoder decoder;
+
+    /**
+     * The maximum number of bytes mapped at a time
+     */
+    private final int mappingSize;
+
+    /**
+     * The buffer of a character decoded when there is room only for the first
+     * half of its surrogate pair
+     */
+    private final CharBuffer pending = CharBuffer.allocate(2);
+
+    /**
+     * The size of the file, or {@code -1} if it has not been read yet
+     */
+    private long size = -1;
+
+    /**
+     * The offset of the mapping from the beginning of the file
+     */
+    private long offset;
+
+    /**
+     * The mapping, whose position is at the first byte not decoded yet
+     */
+    private ByteBuffer bytes = ByteBuffer.allocate(0);
+
+    /**
+     * Whether the decoder has been flushed at the end of the file
+     */
+    private boolean flushed;
+
+    /**
+     * Constructor
+     *
+     * @param channel     The channel of the file
+     * @param charset     The charset of the file
+     * @param mappingSize The maximum number of bytes mapped at a time
+     */
+    MappedFileReader(FileChannel channel, Charset charset, int mappingSize) {
+        this.channel = channel;
+        this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.mappingSize = mappingSize;
+        this.pending.flip();
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+
+        if (length == 0) {
+            return 0;
+        } else if (this.pending.hasRemaining()) {
+            buffer[offset] = this.pending.get();
+            return 1;
+        }
+
+        final CharBuffer output = CharBuffer.wrap(buffer, offset, length);
+
+        while (true) {
+            final boolean endOfFile = this.isEndOfFile();
+            final CoderResult result = this.flushed ? CoderResult.UNDERFLOW
+                    : this.decoder.decode(this.bytes, output, endOfFile);
+
+            if (endOfFile && result.isUnderflow() && !this.flushed) {
+                this.decoder.flush(output);
+                this.flushed = true;
+            }
+
+            if (output.position() > offset) {
+                return output.position() - offset;
+            } else if (result.isOverflow()) {
+                this.pending.clear();
+                this.decoder.decode(this.bytes, this.pending, endOfFile);
+                this.pending.flip();
+                buffer[offset] = this.pending.get();
+                return 1;
+            } else if (endOfFile) {
+                return -1;
+            }
+
+            this.offset += this.bytes.position();
+            this.bytes = this.channel.map(FileChannel.MapMode.READ_ONLY, this.offset,
+                    Math.min(this.mappingSize, this.size - this.offset));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Tests if the mapping reaches the end of the file.
+     *
+     * @return {@code true} if the mapping reaches the end of the file, otherwise
+     *         {@code false}
+     *
+     * @throws IOException If an I/O error occurs while reading the size of the
+     *                     file
+     */
+    private boolean isEndOfFile() throws IOException {
+
+        if (this.size < 0) {
+            this.size = this.channel.size();
+        }
+
+        return this.offset + this.bytes.limit() == this.size;
+    }
+}
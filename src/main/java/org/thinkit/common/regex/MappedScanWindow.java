@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@link ScanWindow} that maps a part of a file encoded in
+ * {@link StandardCharsets#ISO_8859_1} into memory at a time and views its bytes
+ * as the characters of the same values.
+ * <p>
+ * The characters are read from the page cache through the mapping, so the
+ * input is neither copied into the heap nor decoded. The window is remapped
+ * when it slides, so files of any size can be scanned although a single
+ * mapping is limited to {@link Integer#MAX_VALUE} bytes.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class MappedScanWindow extends ScanWindow {
+
+    /**
+     * The channel of the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * The maximum number of bytes mapped at a time
+     */
+    private int mappingSize;
+
+    /**
+     * The size of the file, or {@code -1} if it has not been read yet
+     */
+    private long size = -1;
+
+    /**
+     * The offset of the mapping from the beginning of the file
+     */
+    private long offset;
+
+    /**
+     * The characters of the mapping
+     */
+    private CharSequence text = "";
+
+    /**
+     * Constructor
+     *
+     * @param channel     The channel of the file
+     * @param mappingSize The maximum number of bytes mapped at a time
+     */
+    MappedScanWindow(FileChannel channel, int mappingSize) {
+        this.channel = channel;
+        this.mappingSize = mappingSize;
+    }
+
+    @Override
+    CharSequence getText() {
+        return this.text;
+    }
+
+    @Override
+    long getOffset() {
+        return this.offset;
+    }
+
+    @Override
+    int getCapacity() {
+        return this.mappingSize;
+    }
+
+    @Override
+    boolean isEndOfInput() {
+        return this.size >= 0 && this.offset + this.text.length() == this.size;
+    }
+
+    @Override
+    void slide(int shift) throws IOException {
+
+        if (this.size < 0) {
+            this.size = this.channel.size();
+        }
+
+        this.offset += shift;
+        this.text = new ByteSequence(this.channel.map(FileChannel.MapMode.READ_ONLY, this.offset,
+                Math.min(this.mappingSize, this.size - this.offset)));
+    }
+
+    @Override
+    void grow(int capacity) throws IOException {
+        this.mappingSize = capacity;
+        this.slide(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * The {@link CharSequence} view of the bytes of a buffer as the characters of
+     * the same values.
+     */
+    private static final class ByteSequence implements CharSequence {
+
+        /**
+         * The bytes
+         */
+        private final ByteBuffer bytes;
+
+        /**
+         * Constructor
+         *
+         * @param bytes The bytes
+         */
+        ByteSequence(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return this.bytes.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (this.bytes.get(index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteSequence(this.bytes.duplicate().position(start).limit(end).slice());
+        }
+
+        @Override
+        public String toString() {
+
+            final byte[] array = new byte[this.bytes.limit()];
+            this.bytes.get(0, array);
+
+            return new String(array, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.time.Duration;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a match operation exceeds the step budget or the timeout set by
+ * {@link EpitaphPattern.Builder#stepBudget(long)} or
+ * {@link EpitaphPattern.Builder#timeout(Duration)} . A step is a read of a
+ * character of the input by the engine, so an operation backtracking over the
+ * same characters again and again runs out of its budget.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class MatchBudgetExceededException extends RuntimeException {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 4629172384017265512L;
+
+    /**
+     * The regex pattern
+     */
+    @Getter
+    private final String regexPattern;
+
+    /**
+     * The index of the character of the input read when the budget was exceeded
+     */
+    @Getter
+    private final int offset;
+
+    /**
+     * The number of steps taken
+     */
+    @Getter
+    private final long steps;
+
+    /**
+     * The time elapsed since the operation started
+     */
+    @Getter
+    private final Duration elapsed;
+
+    /**
+     * Constructor
+     *
+     * @param regexPattern The regex pattern
+     * @param offset       The index of the character of the input read when the
+     *                     budget was exceeded
+     * @param steps        The number of steps taken
+     * @param elapsed      The time elapsed since the operation started
+     */
+    MatchBudgetExceededException(String regexPattern, int offset, long steps, Duration elapsed) {
+        super(String.format("The match of the regex pattern %s exceeded its budget at offset %d after %d steps and %d ms",
+                regexPattern, offset, steps, elapsed.toMillis()));
+        this.regexPattern = regexPattern;
+        this.offset = offset;
+        this.steps = steps;
+        this.elapsed = elapsed;
+    }
+}
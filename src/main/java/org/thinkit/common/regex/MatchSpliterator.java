@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.thinkit.common.regex.engine.Automaton;
+
+/**
+ * The {@link Spliterator} of the matches of a pattern in a range of the input,
+ * which are those found by repeated calls of {@link Epitaph#find()} . Each
+ * match is searched for only when it is asked for by {@link #tryAdvance} , so
+ * a short-circuiting operation stops searching the input as soon as it has
+ * its result.
+ * <p>
+ * A range searched by an automaton is split only at an index found by
+ * {@link Automaton#findSplitPoint(CharSequence, int, int)} , which no match
+ * crosses and from which the matches are the same wherever the searches
+ * started before it. The first part is then searched for the matches starting
+ * before the index and the second part from the index, so the parts are
+ * searched independently of each other and together yield exactly the
+ * matches of the range. A range searched by {@link Matcher} is not split.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class MatchSpliterator implements Spliterator<MatchResult> {
+
+    /**
+     * The minimum length of a range to split, under which splitting the range
+     * costs more than it saves
+     */
+    private static final int MINIMUM_SPLIT_LENGTH = 1 << 14;
+
+    /**
+     * The compiled pattern
+     */
+    private final EpitaphPattern epitaphPattern;
+
+    /**
+     * The pattern
+     */
+    private final Pattern pattern;
+
+    /**
+     * The automaton of the pattern, or {@code null} if the range is searched by
+     * the matcher
+     */
+    private final Automaton automaton;
+
+    /**
+     * The number of capturing groups of the pattern
+     */
+    private final int groupCount;
+
+    /**
+     * The input
+     */
+    private final CharSequence input;
+
+    /**
+     * The end index of the range
+     */
+    private final int end;
+
+    /**
+     * The index before which the matches have to start, which is greater than the
+     * end index of the range unless the range has been split
+     */
+    private final int limit;
+
+    /**
+     * The index to start the next search at
+     */
+    private int position;
+
+    /**
+     * The matcher searching the range, which is created on first use if the
+     * automaton is not used
+     */
+    private Matcher matcher;
+
+    /**
+     * The input read by the searches, which enforces the budget of the pattern
+     * and is created on first use
+     */
+    private CharSequence guardedInput;
+
+    /**
+     * Constructor
+     *
+     * @param epitaphPattern The compiled pattern
+     * @param input          The input
+     * @param start          The start index of the range
+     * @param end            The end index of the range
+     */
+    MatchSpliterator(EpitaphPattern epitaphPattern, CharSequence input, int start, int end) {
+        this(epitaphPattern, Automaton.splitsSurrogatePair(input, end) ? null : epitaphPattern.getAutomaton(),
+                epitaphPattern.getPattern().matcher("").groupCount(), input, start, end + 1, end);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param epitaphPattern The compiled pattern
+     * @param automaton      The automaton of the pattern, or {@code null}
+     * @param groupCount     The number of capturing groups of the pattern
+     * @param input          The input
+     * @param position       The index to start the first search at
+     * @param limit          The index before which the matches have to start
+     * @param end            The end index of the range
+     */
+    private MatchSpliterator(EpitaphPattern epitaphPattern, Automaton automaton, int groupCount,
+            CharSequence input, int position, int limit, int end) {
+        this.epitaphPattern = epitaphPattern;
+        this.pattern = epitaphPattern.getPattern();
+        this.automaton = automaton;
+        this.groupCount = groupCount;
+        this.input = input;
+        this.position = position;
+        this.limit = limit;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super MatchResult> action) {
+
+        if (this.position >= this.limit) {
+            return false;
+        }
+
+        final int[] slots = this.automaton == null ? this.findByMatcher() : this.findByAutomaton();
+
+        if (slots == null) {
+            this.position = this.limit;
+            return false;
+        }
+
+        this.position = slots[0] == slots[1] ? slots[1] + 1 : slots[1];
+        action.accept(new EpitaphMatchResult(this.pattern, this.input, this.end, this.groupCount, slots));
+
+        return true;
+    }
+
+    @Override
+    public Spliterator<MatchResult> trySplit() {
+
+        if (this.automaton == null || Math.min(this.limit, this.end) - this.position < MINIMUM_SPLIT_LENGTH) {
+            return null;
+        }
+
+        final int middle = this.position + (Math.min(this.limit, this.end) - this.position) / 2;
+        final int splitPoint = this.automaton.findSplitPoint(this.input, middle, Math.min(this.limit, this.end));
+
+        if (splitPoint < 0) {
+            return null;
+        }
+
+        final Spliterator<MatchResult> prefix = new MatchSpliterator(this.epitaphPattern, this.automaton, this.groupCount,
+                this.input, this.position, splitPoint, this.end);
+        this.position = splitPoint;
+
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.max(0, Math.min(this.limit, this.end) - this.position);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | (this.input instanceof String ? IMMUTABLE : 0);
+    }
+
+    /**
+     * Searches the range for the next match by the automaton.
+     *
+     * @return The slots of the match, which also hold its groups if the automaton
+     *         determines them, or {@code null} if no match is found
+     */
+    private int[] findByAutomaton() {
+
+        final int[] slots = new int[this.automaton.isCapturing() ? (this.groupCount + 1) * 2 : 2];
+
+        final CharSequence guardedInput = this.guardedInput();
+        BudgetedCharSequence.rearm(guardedInput);
+
+        return this.automaton.find(guardedInput, this.position, this.limit, this.end, slots) ? slots : null;
+    }
+
+    /**
+     * Searches the range for the next match by the matcher, which is never split
+     * and therefore finds the matches one after another from the start of the
+     * range.
+     *
+     * @return The slots of the match and its groups, or {@code null} if no match
+     *         is found
+     */
+    private int[] findByMatcher() {
+
+        if (this.matcher == null) {
+            this.matcher = this.pattern.matcher(this.guardedInput()).region(this.position, this.end);
+        }
+
+        BudgetedCharSequence.rearm(this.guardedInput);
+
+        if (!this.matcher.find()) {
+            return null;
+        }
+
+        final int[] slots = new int[(this.groupCount + 1) * 2];
+
+        for (int group = 0; group <= this.groupCount; group++) {
+            slots[group * 2] = this.matcher.start(group);
+            slots[group * 2 + 1] = this.matcher.end(group);
+        }
+
+        return slots;
+    }
+
+    /**
+     * Returns the input read by the searches, creating it on first use so that
+     * each part of a split range has its own budget, which is rearmed for each
+     * search.
+     *
+     * @return The input read by the searches
+     */
+    private CharSequence guardedInput() {
+
+        if (this.guardedInput == null) {
+            this.guardedInput = this.epitaphPattern.guard(this.input);
+        }
+
+        return this.guardedInput;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.io.IOException;
+
+import lombok.NonNull;
+
+/**
+ * The view of a range of an input as a {@link CharSequence} , which reads the
+ * characters of the input instead of copying them. The views of the groups of a
+ * match are returned by {@link Epitaph#groupView()} , and a single view can be
+ * moved from match to match by {@link Epitaph#groupView(MatchView)} so that a
+ * loop over the matches allocates nothing.
+ * <p>
+ * The view reflects the changes of a mutable input, and is valid only while the
+ * range is within the input. {@link #toString()} copies the characters into a
+ * new {@link String} , which the other methods do not.
+ *
+ * <pre>
+ * Write the words of a document without copying them:
+ * <code>
+ * Epitaph epitaph = Epitaph.builder().pattern("[A-Za-z]+").input(document).build();
+ * MatchView word = new MatchView();
+ * while (epitaph.find()) {
+ *     epitaph.groupView(word).appendTo(writer).append('\n');
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class MatchView implements CharSequence {
+
+    /**
+     * The input
+     */
+    private CharSequence input;
+
+    /**
+     * The start index of the range
+     */
+    private int start;
+
+    /**
+     * The end index of the range
+     */
+    private int end;
+
+    /**
+     * Constructor of the empty view, which is moved to a range by
+     * {@link Epitaph#groupView(MatchView)} .
+     */
+    public MatchView() {
+        this("", 0, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param input The input
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     */
+    MatchView(CharSequence input, int start, int end) {
+        this.input = input;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Moves this view to the range of the input.
+     *
+     * @param input The input
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     * @return This view
+     */
+    MatchView set(CharSequence input, int start, int end) {
+        this.input = input;
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    /**
+     * Returns the start index of the range of this view in the input.
+     *
+     * @return The start index
+     */
+    public int getStart() {
+        return this.start;
+    }
+
+    /**
+     * Returns the end index of the range of this view in the input.
+     *
+     * @return The end index
+     */
+    public int getEnd() {
+        return this.end;
+    }
+
+    @Override
+    public int length() {
+        return this.end - this.start;
+    }
+
+    @Override
+    public char charAt(int index) {
+
+        if (index < 0 || index >= this.end - this.start) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.length());
+        }
+
+        return this.input.charAt(this.start + index);
+    }
+
+    /**
+     * Returns the view of the subsequence of this view, which shares the input
+     * with this view instead of copying the characters.
+     *
+     * @param start The start index, inclusive
+     * @param end   The end index, exclusive
+     * @return The view of the subsequence
+     *
+     * @exception IndexOutOfBoundsException If the indexes are negative, if
+     *                                      {@code end} is greater than the length
+     *                                      of this view, or if {@code start} is
+     *                                      greater than {@code end}
+     */
+    @Override
+    public MatchView subSequence(int start, int end) {
+
+        if (start < 0 || end > this.end - this.start || start > end) {
+            throw new IndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + this.length());
+        }
+
+        return new MatchView(this.input, this.start + start, this.start + end);
+    }
+
+    /**
+     * Tests if the characters of this view are the same as those of the
+     * character sequence.
+     *
+     * @param other The character sequence
+     * @return {@code true} if the characters are the same, otherwise
+     *         {@code false}
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public boolean contentEquals(@NonNull CharSequence other) {
+
+        if (other.length() != this.end - this.start) {
+            return false;
+        }
+
+        for (int index = 0; index < other.length(); index++) {
+            if (this.input.charAt(this.start + index) != other.charAt(index)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the hash code of the characters of this view, which is the same as
+     * {@link String#hashCode()} of {@link #toString()} .
+     *
+     * @return The hash code
+     */
+    public int contentHashCode() {
+
+        int hashCode = 0;
+
+        for (int index = this.start; index < this.end; index++) {
+            hashCode = 31 * hashCode + this.input.charAt(index);
+        }
+
+        return hashCode;
+    }
+
+    /**
+     * Appends the characters of this view to the appendable without copying them
+     * into an intermediate string.
+     *
+     * @param <A>        The type of the appendable
+     * @param appendable The appendable
+     * @return The appendable
+     * @throws IOException If an I/O error occurs
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public <A extends Appendable> A appendTo(@NonNull A appendable) throws IOException {
+        appendable.append(this.input, this.start, this.end);
+        return appendable;
+    }
+
+    /**
+     * Returns the new string of the characters of this view.
+     *
+     * @return The string
+     */
+    @Override
+    public String toString() {
+        return this.input.subSequence(this.start, this.end).toString();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import org.thinkit.common.regex.catalog.MatchOperation;
+
+/**
+ * The receiver of the metrics reported by {@link Epitaph} and
+ * {@link EpitaphPattern} around the compilation and the match operations of
+ * their patterns, registered by {@link EpitaphMetrics#register(MetricsSink)} .
+ * <p>
+ * The methods are called by the thread running the operation right after it
+ * completes, so an implementation has to be thread-safe and should record
+ * without blocking. {@link InMemoryMetricsSink} is the built-in implementation
+ * holding the metrics in memory to be scraped, and {@link FlightRecorderSink}
+ * emits them as Java Flight Recorder events.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public interface MetricsSink {
+
+    /**
+     * Records the lookup of the compiled pattern by {@link Epitaph.Builder#build()}
+     * or {@link EpitaphPattern.Builder#build()} .
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @param nanos        The nanoseconds taken by the lookup, including the
+     *                     compilation if the pattern was not cached
+     * @param cacheHit     {@code true} if the compiled pattern was cached,
+     *                     otherwise {@code false}
+     */
+    void recordCompile(String regexPattern, int flags, long nanos, boolean cacheHit);
+
+    /**
+     * Records the match operation on the input.
+     *
+     * @param regexPattern The regex pattern
+     * @param operation    The operation
+     * @param inputLength  The length of the input, in bytes if the input is
+     *                     encoded in UTF-8 and otherwise in characters
+     * @param matched      {@code true} if the operation found a match, otherwise
+     *                     {@code false}
+     * @param nanos        The nanoseconds taken by the operation
+     */
+    void recordMatch(String regexPattern, MatchOperation operation, int inputLength, boolean matched, long nanos);
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import org.thinkit.common.regex.catalog.MatchOperation;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The immutable snapshot of the metrics of a {@link MatchOperation} on a
+ * pattern recorded by {@link InMemoryMetricsSink} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class OperationMetrics {
+
+    /**
+     * The number of operations that found a match
+     */
+    @Getter
+    private final long matchCount;
+
+    /**
+     * The number of operations that found no match
+     */
+    @Getter
+    private final long noMatchCount;
+
+    /**
+     * The lengths of the inputs
+     */
+    @Getter
+    @NonNull
+    private final HistogramSnapshot inputLength;
+
+    /**
+     * The latencies in nanoseconds
+     */
+    @Getter
+    @NonNull
+    private final HistogramSnapshot latency;
+
+    /**
+     * Returns the total number of operations.
+     *
+     * @return The total number of operations
+     */
+    public long getCount() {
+        return this.matchCount + this.noMatchCount;
+    }
+
+    /**
+     * Returns the ratio of operations that found a match, or {@code 0.0} if no
+     * operation has been recorded yet.
+     *
+     * @return The match ratio
+     */
+    public double getMatchRatio() {
+        final long count = this.getCount();
+        return count == 0 ? 0.0 : (double) this.matchCount / count;
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * The finder of all matches of a pattern that searches the segments of a large
+ * input in parallel on a {@link ForkJoinPool} .
+ * <p>
+ * Each segment collects the matches starting in it as repeated searches
+ * starting at the beginning of the segment would find them, and may look past
+ * its end for a match crossing the boundary. The segments are then merged in
+ * order. Where the previous segment ends with a match crossing into the next
+ * one, the next segment is searched again from the end of that match until a
+ * match it has already collected is found, after which the two sequences of
+ * matches are the same. The result is therefore exactly that of repeated calls
+ * of {@link Epitaph#find()} .
+ * <p>
+ * The work of each segment does not depend on the length of the rest of the
+ * input only if the search gives up at the limit of the segment, as the
+ * automata do. A search that has to look for the next match to the end of the
+ * input, as {@link java.util.regex.Matcher#find(int)} does, would scan the rest
+ * of the input once per segment, so such a range is searched by
+ * {@link #findAllSequentially()} in a single pass instead.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class ParallelFinder {
+
+    /**
+     * The minimum length of a segment, under which splitting the input costs more
+     * than it saves
+     */
+    private static final int MINIMUM_SEGMENT_LENGTH = 1 << 16;
+
+    /**
+     * The number of segments per thread of the pool, which balances the segments
+     * of different costs
+     */
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    /**
+     * The supplier of the searches, one of which is used by each segment
+     */
+    private final Supplier<Search> searches;
+
+    /**
+     * The start index of the range
+     */
+    private final int start;
+
+    /**
+     * The end index of the range
+     */
+    private final int end;
+
+    /**
+     * Constructor
+     *
+     * @param searches The supplier of the searches, one of which is used by each
+     *                 segment
+     * @param start    The start index of the range
+     * @param end      The end index of the range
+     */
+    ParallelFinder(Supplier<Search> searches, int start, int end) {
+        this.searches = searches;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * The search of the input, which is used by only one thread at a time.
+     */
+    @FunctionalInterface
+    interface Search {
+
+        /**
+         * Attempts to find the first match that starts at or after the index passed
+         * as an argument, and succeeds only if that match starts before the limit.
+         *
+         * @param from  The index to start the search at
+         * @param limit The index before which the match has to start
+         * @param slots The slots to store the match
+         * @return {@code true} if, and only if, the first match starts before the
+         *         limit
+         */
+        boolean find(int from, int limit, int[] slots);
+    }
+
+    /**
+     * The rule that moves a boundary between segments to an index at which a
+     * search can start.
+     */
+    @FunctionalInterface
+    interface Boundary {
+
+        /**
+         * Returns the first index at or after the index passed as an argument at
+         * which a search can start.
+         *
+         * @param index The index
+         * @return The index at which a search can start
+         */
+        int align(int index);
+    }
+
+    /**
+     * Returns the start and end indexes of all matches in the range, found by
+     * searching the segments of the range in parallel on the pool.
+     *
+     * @param pool     The pool
+     * @param boundary The rule that moves a boundary between segments
+     * @return The start and end indexes of the matches in pairs
+     */
+    int[] findAll(ForkJoinPool pool, Boundary boundary) {
+
+        final List<Segment> segments = this.split(pool.getParallelism(), boundary);
+
+        if (segments.size() > 1) {
+            for (Segment segment : segments) {
+                pool.execute(segment);
+            }
+        }
+
+        final Matches matches = new Matches();
+        final int[] slots = new int[2];
+        Search search = null;
+        int position = this.start;
+
+        for (Segment segment : segments) {
+            if (segments.size() > 1) {
+                segment.join();
+            } else {
+                segment.invoke();
+            }
+
+            if (position <= segment.start) {
+                position = matches.addAll(segment.matches, 0, position);
+                continue;
+            }
+
+            if (search == null) {
+                search = this.searches.get();
+            }
+
+            int index = 0;
+
+            while (position <= this.end && search.find(position, segment.limit, slots)) {
+                while (index < segment.matches.size && segment.matches.starts[index] < slots[0]) {
+                    index++;
+                }
+
+                if (index < segment.matches.size && segment.matches.starts[index] == slots[0]
+                        && segment.matches.ends[index] == slots[1]) {
+                    position = matches.addAll(segment.matches, index, position);
+                    break;
+                }
+
+                position = matches.add(slots[0], slots[1]);
+            }
+        }
+
+        return matches.toArray();
+    }
+
+    /**
+     * Returns the start and end indexes of all matches in the range, found by
+     * searching the whole range as a single segment in the calling thread.
+     *
+     * @return The start and end indexes of the matches in pairs
+     */
+    int[] findAllSequentially() {
+
+        final Segment segment = new Segment(this.start, this.end + 1);
+        segment.invoke();
+
+        return segment.matches.toArray();
+    }
+
+    /**
+     * Splits the range into segments.
+     *
+     * @param parallelism The number of threads of the pool
+     * @param boundary    The rule that moves a boundary between segments
+     * @return The segments
+     */
+    private List<Segment> split(int parallelism, Boundary boundary) {
+
+        final long length = this.end - this.start;
+        final int count = (int) Math.max(1,
+                Math.min((long) parallelism * SEGMENTS_PER_THREAD, length / MINIMUM_SEGMENT_LENGTH));
+        final List<Segment> segments = new ArrayList<>(count);
+        int segmentStart = this.start;
+
+        for (int i = 1; i <= count; i++) {
+            final int limit = i == count ? this.end + 1
+                    : Math.max(segmentStart, boundary.align(this.start + (int) (length * i / count)));
+
+            segments.add(new Segment(segmentStart, limit));
+            segmentStart = limit;
+        }
+
+        return segments;
+    }
+
+    /**
+     * The segment of the range, which collects the matches starting in it.
+     */
+    private final class Segment extends RecursiveAction {
+
+        /**
+         * The serial version UID
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The start index of the segment
+         */
+        private final int start;
+
+        /**
+         * The index before which the matches of the segment start
+         */
+        private final int limit;
+
+        /**
+         * The matches starting in the segment
+         */
+        private final Matches matches = new Matches();
+
+        /**
+         * Constructor
+         *
+         * @param start The start index of the segment
+         * @param limit The index before which the matches of the segment start
+         */
+        Segment(int start, int limit) {
+            this.start = start;
+            this.limit = limit;
+        }
+
+        @Override
+        protected void compute() {
+
+            final Search search = searches.get();
+            final int[] slots = new int[2];
+            int position = this.start;
+
+            while (position <= end && search.find(position, this.limit, slots)) {
+                position = this.matches.add(slots[0], slots[1]);
+            }
+        }
+    }
+
+    /**
+     * The growable list of the start and end indexes of matches.
+     */
+    private static final class Matches {
+
+        /**
+         * The start indexes of the matches
+         */
+        private int[] starts = new int[16];
+
+        /**
+         * The end indexes of the matches
+         */
+        private int[] ends = new int[16];
+
+        /**
+         * The number of the matches
+         */
+        private int size;
+
+        /**
+         * Adds the match and returns the index at which the next search starts,
+         * which is the index after an empty match.
+         *
+         * @param start The start index of the match
+         * @param end   The end index of the match
+         * @return The index at which the next search starts
+         */
+        int add(int start, int end) {
+
+            if (this.size == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.size * 2);
+                this.ends = Arrays.copyOf(this.ends, this.size * 2);
+            }
+
+            this.starts[this.size] = start;
+            this.ends[this.size] = end;
+            this.size++;
+
+            return start == end ? end + 1 : end;
+        }
+
+        /**
+         * Adds the matches of the other list from the index passed as an argument,
+         * and returns the index at which the next search starts.
+         *
+         * @param matches  The other list
+         * @param index    The index of the first match to add
+         * @param position The index at which the next search starts if no match is
+         *                 added
+         * @return The index at which the next search starts
+         */
+        int addAll(Matches matches, int index, int position) {
+
+            int next = position;
+
+            for (int i = index; i < matches.size; i++) {
+                next = this.add(matches.starts[i], matches.ends[i]);
+            }
+
+            return next;
+        }
+
+        /**
+         * Returns the start and end indexes of the matches as an array.
+         *
+         * @return The start and end indexes of the matches
+         */
+        int[] toArray() {
+
+            final int[] array = new int[this.size * 2];
+
+            for (int i = 0; i < this.size; i++) {
+                array[i * 2] = this.starts[i];
+                array[i * 2 + 1] = this.ends[i];
+            }
+
+            return array;
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import org.thinkit.common.regex.catalog.CacheEvictionPolicy;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The concurrent and size-bounded cache of compiled {@link Pattern} keyed by
+ * the regex pattern string and the combined regex option flags.
+ * <p>
+ * {@link Epitaph.Builder#build()} looks up the compiled pattern from the cache
+ * returned by {@link #getDefault()} unless another cache is specified by
+ * {@link Epitaph.Builder#cache(PatternCache)} . The default cache can be
+ * replaced or disabled with {@link #setDefault(PatternCache)} .
+ *
+ * <pre>
+ * Configure the default cache:
+ * <code>
+ * PatternCache.setDefault(PatternCache.builder().maximumSize(1024).evictionPolicy(CacheEvictionPolicy.EXPIRE_AFTER_ACCESS)
+ *         .expiration(Duration.ofMinutes(30)).build());
+ * </code>
+ * </pre>
+ *
+ * <pre>
+ * Disable the cache:
+ * <code>
+ * PatternCache.setDefault(PatternCache.disabled());
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString
+public final class PatternCache {
+
+    /**
+     * The default maximum size
+     */
+    private static final long DEFAULT_MAXIMUM_SIZE = 256;
+
+    /**
+     * The default expiration
+     */
+    private static final Duration DEFAULT_EXPIRATION = Duration.ofMinutes(10);
+
+    /**
+     * The default cache
+     */
+    private static volatile PatternCache defaultCache = builder().build();
+
+    /**
+     * The maximum size
+     */
+    @Getter
+    private final long maximumSize;
+
+    /**
+     * The eviction policy
+     */
+    @Getter
+    private final CacheEvictionPolicy evictionPolicy;
+
+    /**
+     * The cache
+     */
+    @ToString.Exclude
+    private final Cache<CacheKey, EpitaphPattern> cache;
+
+    /**
+     * Constructor
+     *
+     * @param builder The builder
+     */
+    private PatternCache(@NonNull Builder builder) {
+        this.maximumSize = builder.maximumSize;
+        this.evictionPolicy = builder.evictionPolicy;
+        this.cache = this.maximumSize > 0 ? createCache(builder) : null;
+    }
+
+    /**
+     * Returns the new instance of {@link Builder} .
+     *
+     * @return The new instance of {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the new instance of {@link PatternCache} that never caches.
+     *
+     * @return The disabled cache
+     */
+    public static PatternCache disabled() {
+        return builder().maximumSize(0).build();
+    }
+
+    /**
+     * Returns the cache used by {@link Epitaph.Builder} when no cache is specified
+     * explicitly.
+     *
+     * @return The default cache
+     */
+    public static PatternCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Replaces the cache used by {@link Epitaph.Builder} when no cache is
+     * specified explicitly.
+     *
+     * @param patternCache The new default cache
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public static void setDefault(@NonNull PatternCache patternCache) {
+        defaultCache = patternCache;
+    }
+
+    /**
+     * The builder class for {@link PatternCache} .
+     */
+    public static class Builder {
+
+        /**
+         * The maximum size
+         */
+        private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+        /**
+         * The eviction policy
+         */
+        private CacheEvictionPolicy evictionPolicy = CacheEvictionPolicy.LEAST_RECENTLY_USED;
+
+        /**
+         * The expiration
+         */
+        private Duration expiration = DEFAULT_EXPIRATION;
+
+        /**
+         * Default constructor
+         */
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of compiled patterns to be held. The cache is
+         * disabled if {@code 0} is passed.
+         *
+         * @param maximumSize The maximum size
+         * @return The instance of {@link Builder}
+         *
+         * @exception IllegalArgumentException If a negative value is passed as an
+         *                                     argument
+         */
+        public Builder maximumSize(long maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("The maximum size must not be negative");
+            }
+
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Sets the eviction policy.
+         *
+         * @param evictionPolicy The eviction policy
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException If {@code null} is passed as an argument
+         */
+        public Builder evictionPolicy(@NonNull CacheEvictionPolicy evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the expiration used by {@link CacheEvictionPolicy#EXPIRE_AFTER_ACCESS}
+         * and {@link CacheEvictionPolicy#EXPIRE_AFTER_WRITE} .
+         *
+         * @param expiration The expiration
+         * @return The instance of {@link Builder}
+         *
+         * @exception NullPointerException     If {@code null} is passed as an
+         *                                     argument
+         * @exception IllegalArgumentException If a negative duration is passed as an
+         *                                     argument
+         */
+        public Builder expiration(@NonNull Duration expiration) {
+            if (expiration.isNegative()) {
+                throw new IllegalArgumentException("The expiration must not be negative");
+            }
+
+            this.expiration = expiration;
+            return this;
+        }
+
+        /**
+         * Returns the new instance of {@link PatternCache} .
+         *
+         * @return The new instance of {@link PatternCache}
+         */
+        public PatternCache build() {
+            return new PatternCache(this);
+        }
+    }
+
+    /**
+     * Returns the compiled pattern from the cache, compiling and caching it if it
+     * is not present.
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @return The compiled pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public Pattern compile(@NonNull String regexPattern, int flags) {
+        return this.get(regexPattern, flags).getPattern();
+    }
+
+    /**
+     * Returns the compiled {@link EpitaphPattern} from the cache, compiling and
+     * caching it if it is not present.
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @return The compiled {@link EpitaphPattern}
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    EpitaphPattern get(@NonNull String regexPattern, int flags) {
+
+        final long start = EpitaphMetrics.start();
+
+        if (this.cache == null) {
+            final EpitaphPattern epitaphPattern = new EpitaphPattern(Pattern.compile(regexPattern, flags), flags);
+            EpitaphMetrics.recordCompile(start, regexPattern, flags, false);
+
+            return epitaphPattern;
+        }
+
+        final CacheKey cacheKey = new CacheKey(regexPattern, flags);
+        EpitaphPattern epitaphPattern = this.cache.getIfPresent(cacheKey);
+        final boolean cacheHit = epitaphPattern != null;
+
+        if (!cacheHit) {
+            // Concurrent misses may compile the same pattern twice, which is harmless
+            // and avoids holding a lock while compiling.
+            epitaphPattern = new EpitaphPattern(Pattern.compile(regexPattern, flags), flags);
+            this.cache.put(cacheKey, epitaphPattern);
+        }
+
+        EpitaphMetrics.recordCompile(start, regexPattern, flags, cacheHit);
+
+        return epitaphPattern;
+    }
+
+    /**
+     * Tests if the cache is enabled.
+     *
+     * @return {@code true} if the cache is enabled, otherwise {@code false}
+     */
+    public boolean isEnabled() {
+        return this.cache != null;
+    }
+
+    /**
+     * Returns the approximate number of compiled patterns in the cache.
+     *
+     * @return The number of compiled patterns
+     */
+    public long size() {
+        return this.cache == null ? 0 : this.cache.size();
+    }
+
+    /**
+     * Discards all compiled patterns in the cache.
+     */
+    public void invalidateAll() {
+        if (this.cache != null) {
+            this.cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the snapshot of the statistics recorded by the cache.
+     *
+     * @return The statistics
+     */
+    public PatternCacheStatistics getStatistics() {
+
+        if (this.cache == null) {
+            return new PatternCacheStatistics(0, 0, 0);
+        }
+
+        final CacheStats cacheStats = this.cache.stats();
+        return new PatternCacheStatistics(cacheStats.hitCount(), cacheStats.missCount(), cacheStats.evictionCount());
+    }
+
+    /**
+     * Creates the underlying cache according to the builder settings.
+     *
+     * @param builder The builder
+     * @return The underlying cache
+     */
+    private static Cache<CacheKey, EpitaphPattern> createCache(@NonNull Builder builder) {
+
+        final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(builder.maximumSize)
+                .recordStats();
+
+        switch (builder.evictionPolicy) {
+            case EXPIRE_AFTER_ACCESS:
+                cacheBuilder.expireAfterAccess(builder.expiration);
+                break;
+
+            case EXPIRE_AFTER_WRITE:
+                cacheBuilder.expireAfterWrite(builder.expiration);
+                break;
+
+            case SOFT_VALUES:
+                cacheBuilder.softValues();
+                break;
+
+            default:
+                break;
+        }
+
+        return cacheBuilder.build();
+    }
+
+    /**
+     * The key of the cache.
+     */
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class CacheKey {
+
+        /**
+         * The regex pattern
+         */
+        private final String regexPattern;
+
+        /**
+         * The combined regex option flags
+         */
+        private final int flags;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The immutable snapshot of the statistics recorded by {@link PatternCache} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class PatternCacheStatistics {
+
+    /**
+     * The number of lookups that returned a cached pattern
+     */
+    @Getter
+    private final long hitCount;
+
+    /**
+     * The number of lookups that had to compile the pattern
+     */
+    @Getter
+    private final long missCount;
+
+    /**
+     * The number of patterns evicted by the eviction policy
+     */
+    @Getter
+    private final long evictionCount;
+
+    /**
+     * Returns the total number of lookups.
+     *
+     * @return The total number of lookups
+     */
+    public long getRequestCount() {
+        return this.hitCount + this.missCount;
+    }
+
+    /**
+     * Returns the ratio of lookups that returned a cached pattern, or {@code 1.0}
+     * if no lookup has been made yet.
+     *
+     * @return The hit rate
+     */
+    public double getHitRate() {
+        final long requestCount = this.getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) this.hitCount / requestCount;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import java.util.Map;
+
+import org.thinkit.common.regex.catalog.MatchOperation;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The immutable snapshot of the metrics of a pattern recorded by
+ * {@link InMemoryMetricsSink} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class PatternMetrics {
+
+    /**
+     * The regex pattern
+     */
+    @Getter
+    @NonNull
+    private final String regexPattern;
+
+    /**
+     * The number of lookups of the compiled pattern
+     */
+    @Getter
+    private final long compileCount;
+
+    /**
+     * The number of lookups that returned a cached pattern
+     */
+    @Getter
+    private final long cacheHitCount;
+
+    /**
+     * The latencies of the lookups in nanoseconds
+     */
+    @Getter
+    @NonNull
+    private final HistogramSnapshot compileLatency;
+
+    /**
+     * The metrics of the operations recorded at least once
+     */
+    @Getter
+    @NonNull
+    private final Map<MatchOperation, OperationMetrics> operations;
+
+    /**
+     * Returns the metrics of the operation passed as an argument, which are empty
+     * if the operation has not been recorded yet.
+     *
+     * @param operation The operation
+     * @return The metrics of the operation
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public OperationMetrics getOperation(@NonNull MatchOperation operation) {
+        return this.operations.getOrDefault(operation,
+                new OperationMetrics(0, 0, HistogramSnapshot.EMPTY, HistogramSnapshot.EMPTY));
+    }
+}
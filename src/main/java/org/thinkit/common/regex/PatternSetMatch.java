@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The immutable match of a pattern of {@link EpitaphPatternSet} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class PatternSetMatch {
+
+    /**
+     * The index of the matched pattern in the pattern set
+     */
+    @Getter
+    private final int index;
+
+    /**
+     * The regex pattern of the matched pattern
+     */
+    @Getter
+    private final String regexPattern;
+
+    /**
+     * The start index of the match
+     */
+    @Getter
+    private final int start;
+
+    /**
+     * The end index of the match
+     */
+    @Getter
+    private final int end;
+}
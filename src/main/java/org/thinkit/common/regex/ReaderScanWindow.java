@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * The {@link ScanWindow} that reads the input from a {@link Reader} into a
+ * buffer, which is enlarged only when a match does not fit in it.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class ReaderScanWindow extends ScanWindow {
+
+    /**
+     * The reader of the input
+     */
+    private final Reader reader;
+
+    /**
+     * The buffer
+     */
+    private char[] buffer;
+
+    /**
+     * The characters of the buffer that are filled with the input
+     */
+    private CharBuffer text;
+
+    /**
+     * The offset of the first character of the buffer from the beginning of the
+     * input
+     */
+    private long offset;
+
+    /**
+     * The number of characters in the buffer
+     */
+    private int limit;
+
+    /**
+     * Whether the end of the input has been read into the buffer
+     */
+    private boolean endOfInput;
+
+    /**
+     * Constructor
+     *
+     * @param reader     The reader of the input
+     * @param bufferSize The number of characters of the buffer
+     */
+    ReaderScanWindow(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+        this.text = CharBuffer.wrap(this.buffer, 0, 0);
+    }
+
+    @Override
+    CharSequence getText() {
+        return this.text;
+    }
+
+    @Override
+    long getOffset() {
+        return this.offset;
+    }
+
+    @Override
+    int getCapacity() {
+        return this.buffer.length;
+    }
+
+    @Override
+    boolean isEndOfInput() {
+        return this.endOfInput;
+    }
+
+    @Override
+    void slide(int shift) throws IOException {
+
+        System.arraycopy(this.buffer, shift, this.buffer, 0, this.limit - shift);
+        this.offset += shift;
+        this.limit -= shift;
+
+        while (this.limit < this.buffer.length) {
+            final int count = this.reader.read(this.buffer, this.limit, this.buffer.length - this.limit);
+
+            if (count < 0) {
+                this.endOfInput = true;
+                break;
+            }
+
+            this.limit += count;
+        }
+
+        this.text.clear().limit(this.limit);
+    }
+
+    @Override
+    void grow(int capacity) throws IOException {
+        this.buffer = Arrays.copyOf(this.buffer, capacity);
+        this.text = CharBuffer.wrap(this.buffer, 0, this.limit);
+        this.slide(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
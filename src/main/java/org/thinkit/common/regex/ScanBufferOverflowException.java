@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import lombok.Getter;
+
+/**
+ * Thrown when {@link EpitaphScanner} cannot determine a match without holding
+ * more characters than the maximum buffer size set by
+ * {@link EpitaphScanner.Builder#maximumBufferSize(int)} . The scanner never
+ * reports a match cut at the end of its buffer, so a match attempt that looks
+ * at more characters than the buffer can hold ends the scan with this
+ * exception.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class ScanBufferOverflowException extends RuntimeException {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 7135024183765301928L;
+
+    /**
+     * The regex pattern
+     */
+    @Getter
+    private final String regexPattern;
+
+    /**
+     * The offset of the character from which the match attempt starts
+     */
+    @Getter
+    private final long offset;
+
+    /**
+     * The maximum number of characters of the buffer
+     */
+    @Getter
+    private final int maximumBufferSize;
+
+    /**
+     * Constructor
+     *
+     * @param regexPattern      The regex pattern
+     * @param offset            The offset of the character from which the match
+     *                          attempt starts
+     * @param maximumBufferSize The maximum number of characters of the buffer
+     */
+    ScanBufferOverflowException(String regexPattern, long offset, int maximumBufferSize) {
+        super(String.format("The match of the regex pattern %s starting at offset %d does not fit in %d characters",
+                regexPattern, offset, maximumBufferSize));
+        this.regexPattern = regexPattern;
+        this.offset = offset;
+        this.maximumBufferSize = maximumBufferSize;
+    }
+}
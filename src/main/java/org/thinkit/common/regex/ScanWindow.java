@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The window of the input scanned by {@link EpitaphScanner} , which holds a
+ * bounded part of the input at a time and slides forward over it.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+abstract class ScanWindow implements Closeable {
+
+    /**
+     * Default constructor
+     */
+    ScanWindow() {
+    }
+
+    /**
+     * Returns the characters of the window, which are valid until the next call
+     * of {@link #slide(int)} .
+     *
+     * @return The characters of the window
+     */
+    abstract CharSequence getText();
+
+    /**
+     * Returns the offset of the first character of the window from the beginning
+     * of the input.
+     *
+     * @return The offset of the window
+     */
+    abstract long getOffset();
+
+    /**
+     * Returns the maximum number of characters of the window.
+     *
+     * @return The capacity of the window
+     */
+    abstract int getCapacity();
+
+    /**
+     * Tests if the window reaches the end of the input.
+     *
+     * @return {@code true} if the window reaches the end of the input, otherwise
+     *         {@code false}
+     */
+    abstract boolean isEndOfInput();
+
+    /**
+     * Discards the characters at the beginning of the window and fills the window
+     * with the following input, until the window is full or reaches the end of
+     * the input.
+     *
+     * @param shift The number of characters to discard
+     *
+     * @throws IOException If an I/O error occurs while reading the input
+     */
+    abstract void slide(int shift) throws IOException;
+
+    /**
+     * Enlarges the window to the capacity and fills it with the following input,
+     * until the window is full or reaches the end of the input.
+     *
+     * @param capacity The new maximum number of characters of the window
+     *
+     * @throws IOException If an I/O error occurs while reading the input
+     */
+    abstract void grow(int capacity) throws IOException;
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.Timespan;
+
+/**
+ * The Java Flight Recorder event emitted by {@link FlightRecorderSink} for a
+ * match operation taking at least the {@link ElapsedTimeThreshold} of the
+ * recordings. The thread and the stack trace of the operation are recorded
+ * with the event.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@Name("org.thinkit.common.regex.SlowMatch")
+@Label("Regex Slow Match")
+@Category("Epitaph")
+@Enabled(false)
+@Description("A match operation taking at least the elapsed time threshold")
+final class SlowMatchEvent extends jdk.jfr.Event {
+
+    /**
+     * The regex pattern
+     */
+    @Label("Regex Pattern")
+    String regexPattern;
+
+    /**
+     * The tag of the operation
+     */
+    @Label("Operation")
+    String operation;
+
+    /**
+     * The length of the input, in bytes if the input is encoded in UTF-8 and
+     * otherwise in characters
+     */
+    @Label("Input Length")
+    int inputLength;
+
+    /**
+     * Whether the operation found a match
+     */
+    @Label("Matched")
+    boolean matched;
+
+    /**
+     * The nanoseconds taken by the operation
+     */
+    @Label("Elapsed Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsedTime;
+
+    /**
+     * Tests if the elapsed time of this event reaches the threshold of the
+     * recordings.
+     *
+     * @param threshold The threshold of the recordings
+     * @return {@code true} if the elapsed time reaches the threshold, otherwise
+     *         {@code false}
+     */
+    @SettingDefinition
+    @Name("elapsedTimeThreshold")
+    @Label("Elapsed Time Threshold")
+    @Description("The minimum elapsed time of the events to be recorded")
+    boolean elapsedTimeThreshold(ElapsedTimeThreshold threshold) {
+        return threshold.accepts(this.elapsedTime);
+    }
+}
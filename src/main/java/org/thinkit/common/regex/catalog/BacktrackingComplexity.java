@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.catalog;
+
+import org.thinkit.api.catalog.BiCatalog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The catalog that manages the worst-case complexity of matching a regex
+ * pattern by a backtracking engine such as {@link java.util.regex.Pattern} ,
+ * in the length of the input.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@RequiredArgsConstructor
+public enum BacktrackingComplexity implements BiCatalog<BacktrackingComplexity, String> {
+
+    /**
+     * The pattern never backtracks over a character more than a bounded number of
+     * times.
+     */
+    LINEAR(0, "linear"),
+
+    /**
+     * The pattern can split the input between adjacent overlapping repetitions in
+     * quadratically or more many ways.
+     */
+    POLYNOMIAL(1, "polynomial"),
+
+    /**
+     * The pattern can match the input in exponentially many ways, such as by a
+     * repetition nested in a repetition.
+     */
+    EXPONENTIAL(2, "exponential");
+
+    /**
+     * The code
+     */
+    @Getter
+    private final int code;
+
+    /**
+     * The tag
+     */
+    @Getter
+    private final String tag;
+}
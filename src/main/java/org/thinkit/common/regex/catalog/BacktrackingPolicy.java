@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.catalog;
+
+import org.thinkit.api.catalog.BiCatalog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The catalog that manages the policies for the patterns that a backtracking
+ * engine may match in more than linear time.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@RequiredArgsConstructor
+public enum BacktrackingPolicy implements BiCatalog<BacktrackingPolicy, String> {
+
+    /**
+     * Accepts the pattern without analyzing it.
+     */
+    ALLOW(0, "allow"),
+
+    /**
+     * Rejects the pattern that would be run by {@link RegexEngine#JDK} if its
+     * complexity is not {@link BacktrackingComplexity#LINEAR} .
+     */
+    REJECT(1, "reject"),
+
+    /**
+     * Runs the pattern that would be run by {@link RegexEngine#JDK} by
+     * {@link RegexEngine#PIKE_VM} instead if its complexity is not
+     * {@link BacktrackingComplexity#LINEAR} .
+     */
+    LINEAR_ENGINE(2, "linear-engine");
+
+    /**
+     * The code
+     */
+    @Getter
+    private final int code;
+
+    /**
+     * The tag
+     */
+    @Getter
+    private final String tag;
+}
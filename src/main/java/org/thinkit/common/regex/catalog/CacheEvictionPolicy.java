@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.catalog;
+
+import org.thinkit.api.catalog.BiCatalog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The catalog that manages eviction policies of the compiled pattern cache.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@RequiredArgsConstructor
+public enum CacheEvictionPolicy implements BiCatalog<CacheEvictionPolicy, String> {
+
+    /**
+     * Evicts the least recently used pattern when the cache exceeds its maximum
+     * size.
+     */
+    LEAST_RECENTLY_USED(0, "lru"),
+
+    /**
+     * Evicts patterns that have not been accessed within the configured duration,
+     * in addition to the size bound.
+     */
+    EXPIRE_AFTER_ACCESS(1, "expire-after-access"),
+
+    /**
+     * Evicts patterns once the configured duration has elapsed since they were
+     * compiled, in addition to the size bound.
+     */
+    EXPIRE_AFTER_WRITE(2, "expire-after-write"),
+
+    /**
+     * Holds the compiled patterns through soft references so that the garbage
+     * collector can reclaim them under memory pressure, in addition to the size
+     * bound.
+     */
+    SOFT_VALUES(3, "soft-values");
+
+    /**
+     * The code
+     */
+    @Getter
+    private final int code;
+
+    /**
+     * The tag
+     */
+    @Getter
+    private final String tag;
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.catalog;
+
+import org.thinkit.api.catalog.BiCatalog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The catalog that manages the match operations reported to
+ * {@link org.thinkit.common.regex.MetricsSink} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@RequiredArgsConstructor
+public enum MatchOperation implements BiCatalog<MatchOperation, String> {
+
+    /**
+     * Finds a subsequence of the input that matches the pattern.
+     */
+    FIND(0, "find"),
+
+    /**
+     * Matches the entire input against the pattern.
+     */
+    MATCHES(1, "matches"),
+
+    /**
+     * Matches a prefix of the input against the pattern.
+     */
+    LOOKING_AT(2, "looking-at"),
+
+    /**
+     * Replaces the first match in the input.
+     */
+    REPLACE_FIRST(3, "replace-first"),
+
+    /**
+     * Replaces every match in the input.
+     */
+    REPLACE_ALL(4, "replace-all");
+
+    /**
+     * The code
+     */
+    @Getter
+    private final int code;
+
+    /**
+     * The tag
+     */
+    @Getter
+    private final String tag;
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.thinkit.common.regex.catalog;
+
+import org.thinkit.api.catalog.BiCatalog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The catalog that manages the engines running the compiled patterns.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@RequiredArgsConstructor
+public enum RegexEngine implements BiCatalog<RegexEngine, String> {
+
+    /**
+     * The backtracking engine of {@link java.util.regex.Pattern} , which supports
+     * every construct of the regular expression.
+     */
+    JDK(0, "jdk"),
+
+    /**
+     * The deterministic finite automaton, which runs in linear time of the input
+     * but supports only the patterns without lookarounds, back references,
+     * anchors, atomic groups and possessive quantifiers.
+     */
+    DFA(1, "dfa"),
+
+    /**
+     * The deterministic finite automaton whose states are built on demand and kept
+     * in a cache of bounded size, which supports the same patterns as
+     * {@link #DFA} including those whose automata are too large to build ahead of
+     * time.
+     */
+    LAZY_DFA(2, "lazy_dfa"),
+
+    /**
+     * The Pike VM simulating the nondeterministic finite automaton, which supports
+     * the same patterns as {@link #DFA} and determines the capturing groups in
+     * time linear to the input, so that no pattern can backtrack
+     * catastrophically. Unlike {@link #JDK} , which may keep a group captured by
+     * an abandoned attempt inside a repetition, this engine reports only the
+     * groups on the path of the match.
+     */
+    PIKE_VM(3, "pike_vm"),
+
+    /**
+     * The matcher hand-coded for a preset of a fixed shape such as
+     * {@link RegexPattern#POST_CODE_JP} , which checks the characters of the
+     * input in a straight line.
+     */
+    HAND_CODED(4, "hand_coded");
+
+    /**
+     * The code
+     */
+    @Getter
+    private final int code;
+
+    /**
+     * The tag
+     */
+    @Getter
+    private final String tag;
+}
@@ -14,11 +14,13 @@
 
 package org.thinkit.common.regex.catalog;
 
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.thinkit.api.catalog.BiCatalog;
 
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -194,4 +196,23 @@ public enum RegexOption implements BiCatalog<RegexOption, Integer> {
      */
     @Getter
     private final Integer tag;
+
+    /**
+     * Returns the total of the flags of the regex options passed as an argument.
+     *
+     * @param regexOptions The regex options
+     * @return The total of the flags, {@code 0} if the regex options are empty
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public static int toFlags(@NonNull Set<RegexOption> regexOptions) {
+
+        int flags = 0;
+
+        for (RegexOption regexOption : regexOptions) {
+            flags |= regexOption.getTag();
+        }
+
+        return flags;
+    }
 }
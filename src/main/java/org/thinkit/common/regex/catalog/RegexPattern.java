@@ -14,13 +14,27 @@
 
 package org.thinkit.common.regex.catalog;
 
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
 import org.thinkit.api.catalog.BiCatalog;
+import org.thinkit.common.regex.EpitaphPattern;
 
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
 /**
  * The catalog that manages regex patterns.
+ * <p>
+ * Each preset compiles its regex pattern lazily and only once per combination
+ * of regex options, so that validation based on presets does not compile any
+ * pattern after warm-up. Call {@link #warmUp()} at startup to compile all
+ * presets on a background thread in advance.
  *
  * @author Kato Shinya
  * @since 1.0.0
@@ -215,4 +229,82 @@ public enum RegexPattern implements BiCatalog<RegexPattern, String> {
      */
     @Getter
     private final String tag;
+
+    /**
+     * The compiled patterns keyed by the combined regex option flags
+     */
+    private final Map<Integer, Pattern> compiledPatterns = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the compiled pattern of this preset without regex options.
+     *
+     * @return The compiled pattern
+     */
+    public Pattern getPattern() {
+        return this.getPattern(0);
+    }
+
+    /**
+     * Returns the compiled pattern of this preset with the regex options passed as
+     * an argument.
+     *
+     * @param regexOptions The regex options
+     * @return The compiled pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public Pattern getPattern(@NonNull Set<RegexOption> regexOptions) {
+        return this.getPattern(RegexOption.toFlags(regexOptions));
+    }
+
+    /**
+     * Returns the compiled pattern of this preset with the combined regex option
+     * flags passed as an argument. The pattern is compiled on the first call and
+     * the same instance is returned afterwards.
+     *
+     * @param flags The combined regex option flags
+     * @return The compiled pattern
+     */
+    public Pattern getPattern(int flags) {
+        return this.compiledPatterns.computeIfAbsent(flags, key -> Pattern.compile(this.tag, key));
+    }
+
+    /**
+     * Compiles all presets without regex options on a background daemon thread.
+     * Both the {@link Pattern} of each preset and the {@link EpitaphPattern} built
+     * from it are compiled, so that the first {@link EpitaphPattern} or
+     * {@link org.thinkit.common.regex.Epitaph} built from a preset is taken from
+     * the cache.
+     *
+     * @return The future completed when all presets are compiled
+     */
+    public static CompletableFuture<Void> warmUp() {
+        return warmUp(Set.of());
+    }
+
+    /**
+     * Compiles all presets with the regex options passed as an argument on a
+     * background daemon thread. Both the {@link Pattern} of each preset and the
+     * {@link EpitaphPattern} built from it are compiled.
+     *
+     * @param regexOptions The regex options
+     * @return The future completed when all presets are compiled
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public static CompletableFuture<Void> warmUp(@NonNull Set<RegexOption> regexOptions) {
+
+        final EnumSet<RegexOption> regexOptionSet = EnumSet.noneOf(RegexOption.class);
+        regexOptionSet.addAll(regexOptions);
+
+        return CompletableFuture.runAsync(() -> {
+            for (RegexPattern regexPattern : values()) {
+                EpitaphPattern.builder().pattern(regexPattern).option(regexOptionSet).build();
+            }
+        }, runnable -> {
+            final Thread thread = new Thread(runnable, "epitaph-warm-up");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
 }
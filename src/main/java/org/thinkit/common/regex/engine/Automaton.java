@@ -0,0 +1,232 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import lombok.NonNull;
+
+/**
+ * The compiled automaton of a single pattern that reports the same matches as
+ * {@link java.util.regex.Matcher} in time linear to the length of the input.
+ * <p>
+ * Each operation runs on the range of the input between the start index
+ * (inclusive) and the end index (exclusive), which corresponds to the region
+ * of {@link java.util.regex.Matcher} . The start and end indexes of the match
+ * are stored in the first two elements of the slots if the slots are not
+ * {@code null} , and the automaton may skip the work needed to determine them
+ * if the slots are {@code null} . The automaton that is capturing also stores
+ * the start and end indexes of each group into the following elements.
+ * <p>
+ * The end index must not split a surrogate pair, since
+ * {@link java.util.regex.Pattern} treats the high surrogate before such an end
+ * differently depending on the construct matching it. Callers test the range
+ * with {@link #splitsSurrogatePair(CharSequence, int)} and use
+ * {@link java.util.regex.Matcher} instead in that case.
+ * <p>
+ * The instance of this class is immutable and thread-safe.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public abstract class Automaton {
+
+    /**
+     * Default constructor
+     */
+    protected Automaton() {
+    }
+
+    /**
+     * Tests if this automaton stores the capturing groups of the match into the
+     * slots after the first two.
+     *
+     * @return {@code true} if this automaton stores the capturing groups,
+     *         otherwise {@code false}
+     */
+    public boolean isCapturing() {
+        return false;
+    }
+
+    /**
+     * Attempts to match the entire range against the pattern.
+     *
+     * @param input The input
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     * @param slots The slots to store the match, or {@code null}
+     * @return {@code true} if, and only if, the entire range matches the pattern
+     */
+    public abstract boolean matches(CharSequence input, int start, int end, int[] slots);
+
+    /**
+     * Attempts to match the range, starting at the beginning, against the pattern.
+     *
+     * @param input The input
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     * @param slots The slots to store the match, or {@code null}
+     * @return {@code true} if, and only if, a prefix of the range matches the
+     *         pattern
+     */
+    public abstract boolean lookingAt(CharSequence input, int start, int end, int[] slots);
+
+    /**
+     * Attempts to find the first subsequence of the range that starts at or after
+     * the index passed as an argument and matches the pattern.
+     *
+     * @param input The input
+     * @param from  The index to start the search at
+     * @param end   The end index of the range
+     * @param slots The slots to store the match, or {@code null}
+     * @return {@code true} if, and only if, a subsequence of the range matches the
+     *         pattern
+     */
+    public abstract boolean find(CharSequence input, int from, int end, int[] slots);
+
+    /**
+     * Attempts to find the first subsequence of the range that starts at or after
+     * the index passed as an argument and matches the pattern, and succeeds only
+     * if that subsequence starts before the limit. The match itself may end after
+     * the limit. This lets a part of the input be searched without the cost of
+     * searching the rest of the input for a match that would be discarded.
+     *
+     * @param input The input
+     * @param from  The index to start the search at
+     * @param limit The index before which the match has to start
+     * @param end   The end index of the range
+     * @param slots The slots to store the match, or {@code null}
+     * @return {@code true} if, and only if, the first subsequence of the range
+     *         that matches the pattern starts before the limit
+     */
+    public boolean find(CharSequence input, int from, int limit, int end, int[] slots) {
+
+        if (from >= limit) {
+            return false;
+        }
+
+        final int[] match = slots != null ? slots : new int[2];
+        return this.find(input, from, end, match) && match[0] < limit;
+    }
+
+    /**
+     * Returns the first index after the index passed as an argument and before
+     * the end of the range at which the matches can be split. No match of the
+     * range crosses such an index, and the matches found one after another from
+     * any index before it and the matches found from the index itself are the
+     * same from that index on. Two parts of the range separated by the index can
+     * therefore be searched independently of each other.
+     * <p>
+     * The index is searched only after the characters through which no match of
+     * the pattern can continue without also starting after them, so {@code -1}
+     * is returned if the automaton does not know such characters for its
+     * pattern.
+     *
+     * @param input The input
+     * @param from  The index to start the search at
+     * @param end   The end index of the range
+     * @return The index at which the matches can be split, or {@code -1} if there
+     *         is no such index
+     */
+    public int findSplitPoint(CharSequence input, int from, int end) {
+
+        final CodePointSet splitSet = this.splitSet();
+
+        if (splitSet.isEmpty()) {
+            return -1;
+        }
+
+        int position = splitsSurrogatePair(input, from) ? from + 1 : from;
+
+        while (position < end) {
+            final int codePoint = codePointAt(input, position, end);
+
+            if (codePoint < 0) {
+                return -1;
+            }
+
+            position += Character.charCount(codePoint);
+
+            if (position < end && splitSet.contains(codePoint) && !this.lookingAt(input, position, end, null)) {
+                return position;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the characters after which no match of the pattern crosses the
+     * index that follows them unless a match starts at that index, which is
+     * empty by default.
+     *
+     * @return The split set
+     */
+    CodePointSet splitSet() {
+        return CodePointSet.EMPTY;
+    }
+
+    /**
+     * Tests if the index splits a surrogate pair of the input.
+     *
+     * @param input The input
+     * @param index The index
+     * @return {@code true} if the index splits a surrogate pair, otherwise
+     *         {@code false}
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public static boolean splitsSurrogatePair(@NonNull CharSequence input, int index) {
+        return index > 0 && index < input.length() && Character.isHighSurrogate(input.charAt(index - 1))
+                && Character.isLowSurrogate(input.charAt(index));
+    }
+
+    /**
+     * Returns the code point at the index, or {@code -1} if the surrogate pair at
+     * the index crosses the end of the range.
+     *
+     * @param input The input
+     * @param index The index
+     * @param end   The end index of the range
+     * @return The code point, or {@code -1} if the code point crosses the end of
+     *         the range
+     */
+    protected static int codePointAt(CharSequence input, int index, int end) {
+        final int codePoint = Character.codePointAt(input, index);
+        return index + Character.charCount(codePoint) <= end ? codePoint : -1;
+    }
+
+    /**
+     * Returns the code point before the index, where a surrogate pair is read only
+     * if it starts at or after the start index of the range.
+     *
+     * @param input The input
+     * @param index The index
+     * @param start The start index of the range
+     * @return The code point
+     */
+    protected static int codePointBefore(CharSequence input, int index, int start) {
+
+        final char low = input.charAt(index - 1);
+
+        if (Character.isLowSurrogate(low) && index - 2 >= start) {
+            final char high = input.charAt(index - 2);
+
+            if (Character.isHighSurrogate(high)) {
+                return Character.toCodePoint(high, low);
+            }
+        }
+
+        return low;
+    }
+}
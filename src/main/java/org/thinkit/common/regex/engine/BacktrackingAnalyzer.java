@@ -0,0 +1,713 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.thinkit.common.regex.catalog.BacktrackingComplexity;
+
+import lombok.NonNull;
+
+/**
+ * The static analyzer that estimates the worst-case complexity of matching a
+ * pattern by a backtracking engine such as {@link java.util.regex.Pattern} from
+ * the abstract syntax tree of the pattern.
+ * <p>
+ * A backtracking engine tries every way the parts of the pattern can divide
+ * the input between them before it gives up, so a pattern that can divide the
+ * same characters in many ways takes time superlinear to the length of an
+ * input that almost matches. The analyzer flags the constructs that allow such
+ * divisions:
+ * <ul>
+ * <li>The unbounded repetition of an expression that can match the empty
+ * string such as {@code (a*)*} , or whose iterations can run into each other
+ * such as {@code ([a-zA-Z]+-?)+} and {@code (.*a)+} , is exponential. The
+ * bounded repetition of the latter such as {@code (.*a){12}} is polynomial.</li>
+ * <li>The unbounded repetition of an alternation whose alternatives can match
+ * the same characters such as {@code (a|ab)+} is exponential.</li>
+ * <li>The unbounded repetitions that can divide the same characters between
+ * them such as {@code \w+([-.]\w+)*\.\w+} are polynomial.</li>
+ * </ul>
+ * The analysis compares the sets of the characters the constructs can match,
+ * so it may flag a pattern whose constructs never match the same string, but
+ * does not miss the constructs above. Possessive repetitions and atomic groups
+ * never give back what they matched, so they do not divide the characters with
+ * the constructs around them.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class BacktrackingAnalyzer {
+
+    /**
+     * Constructor
+     */
+    private BacktrackingAnalyzer() {
+    }
+
+    /**
+     * Analyzes the regex pattern passed as an argument.
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The flags of {@link java.util.regex.Pattern}
+     * @return The report of the analysis
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If the regex pattern cannot be
+     *                                        parsed
+     */
+    public static BacktrackingReport analyze(@NonNull String regexPattern, int flags) {
+        return analyze(RegexParser.parse(regexPattern, flags));
+    }
+
+    /**
+     * Analyzes the pattern of the root node passed as an argument.
+     *
+     * @param root The root node of the pattern
+     * @return The report of the analysis
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public static BacktrackingReport analyze(@NonNull RegexNode root) {
+
+        final Analysis analysis = new Analysis();
+        visit(root, analysis);
+
+        return new BacktrackingReport(analysis.complexity, Collections.unmodifiableList(analysis.findings));
+    }
+
+    /**
+     * Analyzes the node passed as an argument and its descendants.
+     *
+     * @param node     The node
+     * @param analysis The analysis
+     */
+    private static void visit(RegexNode node, Analysis analysis) {
+
+        switch (node.getType()) {
+            case CONCATENATION:
+                final RegexNode[] repetitions = findDivision(node.getChildren(), 0);
+
+                if (repetitions != null) {
+                    analysis.report(BacktrackingComplexity.POLYNOMIAL,
+                            String.format("The repetitions %s and %s can divide the same characters between them",
+                                    describe(repetitions[0]), describe(repetitions[1])));
+                }
+
+                break;
+
+            case REPETITION:
+                analyzeRepetition(node, analysis);
+                break;
+
+            default:
+                break;
+        }
+
+        for (RegexNode child : node.getChildren()) {
+            visit(child, analysis);
+        }
+    }
+
+    /**
+     * Analyzes whether the iterations of the repetition passed as an argument can
+     * divide the same characters in many ways.
+     *
+     * @param node     The repetition
+     * @param analysis The analysis
+     */
+    private static void analyzeRepetition(RegexNode node, Analysis analysis) {
+
+        final boolean unbounded = node.getMaximum() == RegexNode.UNBOUNDED;
+
+        if (node.getKind() == RegexNode.Kind.POSSESSIVE || !unbounded && node.getMaximum() < 2) {
+            return;
+        }
+
+        final BacktrackingComplexity complexity = unbounded ? BacktrackingComplexity.EXPONENTIAL
+                : BacktrackingComplexity.POLYNOMIAL;
+        final RegexNode child = node.getChild();
+
+        if (child.isNullable()) {
+            analysis.report(complexity, String.format("The iterations of %s can match the empty string",
+                    describe(node)));
+            return;
+        }
+
+        final List<RegexNode> iteration = elementsOf(child);
+        final List<RegexNode> iterations = new ArrayList<>(iteration);
+        iterations.addAll(iteration);
+
+        final RegexNode[] repetitions = findDivision(iterations, iteration.size());
+
+        if (repetitions != null) {
+            analysis.report(complexity,
+                    String.format("The iterations of %s can divide the same characters between %s and %s",
+                            describe(node), describe(repetitions[0]), describe(repetitions[1])));
+            return;
+        }
+
+        if (!unbounded) {
+            return;
+        }
+
+        final List<RegexNode> alternations = new ArrayList<>();
+        collectAlternations(child, alternations);
+
+        for (RegexNode alternation : alternations) {
+            final List<RegexNode> alternatives = alternation.getChildren();
+
+            for (int i = 0; i < alternatives.size(); i++) {
+                for (int j = i + 1; j < alternatives.size(); j++) {
+                    if (overlaps(alternatives.get(i), alternatives.get(j))) {
+                        analysis.report(complexity,
+                                String.format("The alternatives %s and %s in %s can match the same characters",
+                                        describe(alternatives.get(i)), describe(alternatives.get(j)),
+                                        describe(node)));
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first pair of unbounded repetitions in the sequence passed as an
+     * argument that can divide the same characters between them, where the former
+     * can end an element and the latter can start a later element, and every
+     * element between them can be matched by the empty string or by the former.
+     * If the period is positive, the sequence consists of two iterations of a
+     * repetition, and only the pairs across the iterations are returned.
+     *
+     * @param sequence The elements of the sequence
+     * @param period   The number of elements of an iteration, or {@code 0} if the
+     *                 sequence is not repeated
+     * @return The pair of the repetitions, or {@code null} if there is no such
+     *         pair
+     */
+    private static RegexNode[] findDivision(List<RegexNode> sequence, int period) {
+
+        final int end = period == 0 ? sequence.size() : period;
+
+        for (int i = 0; i < end; i++) {
+            for (RegexNode former : boundaryRepetitionsOf(sequence.get(i), false)) {
+                final CodePointSet characters = charactersOf(former.getChild());
+
+                for (int j = i + 1; j < sequence.size(); j++) {
+                    final RegexNode element = sequence.get(j);
+                    final RegexNode latter = findOverlapping(boundaryRepetitionsOf(element, true), characters);
+
+                    if (latter != null) {
+                        if (j >= period) {
+                            return new RegexNode[] { former, latter };
+                        }
+
+                        break;
+                    }
+
+                    if (!element.isNullable() && !characters.containsAll(charactersOf(element))) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the first repetition in the list passed as an argument that can
+     * start with one of the characters.
+     *
+     * @param repetitions The repetitions
+     * @param characters  The characters
+     * @return The repetition, or {@code null} if there is no such repetition
+     */
+    private static RegexNode findOverlapping(List<RegexNode> repetitions, CodePointSet characters) {
+
+        for (RegexNode repetition : repetitions) {
+            if (firstOf(repetition).overlaps(characters)) {
+                return repetition;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the unbounded repetitions that can end, or start, a match of the
+     * node passed as an argument and can give back what they matched.
+     *
+     * @param node  The node
+     * @param start {@code true} to return the repetitions that can start a match,
+     *              {@code false} to return those that can end a match
+     * @return The repetitions
+     */
+    private static List<RegexNode> boundaryRepetitionsOf(RegexNode node, boolean start) {
+
+        final List<RegexNode> repetitions = new ArrayList<>();
+        collectBoundaryRepetitions(node, start, repetitions);
+
+        return repetitions;
+    }
+
+    /**
+     * Adds the unbounded repetitions that can end, or start, a match of the node
+     * passed as an argument to the list.
+     *
+     * @param node        The node
+     * @param start       {@code true} to add the repetitions that can start a
+     *                    match, {@code false} to add those that can end a match
+     * @param repetitions The list of the repetitions
+     */
+    private static void collectBoundaryRepetitions(RegexNode node, boolean start, List<RegexNode> repetitions) {
+
+        switch (node.getType()) {
+            case REPETITION:
+                if (node.getMaximum() == 0 || node.getKind() == RegexNode.Kind.POSSESSIVE) {
+                    return;
+                }
+
+                if (node.getMaximum() == RegexNode.UNBOUNDED) {
+                    repetitions.add(node);
+                }
+
+                collectBoundaryRepetitions(node.getChild(), start, repetitions);
+                return;
+
+            case CAPTURING_GROUP:
+                collectBoundaryRepetitions(node.getChild(), start, repetitions);
+                return;
+
+            case CONCATENATION:
+                final List<RegexNode> children = node.getChildren();
+
+                for (int i = 0; i < children.size(); i++) {
+                    final RegexNode child = children.get(start ? i : children.size() - 1 - i);
+                    collectBoundaryRepetitions(child, start, repetitions);
+
+                    if (!child.isNullable()) {
+                        return;
+                    }
+                }
+
+                return;
+
+            case ALTERNATION:
+                for (RegexNode child : node.getChildren()) {
+                    collectBoundaryRepetitions(child, start, repetitions);
+                }
+
+                return;
+
+            default:
+                return;
+        }
+    }
+
+    /**
+     * Adds the alternations in the node passed as an argument to the list, except
+     * those in atomic groups and lookarounds.
+     *
+     * @param node         The node
+     * @param alternations The list of the alternations
+     */
+    private static void collectAlternations(RegexNode node, List<RegexNode> alternations) {
+
+        switch (node.getType()) {
+            case ATOMIC_GROUP:
+            case LOOKAROUND:
+                return;
+
+            case ALTERNATION:
+                alternations.add(node);
+                break;
+
+            default:
+                break;
+        }
+
+        for (RegexNode child : node.getChildren()) {
+            collectAlternations(child, alternations);
+        }
+    }
+
+    /**
+     * Tests if the alternatives passed as arguments can match the same prefix,
+     * comparing the characters they match position by position as long as both
+     * consist of single characters, and their first characters otherwise.
+     *
+     * @param first  The first alternative
+     * @param second The second alternative
+     * @return {@code true} if the alternatives can match the same prefix,
+     *         otherwise {@code false}
+     */
+    private static boolean overlaps(RegexNode first, RegexNode second) {
+
+        if (!firstOf(first).overlaps(firstOf(second))) {
+            return false;
+        }
+
+        final List<CodePointSet> firstPrefix = new ArrayList<>();
+        final List<CodePointSet> secondPrefix = new ArrayList<>();
+        collectPrefix(first, firstPrefix);
+        collectPrefix(second, secondPrefix);
+
+        for (int i = 0, size = Math.min(firstPrefix.size(), secondPrefix.size()); i < size; i++) {
+            if (!firstPrefix.get(i).overlaps(secondPrefix.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the sets of the leading single characters of the node passed as an
+     * argument to the list.
+     *
+     * @param node   The node
+     * @param prefix The list of the sets of the characters
+     * @return {@code true} if the whole node consists of single characters,
+     *         otherwise {@code false}
+     */
+    private static boolean collectPrefix(RegexNode node, List<CodePointSet> prefix) {
+
+        switch (node.getType()) {
+            case CHARACTER_SET:
+                prefix.add(node.getCharacterSet());
+                return true;
+
+            case CAPTURING_GROUP:
+                return collectPrefix(node.getChild(), prefix);
+
+            case CONCATENATION:
+                for (RegexNode child : node.getChildren()) {
+                    if (!collectPrefix(child, prefix)) {
+                        return false;
+                    }
+                }
+
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the elements of the sequence the node passed as an argument
+     * matches.
+     *
+     * @param node The node
+     * @return The elements of the sequence
+     */
+    private static List<RegexNode> elementsOf(RegexNode node) {
+
+        switch (node.getType()) {
+            case CAPTURING_GROUP:
+                return elementsOf(node.getChild());
+
+            case CONCATENATION:
+                return node.getChildren();
+
+            default:
+                return Collections.singletonList(node);
+        }
+    }
+
+    /**
+     * Returns the set of the characters a match of the node passed as an argument
+     * can start with.
+     *
+     * @param node The node
+     * @return The set of the characters
+     */
+    private static CodePointSet firstOf(RegexNode node) {
+
+        switch (node.getType()) {
+            case CHARACTER_SET:
+                return node.getCharacterSet();
+
+            case CONCATENATION:
+                CodePointSet first = CodePointSet.EMPTY;
+
+                for (RegexNode child : node.getChildren()) {
+                    first = first.union(firstOf(child));
+
+                    if (!child.isNullable()) {
+                        break;
+                    }
+                }
+
+                return first;
+
+            case ALTERNATION:
+                return node.getChildren().stream().map(BacktrackingAnalyzer::firstOf).reduce(CodePointSet.EMPTY,
+                        CodePointSet::union);
+
+            case REPETITION:
+                return node.getMaximum() == 0 ? CodePointSet.EMPTY : firstOf(node.getChild());
+
+            case CAPTURING_GROUP:
+            case ATOMIC_GROUP:
+                return firstOf(node.getChild());
+
+            case BACK_REFERENCE:
+                return CodePointSet.ALL;
+
+            default:
+                return CodePointSet.EMPTY;
+        }
+    }
+
+    /**
+     * Returns the set of the characters a match of the node passed as an argument
+     * can contain.
+     *
+     * @param node The node
+     * @return The set of the characters
+     */
+    private static CodePointSet charactersOf(RegexNode node) {
+
+        switch (node.getType()) {
+            case CHARACTER_SET:
+                return node.getCharacterSet();
+
+            case BACK_REFERENCE:
+                return CodePointSet.ALL;
+
+            case LOOKAROUND:
+                return CodePointSet.EMPTY;
+
+            default:
+                return node.getChildren().stream().map(BacktrackingAnalyzer::charactersOf)
+                        .reduce(CodePointSet.EMPTY, CodePointSet::union);
+        }
+    }
+
+    /**
+     * Returns the regex pattern of the node passed as an argument, which is used
+     * to describe the node in the findings.
+     *
+     * @param node The node
+     * @return The regex pattern of the node
+     */
+    private static String describe(RegexNode node) {
+
+        switch (node.getType()) {
+            case EMPTY:
+                return "";
+
+            case CHARACTER_SET:
+                return describe(node.getCharacterSet());
+
+            case CONCATENATION:
+                final StringBuilder builder = new StringBuilder();
+
+                for (RegexNode child : node.getChildren()) {
+                    builder.append(child.getType() == RegexNode.Type.ALTERNATION ? "(?:" + describe(child) + ")"
+                            : describe(child));
+                }
+
+                return builder.toString();
+
+            case ALTERNATION:
+                return String.join("|", node.getChildren().stream().map(BacktrackingAnalyzer::describe)
+                        .toArray(String[]::new));
+
+            case REPETITION:
+                final RegexNode child = node.getChild();
+                final String operand = child.getType() == RegexNode.Type.CONCATENATION
+                        || child.getType() == RegexNode.Type.ALTERNATION
+                        || child.getType() == RegexNode.Type.REPETITION ? "(?:" + describe(child) + ")"
+                                : describe(child);
+
+                return operand + describeQuantifier(node);
+
+            case CAPTURING_GROUP:
+                return "(" + describe(node.getChild()) + ")";
+
+            case ATOMIC_GROUP:
+                return "(?>" + describe(node.getChild()) + ")";
+
+            case LOOKAROUND:
+                return describeLookaround(node.getKind()) + describe(node.getChild()) + ")";
+
+            case BACK_REFERENCE:
+                return "\\" + node.getIndex();
+
+            default:
+                final char anchor = (char) node.getIndex();
+                return anchor == '^' || anchor == '$' ? String.valueOf(anchor) : "\\" + anchor;
+        }
+    }
+
+    /**
+     * Returns the quantifier of the repetition passed as an argument.
+     *
+     * @param node The repetition
+     * @return The quantifier
+     */
+    private static String describeQuantifier(RegexNode node) {
+
+        final int minimum = node.getMinimum();
+        final int maximum = node.getMaximum();
+        final String quantifier;
+
+        if (maximum == RegexNode.UNBOUNDED) {
+            quantifier = minimum == 0 ? "*" : minimum == 1 ? "+" : "{" + minimum + ",}";
+        } else if (minimum == 0 && maximum == 1) {
+            quantifier = "?";
+        } else {
+            quantifier = minimum == maximum ? "{" + minimum + "}" : "{" + minimum + "," + maximum + "}";
+        }
+
+        switch (node.getKind()) {
+            case RELUCTANT:
+                return quantifier + "?";
+
+            case POSSESSIVE:
+                return quantifier + "+";
+
+            default:
+                return quantifier;
+        }
+    }
+
+    /**
+     * Returns the opening of the lookaround of the kind passed as an argument.
+     *
+     * @param kind The kind of the lookaround
+     * @return The opening of the lookaround
+     */
+    private static String describeLookaround(RegexNode.Kind kind) {
+
+        switch (kind) {
+            case POSITIVE_LOOKAHEAD:
+                return "(?=";
+
+            case NEGATIVE_LOOKAHEAD:
+                return "(?!";
+
+            case POSITIVE_LOOKBEHIND:
+                return "(?<=";
+
+            default:
+                return "(?<!";
+        }
+    }
+
+    /**
+     * Returns the regex pattern of the set of the characters passed as an
+     * argument.
+     *
+     * @param characterSet The set of the characters
+     * @return The regex pattern of the set of the characters
+     */
+    private static String describe(CodePointSet characterSet) {
+
+        if (characterSet.equals(CodePointSet.ALL)) {
+            return "(?s:.)";
+        }
+
+        if (characterSet.equals(CodePointSet.DIGIT)) {
+            return "\\d";
+        }
+
+        if (characterSet.equals(CodePointSet.WORD)) {
+            return "\\w";
+        }
+
+        if (characterSet.equals(CodePointSet.SPACE)) {
+            return "\\s";
+        }
+
+        if (characterSet.size() == 1) {
+            return describe(characterSet.getRangeStart(0), true);
+        }
+
+        final StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < characterSet.getRangeCount(); i++) {
+            final int first = characterSet.getRangeStart(i);
+            final int last = characterSet.getRangeEnd(i);
+            builder.append(describe(first, false));
+
+            if (last != first) {
+                builder.append(last == first + 1 ? "" : "-").append(describe(last, false));
+            }
+        }
+
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Returns the regex pattern of the code point passed as an argument.
+     *
+     * @param codePoint The code point
+     * @param literal   {@code true} if the code point is not in a character class,
+     *                  otherwise {@code false}
+     * @return The regex pattern of the code point
+     */
+    private static String describe(int codePoint, boolean literal) {
+
+        if (codePoint < 0x20 || codePoint >= 0x7f && codePoint < 0xa0 || codePoint > 0xffff
+                || Character.isSurrogate((char) codePoint)) {
+            return String.format("\\x{%X}", codePoint);
+        }
+
+        if ((literal ? "\\^$.|?*+()[]{}" : "\\^-[]").indexOf(codePoint) >= 0) {
+            return "\\" + (char) codePoint;
+        }
+
+        return String.valueOf((char) codePoint);
+    }
+
+    /**
+     * The state of an analysis.
+     */
+    private static final class Analysis {
+
+        /**
+         * The worst-case complexity found so far
+         */
+        private BacktrackingComplexity complexity = BacktrackingComplexity.LINEAR;
+
+        /**
+         * The findings
+         */
+        private final List<String> findings = new ArrayList<>();
+
+        /**
+         * Reports the finding of the complexity passed as an argument.
+         *
+         * @param complexity The complexity of the finding
+         * @param finding    The description of the finding
+         */
+        private void report(BacktrackingComplexity complexity, String finding) {
+
+            if (complexity.getCode() > this.complexity.getCode()) {
+                this.complexity = complexity;
+            }
+
+            this.findings.add(finding);
+        }
+    }
+}
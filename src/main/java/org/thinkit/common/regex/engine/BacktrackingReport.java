@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import java.util.List;
+
+import org.thinkit.common.regex.catalog.BacktrackingComplexity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The report of {@link BacktrackingAnalyzer} , which consists of the worst-case
+ * complexity of matching a pattern by a backtracking engine and the findings
+ * that determine it.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class BacktrackingReport {
+
+    /**
+     * The worst-case complexity
+     */
+    @Getter
+    @NonNull
+    private final BacktrackingComplexity complexity;
+
+    /**
+     * The descriptions of the constructs that make the complexity more than
+     * linear
+     */
+    @Getter
+    @NonNull
+    private final List<String> findings;
+
+    /**
+     * Tests if the complexity is {@link BacktrackingComplexity#LINEAR} .
+     *
+     * @return {@code true} if the complexity is linear, otherwise {@code false}
+     */
+    public boolean isLinear() {
+        return this.complexity == BacktrackingComplexity.LINEAR;
+    }
+}
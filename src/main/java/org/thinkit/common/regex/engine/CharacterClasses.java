@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The partition of the code points into the classes that no character set of a
+ * {@link Program} distinguishes, which keeps the transition tables of the
+ * deterministic automata small.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class CharacterClasses {
+
+    /**
+     * The number of ASCII code points
+     */
+    private static final int ASCII = 128;
+
+    /**
+     * The classes of the ASCII code points
+     */
+    private final int[] asciiClasses;
+
+    /**
+     * The first code points of the intervals in ascending order
+     */
+    private final int[] boundaries;
+
+    /**
+     * The classes of the intervals
+     */
+    private final int[] intervalClasses;
+
+    /**
+     * The representative code point of each class
+     */
+    private final int[] representatives;
+
+    /**
+     * Constructor
+     *
+     * @param program The program
+     */
+    CharacterClasses(Program program) {
+
+        final Set<CodePointSet> characterSets = new LinkedHashSet<>();
+        final TreeSet<Integer> points = new TreeSet<>();
+        points.add(Character.MIN_CODE_POINT);
+
+        for (int pc = 0; pc < program.getSize(); pc++) {
+            if (program.characterSets[pc] != null) {
+                characterSets.add(program.characterSets[pc]);
+            }
+        }
+
+        for (CodePointSet characterSet : characterSets) {
+            for (int i = 0; i < characterSet.getRangeCount(); i++) {
+                points.add(characterSet.getRangeStart(i));
+
+                if (characterSet.getRangeEnd(i) < Character.MAX_CODE_POINT) {
+                    points.add(characterSet.getRangeEnd(i) + 1);
+                }
+            }
+        }
+
+        this.boundaries = points.stream().mapToInt(Integer::intValue).toArray();
+        this.intervalClasses = new int[this.boundaries.length];
+
+        final Map<BitSet, Integer> classes = new HashMap<>();
+        int[] representatives = new int[8];
+
+        for (int i = 0; i < this.boundaries.length; i++) {
+            final BitSet signature = new BitSet(characterSets.size());
+            int index = 0;
+
+            for (CodePointSet characterSet : characterSets) {
+                if (characterSet.contains(this.boundaries[i])) {
+                    signature.set(index);
+                }
+
+                index++;
+            }
+
+            final Integer existing = classes.get(signature);
+
+            if (existing != null) {
+                this.intervalClasses[i] = existing;
+                continue;
+            }
+
+            if (classes.size() == representatives.length) {
+                representatives = Arrays.copyOf(representatives, representatives.length * 2);
+            }
+
+            representatives[classes.size()] = this.boundaries[i];
+            this.intervalClasses[i] = classes.size();
+            classes.put(signature, classes.size());
+        }
+
+        this.representatives = Arrays.copyOf(representatives, classes.size());
+        this.asciiClasses = new int[ASCII];
+
+        for (int codePoint = 0; codePoint < ASCII; codePoint++) {
+            this.asciiClasses[codePoint] = this.lookup(codePoint);
+        }
+    }
+
+    /**
+     * Returns the class of the code point.
+     *
+     * @param codePoint The code point
+     * @return The class
+     */
+    int get(int codePoint) {
+        return codePoint < ASCII ? this.asciiClasses[codePoint] : this.lookup(codePoint);
+    }
+
+    /**
+     * Returns the number of classes.
+     *
+     * @return The number of classes
+     */
+    int size() {
+        return this.representatives.length;
+    }
+
+    /**
+     * Returns the representative code point of the class, which is contained in
+     * exactly the same character sets as every other code point of the class.
+     *
+     * @param characterClass The class
+     * @return The representative code point
+     */
+    int getRepresentative(int characterClass) {
+        return this.representatives[characterClass];
+    }
+
+    /**
+     * Returns the class of the code point by the binary search of the intervals.
+     *
+     * @param codePoint The code point
+     * @return The class
+     */
+    private int lookup(int codePoint) {
+        final int index = Arrays.binarySearch(this.boundaries, codePoint);
+        return this.intervalClasses[index >= 0 ? index : -index - 2];
+    }
+}
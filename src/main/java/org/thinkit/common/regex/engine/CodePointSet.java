@@ -0,0 +1,429 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.Arrays;
+
+import lombok.NonNull;
+
+/**
+ * The immutable set of Unicode code points represented as sorted and disjoint
+ * inclusive ranges.
+ * <p>
+ * Membership of ASCII code points is answered from a bit mask, and other code
+ * points are looked up by binary search over the ranges.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class CodePointSet {
+
+    /**
+     * The empty set
+     */
+    public static final CodePointSet EMPTY = new CodePointSet(new int[0]);
+
+    /**
+     * The set of all code points
+     */
+    public static final CodePointSet ALL = range(Character.MIN_CODE_POINT, Character.MAX_CODE_POINT);
+
+    /**
+     * The set of {@code \d}
+     */
+    public static final CodePointSet DIGIT = range('0', '9');
+
+    /**
+     * The set of {@code \w}
+     */
+    public static final CodePointSet WORD = of(new int[] { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' });
+
+    /**
+     * The set of {@code \s}
+     */
+    public static final CodePointSet SPACE = of(new int[] { '\t', '\r', ' ', ' ' });
+
+    /**
+     * The set of {@code \h}
+     */
+    public static final CodePointSet HORIZONTAL_SPACE = of(new int[] { '\t', '\t', ' ', ' ', 0xa0, 0xa0, 0x1680,
+            0x1680, 0x180e, 0x180e, 0x2000, 0x200a, 0x202f, 0x202f, 0x205f, 0x205f, 0x3000, 0x3000 });
+
+    /**
+     * The set of {@code \v}
+     */
+    public static final CodePointSet VERTICAL_SPACE = of(
+            new int[] { '\n', '\r', 0x85, 0x85, 0x2028, 0x2029 });
+
+    /**
+     * The set of line terminators recognized by {@code .} by default
+     */
+    public static final CodePointSet LINE_TERMINATOR = of(
+            new int[] { '\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029 });
+
+    /**
+     * The sorted and disjoint inclusive ranges
+     */
+    private final int[] ranges;
+
+    /**
+     * The bit mask of ASCII code points from 0 to 63
+     */
+    private final long lowAsciiMask;
+
+    /**
+     * The bit mask of ASCII code points from 64 to 127
+     */
+    private final long highAsciiMask;
+
+    /**
+     * Constructor
+     *
+     * @param ranges The sorted and disjoint inclusive ranges
+     */
+    private CodePointSet(int[] ranges) {
+        this.ranges = ranges;
+
+        long low = 0;
+        long high = 0;
+
+        for (int i = 0; i < ranges.length && ranges[i] < 128; i += 2) {
+            for (int codePoint = ranges[i]; codePoint <= Math.min(ranges[i + 1], 127); codePoint++) {
+                if (codePoint < 64) {
+                    low |= 1L << codePoint;
+                } else {
+                    high |= 1L << (codePoint - 64);
+                }
+            }
+        }
+
+        this.lowAsciiMask = low;
+        this.highAsciiMask = high;
+    }
+
+    /**
+     * Returns the set that contains only the code point passed as an argument.
+     *
+     * @param codePoint The code point
+     * @return The set
+     */
+    public static CodePointSet single(int codePoint) {
+        return new CodePointSet(new int[] { codePoint, codePoint });
+    }
+
+    /**
+     * Returns the set of the inclusive range passed as arguments.
+     *
+     * @param first The first code point
+     * @param last  The last code point
+     * @return The set
+     */
+    public static CodePointSet range(int first, int last) {
+        return first > last ? EMPTY : new CodePointSet(new int[] { first, last });
+    }
+
+    /**
+     * Returns the set of the inclusive ranges passed as an argument, which do not
+     * have to be sorted nor disjoint.
+     *
+     * @param ranges The inclusive ranges
+     * @return The set
+     */
+    public static CodePointSet of(@NonNull int[] ranges) {
+        return new CodePointSet(normalize(ranges.clone(), ranges.length));
+    }
+
+    /**
+     * Tests if the code point passed as an argument is contained in this set.
+     *
+     * @param codePoint The code point
+     * @return {@code true} if the code point is contained, otherwise
+     *         {@code false}
+     */
+    public boolean contains(int codePoint) {
+
+        if (codePoint < 64) {
+            return codePoint >= 0 && (this.lowAsciiMask & (1L << codePoint)) != 0;
+        } else if (codePoint < 128) {
+            return (this.highAsciiMask & (1L << (codePoint - 64))) != 0;
+        }
+
+        int low = 0;
+        int high = (this.ranges.length >> 1) - 1;
+
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+
+            if (codePoint < this.ranges[middle << 1]) {
+                high = middle - 1;
+            } else if (codePoint > this.ranges[(middle << 1) + 1]) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the union of this set and the set passed as an argument.
+     *
+     * @param other The other set
+     * @return The union
+     */
+    public CodePointSet union(@NonNull CodePointSet other) {
+
+        if (other.ranges.length == 0) {
+            return this;
+        } else if (this.ranges.length == 0) {
+            return other;
+        }
+
+        final int[] merged = Arrays.copyOf(this.ranges, this.ranges.length + other.ranges.length);
+        System.arraycopy(other.ranges, 0, merged, this.ranges.length, other.ranges.length);
+
+        return new CodePointSet(normalize(merged, merged.length));
+    }
+
+    /**
+     * Returns the complement of this set.
+     *
+     * @return The complement
+     */
+    public CodePointSet complement() {
+
+        final int[] complement = new int[this.ranges.length + 2];
+        int size = 0;
+        int next = Character.MIN_CODE_POINT;
+
+        for (int i = 0; i < this.ranges.length; i += 2) {
+            if (this.ranges[i] > next) {
+                complement[size++] = next;
+                complement[size++] = this.ranges[i] - 1;
+            }
+
+            next = this.ranges[i + 1] + 1;
+        }
+
+        if (next <= Character.MAX_CODE_POINT) {
+            complement[size++] = next;
+            complement[size++] = Character.MAX_CODE_POINT;
+        }
+
+        return new CodePointSet(Arrays.copyOf(complement, size));
+    }
+
+    /**
+     * Returns the intersection of this set and the set passed as an argument.
+     *
+     * @param other The other set
+     * @return The intersection
+     */
+    public CodePointSet intersect(@NonNull CodePointSet other) {
+        return this.complement().union(other.complement()).complement();
+    }
+
+    /**
+     * Returns the set in which the ASCII letters of this set are added in both
+     * upper and lower case, which is the case-insensitive matching performed by
+     * {@link java.util.regex.Pattern#CASE_INSENSITIVE} without
+     * {@link java.util.regex.Pattern#UNICODE_CASE} .
+     *
+     * @return The case-insensitive set
+     */
+    public CodePointSet caseInsensitive() {
+
+        final int[] added = new int[52 * 2];
+        int size = 0;
+
+        for (int codePoint = 'A'; codePoint <= 'Z'; codePoint++) {
+            final int lowerCase = codePoint + ('a' - 'A');
+
+            if (this.contains(codePoint) != this.contains(lowerCase)) {
+                added[size++] = codePoint;
+                added[size++] = codePoint;
+                added[size++] = lowerCase;
+                added[size++] = lowerCase;
+            }
+        }
+
+        if (size == 0) {
+            return this;
+        }
+
+        final int[] merged = Arrays.copyOf(this.ranges, this.ranges.length + size);
+        System.arraycopy(added, 0, merged, this.ranges.length, size);
+
+        return new CodePointSet(normalize(merged, merged.length));
+    }
+
+    /**
+     * Tests if this set shares at least one code point with the set passed as an
+     * argument.
+     *
+     * @param other The other set
+     * @return {@code true} if the sets overlap, otherwise {@code false}
+     */
+    public boolean overlaps(@NonNull CodePointSet other) {
+
+        int i = 0;
+        int j = 0;
+
+        while (i < this.ranges.length && j < other.ranges.length) {
+            if (this.ranges[i + 1] < other.ranges[j]) {
+                i += 2;
+            } else if (other.ranges[j + 1] < this.ranges[i]) {
+                j += 2;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tests if this set contains every code point of the set passed as an
+     * argument.
+     *
+     * @param other The other set
+     * @return {@code true} if this set contains the other set, otherwise
+     *         {@code false}
+     */
+    public boolean containsAll(@NonNull CodePointSet other) {
+        return !other.overlaps(this.complement());
+    }
+
+    /**
+     * Tests if this set is empty.
+     *
+     * @return {@code true} if this set is empty, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        return this.ranges.length == 0;
+    }
+
+    /**
+     * Returns the number of code points in this set.
+     *
+     * @return The number of code points
+     */
+    public int size() {
+
+        int size = 0;
+
+        for (int i = 0; i < this.ranges.length; i += 2) {
+            size += this.ranges[i + 1] - this.ranges[i] + 1;
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the number of ranges in this set.
+     *
+     * @return The number of ranges
+     */
+    public int getRangeCount() {
+        return this.ranges.length >> 1;
+    }
+
+    /**
+     * Returns the first code point of the range at the index passed as an
+     * argument.
+     *
+     * @param index The index of the range
+     * @return The first code point of the range
+     */
+    public int getRangeStart(int index) {
+        return this.ranges[index << 1];
+    }
+
+    /**
+     * Returns the last code point of the range at the index passed as an argument.
+     *
+     * @param index The index of the range
+     * @return The last code point of the range
+     */
+    public int getRangeEnd(int index) {
+        return this.ranges[(index << 1) + 1];
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof CodePointSet && Arrays.equals(this.ranges, ((CodePointSet) object).ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.ranges);
+    }
+
+    @Override
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < this.ranges.length; i += 2) {
+            builder.append(String.format("\\x{%X}", this.ranges[i]));
+
+            if (this.ranges[i + 1] != this.ranges[i]) {
+                builder.append(String.format("-\\x{%X}", this.ranges[i + 1]));
+            }
+        }
+
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Sorts and merges the ranges passed as an argument in place.
+     *
+     * @param ranges The ranges
+     * @param length The number of elements used in the array
+     * @return The sorted and disjoint ranges
+     */
+    private static int[] normalize(int[] ranges, int length) {
+
+        final long[] packed = new long[length >> 1];
+
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = ((long) ranges[i << 1] << 32) | (ranges[(i << 1) + 1] & 0xffffffffL);
+        }
+
+        Arrays.sort(packed);
+
+        final int[] normalized = new int[length];
+        int size = 0;
+
+        for (long range : packed) {
+            final int first = (int) (range >>> 32);
+            final int last = (int) range;
+
+            if (first > last) {
+                continue;
+            }
+
+            if (size > 0 && first <= normalized[size - 1] + 1) {
+                normalized[size - 1] = Math.max(normalized[size - 1], last);
+            } else {
+                normalized[size++] = first;
+                normalized[size++] = last;
+            }
+        }
+
+        return Arrays.copyOf(normalized, size);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The {@link HandCodedAutomaton} of {@link RegexPattern#DATE} ,
+ * {@link RegexPattern#DATE_WITH_HYPHEN} and {@link RegexPattern#DATE_WITH_SLASH}
+ * , which matches the dates of four digits of the year, the month from
+ * {@code 01} to {@code 12} and the day from {@code 01} to {@code 31} ,
+ * optionally separated by a character.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class DateAutomaton extends FixedLengthAutomaton {
+
+    /**
+     * The separator of the dates without separators
+     */
+    static final char NO_SEPARATOR = 0;
+
+    /**
+     * The separator
+     */
+    private final char separator;
+
+    /**
+     * The width of the separator
+     */
+    private final int separatorWidth;
+
+    /**
+     * Constructor
+     *
+     * @param separator The separator, or {@link #NO_SEPARATOR}
+     */
+    DateAutomaton(char separator) {
+        super(separator == NO_SEPARATOR ? 8 : 10);
+        this.separator = separator;
+        this.separatorWidth = separator == NO_SEPARATOR ? 0 : 1;
+    }
+
+    @Override
+    boolean accepts(CharSequence input, int index) {
+
+        if (!isDigits(input, index, index + 4) || !this.isSeparator(input, index + 4)) {
+            return false;
+        }
+
+        final int month = index + 4 + this.separatorWidth;
+
+        if (!(input.charAt(month) == '0' && isBetween(input, month + 1, '1', '9')
+                || input.charAt(month) == '1' && isBetween(input, month + 1, '0', '2'))
+                || !this.isSeparator(input, month + 2)) {
+            return false;
+        }
+
+        final int day = month + 2 + this.separatorWidth;
+
+        return input.charAt(day) == '0' && isBetween(input, day + 1, '1', '9')
+                || isBetween(input, day, '1', '2') && isDigit(input, day + 1)
+                || input.charAt(day) == '3' && isBetween(input, day + 1, '0', '1');
+    }
+
+    /**
+     * Tests if the separator is at the index, which is always true for the dates
+     * without separators.
+     *
+     * @param input The input
+     * @param index The index
+     * @return {@code true} if the separator is at the index, otherwise
+     *         {@code false}
+     */
+    private boolean isSeparator(CharSequence input, int index) {
+        return this.separator == NO_SEPARATOR || input.charAt(index) == this.separator;
+    }
+}
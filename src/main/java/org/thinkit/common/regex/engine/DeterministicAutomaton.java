@@ -0,0 +1,397 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+/**
+ * The {@link Automaton} that runs four deterministic automata of a pattern.
+ * <p>
+ * The search runs a forward automaton following the leftmost-first priority
+ * to find the end of the match, and then a reverse automaton anchored at that
+ * end to find the leftmost start. {@link #lookingAt} runs an anchored forward
+ * automaton following the leftmost-first priority, and {@link #matches} runs
+ * an anchored forward automaton of all matches.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+abstract class DeterministicAutomaton extends Automaton {
+
+    /**
+     * Returns the unanchored forward automaton following the leftmost-first
+     * priority.
+     *
+     * @return The automaton
+     */
+    abstract TransitionTable search();
+
+    /**
+     * Returns the anchored forward automaton following the leftmost-first
+     * priority.
+     *
+     * @return The automaton
+     */
+    abstract TransitionTable prefix();
+
+    /**
+     * Returns the anchored forward automaton of all matches.
+     *
+     * @return The automaton
+     */
+    abstract TransitionTable entire();
+
+    /**
+     * Returns the anchored reverse automaton of all matches.
+     *
+     * @return The automaton
+     */
+    abstract TransitionTable reverse();
+
+    /**
+     * Returns the prefilter of the searches.
+     *
+     * @return The prefilter, or {@code null} if the pattern has no literal that
+     *         every match contains
+     */
+    abstract Prefilter prefilter();
+
+    @Override
+    public boolean matches(CharSequence input, int start, int end, int[] slots) {
+
+        final TransitionTable entire = this.entire();
+        int state = entire.getStart();
+        int position = start;
+
+        while (position < end) {
+            final int codePoint = codePointAt(input, position, end);
+
+            if (codePoint < 0) {
+                return false;
+            }
+
+            state = entire.next(state, codePoint);
+
+            if (state == TransitionTable.DEAD) {
+                return false;
+            }
+
+            position += Character.charCount(codePoint);
+        }
+
+        if (!entire.isAccepting(state)) {
+            return false;
+        }
+
+        if (slots != null) {
+            slots[0] = start;
+            slots[1] = end;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean lookingAt(CharSequence input, int start, int end, int[] slots) {
+
+        final int matchEnd = forward(this.prefix(), null, input, start, end, slots == null);
+
+        if (matchEnd < 0) {
+            return false;
+        }
+
+        if (slots != null) {
+            slots[0] = start;
+            slots[1] = matchEnd;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean find(CharSequence input, int from, int end, int[] slots) {
+
+        final Prefilter prefilter = this.prefilter();
+
+        if (prefilter != null && prefilter.getSuffixLength() != RegexNode.UNBOUNDED) {
+            return findBySuffix(this.reverse(), prefilter, input, from, end + 1, end, slots);
+        }
+
+        final int matchEnd = forward(this.search(), prefilter, input, from, end, slots == null);
+
+        if (matchEnd < 0) {
+            return false;
+        }
+
+        if (slots != null) {
+            slots[0] = backward(this.reverse(), input, from, matchEnd);
+            slots[1] = matchEnd;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean find(CharSequence input, int from, int limit, int end, int[] slots) {
+
+        final Prefilter prefilter = this.prefilter();
+
+        if (from >= limit) {
+            return false;
+        } else if (prefilter != null && prefilter.getSuffixLength() != RegexNode.UNBOUNDED) {
+            return findBySuffix(this.reverse(), prefilter, input, from, limit, end, slots);
+        }
+
+        final int matchEnd = forward(this.search(), this.prefix(), prefilter, input, from, limit, end);
+
+        if (matchEnd < 0) {
+            return false;
+        }
+
+        final int matchStart = backward(this.reverse(), input, from, matchEnd);
+
+        if (matchStart >= limit) {
+            return false;
+        }
+
+        if (slots != null) {
+            slots[0] = matchStart;
+            slots[1] = matchEnd;
+        }
+
+        return true;
+    }
+
+    /**
+     * Runs the forward automaton from the start index and returns the end index of
+     * the match, which is the last index at which the automaton is accepting.
+     * <p>
+     * While no match has been found and the unanchored automaton is in its start
+     * state, the search jumps to the index the prefilter shows a match can start
+     * at.
+     *
+     * @param forward   The forward automaton
+     * @param prefilter The prefilter of the unanchored automaton, or {@code null}
+     * @param input     The input
+     * @param start     The index to start at
+     * @param end       The end index of the range
+     * @param any       Whether to return as soon as any match is found
+     * @return The end index of the match, or {@code -1} if there is no match
+     */
+    private static int forward(TransitionTable forward, Prefilter prefilter, CharSequence input, int start,
+            int end, boolean any) {
+
+        int state = forward.getStart();
+        int matchEnd = forward.isAccepting(state) ? start : -1;
+        int position = start;
+        int occurrence = -1;
+
+        while (position < end && !(any && matchEnd >= 0)) {
+            if (prefilter != null && matchEnd < 0 && forward.isStart(state)) {
+                if (occurrence < position) {
+                    occurrence = prefilter.indexOf(input, position, end);
+
+                    if (occurrence < 0) {
+                        break;
+                    }
+                }
+
+                position = prefilter.candidateStart(input, position, occurrence);
+            }
+
+            final int codePoint = codePointAt(input, position, end);
+
+            if (codePoint < 0) {
+                break;
+            }
+
+            state = forward.next(state, codePoint);
+
+            if (state == TransitionTable.DEAD) {
+                break;
+            }
+
+            position += Character.charCount(codePoint);
+
+            if (forward.isAccepting(state)) {
+                matchEnd = position;
+            }
+        }
+
+        return matchEnd;
+    }
+
+    /**
+     * Runs the unanchored forward automaton from the start index like
+     * {@link #forward(TransitionTable, Prefilter, CharSequence, int, int, boolean)}
+     * , but stops at the first index after the limit at which no match starting
+     * before the limit can still be found.
+     * <p>
+     * Such an index is one at which no match has been found yet, the automaton is
+     * back in its start state, and no match starts. Every thread started before
+     * the limit and still running shares its instruction with a thread of the
+     * start state, so if it could reach a match, a match would start at that
+     * index too.
+     *
+     * @param search    The unanchored forward automaton
+     * @param prefix    The anchored forward automaton
+     * @param prefilter The prefilter of the unanchored automaton, or {@code null}
+     * @param input     The input
+     * @param start     The index to start at
+     * @param limit     The index before which the match has to start
+     * @param end       The end index of the range
+     * @return The end index of the match, or {@code -1} if there is no match
+     *         starting before the limit
+     */
+    private static int forward(TransitionTable search, TransitionTable prefix, Prefilter prefilter,
+            CharSequence input, int start, int limit, int end) {
+
+        int state = search.getStart();
+        int matchEnd = search.isAccepting(state) ? start : -1;
+        int position = start;
+        int occurrence = -1;
+
+        while (position < end) {
+            if (prefilter != null && matchEnd < 0 && search.isStart(state)) {
+                if (occurrence < position) {
+                    occurrence = prefilter.indexOf(input, position, end);
+
+                    if (occurrence < 0) {
+                        break;
+                    }
+                }
+
+                position = prefilter.candidateStart(input, position, occurrence);
+            }
+
+            if (matchEnd < 0 && position >= limit && search.isStart(state)
+                    && forward(prefix, null, input, position, end, true) < 0) {
+                break;
+            }
+
+            final int codePoint = codePointAt(input, position, end);
+
+            if (codePoint < 0) {
+                break;
+            }
+
+            state = search.next(state, codePoint);
+
+            if (state == TransitionTable.DEAD) {
+                break;
+            }
+
+            position += Character.charCount(codePoint);
+
+            if (search.isAccepting(state)) {
+                matchEnd = position;
+            }
+        }
+
+        return matchEnd;
+    }
+
+    /**
+     * Finds the first match that starts before the limit by the literal that ends
+     * every match but for a tail of a fixed length, instead of running the forward
+     * automaton over the input.
+     * <p>
+     * Every match contains only one occurrence of the literal, so the match that
+     * contains the first occurrence ends right after its tail, and the reverse
+     * automaton run from there finds its smallest start. Any other match starts
+     * after the occurrence, so if no match contains it, the search moves on to
+     * the next occurrence. Each part of the input is run by the reverse automaton
+     * at most once but for the tails.
+     *
+     * @param reverse   The reverse automaton
+     * @param prefilter The prefilter of the suffix
+     * @param input     The input
+     * @param from      The index to start the search at
+     * @param limit     The index before which the match has to start
+     * @param end       The end index of the range
+     * @param slots     The slots to store the match, or {@code null}
+     * @return {@code true} if, and only if, the first subsequence of the range
+     *         that matches the pattern starts before the limit
+     */
+    private static boolean findBySuffix(TransitionTable reverse, Prefilter prefilter, CharSequence input, int from,
+            int limit, int end, int[] slots) {
+
+        int position = from;
+
+        while (position < limit) {
+            final int occurrence = prefilter.indexOf(input, position, end);
+
+            if (occurrence < 0) {
+                return false;
+            }
+
+            final int matchEnd = occurrence + prefilter.getSuffixLength();
+
+            if (matchEnd <= end) {
+                final int matchStart = backward(reverse, input, position, matchEnd);
+
+                if (matchStart < matchEnd) {
+                    if (matchStart >= limit) {
+                        return false;
+                    }
+
+                    if (slots != null) {
+                        slots[0] = matchStart;
+                        slots[1] = matchEnd;
+                    }
+
+                    return true;
+                }
+            }
+
+            position = occurrence + 1;
+        }
+
+        return false;
+    }
+
+    /**
+     * Runs the reverse automaton from the end index of the match and returns the
+     * start index of the match, which is the smallest index at which the
+     * automaton is accepting.
+     *
+     * @param reverse  The reverse automaton
+     * @param input    The input
+     * @param from     The index the search started at
+     * @param matchEnd The end index of the match
+     * @return The start index of the match
+     */
+    private static int backward(TransitionTable reverse, CharSequence input, int from, int matchEnd) {
+
+        int state = reverse.getStart();
+        int matchStart = matchEnd;
+        int position = matchEnd;
+
+        while (position > from) {
+            final int codePoint = codePointBefore(input, position, from);
+            state = reverse.next(state, codePoint);
+
+            if (state == TransitionTable.DEAD) {
+                break;
+            }
+
+            position -= Character.charCount(codePoint);
+
+            if (reverse.isAccepting(state)) {
+                matchStart = position;
+            }
+        }
+
+        return matchStart;
+    }
+}
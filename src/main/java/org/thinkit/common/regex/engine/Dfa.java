@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The deterministic automaton whose states are all built ahead of time by the
+ * subset construction of {@link SubsetBuilder} .
+ * <p>
+ * The instance of this class is immutable and thread-safe.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class Dfa implements TransitionTable {
+
+    /**
+     * The maximum number of states
+     */
+    static final int MAXIMUM_STATES = 10_000;
+
+    /**
+     * The character classes
+     */
+    private final CharacterClasses characterClasses;
+
+    /**
+     * The number of character classes
+     */
+    private final int classCount;
+
+    /**
+     * The next states indexed by the state multiplied by the number of classes
+     * plus the class
+     */
+    private final int[] transitions;
+
+    /**
+     * Whether the states are accepting
+     */
+    private final boolean[] accepting;
+
+    /**
+     * The start state
+     */
+    private final int start;
+
+    /**
+     * Constructor
+     *
+     * @param program          The program of a single pattern
+     * @param characterClasses The character classes of the program
+     * @param leftmostFirst    Whether to follow the leftmost-first priority
+     * @param unanchored       Whether to start the pattern at every position
+     *
+     * @exception UnsupportedPatternException If the automaton exceeds
+     *                                        {@link #MAXIMUM_STATES} states
+     */
+    Dfa(Program program, CharacterClasses characterClasses, boolean leftmostFirst, boolean unanchored) {
+
+        final SubsetBuilder subsetBuilder = new SubsetBuilder(program, leftmostFirst, unanchored);
+        final List<int[]> states = new ArrayList<>();
+        final Map<SubsetBuilder.Key, Integer> stateIndexes = new HashMap<>();
+        final int classCount = characterClasses.size();
+        int[] transitions = new int[classCount * 16];
+
+        state(states, stateIndexes, new int[0]);
+        this.start = state(states, stateIndexes, subsetBuilder.start());
+
+        for (int state = 0; state < states.size(); state++) {
+            for (int characterClass = 0; characterClass < classCount; characterClass++) {
+                final int next = state(states, stateIndexes,
+                        subsetBuilder.next(states.get(state), characterClasses.getRepresentative(characterClass)));
+
+                if (transitions.length <= state * classCount + characterClass) {
+                    transitions = Arrays.copyOf(transitions, transitions.length * 2);
+                }
+
+                transitions[state * classCount + characterClass] = next;
+            }
+        }
+
+        this.characterClasses = characterClasses;
+        this.classCount = classCount;
+        this.transitions = Arrays.copyOf(transitions, states.size() * classCount);
+        this.accepting = new boolean[states.size()];
+
+        for (int state = 0; state < this.accepting.length; state++) {
+            this.accepting[state] = subsetBuilder.isAccepting(states.get(state));
+        }
+    }
+
+    @Override
+    public int getStart() {
+        return this.start;
+    }
+
+    @Override
+    public boolean isStart(int state) {
+        return state == this.start;
+    }
+
+    @Override
+    public int next(int state, int codePoint) {
+        return this.transitions[state * this.classCount + this.characterClasses.get(codePoint)];
+    }
+
+    @Override
+    public boolean isAccepting(int state) {
+        return this.accepting[state];
+    }
+
+    /**
+     * Returns the number of states.
+     *
+     * @return The number of states
+     */
+    int getStateCount() {
+        return this.accepting.length;
+    }
+
+    /**
+     * Returns the state of the instructions, adding a new state if there is no
+     * such state yet.
+     *
+     * @param states       The instructions of the states
+     * @param stateIndexes The states keyed by their instructions
+     * @param instructions The instructions
+     * @return The state
+     *
+     * @exception UnsupportedPatternException If the automaton exceeds
+     *                                        {@link #MAXIMUM_STATES} states
+     */
+    private static int state(List<int[]> states, Map<SubsetBuilder.Key, Integer> stateIndexes,
+            int[] instructions) {
+
+        final SubsetBuilder.Key key = new SubsetBuilder.Key(instructions);
+        final Integer existing = stateIndexes.get(key);
+
+        if (existing != null) {
+            return existing;
+        } else if (states.size() == MAXIMUM_STATES) {
+            throw new UnsupportedPatternException("The automaton exceeds " + MAXIMUM_STATES + " states");
+        }
+
+        states.add(instructions);
+        stateIndexes.put(key, states.size() - 1);
+
+        return states.size() - 1;
+    }
+}
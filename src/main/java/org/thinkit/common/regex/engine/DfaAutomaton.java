@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import lombok.NonNull;
+
+/**
+ * The {@link Automaton} that runs deterministic automata built ahead of time,
+ * so that each code point of the input costs a single table lookup.
+ * <p>
+ * The automata are built for the patterns accepted by {@link RegexParser} and
+ * {@link ProgramCompiler} , and {@link UnsupportedPatternException} is thrown
+ * for the others, including the patterns whose automata would have more than
+ * {@value Dfa#MAXIMUM_STATES} states. {@link LazyDfaAutomaton} runs such
+ * patterns with bounded memory.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class DfaAutomaton extends DeterministicAutomaton {
+
+    /**
+     * The unanchored forward automaton following the leftmost-first priority
+     */
+    private final Dfa search;
+
+    /**
+     * The anchored forward automaton following the leftmost-first priority
+     */
+    private final Dfa prefix;
+
+    /**
+     * The anchored forward automaton of all matches
+     */
+    private final Dfa entire;
+
+    /**
+     * The anchored reverse automaton of all matches
+     */
+    private final Dfa reverse;
+
+    /**
+     * The characters after which the matches can be split
+     */
+    private final CodePointSet splitSet;
+
+    /**
+     * The prefilter of the searches, or {@code null}
+     */
+    private final Prefilter prefilter;
+
+    /**
+     * Constructor
+     *
+     * @param root The root node of the pattern
+     */
+    private DfaAutomaton(RegexNode root) {
+
+        final Program program = ProgramCompiler.compile(root);
+        final CharacterClasses characterClasses = new CharacterClasses(program);
+
+        this.search = new Dfa(program, characterClasses, true, true);
+        this.prefix = new Dfa(program, characterClasses, true, false);
+        this.entire = new Dfa(program, characterClasses, false, false);
+        this.reverse = new Dfa(ProgramCompiler.compileReverse(root), characterClasses, false, false);
+        this.splitSet = program.getSplitSet(0);
+        this.prefilter = Prefilter.of(root);
+    }
+
+    /**
+     * Compiles the regex pattern into the new instance of {@link DfaAutomaton} .
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @return The new instance of {@link DfaAutomaton}
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If the pattern cannot be run by a
+     *                                        deterministic automaton
+     */
+    public static DfaAutomaton compile(@NonNull String regexPattern, int flags) {
+        return new DfaAutomaton(RegexParser.parse(regexPattern, flags));
+    }
+
+    /**
+     * Returns the total number of states of the automata.
+     *
+     * @return The total number of states
+     */
+    public int getStateCount() {
+        return this.search.getStateCount() + this.prefix.getStateCount() + this.entire.getStateCount()
+                + this.reverse.getStateCount();
+    }
+
+    @Override
+    TransitionTable search() {
+        return this.search;
+    }
+
+    @Override
+    TransitionTable prefix() {
+        return this.prefix;
+    }
+
+    @Override
+    TransitionTable entire() {
+        return this.entire;
+    }
+
+    @Override
+    TransitionTable reverse() {
+        return this.reverse;
+    }
+
+    @Override
+    CodePointSet splitSet() {
+        return this.splitSet;
+    }
+
+    @Override
+    Prefilter prefilter() {
+        return this.prefilter;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+/**
+ * The {@link HandCodedAutomaton} of a format whose matches all have the same
+ * length, which tests each candidate position in a straight line.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+abstract class FixedLengthAutomaton extends HandCodedAutomaton {
+
+    /**
+     * The length of the matches
+     */
+    private final int length;
+
+    /**
+     * Constructor
+     *
+     * @param length The length of the matches
+     */
+    FixedLengthAutomaton(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Tests if the characters of the length of the matches starting at the index
+     * match the format. The characters are guaranteed to be in the input.
+     *
+     * @param input The input
+     * @param index The index
+     * @return {@code true} if the characters match the format, otherwise
+     *         {@code false}
+     */
+    abstract boolean accepts(CharSequence input, int index);
+
+    @Override
+    public boolean matches(CharSequence input, int start, int end, int[] slots) {
+        return end - start == this.length && this.accept(input, start, slots);
+    }
+
+    @Override
+    public boolean lookingAt(CharSequence input, int start, int end, int[] slots) {
+        return end - start >= this.length && this.accept(input, start, slots);
+    }
+
+    @Override
+    public boolean find(CharSequence input, int from, int end, int[] slots) {
+        return this.find(input, from, Integer.MAX_VALUE, end, slots);
+    }
+
+    @Override
+    public boolean find(CharSequence input, int from, int limit, int end, int[] slots) {
+
+        for (int index = from; index <= end - this.length && index < limit; index++) {
+            if (this.accept(input, index, slots)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tests if the match starts at the index, storing it into the slots if so.
+     *
+     * @param input The input
+     * @param index The index
+     * @param slots The slots to store the match, or {@code null}
+     * @return {@code true} if the match starts at the index, otherwise
+     *         {@code false}
+     */
+    private boolean accept(CharSequence input, int index, int[] slots) {
+
+        if (!this.accepts(input, index)) {
+            return false;
+        }
+
+        if (slots != null) {
+            slots[0] = index;
+            slots[1] = index + this.length;
+        }
+
+        return true;
+    }
+}
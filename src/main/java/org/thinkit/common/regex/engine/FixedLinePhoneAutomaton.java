@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The {@link HandCodedAutomaton} of {@link RegexPattern#FIXED_LINE_PHONE_JP} ,
+ * which matches the fixed line phone numbers of Japan such as
+ * {@code 0312345678} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class FixedLinePhoneAutomaton extends FixedLengthAutomaton {
+
+    /**
+     * Default constructor
+     */
+    FixedLinePhoneAutomaton() {
+        super(10);
+    }
+
+    @Override
+    boolean accepts(CharSequence input, int index) {
+        return input.charAt(index) == '0' && isDigits(input, index + 1, index + 10);
+    }
+}
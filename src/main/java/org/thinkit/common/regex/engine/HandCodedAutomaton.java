@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import java.util.regex.Pattern;
+
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+import lombok.NonNull;
+
+/**
+ * The {@link Automaton} hand-coded for a preset of {@link RegexPattern} whose
+ * format has a fixed shape, which checks the characters of the input in a
+ * straight line instead of running a general automaton.
+ * <p>
+ * The matches are exactly those of {@link java.util.regex.Matcher} for the
+ * regex pattern of the preset. The automata are provided for the following
+ * presets:
+ * <ul>
+ * <li>{@link RegexPattern#FIXED_LINE_PHONE_JP}</li>
+ * <li>{@link RegexPattern#CELL_PHONE_WITH_HYPHEN_JP}</li>
+ * <li>{@link RegexPattern#POST_CODE_JP}</li>
+ * <li>{@link RegexPattern#DATE}</li>
+ * <li>{@link RegexPattern#DATE_WITH_HYPHEN}</li>
+ * <li>{@link RegexPattern#DATE_WITH_SLASH}</li>
+ * <li>{@link RegexPattern#IP_ADDRESS}</li>
+ * </ul>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public abstract class HandCodedAutomaton extends Automaton {
+
+    /**
+     * The regex option flags that do not change the matches of the presets
+     */
+    private static final int SUPPORTED_FLAGS = Pattern.UNIX_LINES | Pattern.CASE_INSENSITIVE | Pattern.COMMENTS
+            | Pattern.MULTILINE | Pattern.DOTALL | Pattern.UNICODE_CASE;
+
+    /**
+     * The characters that no match of the presets contains, after which the
+     * matches can be split
+     */
+    private static final CodePointSet SPLIT_SET = CodePointSet.of(new int[] { '-', '/', '0', '9' }).complement();
+
+    /**
+     * Default constructor
+     */
+    HandCodedAutomaton() {
+    }
+
+    /**
+     * Returns the new instance of {@link HandCodedAutomaton} for the regex pattern
+     * of a preset.
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @return The new instance of {@link HandCodedAutomaton}
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If there is no hand-coded automaton
+     *                                        for the regex pattern and the flags
+     */
+    public static HandCodedAutomaton compile(@NonNull String regexPattern, int flags) {
+
+        if ((flags & ~SUPPORTED_FLAGS) != 0) {
+            throw new UnsupportedPatternException("Unsupported flags: " + (flags & ~SUPPORTED_FLAGS));
+        }
+
+        if (regexPattern.equals(RegexPattern.FIXED_LINE_PHONE_JP.getTag())) {
+            return new FixedLinePhoneAutomaton();
+        } else if (regexPattern.equals(RegexPattern.CELL_PHONE_WITH_HYPHEN_JP.getTag())) {
+            return new CellPhoneAutomaton();
+        } else if (regexPattern.equals(RegexPattern.POST_CODE_JP.getTag())) {
+            return new PostCodeAutomaton();
+        } else if (regexPattern.equals(RegexPattern.DATE.getTag())) {
+            return new DateAutomaton(DateAutomaton.NO_SEPARATOR);
+        } else if (regexPattern.equals(RegexPattern.DATE_WITH_HYPHEN.getTag())) {
+            return new DateAutomaton('-');
+        } else if (regexPattern.equals(RegexPattern.DATE_WITH_SLASH.getTag())) {
+            return new DateAutomaton('/');
+        } else if (regexPattern.equals(RegexPattern.IP_ADDRESS.getTag())) {
+            return new IpAddressAutomaton();
+        }
+
+        throw new UnsupportedPatternException("No hand-coded automaton for the pattern");
+    }
+
+    @Override
+    CodePointSet splitSet() {
+        return SPLIT_SET;
+    }
+
+    /**
+     * Tests if the character at the index is an ASCII digit.
+     *
+     * @param input The input
+     * @param index The index
+     * @return {@code true} if the character is an ASCII digit, otherwise
+     *         {@code false}
+     */
+    static boolean isDigit(CharSequence input, int index) {
+        final char character = input.charAt(index);
+        return character >= '0' && character <= '9';
+    }
+
+    /**
+     * Tests if the character at the index is in the range of characters.
+     *
+     * @param input The input
+     * @param index The index
+     * @param first The first character of the range
+     * @param last  The last character of the range
+     * @return {@code true} if the character is in the range, otherwise
+     *         {@code false}
+     */
+    static boolean isBetween(CharSequence input, int index, char first, char last) {
+        final char character = input.charAt(index);
+        return character >= first && character <= last;
+    }
+
+    /**
+     * Tests if the characters in the range of indexes are all ASCII digits.
+     *
+     * @param input The input
+     * @param start The start index (inclusive)
+     * @param end   The end index (exclusive)
+     * @return {@code true} if the characters are all ASCII digits, otherwise
+     *         {@code false}
+     */
+    static boolean isDigits(CharSequence input, int start, int end) {
+
+        for (int index = start; index < end; index++) {
+            if (!isDigit(input, index)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
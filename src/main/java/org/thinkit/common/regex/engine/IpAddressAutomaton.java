@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The {@link HandCodedAutomaton} of {@link RegexPattern#IP_ADDRESS} , which
+ * matches the IPv4 addresses of four decimal octets from {@code 0} to
+ * {@code 255} without leading zeros.
+ * <p>
+ * Following the leftmost-first priority of the regex pattern, each of the
+ * first three octets consists of all digits before the dot, while the last
+ * octet is the longest valid octet at its position unless the entire range
+ * must be matched.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class IpAddressAutomaton extends HandCodedAutomaton {
+
+    /**
+     * The maximum number of digits of an octet
+     */
+    private static final int MAXIMUM_DIGITS = 3;
+
+    /**
+     * Default constructor
+     */
+    IpAddressAutomaton() {
+    }
+
+    @Override
+    public boolean matches(CharSequence input, int start, int end, int[] slots) {
+
+        final int lastOctet = this.skipDottedOctets(input, start, end);
+
+        if (lastOctet < 0 || !isOctet(input, lastOctet, end)) {
+            return false;
+        }
+
+        if (slots != null) {
+            slots[0] = start;
+            slots[1] = end;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean lookingAt(CharSequence input, int start, int end, int[] slots) {
+
+        final int matchEnd = this.match(input, start, end);
+
+        if (matchEnd < 0) {
+            return false;
+        }
+
+        if (slots != null) {
+            slots[0] = start;
+            slots[1] = matchEnd;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean find(CharSequence input, int from, int end, int[] slots) {
+        return this.find(input, from, Integer.MAX_VALUE, end, slots);
+    }
+
+    @Override
+    public boolean find(CharSequence input, int from, int limit, int end, int[] slots) {
+
+        for (int index = from; index < end && index < limit; index++) {
+            if (isDigit(input, index) && this.lookingAt(input, index, end, slots)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the end index of the match starting at the index.
+     *
+     * @param input The input
+     * @param start The start index of the match
+     * @param end   The end index of the range
+     * @return The end index of the match, or {@code -1} if there is no match
+     */
+    private int match(CharSequence input, int start, int end) {
+
+        final int lastOctet = this.skipDottedOctets(input, start, end);
+
+        if (lastOctet < 0 || lastOctet == end || !isDigit(input, lastOctet)) {
+            return -1;
+        }
+
+        if (lastOctet + MAXIMUM_DIGITS <= end && isOctet(input, lastOctet, lastOctet + MAXIMUM_DIGITS)) {
+            return lastOctet + MAXIMUM_DIGITS;
+        } else if (lastOctet + 2 <= end && isOctet(input, lastOctet, lastOctet + 2)) {
+            return lastOctet + 2;
+        }
+
+        return lastOctet + 1;
+    }
+
+    /**
+     * Skips the first three octets and their dots starting at the index.
+     *
+     * @param input The input
+     * @param start The start index
+     * @param end   The end index of the range
+     * @return The start index of the last octet, or {@code -1} if the first three
+     *         octets do not match
+     */
+    private int skipDottedOctets(CharSequence input, int start, int end) {
+
+        int index = start;
+
+        for (int octet = 0; octet < 3; octet++) {
+            int dot = index;
+
+            while (dot < end && dot - index <= MAXIMUM_DIGITS && isDigit(input, dot)) {
+                dot++;
+            }
+
+            if (dot == end || input.charAt(dot) != '.' || !isOctet(input, index, dot)) {
+                return -1;
+            }
+
+            index = dot + 1;
+        }
+
+        return index;
+    }
+
+    /**
+     * Tests if the characters in the range of indexes form an octet, which is a
+     * decimal number from {@code 0} to {@code 255} without leading zeros.
+     *
+     * @param input The input
+     * @param start The start index (inclusive)
+     * @param end   The end index (exclusive)
+     * @return {@code true} if the characters form an octet, otherwise
+     *         {@code false}
+     */
+    private static boolean isOctet(CharSequence input, int start, int end) {
+
+        if (end - start < 1 || end - start > MAXIMUM_DIGITS || !isDigits(input, start, end)) {
+            return false;
+        } else if (end - start == 1) {
+            return true;
+        } else if (input.charAt(start) == '0') {
+            return false;
+        } else if (end - start == 2) {
+            return true;
+        }
+
+        final char first = input.charAt(start);
+        final char second = input.charAt(start + 1);
+
+        return first == '1' || first == '2' && (second < '5' || second == '5' && input.charAt(start + 2) <= '5');
+    }
+}
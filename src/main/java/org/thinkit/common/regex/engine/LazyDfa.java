@@ -0,0 +1,379 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The deterministic automaton whose states are built by {@link SubsetBuilder}
+ * on demand while matching, and kept in a cache of bounded size.
+ * <p>
+ * When the cache is full, all states are discarded and the run continues from
+ * the state being built. If the cache has to be flushed repeatedly while the
+ * run advances only a few code points per state, building states costs more
+ * than it saves, and the rest of the run simulates the instructions of the
+ * states directly without caching them, which is the simulation of the
+ * nondeterministic automaton.
+ * <p>
+ * Each thread has its own cache, so the instance of this class is thread-safe.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class LazyDfa {
+
+    /**
+     * The transition that is not built yet
+     */
+    private static final int UNKNOWN = -1;
+
+    /**
+     * The state outside the cache used once the cache has been given up
+     */
+    private static final int UNCACHED = -2;
+
+    /**
+     * The estimated number of bytes used by a state in addition to its
+     * transitions and instructions
+     */
+    private static final int STATE_OVERHEAD = 96;
+
+    /**
+     * The number of flushes in a run after which the cache may be given up
+     */
+    private static final int MINIMUM_FLUSHES = 3;
+
+    /**
+     * The minimum number of code points per cached state that a run must advance
+     * between flushes to keep using the cache
+     */
+    private static final int MINIMUM_STEPS_PER_STATE = 10;
+
+    /**
+     * The program
+     */
+    private final Program program;
+
+    /**
+     * The character classes
+     */
+    private final CharacterClasses characterClasses;
+
+    /**
+     * Whether to follow the leftmost-first priority
+     */
+    private final boolean leftmostFirst;
+
+    /**
+     * Whether to start the pattern at every position
+     */
+    private final boolean unanchored;
+
+    /**
+     * The maximum number of bytes of the cache of each thread
+     */
+    private final long cacheSize;
+
+    /**
+     * The caches of the threads
+     */
+    private final ThreadLocal<Cache> caches = ThreadLocal.withInitial(Cache::new);
+
+    /**
+     * Constructor
+     *
+     * @param program          The program of a single pattern
+     * @param characterClasses The character classes of the program
+     * @param leftmostFirst    Whether to follow the leftmost-first priority
+     * @param unanchored       Whether to start the pattern at every position
+     * @param cacheSize        The maximum number of bytes of the cache of each
+     *                         thread
+     */
+    LazyDfa(Program program, CharacterClasses characterClasses, boolean leftmostFirst, boolean unanchored,
+            long cacheSize) {
+        this.program = program;
+        this.characterClasses = characterClasses;
+        this.leftmostFirst = leftmostFirst;
+        this.unanchored = unanchored;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the cache of the current thread prepared for a new run.
+     *
+     * @return The cache of the current thread
+     */
+    TransitionTable begin() {
+        final Cache cache = this.caches.get();
+        cache.begin();
+        return cache;
+    }
+
+    /**
+     * Returns the number of times the cache of the current thread has been
+     * flushed since it was created.
+     *
+     * @return The number of flushes
+     */
+    long getFlushCount() {
+        return this.caches.get().totalFlushes;
+    }
+
+    /**
+     * Tests if the last run on the current thread gave up the cache.
+     *
+     * @return {@code true} if the last run gave up the cache, otherwise
+     *         {@code false}
+     */
+    boolean isUncached() {
+        return this.caches.get().uncached;
+    }
+
+    /**
+     * The cache of the states of a thread.
+     */
+    private final class Cache implements TransitionTable {
+
+        /**
+         * The builder of the states
+         */
+        private final SubsetBuilder subsetBuilder = new SubsetBuilder(program, leftmostFirst, unanchored);
+
+        /**
+         * The instructions of the start state
+         */
+        private final int[] startInstructions = this.subsetBuilder.start();
+
+        /**
+         * The number of character classes
+         */
+        private final int classCount = characterClasses.size();
+
+        /**
+         * The instructions of the cached states
+         */
+        private final List<int[]> states = new ArrayList<>();
+
+        /**
+         * The cached states keyed by their instructions
+         */
+        private final Map<SubsetBuilder.Key, Integer> stateIndexes = new HashMap<>();
+
+        /**
+         * The next states indexed by the state multiplied by the number of classes
+         * plus the class, or {@link #UNKNOWN}
+         */
+        private int[] transitions = new int[0];
+
+        /**
+         * Whether the cached states are accepting
+         */
+        private boolean[] accepting = new boolean[0];
+
+        /**
+         * The estimated number of bytes used by the cached states
+         */
+        private long size;
+
+        /**
+         * The instructions of the state {@link #UNCACHED}
+         */
+        private int[] uncachedInstructions;
+
+        /**
+         * Whether the state {@link #UNCACHED} is accepting
+         */
+        private boolean uncachedAccepting;
+
+        /**
+         * Whether the current run has given up the cache
+         */
+        private boolean uncached;
+
+        /**
+         * The number of flushes in the current run
+         */
+        private int flushes;
+
+        /**
+         * The number of flushes since this cache was created
+         */
+        private long totalFlushes;
+
+        /**
+         * The number of code points advanced in the current run
+         */
+        private long steps;
+
+        /**
+         * The value of {@link #steps} at the last flush
+         */
+        private long stepsAtFlush;
+
+        /**
+         * Constructor
+         */
+        Cache() {
+            this.flush();
+            this.totalFlushes = 0;
+        }
+
+        /**
+         * Prepares this cache for a new run.
+         */
+        void begin() {
+            this.uncached = false;
+            this.uncachedInstructions = null;
+            this.flushes = 0;
+            this.steps = 0;
+            this.stepsAtFlush = 0;
+        }
+
+        @Override
+        public int getStart() {
+            return this.state(this.startInstructions);
+        }
+
+        @Override
+        public boolean isStart(int state) {
+            return state != DEAD && Arrays.equals(
+                    state == UNCACHED ? this.uncachedInstructions : this.states.get(state), this.startInstructions);
+        }
+
+        @Override
+        public int next(int state, int codePoint) {
+
+            this.steps++;
+
+            final int index = state == UNCACHED ? -1 : state * this.classCount + characterClasses.get(codePoint);
+
+            if (index >= 0 && this.transitions[index] != UNKNOWN) {
+                return this.transitions[index];
+            }
+
+            final int[] instructions = state == UNCACHED ? this.uncachedInstructions : this.states.get(state);
+            final long flushCount = this.totalFlushes;
+            final int next = this.state(this.subsetBuilder.next(instructions, codePoint));
+
+            if (index >= 0 && next != UNCACHED && flushCount == this.totalFlushes) {
+                this.transitions[index] = next;
+            }
+
+            return next;
+        }
+
+        @Override
+        public boolean isAccepting(int state) {
+            return state == UNCACHED ? this.uncachedAccepting : this.accepting[state];
+        }
+
+        /**
+         * Returns the state of the instructions, adding a new state to the cache if
+         * there is no such state yet. The cache is flushed if it is full, or given up
+         * if it is flushed too often.
+         *
+         * @param instructions The instructions
+         * @return The state
+         */
+        private int state(int[] instructions) {
+
+            if (instructions.length == 0) {
+                return DEAD;
+            }
+
+            final SubsetBuilder.Key key = new SubsetBuilder.Key(instructions);
+            final Integer existing = this.stateIndexes.get(key);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            final long cost = (long) this.classCount * Integer.BYTES + (long) instructions.length * Integer.BYTES
+                    + STATE_OVERHEAD;
+
+            if (this.size + cost > cacheSize && this.states.size() > 1) {
+                if (this.uncached || this.isThrashing()) {
+                    this.uncached = true;
+                    this.uncachedInstructions = instructions;
+                    this.uncachedAccepting = this.subsetBuilder.isAccepting(instructions);
+                    return UNCACHED;
+                }
+
+                this.flush();
+            }
+
+            return this.add(key, instructions, cost);
+        }
+
+        /**
+         * Tests if the cache has been flushed too often in the current run to be
+         * worth keeping.
+         *
+         * @return {@code true} if the cache should be given up, otherwise
+         *         {@code false}
+         */
+        private boolean isThrashing() {
+            return this.flushes >= MINIMUM_FLUSHES
+                    && this.steps - this.stepsAtFlush < (long) MINIMUM_STEPS_PER_STATE * this.states.size();
+        }
+
+        /**
+         * Adds the state of the instructions to the cache.
+         *
+         * @param key          The key of the instructions
+         * @param instructions The instructions
+         * @param cost         The estimated number of bytes used by the state
+         * @return The state
+         */
+        private int add(SubsetBuilder.Key key, int[] instructions, long cost) {
+
+            final int state = this.states.size();
+            final int rowEnd = (state + 1) * this.classCount;
+
+            if (this.transitions.length < rowEnd) {
+                this.transitions = Arrays.copyOf(this.transitions, Math.max(rowEnd, this.transitions.length * 2));
+                this.accepting = Arrays.copyOf(this.accepting, this.transitions.length / this.classCount);
+            }
+
+            Arrays.fill(this.transitions, state * this.classCount, rowEnd, UNKNOWN);
+            this.accepting[state] = this.subsetBuilder.isAccepting(instructions);
+            this.states.add(instructions);
+            this.stateIndexes.put(key, state);
+            this.size += cost;
+
+            return state;
+        }
+
+        /**
+         * Discards all states except the dead state.
+         */
+        private void flush() {
+
+            this.states.clear();
+            this.stateIndexes.clear();
+            this.size = 0;
+            this.flushes++;
+            this.totalFlushes++;
+            this.stepsAtFlush = this.steps;
+
+            final int[] dead = new int[0];
+            this.add(new SubsetBuilder.Key(dead), dead, STATE_OVERHEAD);
+        }
+    }
+}
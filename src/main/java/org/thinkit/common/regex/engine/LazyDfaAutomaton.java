@@ -0,0 +1,190 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import lombok.NonNull;
+
+/**
+ * The {@link Automaton} that builds the states of its deterministic automata
+ * on demand while matching, keeping them in caches of bounded size.
+ * <p>
+ * Unlike {@link DfaAutomaton} , the cost of the compilation does not depend on
+ * the number of states, so this automaton also runs the patterns whose
+ * automata would be too large to build ahead of time. On typical input only a
+ * few states are visited and each code point costs a single table lookup once
+ * they are cached. The caches of each thread together use at most about the
+ * cache size given at the compilation, and a run that keeps flushing its
+ * cache continues without caching, which still takes time linear to the
+ * length of the input.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class LazyDfaAutomaton extends DeterministicAutomaton {
+
+    /**
+     * The default maximum number of bytes of the caches of each thread
+     */
+    public static final long DEFAULT_CACHE_SIZE = 2L * 1024 * 1024;
+
+    /**
+     * The number of automata sharing the cache size
+     */
+    private static final int AUTOMATON_COUNT = 4;
+
+    /**
+     * The unanchored forward automaton following the leftmost-first priority
+     */
+    private final LazyDfa search;
+
+    /**
+     * The anchored forward automaton following the leftmost-first priority
+     */
+    private final LazyDfa prefix;
+
+    /**
+     * The anchored forward automaton of all matches
+     */
+    private final LazyDfa entire;
+
+    /**
+     * The anchored reverse automaton of all matches
+     */
+    private final LazyDfa reverse;
+
+    /**
+     * The characters after which the matches can be split
+     */
+    private final CodePointSet splitSet;
+
+    /**
+     * The prefilter of the searches, or {@code null}
+     */
+    private final Prefilter prefilter;
+
+    /**
+     * Constructor
+     *
+     * @param root      The root node of the pattern
+     * @param cacheSize The maximum number of bytes of the caches of each thread
+     */
+    private LazyDfaAutomaton(RegexNode root, long cacheSize) {
+
+        final Program program = ProgramCompiler.compile(root);
+        final CharacterClasses characterClasses = new CharacterClasses(program);
+        final long automatonCacheSize = cacheSize / AUTOMATON_COUNT;
+
+        this.search = new LazyDfa(program, characterClasses, true, true, automatonCacheSize);
+        this.prefix = new LazyDfa(program, characterClasses, true, false, automatonCacheSize);
+        this.entire = new LazyDfa(program, characterClasses, false, false, automatonCacheSize);
+        this.reverse = new LazyDfa(ProgramCompiler.compileReverse(root), characterClasses, false, false,
+                automatonCacheSize);
+        this.splitSet = program.getSplitSet(0);
+        this.prefilter = Prefilter.of(root);
+    }
+
+    /**
+     * Compiles the regex pattern into the new instance of {@link LazyDfaAutomaton}
+     * with the cache size {@link #DEFAULT_CACHE_SIZE} .
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @return The new instance of {@link LazyDfaAutomaton}
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If the pattern cannot be run by a
+     *                                        deterministic automaton
+     */
+    public static LazyDfaAutomaton compile(@NonNull String regexPattern, int flags) {
+        return compile(regexPattern, flags, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Compiles the regex pattern into the new instance of
+     * {@link LazyDfaAutomaton} .
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @param cacheSize    The maximum number of bytes of the caches of each thread
+     * @return The new instance of {@link LazyDfaAutomaton}
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception IllegalArgumentException    If the cache size is not positive
+     * @exception UnsupportedPatternException If the pattern cannot be run by a
+     *                                        deterministic automaton
+     */
+    public static LazyDfaAutomaton compile(@NonNull String regexPattern, int flags, long cacheSize) {
+
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive");
+        }
+
+        return new LazyDfaAutomaton(RegexParser.parse(regexPattern, flags), cacheSize);
+    }
+
+    /**
+     * Returns the number of times the caches of the current thread have been
+     * flushed since they were created.
+     *
+     * @return The number of flushes
+     */
+    public long getFlushCount() {
+        return this.search.getFlushCount() + this.prefix.getFlushCount() + this.entire.getFlushCount()
+                + this.reverse.getFlushCount();
+    }
+
+    /**
+     * Tests if the last search on the current thread gave up caching the states of
+     * the forward automaton and simulated them directly.
+     *
+     * @return {@code true} if the last search gave up caching, otherwise
+     *         {@code false}
+     */
+    public boolean isSearchUncached() {
+        return this.search.isUncached();
+    }
+
+    @Override
+    TransitionTable search() {
+        return this.search.begin();
+    }
+
+    @Override
+    TransitionTable prefix() {
+        return this.prefix.begin();
+    }
+
+    @Override
+    TransitionTable entire() {
+        return this.entire.begin();
+    }
+
+    @Override
+    TransitionTable reverse() {
+        return this.reverse.begin();
+    }
+
+    @Override
+    CodePointSet splitSet() {
+        return this.splitSet;
+    }
+
+    @Override
+    Prefilter prefilter() {
+        return this.prefilter;
+    }
+}
@@ -0,0 +1,788 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The scanner that simulates a {@link Program} of multiple patterns in a single
+ * pass over the input.
+ * <p>
+ * The threads of all patterns advance in lockstep over one code point at a
+ * time, so the cost of a scan grows with the number of live threads rather
+ * than with the number of patterns. The matches of each pattern are exactly
+ * those reported by repeated calls of {@link java.util.regex.Matcher#find()}
+ * : the threads of a pattern follow the leftmost-first priority, and the
+ * search of the next match starts at the end of the previous one. Only when a
+ * match ends before the scan head, the pattern alone is rescanned from the end
+ * of the match up to the scan head.
+ * <p>
+ * The instance of this class is immutable and thread-safe.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class PatternSetScanner {
+
+    /**
+     * The mode reporting all matches
+     */
+    private static final int FIND_ALL = 0;
+
+    /**
+     * The mode reporting whether each pattern matches a subsequence
+     */
+    private static final int FIND_ANY = 1;
+
+    /**
+     * The mode reporting whether each pattern matches the entire input
+     */
+    private static final int MATCH_ENTIRE = 2;
+
+    /**
+     * The number of ASCII code points
+     */
+    private static final int ASCII = 128;
+
+    /**
+     * The program
+     */
+    @Getter
+    private final Program program;
+
+    /**
+     * The first character sets of the patterns
+     */
+    private final CodePointSet[] firstSets;
+
+    /**
+     * Whether the patterns can match the empty string
+     */
+    private final boolean[] nullables;
+
+    /**
+     * The patterns that can start at each ASCII code point
+     */
+    private final int[][] asciiStarters;
+
+    /**
+     * The union of the first character sets of all patterns
+     */
+    private final CodePointSet firstSet;
+
+    /**
+     * Whether any pattern can match the empty string
+     */
+    private final boolean nullable;
+
+    /**
+     * Constructor
+     *
+     * @param program The program
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public PatternSetScanner(@NonNull Program program) {
+
+        final int patternCount = program.getPatternCount();
+
+        this.program = program;
+        this.firstSets = new CodePointSet[patternCount];
+        this.nullables = new boolean[patternCount];
+
+        CodePointSet union = CodePointSet.EMPTY;
+        boolean anyNullable = false;
+
+        for (int i = 0; i < patternCount; i++) {
+            this.firstSets[i] = program.getFirstSet(i);
+            this.nullables[i] = program.isNullable(i);
+            union = union.union(this.firstSets[i]);
+            anyNullable |= this.nullables[i];
+        }
+
+        this.firstSet = union;
+        this.nullable = anyNullable;
+        this.asciiStarters = new int[ASCII][];
+
+        for (int codePoint = 0; codePoint < ASCII; codePoint++) {
+            final int[] starters = new int[patternCount];
+            int count = 0;
+
+            for (int i = 0; i < patternCount; i++) {
+                if (this.nullables[i] || this.firstSets[i].contains(codePoint)) {
+                    starters[count++] = i;
+                }
+            }
+
+            this.asciiStarters[codePoint] = Arrays.copyOf(starters, count);
+        }
+    }
+
+    /**
+     * The listener of the matches reported by
+     * {@link PatternSetScanner#scan(CharSequence, MatchListener)} .
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+
+        /**
+         * Called for each match.
+         *
+         * @param pattern The pattern index
+         * @param start   The start index of the match
+         * @param end     The end index of the match
+         */
+        void onMatch(int pattern, int start, int end);
+    }
+
+    /**
+     * Scans the input and reports every match of every pattern to the listener.
+     * The matches of each pattern are reported in order, while the matches of
+     * different patterns may be interleaved in any order.
+     *
+     * @param input    The input
+     * @param listener The listener
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public void scan(@NonNull CharSequence input, @NonNull MatchListener listener) {
+        new Scan(input, listener, FIND_ALL).run();
+    }
+
+    /**
+     * Returns the indexes of the patterns that match a subsequence of the input.
+     * The scan stops as soon as every pattern has matched.
+     *
+     * @param input The input
+     * @return The indexes of the matching patterns
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public BitSet findAny(@NonNull CharSequence input) {
+        final Scan scan = new Scan(input, null, FIND_ANY);
+        scan.run();
+        return scan.found;
+    }
+
+    /**
+     * Returns the indexes of the patterns that match the entire input.
+     *
+     * @param input The input
+     * @return The indexes of the matching patterns
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    public BitSet matchEntire(@NonNull CharSequence input) {
+        final Scan scan = new Scan(input, null, MATCH_ENTIRE);
+        scan.runEntire();
+        return scan.found;
+    }
+
+    /**
+     * The state of a single scan.
+     */
+    private final class Scan {
+
+        /**
+         * The input
+         */
+        private final CharSequence input;
+
+        /**
+         * The length of the input
+         */
+        private final int length;
+
+        /**
+         * The listener
+         */
+        private final MatchListener listener;
+
+        /**
+         * The mode
+         */
+        private final int mode;
+
+        /**
+         * The indexes of the patterns found
+         */
+        private final BitSet found = new BitSet();
+
+        /**
+         * The thread list at the scan head
+         */
+        private SparseSet current;
+
+        /**
+         * The thread list at the next position of the scan head
+         */
+        private SparseSet next;
+
+        /**
+         * The start indexes of the threads in {@link #current}
+         */
+        private int[] currentStarts;
+
+        /**
+         * The start indexes of the threads in {@link #next}
+         */
+        private int[] nextStarts;
+
+        /**
+         * The thread list of the rescan at the current position
+         */
+        private SparseSet rescanCurrent;
+
+        /**
+         * The thread list of the rescan at the next position
+         */
+        private SparseSet rescanNext;
+
+        /**
+         * The start indexes of the threads in {@link #rescanCurrent}
+         */
+        private int[] rescanCurrentStarts;
+
+        /**
+         * The start indexes of the threads in {@link #rescanNext}
+         */
+        private int[] rescanNextStarts;
+
+        /**
+         * The stack of the epsilon closure
+         */
+        private final int[] stack;
+
+        /**
+         * The start indexes of the match candidates of the patterns, or {@code -1}
+         */
+        private final int[] candidateStarts;
+
+        /**
+         * The end indexes of the match candidates of the patterns
+         */
+        private final int[] candidateEnds;
+
+        /**
+         * The indexes from which the patterns search the next match
+         */
+        private final int[] restarts;
+
+        /**
+         * Whether the patterns have finished
+         */
+        private final boolean[] finished;
+
+        /**
+         * The last steps in which the patterns had threads added to {@link #next}
+         */
+        private final int[] liveSteps;
+
+        /**
+         * Whether the lower priority threads of the patterns are cut in the current
+         * step
+         */
+        private final boolean[] cut;
+
+        /**
+         * The patterns cut in the current step
+         */
+        private final int[] cutPatterns;
+
+        /**
+         * The number of patterns cut in the current step
+         */
+        private int cutCount;
+
+        /**
+         * The patterns that have match candidates
+         */
+        private final int[] pending;
+
+        /**
+         * The number of patterns that have match candidates
+         */
+        private int pendingCount;
+
+        /**
+         * The patterns whose match candidates are reported in the current step
+         */
+        private final int[] emitted;
+
+        /**
+         * Whether a pattern is being rescanned
+         */
+        private boolean rescanning;
+
+        /**
+         * The number of patterns that have not finished
+         */
+        private int remaining;
+
+        /**
+         * The current step
+         */
+        private int step;
+
+        /**
+         * Constructor
+         *
+         * @param input    The input
+         * @param listener The listener
+         * @param mode     The mode
+         */
+        Scan(CharSequence input, MatchListener listener, int mode) {
+
+            final int size = program.getSize();
+            final int patternCount = program.getPatternCount();
+
+            this.input = input;
+            this.length = input.length();
+            this.listener = listener;
+            this.mode = mode;
+            this.current = new SparseSet(size);
+            this.next = new SparseSet(size);
+            this.currentStarts = new int[size];
+            this.nextStarts = new int[size];
+            this.stack = new int[size * 2 + 1];
+            this.candidateStarts = new int[patternCount];
+            this.candidateEnds = new int[patternCount];
+            this.restarts = new int[patternCount];
+            this.finished = new boolean[patternCount];
+            this.liveSteps = new int[patternCount];
+            this.cut = new boolean[patternCount];
+            this.cutPatterns = new int[patternCount];
+            this.pending = new int[patternCount];
+            this.emitted = new int[patternCount];
+            this.remaining = patternCount;
+
+            Arrays.fill(this.candidateStarts, -1);
+            Arrays.fill(this.liveSteps, -1);
+        }
+
+        /**
+         * Runs the scan in the mode {@link #FIND_ALL} or {@link #FIND_ANY} .
+         */
+        void run() {
+
+            int position = 0;
+
+            while (position <= this.length && this.remaining > 0) {
+                if (this.current.isEmpty() && !nullable) {
+                    position = this.skip(position);
+                }
+
+                final int codePoint = this.codePointAt(position);
+                final int width = codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT ? 2 : 1;
+
+                this.inject(codePoint, position);
+                this.step++;
+                this.step(this.current, this.currentStarts, this.next, this.nextStarts, true, codePoint, position);
+                this.emitFinished(position + width);
+                this.swap();
+
+                position += width;
+            }
+        }
+
+        /**
+         * Runs the scan in the mode {@link #MATCH_ENTIRE} .
+         */
+        void runEntire() {
+
+            for (int i = 0; i < this.finished.length; i++) {
+                this.addThread(this.current, this.currentStarts, false, program.starts[i], 0);
+            }
+
+            int position = 0;
+
+            while (position <= this.length && !this.current.isEmpty()) {
+                final int codePoint = this.codePointAt(position);
+                this.step(this.current, this.currentStarts, this.next, this.nextStarts, false, codePoint, position);
+                this.swap();
+                position += codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT ? 2 : 1;
+            }
+        }
+
+        /**
+         * Returns the first position at or after the position passed as an argument
+         * from which any pattern can start, or the length of the input.
+         *
+         * @param position The position
+         * @return The position to resume the scan
+         */
+        private int skip(int position) {
+
+            int index = position;
+
+            while (index < this.length) {
+                final int codePoint = Character.codePointAt(this.input, index);
+
+                if (firstSet.contains(codePoint)) {
+                    return index;
+                }
+
+                index += Character.charCount(codePoint);
+            }
+
+            return this.length;
+        }
+
+        /**
+         * Starts the patterns that search a match at the position.
+         *
+         * @param codePoint The code point at the position, or {@code -1} at the end
+         *                  of the input
+         * @param position  The position
+         */
+        private void inject(int codePoint, int position) {
+
+            if (codePoint >= 0 && codePoint < ASCII) {
+                for (int pattern : asciiStarters[codePoint]) {
+                    this.injectPattern(pattern, codePoint, position);
+                }
+            } else {
+                for (int pattern = 0; pattern < this.finished.length; pattern++) {
+                    this.injectPattern(pattern, codePoint, position);
+                }
+            }
+        }
+
+        /**
+         * Starts the pattern at the position if the pattern searches a match there.
+         *
+         * @param pattern   The pattern index
+         * @param codePoint The code point at the position, or {@code -1} at the end
+         *                  of the input
+         * @param position  The position
+         */
+        private void injectPattern(int pattern, int codePoint, int position) {
+            if (this.canStart(pattern, codePoint, position)) {
+                this.addThread(this.current, this.currentStarts, false, program.starts[pattern], position);
+            }
+        }
+
+        /**
+         * Tests if the pattern starts a thread at the position.
+         *
+         * @param pattern   The pattern index
+         * @param codePoint The code point at the position, or {@code -1} at the end
+         *                  of the input
+         * @param position  The position
+         * @return {@code true} if the pattern starts a thread, otherwise {@code false}
+         */
+        private boolean canStart(int pattern, int codePoint, int position) {
+            return !this.finished[pattern] && this.candidateStarts[pattern] < 0 && this.restarts[pattern] <= position
+                    && (nullables[pattern] || codePoint >= 0 && firstSets[pattern].contains(codePoint));
+        }
+
+        /**
+         * Advances the threads of the list over the code point.
+         *
+         * @param from       The thread list at the position
+         * @param fromStarts The start indexes of the threads in {@code from}
+         * @param to         The thread list at the next position
+         * @param toStarts   The start indexes of the threads in {@code to}
+         * @param live       Whether to record the live patterns of {@code to}
+         * @param codePoint  The code point at the position, or {@code -1} at the end
+         *                   of the input
+         * @param position   The position
+         */
+        private void step(SparseSet from, int[] fromStarts, SparseSet to, int[] toStarts, boolean live,
+                int codePoint, int position) {
+
+            for (int i = 0; i < from.size(); i++) {
+                final int pc = from.get(i);
+                final int pattern = program.owners[pc];
+
+                if (this.cut[pattern] || this.finished[pattern]) {
+                    continue;
+                }
+
+                switch (program.opcodes[pc]) {
+                    case Program.CHARACTER:
+                        if (codePoint >= 0 && program.characterSets[pc].contains(codePoint)) {
+                            this.addThread(to, toStarts, live, program.next[pc], fromStarts[pc]);
+                        }
+
+                        break;
+
+                    case Program.MATCH:
+                        this.match(pattern, fromStarts[pc], position);
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+
+            for (int i = 0; i < this.cutCount; i++) {
+                this.cut[this.cutPatterns[i]] = false;
+            }
+
+            this.cutCount = 0;
+        }
+
+        /**
+         * Handles the match of the pattern found by the thread of the highest
+         * priority among the remaining threads of the pattern.
+         *
+         * @param pattern The pattern index
+         * @param start   The start index of the match
+         * @param end     The end index of the match
+         */
+        private void match(int pattern, int start, int end) {
+            switch (this.mode) {
+                case FIND_ALL:
+                    if (this.candidateStarts[pattern] < 0 && !this.rescanning) {
+                        this.pending[this.pendingCount++] = pattern;
+                    }
+
+                    this.candidateStarts[pattern] = start;
+                    this.candidateEnds[pattern] = end;
+                    this.cut[pattern] = true;
+                    this.cutPatterns[this.cutCount++] = pattern;
+                    break;
+
+                case FIND_ANY:
+                    this.found.set(pattern);
+                    this.finish(pattern);
+                    break;
+
+                default:
+                    if (end == this.length) {
+                        this.found.set(pattern);
+                    }
+
+                    break;
+            }
+        }
+
+        /**
+         * Reports the match candidates of the patterns that have no threads left, and
+         * rescans those patterns up to the next position of the scan head.
+         *
+         * @param head The next position of the scan head
+         */
+        private void emitFinished(int head) {
+
+            int count = 0;
+            int emittedCount = 0;
+
+            for (int i = 0; i < this.pendingCount; i++) {
+                final int pattern = this.pending[i];
+
+                if (this.liveSteps[pattern] == this.step) {
+                    this.pending[count++] = pattern;
+                } else {
+                    this.emit(pattern);
+                    this.emitted[emittedCount++] = pattern;
+                }
+            }
+
+            this.pendingCount = count;
+
+            for (int i = 0; i < emittedCount; i++) {
+                final int pattern = this.emitted[i];
+
+                if (!this.finished[pattern] && this.restarts[pattern] < head) {
+                    this.rescan(pattern, head);
+                }
+            }
+        }
+
+        /**
+         * Reports the match candidate of the pattern and moves the restart index of
+         * the pattern past the match.
+         *
+         * @param pattern The pattern index
+         */
+        private void emit(int pattern) {
+
+            final int start = this.candidateStarts[pattern];
+            final int end = this.candidateEnds[pattern];
+
+            this.listener.onMatch(pattern, start, end);
+            this.candidateStarts[pattern] = -1;
+            this.restarts[pattern] = start == end ? end + 1 : end;
+
+            if (this.restarts[pattern] > this.length) {
+                this.finish(pattern);
+            }
+        }
+
+        /**
+         * Finishes the pattern.
+         *
+         * @param pattern The pattern index
+         */
+        private void finish(int pattern) {
+            if (!this.finished[pattern]) {
+                this.finished[pattern] = true;
+                this.remaining--;
+            }
+        }
+
+        /**
+         * Scans the pattern alone from its restart index up to the next position of
+         * the scan head, and merges its threads into the thread list of the scan
+         * head.
+         *
+         * @param pattern The pattern index
+         * @param head    The next position of the scan head
+         */
+        private void rescan(int pattern, int head) {
+
+            if (this.rescanCurrent == null) {
+                final int size = program.getSize();
+                this.rescanCurrent = new SparseSet(size);
+                this.rescanNext = new SparseSet(size);
+                this.rescanCurrentStarts = new int[size];
+                this.rescanNextStarts = new int[size];
+            }
+
+            this.rescanCurrent.clear();
+            this.rescanning = true;
+            int position = this.restarts[pattern];
+
+            while (position < head && !this.finished[pattern]) {
+                final int codePoint = this.codePointAt(position);
+                final int width = codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT ? 2 : 1;
+
+                if (this.canStart(pattern, codePoint, position)) {
+                    this.addThread(this.rescanCurrent, this.rescanCurrentStarts, false, program.starts[pattern],
+                            position);
+                }
+
+                if (this.rescanCurrent.isEmpty()) {
+                    position += width;
+                    continue;
+                }
+
+                this.step(this.rescanCurrent, this.rescanCurrentStarts, this.rescanNext, this.rescanNextStarts, false,
+                        codePoint, position);
+
+                final SparseSet list = this.rescanCurrent;
+                final int[] starts = this.rescanCurrentStarts;
+                this.rescanCurrent = this.rescanNext;
+                this.rescanCurrentStarts = this.rescanNextStarts;
+                this.rescanNext = list;
+                this.rescanNextStarts = starts;
+                this.rescanNext.clear();
+
+                if (this.candidateStarts[pattern] >= 0 && this.rescanCurrent.isEmpty()) {
+                    this.emit(pattern);
+                    position = Math.min(this.restarts[pattern], position + width);
+                } else {
+                    position += width;
+                }
+            }
+
+            this.rescanning = false;
+
+            if (this.finished[pattern]) {
+                return;
+            }
+
+            for (int i = 0; i < this.rescanCurrent.size(); i++) {
+                final int pc = this.rescanCurrent.get(i);
+                this.next.add(pc);
+                this.nextStarts[pc] = this.rescanCurrentStarts[pc];
+            }
+
+            if (!this.rescanCurrent.isEmpty()) {
+                this.liveSteps[pattern] = this.step;
+            }
+
+            if (this.candidateStarts[pattern] >= 0) {
+                this.pending[this.pendingCount++] = pattern;
+            }
+        }
+
+        /**
+         * Adds the thread and the threads reachable from it without consuming a code
+         * point to the list, skipping those already in the list.
+         *
+         * @param list   The thread list
+         * @param starts The start indexes of the threads in {@code list}
+         * @param live   Whether to record the live patterns
+         * @param pc     The program counter
+         * @param start  The start index of the thread
+         */
+        private void addThread(SparseSet list, int[] starts, boolean live, int pc, int start) {
+
+            int depth = 0;
+            this.stack[depth++] = pc;
+
+            while (depth > 0) {
+                final int current = this.stack[--depth];
+
+                if (list.contains(current)) {
+                    continue;
+                }
+
+                list.add(current);
+                starts[current] = start;
+
+                if (live) {
+                    this.liveSteps[program.owners[current]] = this.step;
+                }
+
+                switch (program.opcodes[current]) {
+                    case Program.SPLIT:
+                        this.stack[depth++] = program.alternative[current];
+                        this.stack[depth++] = program.next[current];
+                        break;
+
+                    case Program.SAVE:
+                        this.stack[depth++] = program.next[current];
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Swaps the thread lists of the scan head.
+         */
+        private void swap() {
+
+            final SparseSet list = this.current;
+            final int[] starts = this.currentStarts;
+
+            this.current = this.next;
+            this.currentStarts = this.nextStarts;
+            this.next = list;
+            this.nextStarts = starts;
+            this.next.clear();
+        }
+
+        /**
+         * Returns the code point at the position.
+         *
+         * @param position The position
+         * @return The code point, or {@code -1} at the end of the input
+         */
+        private int codePointAt(int position) {
+            return position < this.length ? Character.codePointAt(this.input, position) : -1;
+        }
+    }
+}
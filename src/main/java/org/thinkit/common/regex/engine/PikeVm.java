@@ -0,0 +1,387 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.Arrays;
+
+/**
+ * The Pike VM that simulates a {@link Program} of a single pattern with the
+ * capture slots of each thread.
+ * <p>
+ * The threads are kept in priority order and the thread of the lower priority
+ * reaching the same instruction at the same position is dropped, so each
+ * position costs time proportional to the size of the program, and the match
+ * is exactly the one that the backtracking of {@link java.util.regex.Pattern}
+ * reports first, with the groups captured on its path.
+ * <p>
+ * Each thread has its own thread lists, so the instance of this class is
+ * thread-safe.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class PikeVm {
+
+    /**
+     * The mode searching the match starting at any position
+     */
+    static final int FIND = 0;
+
+    /**
+     * The mode matching a prefix of the range
+     */
+    static final int PREFIX = 1;
+
+    /**
+     * The mode matching the entire range
+     */
+    static final int ENTIRE = 2;
+
+    /**
+     * The program
+     */
+    private final Program program;
+
+    /**
+     * The number of slots of the match and its groups
+     */
+    private final int slotCount;
+
+    /**
+     * The character set that can be consumed first by the pattern
+     */
+    private final CodePointSet firstSet;
+
+    /**
+     * Whether the pattern can match the empty string
+     */
+    private final boolean nullable;
+
+    /**
+     * The prefilter of the searches, or {@code null}
+     */
+    private final Prefilter prefilter;
+
+    /**
+     * The thread lists of the threads
+     */
+    private final ThreadLocal<Machine> machines = ThreadLocal.withInitial(Machine::new);
+
+    /**
+     * Constructor
+     *
+     * @param program   The program of a single pattern
+     * @param prefilter The prefilter of the searches, or {@code null}
+     */
+    PikeVm(Program program, Prefilter prefilter) {
+        this.program = program;
+        this.slotCount = (program.getGroupCount(0) + 1) * 2;
+        this.firstSet = program.getFirstSet(0);
+        this.nullable = program.isNullable(0);
+        this.prefilter = prefilter;
+    }
+
+    /**
+     * Returns the number of slots of the match and its groups.
+     *
+     * @return The number of slots
+     */
+    int getSlotCount() {
+        return this.slotCount;
+    }
+
+    /**
+     * Runs the program on the range in the mode passed as an argument.
+     *
+     * @param input The input
+     * @param start The index to start at
+     * @param end   The end index of the range
+     * @param mode  The mode
+     * @param slots The slots to store the match and its groups, or {@code null}
+     * @return {@code true} if a match is found, otherwise {@code false}
+     */
+    boolean run(CharSequence input, int start, int end, int mode, int[] slots) {
+        return this.machines.get().run(input, start, Integer.MAX_VALUE, end, mode, slots);
+    }
+
+    /**
+     * Runs the program on the range in the mode passed as an argument, starting
+     * threads only before the limit.
+     *
+     * @param input The input
+     * @param start The index to start at
+     * @param limit The index before which the match has to start
+     * @param end   The end index of the range
+     * @param mode  The mode
+     * @param slots The slots to store the match and its groups, or {@code null}
+     * @return {@code true} if a match starting before the limit is found,
+     *         otherwise {@code false}
+     */
+    boolean run(CharSequence input, int start, int limit, int end, int mode, int[] slots) {
+        return this.machines.get().run(input, start, limit, end, mode, slots);
+    }
+
+    /**
+     * The thread lists and the capture slots of a thread.
+     */
+    private final class Machine {
+
+        /**
+         * The threads at the current position
+         */
+        private SparseSet current = new SparseSet(program.getSize());
+
+        /**
+         * The threads at the next position
+         */
+        private SparseSet next = new SparseSet(program.getSize());
+
+        /**
+         * The slots of the threads at the current position indexed by the program
+         * counter multiplied by the number of slots
+         */
+        private int[] currentSlots = new int[program.getSize() * slotCount];
+
+        /**
+         * The slots of the threads at the next position indexed by the program
+         * counter multiplied by the number of slots
+         */
+        private int[] nextSlots = new int[program.getSize() * slotCount];
+
+        /**
+         * The slots of the thread being added
+         */
+        private final int[] working = new int[slotCount];
+
+        /**
+         * The slots of the match
+         */
+        private final int[] matched = new int[slotCount];
+
+        /**
+         * The program counters of the stack, or the restored slots encoded as
+         * {@code -1 - slot}
+         */
+        private final int[] stack = new int[program.getSize() * 2 + 1];
+
+        /**
+         * The restored values of the slots of the stack
+         */
+        private final int[] stackValues = new int[program.getSize() * 2 + 1];
+
+        /**
+         * The index of the occurrence of the literal of the prefilter found last
+         */
+        private int occurrence;
+
+        /**
+         * Runs the program on the range in the mode passed as an argument.
+         *
+         * @param input The input
+         * @param start The index to start at
+         * @param limit The index before which the threads are started
+         * @param end   The end index of the range
+         * @param mode  The mode
+         * @param slots The slots to store the match and its groups, or {@code null}
+         * @return {@code true} if a match is found, otherwise {@code false}
+         */
+        boolean run(CharSequence input, int start, int limit, int end, int mode, int[] slots) {
+
+            final boolean any = slots == null && mode != ENTIRE;
+            boolean found = false;
+            int position = start;
+
+            this.occurrence = -1;
+
+            this.current.clear();
+            this.next.clear();
+
+            while (position <= end) {
+                if (!found && (position == start || mode == FIND) && position < limit) {
+                    if (this.current.isEmpty() && mode == FIND && !nullable) {
+                        position = this.skip(input, position, Math.min(end, limit), end);
+                    }
+
+                    if (position < limit) {
+                        Arrays.fill(this.working, -1);
+                        this.working[0] = position;
+                        this.addThread(this.current, this.currentSlots, program.starts[0], position);
+                    }
+                }
+
+                if (this.current.isEmpty()) {
+                    break;
+                }
+
+                final int codePoint = position < end ? codePointAt(input, position, end) : -1;
+                final int nextPosition = position + (codePoint < 0 ? 1 : Character.charCount(codePoint));
+
+                for (int i = 0; i < this.current.size(); i++) {
+                    final int pc = this.current.get(i);
+
+                    if (program.opcodes[pc] == Program.MATCH) {
+                        if (mode == ENTIRE && position != end) {
+                            continue;
+                        }
+
+                        System.arraycopy(this.currentSlots, pc * slotCount, this.matched, 0, slotCount);
+                        this.matched[1] = position;
+                        found = true;
+
+                        if (any) {
+                            return true;
+                        }
+
+                        break;
+                    } else if (program.opcodes[pc] == Program.CHARACTER && codePoint >= 0
+                            && program.characterSets[pc].contains(codePoint)) {
+                        System.arraycopy(this.currentSlots, pc * slotCount, this.working, 0, slotCount);
+                        this.addThread(this.next, this.nextSlots, program.next[pc], nextPosition);
+                    }
+                }
+
+                if (codePoint < 0) {
+                    break;
+                }
+
+                this.swap();
+                position = nextPosition;
+            }
+
+            if (found && slots != null) {
+                System.arraycopy(this.matched, 0, slots, 0, Math.min(slots.length, slotCount));
+            }
+
+            return found;
+        }
+
+        /**
+         * Returns the first position at or after the position passed as an argument
+         * from which the pattern can start, or the bound. The prefilter, if any, is
+         * consulted first to jump towards the next occurrence of its literal.
+         *
+         * @param input    The input
+         * @param position The position
+         * @param bound    The index to stop the skip at
+         * @param end      The end index of the range
+         * @return The position to resume the search
+         */
+        private int skip(CharSequence input, int position, int bound, int end) {
+
+            int index = position;
+
+            if (prefilter != null) {
+                if (this.occurrence < index) {
+                    this.occurrence = prefilter.indexOf(input, index, end);
+
+                    if (this.occurrence < 0) {
+                        return bound;
+                    }
+                }
+
+                index = Math.min(bound, prefilter.candidateStart(input, index, this.occurrence));
+            }
+
+            while (index < bound) {
+                final int codePoint = codePointAt(input, index, bound);
+
+                if (codePoint < 0 || firstSet.contains(codePoint)) {
+                    return index;
+                }
+
+                index += Character.charCount(codePoint);
+            }
+
+            return bound;
+        }
+
+        /**
+         * Adds the thread with the working slots and the threads reachable from it
+         * without consuming a code point to the list, skipping those already in the
+         * list.
+         *
+         * @param list     The thread list
+         * @param slots    The slots of the threads in {@code list}
+         * @param pc       The program counter
+         * @param position The position of the threads
+         */
+        private void addThread(SparseSet list, int[] slots, int pc, int position) {
+
+            int depth = 0;
+            this.stack[depth++] = pc;
+
+            while (depth > 0) {
+                final int current = this.stack[--depth];
+
+                if (current < 0) {
+                    this.working[-1 - current] = this.stackValues[depth];
+                    continue;
+                } else if (list.contains(current)) {
+                    continue;
+                }
+
+                list.add(current);
+
+                switch (program.opcodes[current]) {
+                    case Program.SPLIT:
+                        this.stack[depth++] = program.alternative[current];
+                        this.stack[depth++] = program.next[current];
+                        break;
+
+                    case Program.SAVE:
+                        final int slot = program.arguments[current];
+                        this.stackValues[depth] = this.working[slot];
+                        this.stack[depth++] = -1 - slot;
+                        this.working[slot] = position;
+                        this.stack[depth++] = program.next[current];
+                        break;
+
+                    default:
+                        System.arraycopy(this.working, 0, slots, current * slotCount, slotCount);
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Swaps the thread lists.
+         */
+        private void swap() {
+
+            final SparseSet list = this.current;
+            final int[] slots = this.currentSlots;
+
+            this.current = this.next;
+            this.currentSlots = this.nextSlots;
+            this.next = list;
+            this.nextSlots = slots;
+            this.next.clear();
+        }
+
+        /**
+         * Returns the code point at the index, or {@code -1} if the surrogate pair at
+         * the index crosses the end of the range.
+         *
+         * @param input The input
+         * @param index The index
+         * @param end   The end index of the range
+         * @return The code point, or {@code -1}
+         */
+        private int codePointAt(CharSequence input, int index, int end) {
+            final int codePoint = Character.codePointAt(input, index);
+            return index + Character.charCount(codePoint) <= end ? codePoint : -1;
+        }
+    }
+}
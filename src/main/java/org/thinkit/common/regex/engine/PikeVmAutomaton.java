@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import lombok.NonNull;
+
+/**
+ * The {@link Automaton} that simulates the nondeterministic automaton of the
+ * pattern by the Pike VM, which also determines the capturing groups of the
+ * match.
+ * <p>
+ * The cost of each code point of the input is bounded by the size of the
+ * compiled pattern regardless of the input, so no pattern accepted by
+ * {@link RegexParser} and {@link ProgramCompiler} can take exponential time.
+ * The slots after the first two receive the start and end indexes of the
+ * groups, or {@code -1} for the groups that did not participate in the match.
+ * The matches are those of {@link java.util.regex.Matcher} , and so are the
+ * groups except where {@link java.util.regex.Pattern} keeps a group captured
+ * by an attempt it abandoned inside a repetition, which is not on the path of
+ * the match and thus not reported by this automaton.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class PikeVmAutomaton extends Automaton {
+
+    /**
+     * The Pike VM
+     */
+    private final PikeVm pikeVm;
+
+    /**
+     * The characters after which the matches can be split
+     */
+    private final CodePointSet splitSet;
+
+    /**
+     * Constructor
+     *
+     * @param root The root node of the pattern
+     */
+    private PikeVmAutomaton(RegexNode root) {
+
+        final Program program = ProgramCompiler.compile(root);
+
+        this.pikeVm = new PikeVm(program, Prefilter.of(root));
+        this.splitSet = program.getSplitSet(0);
+    }
+
+    /**
+     * Compiles the regex pattern into the new instance of
+     * {@link PikeVmAutomaton} .
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @return The new instance of {@link PikeVmAutomaton}
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If the pattern cannot be run by an
+     *                                        automaton
+     */
+    public static PikeVmAutomaton compile(@NonNull String regexPattern, int flags) {
+        return new PikeVmAutomaton(RegexParser.parse(regexPattern, flags));
+    }
+
+    /**
+     * Returns the number of capturing groups of the pattern.
+     *
+     * @return The number of capturing groups
+     */
+    public int getGroupCount() {
+        return this.pikeVm.getSlotCount() / 2 - 1;
+    }
+
+    @Override
+    public boolean isCapturing() {
+        return true;
+    }
+
+    @Override
+    public boolean matches(CharSequence input, int start, int end, int[] slots) {
+        return this.pikeVm.run(input, start, end, PikeVm.ENTIRE, slots);
+    }
+
+    @Override
+    public boolean lookingAt(CharSequence input, int start, int end, int[] slots) {
+        return this.pikeVm.run(input, start, end, PikeVm.PREFIX, slots);
+    }
+
+    @Override
+    public boolean find(CharSequence input, int from, int end, int[] slots) {
+        return this.pikeVm.run(input, from, end, PikeVm.FIND, slots);
+    }
+
+    @Override
+    public boolean find(CharSequence input, int from, int limit, int end, int[] slots) {
+        return this.pikeVm.run(input, from, limit, end, PikeVm.FIND, slots);
+    }
+
+    @Override
+    CodePointSet splitSet() {
+        return this.splitSet;
+    }
+}
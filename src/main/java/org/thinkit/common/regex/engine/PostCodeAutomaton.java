@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The {@link HandCodedAutomaton} of {@link RegexPattern#POST_CODE_JP} , which
+ * matches the postal codes of Japan such as {@code 123-4567}.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class PostCodeAutomaton extends FixedLengthAutomaton {
+
+    /**
+     * Default constructor
+     */
+    PostCodeAutomaton() {
+        super(8);
+    }
+
+    @Override
+    boolean accepts(CharSequence input, int index) {
+        return isDigits(input, index, index + 3) && input.charAt(index + 3) == '-'
+                && isDigits(input, index + 4, index + 8);
+    }
+}
@@ -0,0 +1,585 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The prefilter of the searches of a pattern, which skips the parts of the
+ * input that cannot contain a match by searching the input for a literal that
+ * every match of the pattern contains.
+ * <p>
+ * The literal is extracted from the pattern when it is compiled, such as
+ * {@code "://"} from {@code (http|https)://...} or {@code "@"} from an email
+ * address pattern. The automata consult the prefilter whenever they are back in
+ * their start state, where no match is in progress. If the literal does not
+ * occur in the rest of the input, the search fails at once, and if the distance
+ * from the start of a match to the literal is bounded, the search jumps to the
+ * first index within that distance of the next occurrence. Since the search
+ * never goes back, it stays linear to the length of the input. The literal is
+ * searched by {@link String#indexOf(String, int)} , which is an intrinsic of
+ * the JVM, or by the Boyer-Moore-Horspool algorithm for the other character
+ * sequences.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString
+final class Prefilter {
+
+    /**
+     * The maximum length of a literal, beyond which a longer literal rejects no
+     * more of the input
+     */
+    private static final int MAXIMUM_LITERAL_LENGTH = 64;
+
+    /**
+     * The literal that every match contains
+     */
+    @Getter
+    private final String literal;
+
+    /**
+     * The maximum distance from the start of a match to the literal, or
+     * {@link RegexNode#UNBOUNDED}
+     */
+    @Getter
+    private final int maximumOffset;
+
+    /**
+     * The distances the Boyer-Moore-Horspool search shifts by, indexed by the low
+     * byte of the character at the end of the window
+     */
+    @ToString.Exclude
+    private final int[] shifts;
+
+    /**
+     * The distance from the start of the literal to the end of every match, or
+     * {@link RegexNode#UNBOUNDED} if the matches do not end at a fixed distance
+     * after the only occurrence of the literal they contain
+     */
+    @Getter
+    private final int suffixLength;
+
+    /**
+     * Constructor
+     *
+     * @param literal       The literal that every match contains
+     * @param maximumOffset The maximum distance from the start of a match to the
+     *                      literal, or {@link RegexNode#UNBOUNDED}
+     * @param suffixLength  The distance from the start of the literal to the end
+     *                      of every match, or {@link RegexNode#UNBOUNDED}
+     */
+    private Prefilter(String literal, int maximumOffset, int suffixLength) {
+
+        this.literal = literal;
+        this.maximumOffset = maximumOffset;
+        this.suffixLength = suffixLength;
+        this.shifts = new int[256];
+
+        final int last = literal.length() - 1;
+
+        for (int i = 0; i < this.shifts.length; i++) {
+            this.shifts[i] = literal.length();
+        }
+
+        for (int i = 0; i < last; i++) {
+            this.shifts[literal.charAt(i) & 0xff] = last - i;
+        }
+    }
+
+    /**
+     * Returns the prefilter of the pattern, or {@code null} if the pattern has no
+     * literal that every match contains.
+     *
+     * @param root The root node of the pattern
+     * @return The prefilter, or {@code null}
+     *
+     * @exception NullPointerException If {@code null} is passed as an argument
+     */
+    static Prefilter of(@NonNull RegexNode root) {
+
+        final Factor factor = analyze(root);
+
+        if (factor.required == null || factor.offset == RegexNode.UNBOUNDED) {
+            final Prefilter suffix = suffixOf(root);
+
+            if (suffix != null) {
+                return suffix;
+            }
+        }
+
+        return factor.required == null || factor.required.isEmpty() ? null
+                : new Prefilter(factor.required, factor.offset, RegexNode.UNBOUNDED);
+    }
+
+    /**
+     * Returns the prefilter of the literal that ends the pattern but for a tail
+     * of a fixed length, such as {@code "."} of {@code [a-z]+\.[x|X][m|M][l|L]}
+     * , or {@code null} if the pattern has no such literal. The first character
+     * of the literal occurs nowhere else in the pattern, so every match contains
+     * the literal only once and ends right after the tail that follows it.
+     *
+     * @param root The root node of the pattern
+     * @return The prefilter of the suffix, or {@code null}
+     */
+    private static Prefilter suffixOf(RegexNode root) {
+
+        RegexNode node = root;
+
+        while (node.getType() == RegexNode.Type.CAPTURING_GROUP) {
+            node = node.getChild();
+        }
+
+        final List<RegexNode> children = node.getType() == RegexNode.Type.CONCATENATION ? node.getChildren()
+                : List.of(node);
+        int last = children.size() - 1;
+        int tailLength = 0;
+
+        for (; last >= 0; last--) {
+            final Factor factor = analyze(children.get(last));
+
+            if (factor.exact != null && !factor.exact.isEmpty()) {
+                break;
+            } else if (factor.minimumLength != factor.maximumLength || factor.maximumLength == RegexNode.UNBOUNDED) {
+                return null;
+            }
+
+            tailLength += factor.minimumLength;
+        }
+
+        final StringBuilder literal = new StringBuilder();
+        int first = last;
+
+        for (; first >= 0; first--) {
+            final String exact = analyze(children.get(first)).exact;
+
+            if (exact == null) {
+                break;
+            }
+
+            literal.insert(0, exact);
+        }
+
+        if (literal.length() == 0 || literal.length() > MAXIMUM_LITERAL_LENGTH
+                || Character.isSurrogate(literal.charAt(0)) || literal.indexOf(literal.substring(0, 1), 1) >= 0) {
+            return null;
+        }
+
+        for (int i = 0; i < children.size(); i++) {
+            if ((i <= first || i > last) && contains(children.get(i), literal.charAt(0))) {
+                return null;
+            }
+        }
+
+        return new Prefilter(literal.toString(), RegexNode.UNBOUNDED, literal.length() + tailLength);
+    }
+
+    /**
+     * Tests if the node can match the character.
+     *
+     * @param node      The node
+     * @param character The character
+     * @return {@code true} if the node can match the character, or the node is a
+     *         back reference, otherwise {@code false}
+     */
+    private static boolean contains(RegexNode node, char character) {
+
+        switch (node.getType()) {
+            case CHARACTER_SET:
+                return node.getCharacterSet().contains(character);
+
+            case BACK_REFERENCE:
+                return true;
+
+            default:
+                for (RegexNode child : node.getChildren()) {
+                    if (contains(child, character)) {
+                        return true;
+                    }
+                }
+
+                return false;
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of the literal that starts at or
+     * after the index passed as an argument and ends at or before the end of the
+     * range.
+     *
+     * @param input The input
+     * @param from  The index to start the search at
+     * @param end   The end index of the range
+     * @return The index of the occurrence, or {@code -1} if there is no
+     *         occurrence
+     */
+    int indexOf(CharSequence input, int from, int end) {
+
+        final int length = this.literal.length();
+
+        if (input instanceof String && end == input.length()) {
+            final int index = ((String) input).indexOf(this.literal, from);
+            return index <= end - length ? index : -1;
+        }
+
+        final int last = length - 1;
+        final char lastCharacter = this.literal.charAt(last);
+        int index = Math.max(from, 0);
+
+        while (index <= end - length) {
+            final char character = input.charAt(index + last);
+
+            if (character == lastCharacter && this.startsAt(input, index)) {
+                return index;
+            }
+
+            index += this.shifts[character & 0xff];
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the first index at or after the position at which a match can
+     * start, given the first occurrence of the literal at or after the position.
+     * No match starts before the index because every match contains the literal
+     * within {@link #maximumOffset} characters of its start.
+     *
+     * @param input      The input
+     * @param position   The position
+     * @param occurrence The index of the first occurrence of the literal at or
+     *                   after the position
+     * @return The index at which a match can start
+     */
+    int candidateStart(CharSequence input, int position, int occurrence) {
+
+        if (this.maximumOffset == RegexNode.UNBOUNDED || occurrence - this.maximumOffset <= position) {
+            return position;
+        }
+
+        final int start = occurrence - this.maximumOffset;
+
+        return Automaton.splitsSurrogatePair(input, start) ? start - 1 : start;
+    }
+
+    /**
+     * Tests if the literal occurs at the index of the input.
+     *
+     * @param input The input
+     * @param index The index
+     * @return {@code true} if the literal occurs at the index, otherwise
+     *         {@code false}
+     */
+    private boolean startsAt(CharSequence input, int index) {
+
+        for (int i = 0; i < this.literal.length(); i++) {
+            if (input.charAt(index + i) != this.literal.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Analyzes the node for the literals its matches contain.
+     *
+     * @param node The node
+     * @return The factor of the node
+     */
+    private static Factor analyze(RegexNode node) {
+
+        switch (node.getType()) {
+            case EMPTY:
+                return new Factor("", 0, 0, "", 0);
+
+            case CHARACTER_SET:
+                return analyzeCharacterSet(node.getCharacterSet());
+
+            case CONCATENATION:
+                return analyzeConcatenation(node);
+
+            case ALTERNATION:
+                return analyzeAlternation(node);
+
+            case REPETITION:
+                return analyzeRepetition(node);
+
+            case CAPTURING_GROUP:
+            case ATOMIC_GROUP:
+                return analyze(node.getChild());
+
+            case LOOKAROUND:
+            case ANCHOR:
+                return new Factor(null, 0, 0, null, 0);
+
+            default:
+                return new Factor(null, 0, RegexNode.UNBOUNDED, null, 0);
+        }
+    }
+
+    /**
+     * Analyzes the character set, which is a literal if it has a single code
+     * point.
+     *
+     * @param characterSet The character set
+     * @return The factor of the character set
+     */
+    private static Factor analyzeCharacterSet(CodePointSet characterSet) {
+
+        if (characterSet.isEmpty()) {
+            return new Factor(null, 0, 0, null, 0);
+        } else if (characterSet.size() == 1) {
+            final String literal = new String(Character.toChars(characterSet.getRangeStart(0)));
+            return new Factor(literal, literal.length(), literal.length(), literal, 0);
+        }
+
+        final int first = characterSet.getRangeStart(0);
+        final int last = characterSet.getRangeEnd(characterSet.getRangeCount() - 1);
+
+        return new Factor(null, Character.charCount(first), Character.charCount(last), null, 0);
+    }
+
+    /**
+     * Analyzes the concatenation, whose adjacent literals are joined into longer
+     * literals.
+     *
+     * @param node The concatenation
+     * @return The factor of the concatenation
+     */
+    private static Factor analyzeConcatenation(RegexNode node) {
+
+        final StringBuilder exact = new StringBuilder();
+        final StringBuilder run = new StringBuilder();
+        boolean allExact = true;
+        int minimumLength = 0;
+        int maximumLength = 0;
+        int runOffset = 0;
+        String required = null;
+        int offset = 0;
+
+        for (RegexNode child : node.getChildren()) {
+            final Factor factor = analyze(child);
+
+            if (factor.exact != null) {
+                if (run.length() == 0) {
+                    runOffset = maximumLength;
+                }
+
+                run.append(factor.exact);
+
+                if (allExact) {
+                    exact.append(factor.exact);
+                }
+            } else {
+                allExact = false;
+
+                if (isBetter(run.toString(), runOffset, required, offset)) {
+                    required = run.toString();
+                    offset = runOffset;
+                }
+
+                run.setLength(0);
+
+                if (isBetter(factor.required, add(maximumLength, factor.offset), required, offset)) {
+                    required = factor.required;
+                    offset = add(maximumLength, factor.offset);
+                }
+            }
+
+            minimumLength = add(minimumLength, factor.minimumLength);
+            maximumLength = add(maximumLength, factor.maximumLength);
+        }
+
+        if (isBetter(run.toString(), runOffset, required, offset)) {
+            required = run.toString();
+            offset = runOffset;
+        }
+
+        return new Factor(allExact ? exact.toString() : null, minimumLength, maximumLength, required, offset);
+    }
+
+    /**
+     * Analyzes the alternation, which is a literal only if all alternatives are
+     * the same literal.
+     *
+     * @param node The alternation
+     * @return The factor of the alternation
+     */
+    private static Factor analyzeAlternation(RegexNode node) {
+
+        final Factor first = analyze(node.getChildren().get(0));
+        String exact = first.exact;
+        String required = first.required;
+        int minimumLength = first.minimumLength;
+        int maximumLength = first.maximumLength;
+
+        for (RegexNode child : node.getChildren().subList(1, node.getChildren().size())) {
+            final Factor factor = analyze(child);
+
+            if (exact != null && !exact.equals(factor.exact)) {
+                exact = null;
+            }
+
+            if (required != null && (!required.equals(factor.required) || factor.offset != first.offset)) {
+                required = null;
+            }
+
+            minimumLength = Math.min(minimumLength, factor.minimumLength);
+            maximumLength = maximumLength == RegexNode.UNBOUNDED || factor.maximumLength == RegexNode.UNBOUNDED
+                    ? RegexNode.UNBOUNDED
+                    : Math.max(maximumLength, factor.maximumLength);
+        }
+
+        return new Factor(exact, minimumLength, maximumLength, required, first.offset);
+    }
+
+    /**
+     * Analyzes the repetition, whose matches contain the literals of the first
+     * repetition if it repeats at least once.
+     *
+     * @param node The repetition
+     * @return The factor of the repetition
+     */
+    private static Factor analyzeRepetition(RegexNode node) {
+
+        final Factor child = analyze(node.getChild());
+        final int minimum = node.getMinimum();
+        final int maximum = node.getMaximum();
+        final int minimumLength = multiply(child.minimumLength, minimum);
+        final int maximumLength = maximum == RegexNode.UNBOUNDED ? RegexNode.UNBOUNDED
+                : multiply(child.maximumLength, maximum);
+
+        if (minimum == 0) {
+            return new Factor(maximum == 0 ? "" : null, minimumLength, maximumLength, null, 0);
+        } else if (minimum == maximum && child.exact != null
+                && (long) child.exact.length() * minimum <= MAXIMUM_LITERAL_LENGTH) {
+            final String exact = child.exact.repeat(minimum);
+            return new Factor(exact, exact.length(), exact.length(), exact, 0);
+        }
+
+        return new Factor(null, minimumLength, maximumLength, child.required, child.offset);
+    }
+
+    /**
+     * Tests if the literal is a better choice than the current literal for the
+     * prefilter, preferring the longer literal and then the literal at the
+     * smaller distance from the start of a match.
+     *
+     * @param literal        The literal, or {@code null}
+     * @param offset         The maximum distance from the start of a match to the
+     *                       literal
+     * @param currentLiteral The current literal, or {@code null}
+     * @param currentOffset  The maximum distance from the start of a match to the
+     *                       current literal
+     * @return {@code true} if the literal is better, otherwise {@code false}
+     */
+    private static boolean isBetter(String literal, int offset, String currentLiteral, int currentOffset) {
+
+        if (literal == null || literal.isEmpty()) {
+            return false;
+        } else if (currentLiteral == null) {
+            return true;
+        }
+
+        final int length = Math.min(literal.length(), MAXIMUM_LITERAL_LENGTH);
+        final int currentLength = Math.min(currentLiteral.length(), MAXIMUM_LITERAL_LENGTH);
+
+        if (length != currentLength) {
+            return length > currentLength;
+        }
+
+        return offset != RegexNode.UNBOUNDED
+                && (currentOffset == RegexNode.UNBOUNDED || offset < currentOffset);
+    }
+
+    /**
+     * Returns the sum of the lengths, either of which may be unbounded.
+     *
+     * @param first  The first length
+     * @param second The second length
+     * @return The sum, or {@link RegexNode#UNBOUNDED}
+     */
+    private static int add(int first, int second) {
+
+        if (first == RegexNode.UNBOUNDED || second == RegexNode.UNBOUNDED) {
+            return RegexNode.UNBOUNDED;
+        }
+
+        final long sum = (long) first + second;
+
+        return sum > Integer.MAX_VALUE ? RegexNode.UNBOUNDED : (int) sum;
+    }
+
+    /**
+     * Returns the product of the length and the count, where the length may be
+     * unbounded.
+     *
+     * @param length The length
+     * @param count  The count
+     * @return The product, or {@link RegexNode#UNBOUNDED}
+     */
+    private static int multiply(int length, int count) {
+
+        if (length == RegexNode.UNBOUNDED) {
+            return RegexNode.UNBOUNDED;
+        }
+
+        final long product = (long) length * count;
+
+        return product > Integer.MAX_VALUE ? RegexNode.UNBOUNDED : (int) product;
+    }
+
+    /**
+     * The result of the analysis of a node.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class Factor {
+
+        /**
+         * The only string the node matches, or {@code null}
+         */
+        private final String exact;
+
+        /**
+         * The minimum length of the matches
+         */
+        private final int minimumLength;
+
+        /**
+         * The maximum length of the matches, or {@link RegexNode#UNBOUNDED}
+         */
+        private final int maximumLength;
+
+        /**
+         * The literal that every match of the node contains, or {@code null}
+         */
+        private final String required;
+
+        /**
+         * The maximum distance from the start of a match of the node to the
+         * literal, or {@link RegexNode#UNBOUNDED}
+         */
+        private final int offset;
+    }
+}
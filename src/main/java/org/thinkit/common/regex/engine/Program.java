@@ -0,0 +1,349 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import lombok.Getter;
+
+/**
+ * The Thompson NFA compiled from one or more regular expressions by
+ * {@link ProgramCompiler} .
+ * <p>
+ * The instructions are stored in parallel arrays indexed by the program
+ * counter. {@link #SPLIT} prefers {@link #next} over {@link #alternative} ,
+ * which gives the leftmost-first priority of {@link java.util.regex.Pattern}
+ * to the engines simulating the program.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class Program {
+
+    /**
+     * Consumes a code point contained in the character set
+     */
+    static final int CHARACTER = 0;
+
+    /**
+     * Continues at both {@link #next} and {@link #alternative} , preferring the
+     * former
+     */
+    static final int SPLIT = 1;
+
+    /**
+     * Records the current position into the capture slot
+     */
+    static final int SAVE = 2;
+
+    /**
+     * Reports the match of the pattern
+     */
+    static final int MATCH = 3;
+
+    /**
+     * The opcodes
+     */
+    final int[] opcodes;
+
+    /**
+     * The next program counters
+     */
+    final int[] next;
+
+    /**
+     * The alternative program counters of {@link #SPLIT}
+     */
+    final int[] alternative;
+
+    /**
+     * The capture slot of {@link #SAVE} , or the pattern index of {@link #MATCH}
+     */
+    final int[] arguments;
+
+    /**
+     * The character sets of {@link #CHARACTER}
+     */
+    final CodePointSet[] characterSets;
+
+    /**
+     * The index of the pattern each instruction belongs to
+     */
+    final int[] owners;
+
+    /**
+     * The start program counters of the patterns
+     */
+    final int[] starts;
+
+    /**
+     * The numbers of capturing groups of the patterns
+     */
+    final int[] groupCounts;
+
+    /**
+     * The number of instructions
+     */
+    @Getter
+    private final int size;
+
+    /**
+     * Constructor
+     *
+     * @param opcodes       The opcodes
+     * @param next          The next program counters
+     * @param alternative   The alternative program counters
+     * @param arguments     The arguments
+     * @param characterSets The character sets
+     * @param owners        The owner pattern indexes
+     * @param starts        The start program counters
+     * @param groupCounts   The numbers of capturing groups
+     * @param size          The number of instructions
+     */
+    Program(int[] opcodes, int[] next, int[] alternative, int[] arguments, CodePointSet[] characterSets,
+            int[] owners, int[] starts, int[] groupCounts, int size) {
+        this.opcodes = opcodes;
+        this.next = next;
+        this.alternative = alternative;
+        this.arguments = arguments;
+        this.characterSets = characterSets;
+        this.owners = owners;
+        this.starts = starts;
+        this.groupCounts = groupCounts;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of patterns compiled into this program.
+     *
+     * @return The number of patterns
+     */
+    public int getPatternCount() {
+        return this.starts.length;
+    }
+
+    /**
+     * Returns the number of capturing groups of the pattern.
+     *
+     * @param pattern The pattern index
+     * @return The number of capturing groups
+     */
+    public int getGroupCount(int pattern) {
+        return this.groupCounts[pattern];
+    }
+
+    /**
+     * Returns the union of the character sets that can be consumed first by the
+     * pattern, which is empty if the pattern can only match the empty string.
+     *
+     * @param pattern The pattern index
+     * @return The first character set
+     */
+    public CodePointSet getFirstSet(int pattern) {
+
+        CodePointSet firstSet = CodePointSet.EMPTY;
+        final SparseSet visited = new SparseSet(this.size);
+        final int[] stack = new int[this.size];
+        int depth = 0;
+        stack[depth++] = this.starts[pattern];
+
+        while (depth > 0) {
+            final int pc = stack[--depth];
+
+            if (visited.contains(pc)) {
+                continue;
+            }
+
+            visited.add(pc);
+
+            switch (this.opcodes[pc]) {
+                case CHARACTER:
+                    firstSet = firstSet.union(this.characterSets[pc]);
+                    break;
+
+                case SPLIT:
+                    stack[depth++] = this.alternative[pc];
+                    stack[depth++] = this.next[pc];
+                    break;
+
+                case SAVE:
+                    stack[depth++] = this.next[pc];
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return firstSet;
+    }
+
+    /**
+     * Tests if the pattern can match the empty string.
+     *
+     * @param pattern The pattern index
+     * @return {@code true} if the pattern can match the empty string, otherwise
+     *         {@code false}
+     */
+    public boolean isNullable(int pattern) {
+
+        final SparseSet visited = new SparseSet(this.size);
+        final int[] stack = new int[this.size];
+        int depth = 0;
+        stack[depth++] = this.starts[pattern];
+
+        while (depth > 0) {
+            final int pc = stack[--depth];
+
+            if (visited.contains(pc)) {
+                continue;
+            }
+
+            visited.add(pc);
+
+            switch (this.opcodes[pc]) {
+                case MATCH:
+                    return true;
+
+                case SPLIT:
+                    stack[depth++] = this.alternative[pc];
+                    stack[depth++] = this.next[pc];
+                    break;
+
+                case SAVE:
+                    stack[depth++] = this.next[pc];
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the characters after which no match of the pattern crosses the
+     * index that follows them, provided that no match starts at that index. Every
+     * thread still running after such a character is one that a match starting
+     * at that index would also run, so a match continuing through the index
+     * would also be a match starting at it. The set is empty if the pattern can
+     * match the empty string.
+     *
+     * @param pattern The pattern index
+     * @return The set of the characters
+     */
+    public CodePointSet getSplitSet(int pattern) {
+
+        if (this.isNullable(pattern)) {
+            return CodePointSet.EMPTY;
+        }
+
+        final SparseSet starting = this.closure(this.starts[pattern]);
+        final int[] predecessorCounts = new int[this.size + 1];
+
+        for (int pc = 0; pc < this.size; pc++) {
+            if (this.opcodes[pc] == SPLIT) {
+                predecessorCounts[this.next[pc] + 1]++;
+                predecessorCounts[this.alternative[pc] + 1]++;
+            } else if (this.opcodes[pc] == SAVE) {
+                predecessorCounts[this.next[pc] + 1]++;
+            }
+        }
+
+        for (int pc = 0; pc < this.size; pc++) {
+            predecessorCounts[pc + 1] += predecessorCounts[pc];
+        }
+
+        final int[] predecessors = new int[predecessorCounts[this.size]];
+        final int[] filled = new int[this.size];
+
+        for (int pc = 0; pc < this.size; pc++) {
+            if (this.opcodes[pc] == SPLIT) {
+                predecessors[predecessorCounts[this.next[pc]] + filled[this.next[pc]]++] = pc;
+                predecessors[predecessorCounts[this.alternative[pc]] + filled[this.alternative[pc]]++] = pc;
+            } else if (this.opcodes[pc] == SAVE) {
+                predecessors[predecessorCounts[this.next[pc]] + filled[this.next[pc]]++] = pc;
+            }
+        }
+
+        final SparseSet continuing = new SparseSet(this.size);
+
+        for (int pc = 0; pc < this.size; pc++) {
+            if (this.opcodes[pc] == CHARACTER && this.owners[pc] == pattern && !starting.contains(pc)) {
+                continuing.add(pc);
+            }
+        }
+
+        for (int i = 0; i < continuing.size(); i++) {
+            final int pc = continuing.get(i);
+
+            for (int j = predecessorCounts[pc]; j < predecessorCounts[pc + 1]; j++) {
+                if (!continuing.contains(predecessors[j])) {
+                    continuing.add(predecessors[j]);
+                }
+            }
+        }
+
+        CodePointSet continued = CodePointSet.EMPTY;
+
+        for (int pc = 0; pc < this.size; pc++) {
+            if (this.opcodes[pc] == CHARACTER && this.owners[pc] == pattern && continuing.contains(this.next[pc])) {
+                continued = continued.union(this.characterSets[pc]);
+            }
+        }
+
+        return continued.complement();
+    }
+
+    /**
+     * Returns the instructions reachable from the instruction without consuming a
+     * character.
+     *
+     * @param start The program counter of the instruction
+     * @return The program counters of the reachable instructions
+     */
+    private SparseSet closure(int start) {
+
+        final SparseSet visited = new SparseSet(this.size);
+        final int[] stack = new int[this.size * 2 + 1];
+        int depth = 0;
+        stack[depth++] = start;
+
+        while (depth > 0) {
+            final int pc = stack[--depth];
+
+            if (visited.contains(pc)) {
+                continue;
+            }
+
+            visited.add(pc);
+
+            switch (this.opcodes[pc]) {
+                case SPLIT:
+                    stack[depth++] = this.alternative[pc];
+                    stack[depth++] = this.next[pc];
+                    break;
+
+                case SAVE:
+                    stack[depth++] = this.next[pc];
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return visited;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.NonNull;
+
+/**
+ * The compiler that converts trees of {@link RegexNode} into a
+ * {@link Program} .
+ * <p>
+ * Only the regular subset of the syntax is compiled. Lookarounds, back
+ * references, anchors, atomic groups and possessive quantifiers cause
+ * {@link UnsupportedPatternException} , as do the following constructs whose
+ * leftmost-first semantics cannot be reproduced exactly by an automaton:
+ * <ul>
+ * <li>repetitions of more than once whose body can match the empty string</li>
+ * <li>character sets that contain surrogate code units but not all
+ * supplementary code points, which {@link java.util.regex.Pattern} matches
+ * against single {@code char} values</li>
+ * </ul>
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class ProgramCompiler {
+
+    /**
+     * The maximum number of instructions of a program
+     */
+    static final int MAXIMUM_SIZE = 100_000;
+
+    /**
+     * The surrogate code units
+     */
+    private static final CodePointSet SURROGATES = CodePointSet.range(Character.MIN_SURROGATE,
+            Character.MAX_SURROGATE);
+
+    /**
+     * The supplementary code points
+     */
+    private static final CodePointSet SUPPLEMENTARIES = CodePointSet.range(Character.MIN_SUPPLEMENTARY_CODE_POINT,
+            Character.MAX_CODE_POINT);
+
+    /**
+     * The opcodes
+     */
+    private int[] opcodes = new int[16];
+
+    /**
+     * The next program counters
+     */
+    private int[] next = new int[16];
+
+    /**
+     * The alternative program counters
+     */
+    private int[] alternative = new int[16];
+
+    /**
+     * The arguments
+     */
+    private int[] arguments = new int[16];
+
+    /**
+     * The character sets
+     */
+    private CodePointSet[] characterSets = new CodePointSet[16];
+
+    /**
+     * The owner pattern indexes
+     */
+    private int[] owners = new int[16];
+
+    /**
+     * The number of instructions
+     */
+    private int size;
+
+    /**
+     * The index of the pattern being compiled
+     */
+    private int owner;
+
+    /**
+     * Whether to compile the reversed pattern
+     */
+    private boolean reverse;
+
+    /**
+     * Default constructor
+     */
+    private ProgramCompiler() {
+    }
+
+    /**
+     * Compiles the tree passed as an argument into a program of a single pattern.
+     *
+     * @param root The root node
+     * @return The program
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If the tree contains an unsupported
+     *                                        construct
+     */
+    public static Program compile(@NonNull RegexNode root) {
+        return compile(List.of(root));
+    }
+
+    /**
+     * Compiles the tree passed as an argument into a program matching the reversed
+     * strings of the pattern, which is run from the end of a match towards its
+     * start.
+     *
+     * @param root The root node
+     * @return The program
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If the tree contains an unsupported
+     *                                        construct
+     */
+    public static Program compileReverse(@NonNull RegexNode root) {
+        final ProgramCompiler compiler = new ProgramCompiler();
+        compiler.reverse = true;
+        return compiler.build(List.of(root));
+    }
+
+    /**
+     * Compiles the trees passed as an argument into a program of multiple
+     * patterns, where the index of each tree is the pattern index.
+     *
+     * @param roots The root nodes
+     * @return The program
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If a tree contains an unsupported
+     *                                        construct
+     */
+    public static Program compile(@NonNull List<RegexNode> roots) {
+        return new ProgramCompiler().build(roots);
+    }
+
+    /**
+     * Builds the program of the trees.
+     *
+     * @param roots The root nodes
+     * @return The program
+     */
+    private Program build(List<RegexNode> roots) {
+
+        final int[] starts = new int[roots.size()];
+        final int[] groupCounts = new int[roots.size()];
+
+        for (int i = 0; i < roots.size(); i++) {
+            this.owner = i;
+            final int match = this.emit(Program.MATCH, -1, -1, i, null);
+            starts[i] = this.compile(roots.get(i), match);
+            groupCounts[i] = RegexParser.countGroups(roots.get(i));
+        }
+
+        return new Program(Arrays.copyOf(this.opcodes, this.size), Arrays.copyOf(this.next, this.size),
+                Arrays.copyOf(this.alternative, this.size), Arrays.copyOf(this.arguments, this.size),
+                Arrays.copyOf(this.characterSets, this.size), Arrays.copyOf(this.owners, this.size),
+                starts, groupCounts, this.size);
+    }
+
+    /**
+     * Compiles the node so that it continues at the program counter passed as an
+     * argument, and returns the entry program counter of the node.
+     *
+     * @param node The node
+     * @param next The program counter to continue at after the node
+     * @return The entry program counter
+     */
+    private int compile(RegexNode node, int next) {
+        switch (node.getType()) {
+            case EMPTY:
+                return next;
+
+            case CHARACTER_SET:
+                final CodePointSet characterSet = node.getCharacterSet();
+
+                if (characterSet.overlaps(SURROGATES) && !characterSet.containsAll(SUPPLEMENTARIES)) {
+                    throw new UnsupportedPatternException("Unsupported character set with surrogates");
+                }
+
+                return this.emit(Program.CHARACTER, next, -1, 0, characterSet);
+
+            case CONCATENATION:
+                int entry = next;
+                final List<RegexNode> children = node.getChildren();
+
+                for (int i = 0; i < children.size(); i++) {
+                    entry = this.compile(children.get(this.reverse ? i : children.size() - 1 - i), entry);
+                }
+
+                return entry;
+
+            case ALTERNATION:
+                final List<RegexNode> branches = node.getChildren();
+                int alternativeEntry = this.compile(branches.get(branches.size() - 1), next);
+
+                for (int i = branches.size() - 2; i >= 0; i--) {
+                    final int branchEntry = this.compile(branches.get(i), next);
+                    alternativeEntry = this.emit(Program.SPLIT, branchEntry, alternativeEntry, 0, null);
+                }
+
+                return alternativeEntry;
+
+            case REPETITION:
+                return this.compileRepetition(node, next);
+
+            case CAPTURING_GROUP:
+                final int end = this.emit(Program.SAVE, next, -1, node.getIndex() * 2 + 1, null);
+                final int body = this.compile(node.getChild(), end);
+                return this.emit(Program.SAVE, body, -1, node.getIndex() * 2, null);
+
+            default:
+                throw new UnsupportedPatternException("Unsupported construct: " + node.getType());
+        }
+    }
+
+    /**
+     * Compiles the repetition node by expanding the counted part.
+     *
+     * @param node The repetition node
+     * @param next The program counter to continue at after the node
+     * @return The entry program counter
+     */
+    private int compileRepetition(RegexNode node, int next) {
+
+        final RegexNode child = node.getChild();
+        final boolean greedy = node.getKind() == RegexNode.Kind.GREEDY;
+
+        if (node.getKind() == RegexNode.Kind.POSSESSIVE) {
+            throw new UnsupportedPatternException("Unsupported possessive quantifier");
+        } else if (node.getMaximum() != 0 && node.getMaximum() != 1 && child.isNullable()) {
+            throw new UnsupportedPatternException("Unsupported repetition of nullable expression");
+        }
+
+        int entry;
+
+        if (node.getMaximum() == RegexNode.UNBOUNDED) {
+            entry = this.emit(Program.SPLIT, -1, -1, 0, null);
+            final int body = this.compile(child, entry);
+            this.next[entry] = greedy ? body : next;
+            this.alternative[entry] = greedy ? next : body;
+        } else {
+            entry = next;
+
+            for (int i = node.getMinimum(); i < node.getMaximum(); i++) {
+                final int body = this.compile(child, entry);
+                entry = greedy ? this.emit(Program.SPLIT, body, next, 0, null)
+                        : this.emit(Program.SPLIT, next, body, 0, null);
+            }
+        }
+
+        for (int i = 0; i < node.getMinimum(); i++) {
+            entry = this.compile(child, entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Emits the instruction and returns its program counter.
+     *
+     * @param opcode       The opcode
+     * @param next         The next program counter
+     * @param alternative  The alternative program counter
+     * @param argument     The argument
+     * @param characterSet The character set
+     * @return The program counter
+     */
+    private int emit(int opcode, int next, int alternative, int argument, CodePointSet characterSet) {
+
+        if (this.size == MAXIMUM_SIZE) {
+            throw new UnsupportedPatternException("The program exceeds " + MAXIMUM_SIZE + " instructions");
+        } else if (this.size == this.opcodes.length) {
+            final int capacity = this.size * 2;
+            this.opcodes = Arrays.copyOf(this.opcodes, capacity);
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.alternative = Arrays.copyOf(this.alternative, capacity);
+            this.arguments = Arrays.copyOf(this.arguments, capacity);
+            this.characterSets = Arrays.copyOf(this.characterSets, capacity);
+            this.owners = Arrays.copyOf(this.owners, capacity);
+        }
+
+        this.opcodes[this.size] = opcode;
+        this.next[this.size] = next;
+        this.alternative[this.size] = alternative;
+        this.arguments[this.size] = argument;
+        this.characterSets[this.size] = characterSet;
+        this.owners[this.size] = this.owner;
+
+        return this.size++;
+    }
+}
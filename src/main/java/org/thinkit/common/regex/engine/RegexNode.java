@@ -0,0 +1,347 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The node of the abstract syntax tree of a regular expression parsed by
+ * {@link RegexParser} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RegexNode {
+
+    /**
+     * The value of {@link #getMaximum()} for unbounded repetitions
+     */
+    public static final int UNBOUNDED = -1;
+
+    /**
+     * The type of the node.
+     */
+    public enum Type {
+
+        /**
+         * Matches the empty string
+         */
+        EMPTY,
+
+        /**
+         * Matches a single code point contained in {@link RegexNode#getCharacterSet()}
+         */
+        CHARACTER_SET,
+
+        /**
+         * Matches the children in order
+         */
+        CONCATENATION,
+
+        /**
+         * Matches one of the children, preferring the former
+         */
+        ALTERNATION,
+
+        /**
+         * Matches the only child repeatedly
+         */
+        REPETITION,
+
+        /**
+         * Captures the match of the only child
+         */
+        CAPTURING_GROUP,
+
+        /**
+         * Matches the only child without backtracking into it
+         */
+        ATOMIC_GROUP,
+
+        /**
+         * Asserts that the only child matches or does not match around the current
+         * position
+         */
+        LOOKAROUND,
+
+        /**
+         * Matches the text captured by a group
+         */
+        BACK_REFERENCE,
+
+        /**
+         * Asserts a position such as {@code ^} , {@code $} or {@code \b}
+         */
+        ANCHOR
+    }
+
+    /**
+     * The type
+     */
+    @Getter
+    private final Type type;
+
+    /**
+     * The children
+     */
+    @Getter
+    private final List<RegexNode> children;
+
+    /**
+     * The character set of {@link Type#CHARACTER_SET}
+     */
+    @Getter
+    private final CodePointSet characterSet;
+
+    /**
+     * The minimum count of {@link Type#REPETITION}
+     */
+    @Getter
+    private final int minimum;
+
+    /**
+     * The maximum count of {@link Type#REPETITION} , or {@link #UNBOUNDED}
+     */
+    @Getter
+    private final int maximum;
+
+    /**
+     * The kind of {@link Type#REPETITION} , {@link Type#LOOKAROUND} or
+     * {@link Type#ANCHOR}
+     */
+    @Getter
+    private final Kind kind;
+
+    /**
+     * The group index of {@link Type#CAPTURING_GROUP} or
+     * {@link Type#BACK_REFERENCE} , or the anchor character of
+     * {@link Type#ANCHOR}
+     */
+    @Getter
+    private final int index;
+
+    /**
+     * The kind of repetitions, lookarounds and anchors.
+     */
+    public enum Kind {
+
+        /**
+         * No kind
+         */
+        NONE,
+
+        /**
+         * The greedy repetition
+         */
+        GREEDY,
+
+        /**
+         * The reluctant repetition
+         */
+        RELUCTANT,
+
+        /**
+         * The possessive repetition
+         */
+        POSSESSIVE,
+
+        /**
+         * The positive lookahead
+         */
+        POSITIVE_LOOKAHEAD,
+
+        /**
+         * The negative lookahead
+         */
+        NEGATIVE_LOOKAHEAD,
+
+        /**
+         * The positive lookbehind
+         */
+        POSITIVE_LOOKBEHIND,
+
+        /**
+         * The negative lookbehind
+         */
+        NEGATIVE_LOOKBEHIND
+    }
+
+    /**
+     * Returns the node matching the empty string.
+     *
+     * @return The node
+     */
+    public static RegexNode empty() {
+        return new RegexNode(Type.EMPTY, Collections.emptyList(), null, 0, 0, Kind.NONE, 0);
+    }
+
+    /**
+     * Returns the node matching a single code point of the set.
+     *
+     * @param characterSet The character set
+     * @return The node
+     */
+    public static RegexNode characterSet(@NonNull CodePointSet characterSet) {
+        return new RegexNode(Type.CHARACTER_SET, Collections.emptyList(), characterSet, 1, 1, Kind.NONE, 0);
+    }
+
+    /**
+     * Returns the node matching the children in order.
+     *
+     * @param children The children
+     * @return The node
+     */
+    public static RegexNode concatenation(@NonNull List<RegexNode> children) {
+
+        if (children.isEmpty()) {
+            return empty();
+        } else if (children.size() == 1) {
+            return children.get(0);
+        }
+
+        return new RegexNode(Type.CONCATENATION, List.copyOf(children), null, 0, 0, Kind.NONE, 0);
+    }
+
+    /**
+     * Returns the node matching one of the children.
+     *
+     * @param children The children
+     * @return The node
+     */
+    public static RegexNode alternation(@NonNull List<RegexNode> children) {
+
+        if (children.size() == 1) {
+            return children.get(0);
+        }
+
+        return new RegexNode(Type.ALTERNATION, List.copyOf(children), null, 0, 0, Kind.NONE, 0);
+    }
+
+    /**
+     * Returns the node matching the child repeatedly.
+     *
+     * @param child   The child
+     * @param minimum The minimum count
+     * @param maximum The maximum count, or {@link #UNBOUNDED}
+     * @param kind    The kind of the repetition
+     * @return The node
+     */
+    public static RegexNode repetition(@NonNull RegexNode child, int minimum, int maximum, @NonNull Kind kind) {
+        return new RegexNode(Type.REPETITION, List.of(child), null, minimum, maximum, kind, 0);
+    }
+
+    /**
+     * Returns the node capturing the match of the child.
+     *
+     * @param child The child
+     * @param index The group index
+     * @return The node
+     */
+    public static RegexNode capturingGroup(@NonNull RegexNode child, int index) {
+        return new RegexNode(Type.CAPTURING_GROUP, List.of(child), null, 0, 0, Kind.NONE, index);
+    }
+
+    /**
+     * Returns the node matching the child atomically.
+     *
+     * @param child The child
+     * @return The node
+     */
+    public static RegexNode atomicGroup(@NonNull RegexNode child) {
+        return new RegexNode(Type.ATOMIC_GROUP, List.of(child), null, 0, 0, Kind.NONE, 0);
+    }
+
+    /**
+     * Returns the node of the lookaround.
+     *
+     * @param child The child
+     * @param kind  The kind of the lookaround
+     * @return The node
+     */
+    public static RegexNode lookaround(@NonNull RegexNode child, @NonNull Kind kind) {
+        return new RegexNode(Type.LOOKAROUND, List.of(child), null, 0, 0, kind, 0);
+    }
+
+    /**
+     * Returns the node of the back reference.
+     *
+     * @param index The group index
+     * @return The node
+     */
+    public static RegexNode backReference(int index) {
+        return new RegexNode(Type.BACK_REFERENCE, Collections.emptyList(), null, 0, 0, Kind.NONE, index);
+    }
+
+    /**
+     * Returns the node of the anchor.
+     *
+     * @param anchor The anchor character such as {@code '^'} or {@code 'b'}
+     * @return The node
+     */
+    public static RegexNode anchor(char anchor) {
+        return new RegexNode(Type.ANCHOR, Collections.emptyList(), null, 0, 0, Kind.NONE, anchor);
+    }
+
+    /**
+     * Returns the only child.
+     *
+     * @return The only child
+     */
+    public RegexNode getChild() {
+        return this.children.get(0);
+    }
+
+    /**
+     * Tests if this node can match the empty string.
+     *
+     * @return {@code true} if this node can match the empty string, otherwise
+     *         {@code false}
+     */
+    public boolean isNullable() {
+        switch (this.type) {
+            case CHARACTER_SET:
+                return false;
+
+            case CONCATENATION:
+                return this.children.stream().allMatch(RegexNode::isNullable);
+
+            case ALTERNATION:
+                return this.children.stream().anyMatch(RegexNode::isNullable);
+
+            case REPETITION:
+                return this.minimum == 0 || this.getChild().isNullable();
+
+            case CAPTURING_GROUP:
+            case ATOMIC_GROUP:
+                return this.getChild().isNullable();
+
+            case BACK_REFERENCE:
+                // The referenced group may have captured the empty string.
+                return true;
+
+            default:
+                return true;
+        }
+    }
+}
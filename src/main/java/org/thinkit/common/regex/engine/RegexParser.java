@@ -0,0 +1,919 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import lombok.NonNull;
+
+/**
+ * The parser that converts a regular expression in the syntax of
+ * {@link Pattern} into the tree of {@link RegexNode} .
+ * <p>
+ * The pattern is expected to be valid for {@link Pattern} , since it is always
+ * compiled by {@link Pattern} before being parsed. Constructs that cannot be
+ * represented by the tree, such as Unicode properties or the
+ * {@link Pattern#COMMENTS} flag, cause {@link UnsupportedPatternException} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class RegexParser {
+
+    /**
+     * The flags supported by the parser
+     */
+    private static final int SUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL | Pattern.UNIX_LINES
+            | Pattern.MULTILINE | Pattern.LITERAL;
+
+    /**
+     * The regex pattern
+     */
+    private final String pattern;
+
+    /**
+     * The current flags
+     */
+    private int flags;
+
+    /**
+     * The current position
+     */
+    private int position;
+
+    /**
+     * The number of capturing groups
+     */
+    private int groupCount;
+
+    /**
+     * The group indexes keyed by the group name
+     */
+    private final Map<String, Integer> namedGroups = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param pattern The regex pattern
+     * @param flags   The flags
+     */
+    private RegexParser(@NonNull String pattern, int flags) {
+        this.pattern = pattern;
+        this.flags = flags;
+    }
+
+    /**
+     * Parses the regex pattern passed as an argument.
+     *
+     * @param pattern The regex pattern
+     * @param flags   The flags of {@link Pattern}
+     * @return The root node
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If the pattern uses an unsupported
+     *                                        construct or flag
+     */
+    public static RegexNode parse(@NonNull String pattern, int flags) {
+
+        if ((flags & ~SUPPORTED_FLAGS) != 0) {
+            throw new UnsupportedPatternException("Unsupported flags: " + (flags & ~SUPPORTED_FLAGS));
+        }
+
+        final RegexParser parser = new RegexParser(pattern, flags);
+
+        if ((flags & Pattern.LITERAL) != 0) {
+            return parser.parseLiteral(pattern.length());
+        }
+
+        final RegexNode root = parser.parseAlternation();
+
+        if (parser.position < pattern.length()) {
+            throw new UnsupportedPatternException("Unexpected character at " + parser.position);
+        }
+
+        return root;
+    }
+
+    /**
+     * Returns the number of capturing groups in the tree passed as an argument.
+     *
+     * @param node The root node
+     * @return The number of capturing groups
+     */
+    public static int countGroups(@NonNull RegexNode node) {
+
+        int count = node.getType() == RegexNode.Type.CAPTURING_GROUP ? node.getIndex() : 0;
+
+        for (RegexNode child : node.getChildren()) {
+            count = Math.max(count, countGroups(child));
+        }
+
+        return count;
+    }
+
+    /**
+     * Parses the alternation at the current position.
+     *
+     * @return The node
+     */
+    private RegexNode parseAlternation() {
+
+        final List<RegexNode> branches = new ArrayList<>();
+        branches.add(this.parseConcatenation());
+
+        while (this.more() && this.peek() == '|') {
+            this.position++;
+            branches.add(this.parseConcatenation());
+        }
+
+        return RegexNode.alternation(branches);
+    }
+
+    /**
+     * Parses the concatenation at the current position, which ends before
+     * {@code |} or {@code )} .
+     *
+     * @return The node
+     */
+    private RegexNode parseConcatenation() {
+
+        final List<RegexNode> items = new ArrayList<>();
+
+        while (this.more() && this.peek() != '|' && this.peek() != ')') {
+            final RegexNode atom = this.parseAtom();
+
+            if (atom != null) {
+                items.add(this.parseQuantifiers(atom));
+            }
+        }
+
+        return RegexNode.concatenation(items);
+    }
+
+    /**
+     * Parses the quantifier following the atom. A quantifier stacked on another
+     * quantifier is ignored by {@link Pattern} and is therefore rejected.
+     *
+     * @param atom The atom
+     * @return The node
+     */
+    private RegexNode parseQuantifiers(RegexNode atom) {
+
+        if (!this.more()) {
+            return atom;
+        }
+
+        final char c = this.peek();
+        int minimum;
+        int maximum;
+
+        if (c == '*') {
+            minimum = 0;
+            maximum = RegexNode.UNBOUNDED;
+            this.position++;
+        } else if (c == '+') {
+            minimum = 1;
+            maximum = RegexNode.UNBOUNDED;
+            this.position++;
+        } else if (c == '?') {
+            minimum = 0;
+            maximum = 1;
+            this.position++;
+        } else if (c == '{') {
+            this.position++;
+            minimum = this.parseNumber();
+            maximum = minimum;
+
+            if (this.peek() == ',') {
+                this.position++;
+                maximum = this.peek() == '}' ? RegexNode.UNBOUNDED : this.parseNumber();
+            }
+
+            this.expect('}');
+        } else {
+            return atom;
+        }
+
+        RegexNode.Kind kind = RegexNode.Kind.GREEDY;
+
+        if (this.more() && this.peek() == '?') {
+            kind = RegexNode.Kind.RELUCTANT;
+            this.position++;
+        } else if (this.more() && this.peek() == '+') {
+            kind = RegexNode.Kind.POSSESSIVE;
+            this.position++;
+        }
+
+        if (this.more() && this.peek() == '{') {
+            throw new UnsupportedPatternException("Unsupported stacked quantifier");
+        }
+
+        return RegexNode.repetition(atom, minimum, maximum, kind);
+    }
+
+    /**
+     * Parses the atom at the current position.
+     *
+     * @return The node, or {@code null} if the atom is an inline flag group
+     */
+    private RegexNode parseAtom() {
+
+        final int codePoint = this.pattern.codePointAt(this.position);
+
+        switch (codePoint) {
+            case '(':
+                this.position++;
+                return this.parseGroup();
+
+            case '[':
+                this.position++;
+                return RegexNode.characterSet(this.parseCharacterClass());
+
+            case '.':
+                this.position++;
+                return RegexNode.characterSet(this.dot());
+
+            case '^':
+            case '$':
+                this.position++;
+                return RegexNode.anchor((char) codePoint);
+
+            case '\\':
+                this.position++;
+                return this.parseEscape();
+
+            default:
+                this.position += Character.charCount(codePoint);
+                return this.literal(codePoint);
+        }
+    }
+
+    /**
+     * Parses the group at the current position, which is just after the opening
+     * parenthesis. The flags changed inside the group are restored at its end,
+     * except for an inline flag group that changes the flags of the enclosing
+     * group.
+     *
+     * @return The node, or {@code null} if the group is an inline flag group
+     */
+    private RegexNode parseGroup() {
+
+        final int savedFlags = this.flags;
+        RegexNode group;
+
+        if (this.peek() != '?') {
+            final int index = ++this.groupCount;
+            group = RegexNode.capturingGroup(this.parseGroupBody(), index);
+        } else {
+            this.position++;
+
+            switch (this.next()) {
+                case ':':
+                    group = this.parseGroupBody();
+                    break;
+
+                case '=':
+                    group = RegexNode.lookaround(this.parseGroupBody(), RegexNode.Kind.POSITIVE_LOOKAHEAD);
+                    break;
+
+                case '!':
+                    group = RegexNode.lookaround(this.parseGroupBody(), RegexNode.Kind.NEGATIVE_LOOKAHEAD);
+                    break;
+
+                case '>':
+                    group = RegexNode.atomicGroup(this.parseGroupBody());
+                    break;
+
+                case '<':
+                    if (this.peek() == '=') {
+                        this.position++;
+                        group = RegexNode.lookaround(this.parseGroupBody(), RegexNode.Kind.POSITIVE_LOOKBEHIND);
+                    } else if (this.peek() == '!') {
+                        this.position++;
+                        group = RegexNode.lookaround(this.parseGroupBody(), RegexNode.Kind.NEGATIVE_LOOKBEHIND);
+                    } else {
+                        final int end = this.pattern.indexOf('>', this.position);
+                        final int index = ++this.groupCount;
+                        this.namedGroups.put(this.pattern.substring(this.position, end), index);
+                        this.position = end + 1;
+                        group = RegexNode.capturingGroup(this.parseGroupBody(), index);
+                    }
+
+                    break;
+
+                default:
+                    this.position--;
+                    this.parseInlineFlags();
+
+                    if (this.next() == ')') {
+                        // Inline flags apply to the rest of the enclosing group.
+                        return null;
+                    }
+
+                    group = this.parseGroupBody();
+                    break;
+            }
+        }
+
+        this.flags = savedFlags;
+        return group;
+    }
+
+    /**
+     * Parses the body of the group and its closing parenthesis.
+     *
+     * @return The node
+     */
+    private RegexNode parseGroupBody() {
+        final RegexNode body = this.parseAlternation();
+        this.expect(')');
+        return body;
+    }
+
+    /**
+     * Parses the inline flags at the current position and applies them to the
+     * current flags.
+     */
+    private void parseInlineFlags() {
+
+        boolean enable = true;
+
+        while (this.more()) {
+            final char c = this.peek();
+            int flag;
+
+            switch (c) {
+                case '-':
+                    enable = false;
+                    this.position++;
+                    continue;
+
+                case 'i':
+                    flag = Pattern.CASE_INSENSITIVE;
+                    break;
+
+                case 'd':
+                    flag = Pattern.UNIX_LINES;
+                    break;
+
+                case 'm':
+                    flag = Pattern.MULTILINE;
+                    break;
+
+                case 's':
+                    flag = Pattern.DOTALL;
+                    break;
+
+                case 'u':
+                case 'x':
+                case 'U':
+                    throw new UnsupportedPatternException("Unsupported inline flag: " + c);
+
+                default:
+                    return;
+            }
+
+            this.flags = enable ? this.flags | flag : this.flags & ~flag;
+            this.position++;
+        }
+    }
+
+    /**
+     * Parses the escape sequence at the current position, which is just after the
+     * backslash.
+     *
+     * @return The node
+     */
+    private RegexNode parseEscape() {
+
+        final char c = this.next();
+
+        switch (c) {
+            case 'd':
+            case 'D':
+            case 'w':
+            case 'W':
+            case 's':
+            case 'S':
+            case 'h':
+            case 'H':
+            case 'v':
+            case 'V':
+            case 'p':
+            case 'P':
+                this.position--;
+                return RegexNode.characterSet(this.parsePredefinedClass());
+
+            case 'b':
+            case 'B':
+            case 'A':
+            case 'G':
+            case 'Z':
+            case 'z':
+                return RegexNode.anchor(c);
+
+            case 'Q':
+                int end = this.pattern.indexOf("\\E", this.position);
+                end = end < 0 ? this.pattern.length() : end;
+                final RegexNode quoted = this.parseLiteral(end);
+                this.position = Math.min(end + 2, this.pattern.length());
+                return quoted;
+
+            case 'k':
+                this.expect('<');
+                final int close = this.pattern.indexOf('>', this.position);
+                final Integer named = this.namedGroups.get(this.pattern.substring(this.position, close));
+                this.position = close + 1;
+                return RegexNode.backReference(named == null ? 0 : named);
+
+            case 'R':
+            case 'X':
+            case 'N':
+                throw new UnsupportedPatternException("Unsupported escape: \\" + c);
+
+            default:
+                if (c >= '1' && c <= '9') {
+                    int index = c - '0';
+
+                    while (this.more() && Character.isDigit(this.peek())
+                            && index * 10 + (this.peek() - '0') <= this.groupCount) {
+                        index = index * 10 + (this.next() - '0');
+                    }
+
+                    return RegexNode.backReference(index);
+                }
+
+                this.position--;
+                return this.literal(this.parseEscapedCodePoint());
+        }
+    }
+
+    /**
+     * Parses the predefined character class at the current position, which is
+     * just after the backslash.
+     *
+     * @return The character set
+     */
+    private CodePointSet parsePredefinedClass() {
+
+        final char c = this.next();
+
+        switch (c) {
+            case 'd':
+                return CodePointSet.DIGIT;
+
+            case 'D':
+                return CodePointSet.DIGIT.complement();
+
+            case 'w':
+                return CodePointSet.WORD;
+
+            case 'W':
+                return CodePointSet.WORD.complement();
+
+            case 's':
+                return CodePointSet.SPACE;
+
+            case 'S':
+                return CodePointSet.SPACE.complement();
+
+            case 'h':
+                return CodePointSet.HORIZONTAL_SPACE;
+
+            case 'H':
+                return CodePointSet.HORIZONTAL_SPACE.complement();
+
+            case 'v':
+                return CodePointSet.VERTICAL_SPACE;
+
+            case 'V':
+                return CodePointSet.VERTICAL_SPACE.complement();
+
+            default:
+                final CodePointSet property = this.parseProperty();
+                return c == 'P' ? property.complement() : property;
+        }
+    }
+
+    /**
+     * Parses the name of the property of {@code \p} or {@code \P} at the
+     * current position.
+     *
+     * @return The character set
+     */
+    private CodePointSet parseProperty() {
+
+        String name;
+
+        if (this.more() && this.peek() == '{') {
+            final int close = this.pattern.indexOf('}', this.position);
+            name = this.pattern.substring(this.position + 1, close);
+            this.position = close + 1;
+        } else {
+            name = String.valueOf(this.next());
+        }
+
+        if ((this.flags & Pattern.CASE_INSENSITIVE) != 0) {
+            throw new UnsupportedPatternException("Unsupported property with case-insensitive flag: " + name);
+        }
+
+        switch (name) {
+            case "Lower":
+                return CodePointSet.range('a', 'z');
+
+            case "Upper":
+                return CodePointSet.range('A', 'Z');
+
+            case "ASCII":
+                return CodePointSet.range(0, 0x7f);
+
+            case "Alpha":
+                return CodePointSet.of(new int[] { 'A', 'Z', 'a', 'z' });
+
+            case "Digit":
+                return CodePointSet.DIGIT;
+
+            case "Alnum":
+                return CodePointSet.of(new int[] { '0', '9', 'A', 'Z', 'a', 'z' });
+
+            case "Punct":
+                return CodePointSet.of(new int[] { '!', '/', ':', '@', '[', '`', '{', '~' });
+
+            case "Graph":
+                return CodePointSet.range(0x21, 0x7e);
+
+            case "Print":
+                return CodePointSet.range(0x20, 0x7e);
+
+            case "Blank":
+                return CodePointSet.of(new int[] { ' ', ' ', '\t', '\t' });
+
+            case "Cntrl":
+                return CodePointSet.of(new int[] { 0, 0x1f, 0x7f, 0x7f });
+
+            case "XDigit":
+                return CodePointSet.of(new int[] { '0', '9', 'A', 'F', 'a', 'f' });
+
+            case "Space":
+                return CodePointSet.SPACE;
+
+            default:
+                throw new UnsupportedPatternException("Unsupported property: " + name);
+        }
+    }
+
+    /**
+     * Parses the character class at the current position, which is just after the
+     * opening bracket.
+     *
+     * @return The character set
+     */
+    private CodePointSet parseCharacterClass() {
+
+        final boolean negated = this.more() && this.peek() == '^';
+
+        if (negated) {
+            this.position++;
+        }
+
+        CodePointSet set = CodePointSet.EMPTY;
+        boolean first = true;
+        boolean nested = false;
+
+        while (true) {
+            final char c = this.peek();
+
+            if (c == ']' && !first) {
+                this.position++;
+                break;
+            } else if (c == '[') {
+                this.position++;
+                set = set.union(this.parseCharacterClass());
+                nested = true;
+            } else if (c == '&' && this.pattern.startsWith("&&", this.position)) {
+                this.position += 2;
+                final CodePointSet right = this.parseCharacterClassOperand();
+                set = set.intersect(right);
+                nested = true;
+            } else {
+                set = set.union(this.parseClassRangeOrAtom());
+            }
+
+            first = false;
+        }
+
+        if (negated && nested) {
+            throw new UnsupportedPatternException("Unsupported negated class with nested classes or intersection");
+        }
+
+        return negated ? set.complement() : set;
+    }
+
+    /**
+     * Parses the right operand of an intersection up to, but not including, the
+     * closing bracket of the enclosing class.
+     *
+     * @return The operand
+     */
+    private CodePointSet parseCharacterClassOperand() {
+
+        CodePointSet set = CodePointSet.EMPTY;
+
+        while (this.peek() != ']') {
+            if (this.peek() == '[') {
+                this.position++;
+                set = set.union(this.parseCharacterClass());
+            } else if (this.pattern.startsWith("&&", this.position)) {
+                this.position += 2;
+                return set.intersect(this.parseCharacterClassOperand());
+            } else {
+                set = set.union(this.parseClassRangeOrAtom());
+            }
+        }
+
+        return set;
+    }
+
+    /**
+     * Parses the range or the single member of the character class at the current
+     * position.
+     *
+     * @return The character set
+     */
+    private CodePointSet parseClassRangeOrAtom() {
+
+        final char c = this.peek();
+
+        if (c == '\\') {
+            final char escaped = this.pattern.charAt(this.position + 1);
+
+            if ("dDwWsShHvVpP".indexOf(escaped) >= 0) {
+                this.position++;
+                return this.parsePredefinedClass();
+            } else if (escaped == 'Q') {
+                int end = this.pattern.indexOf("\\E", this.position + 2);
+                end = end < 0 ? this.pattern.length() : end;
+                CodePointSet quoted = CodePointSet.EMPTY;
+
+                for (int i = this.position + 2; i < end; i += Character.charCount(this.pattern.codePointAt(i))) {
+                    quoted = quoted.union(this.caseFold(CodePointSet.single(this.pattern.codePointAt(i))));
+                }
+
+                this.position = Math.min(end + 2, this.pattern.length());
+                return quoted;
+            }
+        }
+
+        final int first = this.parseClassCodePoint();
+
+        if (this.peek() == '-' && this.position + 1 < this.pattern.length()
+                && this.pattern.charAt(this.position + 1) != ']' && this.pattern.charAt(this.position + 1) != '[') {
+            this.position++;
+            final int last = this.parseClassCodePoint();
+            return this.caseFold(CodePointSet.range(first, last));
+        }
+
+        return this.caseFold(CodePointSet.single(first));
+    }
+
+    /**
+     * Parses the code point of the character class at the current position.
+     *
+     * @return The code point
+     */
+    private int parseClassCodePoint() {
+
+        if (this.peek() == '\\') {
+            this.position++;
+            return this.parseEscapedCodePoint();
+        }
+
+        final int codePoint = this.pattern.codePointAt(this.position);
+        this.position += Character.charCount(codePoint);
+
+        return codePoint;
+    }
+
+    /**
+     * Parses the escaped code point at the current position, which is just after
+     * the backslash.
+     *
+     * @return The code point
+     */
+    private int parseEscapedCodePoint() {
+
+        final char c = this.next();
+
+        switch (c) {
+            case 't':
+                return '\t';
+
+            case 'n':
+                return '\n';
+
+            case 'r':
+                return '\r';
+
+            case 'f':
+                return '\f';
+
+            case 'a':
+                return 0x07;
+
+            case 'e':
+                return 0x1b;
+
+            case 'c':
+                return this.next() ^ 64;
+
+            case '0':
+                int octal = 0;
+                int digits = 0;
+
+                while (this.more() && digits < 3 && this.peek() >= '0' && this.peek() <= '7'
+                        && octal * 8 + (this.peek() - '0') <= 0377) {
+                    octal = octal * 8 + (this.next() - '0');
+                    digits++;
+                }
+
+                return octal;
+
+            case 'x':
+                if (this.peek() == '{') {
+                    final int close = this.pattern.indexOf('}', this.position);
+                    final int hex = Integer.parseInt(this.pattern.substring(this.position + 1, close), 16);
+                    this.position = close + 1;
+                    return hex;
+                }
+
+                this.position += 2;
+                return Integer.parseInt(this.pattern.substring(this.position - 2, this.position), 16);
+
+            case 'u':
+                this.position += 4;
+                final char unit = (char) Integer.parseInt(this.pattern.substring(this.position - 4, this.position), 16);
+
+                if (Character.isHighSurrogate(unit) && this.pattern.startsWith("\\u", this.position)) {
+                    final char low = (char) Integer
+                            .parseInt(this.pattern.substring(this.position + 2, this.position + 6), 16);
+
+                    if (Character.isLowSurrogate(low)) {
+                        this.position += 6;
+                        return Character.toCodePoint(unit, low);
+                    }
+                }
+
+                return unit;
+
+            default:
+                if (Character.isLetterOrDigit(c)) {
+                    throw new UnsupportedPatternException("Unsupported escape: \\" + c);
+                }
+
+                this.position--;
+                final int codePoint = this.pattern.codePointAt(this.position);
+                this.position += Character.charCount(codePoint);
+
+                return codePoint;
+        }
+    }
+
+    /**
+     * Parses the pattern up to the end index as a sequence of literal code points.
+     *
+     * @param end The end index
+     * @return The node
+     */
+    private RegexNode parseLiteral(int end) {
+
+        final List<RegexNode> items = new ArrayList<>();
+
+        for (int i = this.position; i < end;) {
+            final int codePoint = this.pattern.codePointAt(i);
+            items.add(this.literal(codePoint));
+            i += Character.charCount(codePoint);
+        }
+
+        this.position = end;
+        return RegexNode.concatenation(items);
+    }
+
+    /**
+     * Returns the node matching the code point under the current flags.
+     *
+     * @param codePoint The code point
+     * @return The node
+     */
+    private RegexNode literal(int codePoint) {
+        return RegexNode.characterSet(this.caseFold(CodePointSet.single(codePoint)));
+    }
+
+    /**
+     * Returns the character set folded under the current flags.
+     *
+     * @param set The character set
+     * @return The folded character set
+     */
+    private CodePointSet caseFold(CodePointSet set) {
+        return (this.flags & Pattern.CASE_INSENSITIVE) != 0 ? set.caseInsensitive() : set;
+    }
+
+    /**
+     * Returns the character set of {@code .} under the current flags.
+     *
+     * @return The character set
+     */
+    private CodePointSet dot() {
+
+        if ((this.flags & Pattern.DOTALL) != 0) {
+            return CodePointSet.ALL;
+        } else if ((this.flags & Pattern.UNIX_LINES) != 0) {
+            return CodePointSet.single('\n').complement();
+        }
+
+        return CodePointSet.LINE_TERMINATOR.complement();
+    }
+
+    /**
+     * Parses the decimal number at the current position.
+     *
+     * @return The number
+     */
+    private int parseNumber() {
+
+        final int start = this.position;
+
+        while (this.more() && Character.isDigit(this.peek())) {
+            this.position++;
+        }
+
+        if (start == this.position) {
+            throw new UnsupportedPatternException("Number expected at " + start);
+        }
+
+        return Integer.parseInt(this.pattern.substring(start, this.position));
+    }
+
+    /**
+     * Tests if the pattern has more characters to parse.
+     *
+     * @return {@code true} if the pattern has more characters, otherwise
+     *         {@code false}
+     */
+    private boolean more() {
+        return this.position < this.pattern.length();
+    }
+
+    /**
+     * Returns the character at the current position.
+     *
+     * @return The character
+     */
+    private char peek() {
+
+        if (!this.more()) {
+            throw new UnsupportedPatternException("Unexpected end of pattern");
+        }
+
+        return this.pattern.charAt(this.position);
+    }
+
+    /**
+     * Returns the character at the current position and advances the position.
+     *
+     * @return The character
+     */
+    private char next() {
+        final char c = this.peek();
+        this.position++;
+        return c;
+    }
+
+    /**
+     * Consumes the expected character at the current position.
+     *
+     * @param expected The expected character
+     */
+    private void expect(char expected) {
+        if (this.next() != expected) {
+            throw new UnsupportedPatternException("'" + expected + "' expected at " + (this.position - 1));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+/**
+ * The insertion-ordered set of small integers with constant time
+ * {@link #add(int)} , {@link #contains(int)} and {@link #clear()} , used as the
+ * thread lists of the automaton engines.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class SparseSet {
+
+    /**
+     * The members in insertion order
+     */
+    private final int[] dense;
+
+    /**
+     * The positions of the members in {@link #dense}
+     */
+    private final int[] sparse;
+
+    /**
+     * The number of members
+     */
+    private int size;
+
+    /**
+     * Constructor
+     *
+     * @param capacity The exclusive upper bound of the members
+     */
+    SparseSet(int capacity) {
+        this.dense = new int[capacity];
+        this.sparse = new int[capacity];
+    }
+
+    /**
+     * Tests if the value is a member.
+     *
+     * @param value The value
+     * @return {@code true} if the value is a member, otherwise {@code false}
+     */
+    boolean contains(int value) {
+        final int index = this.sparse[value];
+        return index < this.size && this.dense[index] == value;
+    }
+
+    /**
+     * Adds the value, which must not be a member yet.
+     *
+     * @param value The value
+     */
+    void add(int value) {
+        this.sparse[value] = this.size;
+        this.dense[this.size++] = value;
+    }
+
+    /**
+     * Returns the member at the index in insertion order.
+     *
+     * @param index The index
+     * @return The member
+     */
+    int get(int index) {
+        return this.dense[index];
+    }
+
+    /**
+     * Returns the number of members.
+     *
+     * @return The number of members
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Tests if there are no members.
+     *
+     * @return {@code true} if there are no members, otherwise {@code false}
+     */
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes all members.
+     */
+    void clear() {
+        this.size = 0;
+    }
+}
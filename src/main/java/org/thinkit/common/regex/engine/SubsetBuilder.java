@@ -0,0 +1,262 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import java.util.Arrays;
+
+/**
+ * The builder of the states of the deterministic automata, each of which is
+ * the subset of the instructions of a {@link Program} of a single pattern.
+ * <p>
+ * A state lists the instructions that consume a code point or report a match,
+ * ordered by their priority. In the leftmost-first mode, the instructions of
+ * lower priority than a match are dropped as {@link java.util.regex.Pattern}
+ * would never prefer them, so the last accepting state reached in a run gives
+ * the end of the match that {@link java.util.regex.Pattern} reports. In the
+ * other mode the order is ignored and a state is accepting if any path
+ * reaches a match. An unanchored state has an extra instruction of the lowest
+ * priority that starts the pattern again at every position until a match is
+ * found.
+ * <p>
+ * The instance of this class holds a work list and is not thread-safe.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class SubsetBuilder {
+
+    /**
+     * The program
+     */
+    private final Program program;
+
+    /**
+     * Whether to follow the leftmost-first priority
+     */
+    private final boolean leftmostFirst;
+
+    /**
+     * The pseudo program counter that starts the pattern again, or {@code -1} if
+     * the states are anchored
+     */
+    private final int restart;
+
+    /**
+     * The instruction list being built
+     */
+    private final SparseSet list;
+
+    /**
+     * The stack of the epsilon closure
+     */
+    private final int[] stack;
+
+    /**
+     * Constructor
+     *
+     * @param program       The program of a single pattern
+     * @param leftmostFirst Whether to follow the leftmost-first priority
+     * @param unanchored    Whether to start the pattern at every position
+     */
+    SubsetBuilder(Program program, boolean leftmostFirst, boolean unanchored) {
+        this.program = program;
+        this.leftmostFirst = leftmostFirst;
+        this.restart = unanchored ? program.getSize() : -1;
+        this.list = new SparseSet(program.getSize() + 1);
+        this.stack = new int[program.getSize() * 2 + 1];
+    }
+
+    /**
+     * Returns the instructions of the start state.
+     *
+     * @return The instructions
+     */
+    int[] start() {
+        this.list.clear();
+        this.restart();
+        return this.instructions();
+    }
+
+    /**
+     * Returns the instructions of the state reached from the instructions over
+     * the code point.
+     *
+     * @param instructions The instructions of the state
+     * @param codePoint    The code point
+     * @return The instructions of the next state, which are empty if no match can
+     *         be reached
+     */
+    int[] next(int[] instructions, int codePoint) {
+
+        this.list.clear();
+
+        for (int pc : instructions) {
+            if (pc == this.restart) {
+                this.restart();
+            } else if (this.program.opcodes[pc] == Program.CHARACTER
+                    && this.program.characterSets[pc].contains(codePoint)) {
+                if (this.add(this.program.next[pc])) {
+                    break;
+                }
+            }
+        }
+
+        return this.instructions();
+    }
+
+    /**
+     * Tests if the instructions contain a match.
+     *
+     * @param instructions The instructions
+     * @return {@code true} if the instructions contain a match, otherwise
+     *         {@code false}
+     */
+    boolean isAccepting(int[] instructions) {
+
+        for (int pc : instructions) {
+            if (pc != this.restart && this.program.opcodes[pc] == Program.MATCH) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds the start of the pattern and then the restart instruction to the
+     * instruction list being built, unless the pattern matches the empty string
+     * in the leftmost-first mode.
+     */
+    private void restart() {
+        if (!this.add(this.program.starts[0]) && this.restart >= 0) {
+            this.list.add(this.restart);
+        }
+    }
+
+    /**
+     * Adds the instructions reachable from the program counter without consuming
+     * a code point to the instruction list being built, in the order of their
+     * priority.
+     *
+     * @param pc The program counter
+     * @return {@code true} if a match is added in the leftmost-first mode, after
+     *         which no instruction of lower priority may be added
+     */
+    private boolean add(int pc) {
+
+        int depth = 0;
+        this.stack[depth++] = pc;
+
+        while (depth > 0) {
+            final int current = this.stack[--depth];
+
+            if (this.list.contains(current)) {
+                continue;
+            }
+
+            this.list.add(current);
+
+            switch (this.program.opcodes[current]) {
+                case Program.SPLIT:
+                    this.stack[depth++] = this.program.alternative[current];
+                    this.stack[depth++] = this.program.next[current];
+                    break;
+
+                case Program.SAVE:
+                    this.stack[depth++] = this.program.next[current];
+                    break;
+
+                case Program.MATCH:
+                    if (this.leftmostFirst) {
+                        return true;
+                    }
+
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the instructions of the list being built that consume a code point,
+     * report a match or restart the pattern, in the order of their priority, or
+     * sorted if the priority is ignored.
+     *
+     * @return The instructions
+     */
+    private int[] instructions() {
+
+        final int[] instructions = new int[this.list.size()];
+        int count = 0;
+
+        for (int i = 0; i < this.list.size(); i++) {
+            final int pc = this.list.get(i);
+
+            if (pc == this.restart || this.program.opcodes[pc] == Program.CHARACTER
+                    || this.program.opcodes[pc] == Program.MATCH) {
+                instructions[count++] = pc;
+            }
+        }
+
+        final int[] result = Arrays.copyOf(instructions, count);
+
+        if (!this.leftmostFirst) {
+            Arrays.sort(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * The key of a state in the maps of states, which compares the instructions by
+     * their contents.
+     */
+    static final class Key {
+
+        /**
+         * The instructions
+         */
+        private final int[] instructions;
+
+        /**
+         * The hash code of the instructions
+         */
+        private final int hashCode;
+
+        /**
+         * Constructor
+         *
+         * @param instructions The instructions
+         */
+        Key(int[] instructions) {
+            this.instructions = instructions;
+            this.hashCode = Arrays.hashCode(instructions);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Key && Arrays.equals(this.instructions, ((Key) object).instructions);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+/**
+ * The transitions of a deterministic automaton run by
+ * {@link DeterministicAutomaton} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+interface TransitionTable {
+
+    /**
+     * The dead state from which no match can be reached
+     */
+    int DEAD = 0;
+
+    /**
+     * Returns the start state.
+     *
+     * @return The start state
+     */
+    int getStart();
+
+    /**
+     * Tests if the state has the same threads as the start state, which means
+     * that no thread started before the current position is still running
+     * differently from a thread starting at it.
+     *
+     * @param state The state
+     * @return {@code true} if the state is the start state, otherwise
+     *         {@code false}
+     */
+    boolean isStart(int state);
+
+    /**
+     * Returns the state reached from the state over the code point.
+     *
+     * @param state     The state
+     * @param codePoint The code point
+     * @return The next state
+     */
+    int next(int state, int codePoint);
+
+    /**
+     * Tests if the state is accepting.
+     *
+     * @param state The state
+     * @return {@code true} if the state is accepting, otherwise {@code false}
+     */
+    boolean isAccepting(int state);
+}
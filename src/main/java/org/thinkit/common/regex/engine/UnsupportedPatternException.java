@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+/**
+ * Thrown when a regular expression uses a construct or a flag that the
+ * automaton engines do not support. The pattern is still valid for
+ * {@link java.util.regex.Pattern} , which is used as the fallback.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class UnsupportedPatternException extends RuntimeException {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -3871563180316437716L;
+
+    /**
+     * Constructor
+     *
+     * @param message The message
+     */
+    public UnsupportedPatternException(String message) {
+        super(message);
+    }
+}
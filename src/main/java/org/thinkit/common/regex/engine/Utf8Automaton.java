@@ -0,0 +1,487 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import java.nio.ByteBuffer;
+
+import lombok.NonNull;
+
+/**
+ * The automaton that matches the pattern directly against the bytes of the
+ * input encoded in UTF-8, without decoding them into characters.
+ * <p>
+ * The pattern is compiled into deterministic automata over bytes, in which
+ * each character set such as the Japanese ranges of
+ * {@link org.thinkit.common.regex.catalog.RegexPattern#HIRAGANA} is a set of
+ * sequences of byte ranges, so each byte of the input costs a single table
+ * lookup. The indexes of the input and of the slots are byte offsets, and the
+ * matches are those that {@link java.util.regex.Pattern} finds in the decoded
+ * input, converted to byte offsets. The ranges must start and end at character
+ * boundaries, and a byte sequence that is not valid UTF-8 matches no character
+ * set, whereas the decoding would replace it with {@code U+FFFD} .
+ * <p>
+ * The input is read by index, so the input passed as {@link ByteBuffer} is
+ * neither copied nor moved, whether it is a heap buffer or a direct buffer.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+public final class Utf8Automaton {
+
+    /**
+     * The unanchored forward automaton following the leftmost-first priority
+     */
+    private final Dfa search;
+
+    /**
+     * The anchored forward automaton following the leftmost-first priority
+     */
+    private final Dfa prefix;
+
+    /**
+     * The anchored forward automaton of all matches
+     */
+    private final Dfa entire;
+
+    /**
+     * The anchored reverse automaton of all matches
+     */
+    private final Dfa reverse;
+
+    /**
+     * Constructor
+     *
+     * @param root The root node of the pattern
+     */
+    private Utf8Automaton(RegexNode root) {
+
+        final Program program = Utf8Compiler.compile(ProgramCompiler.compile(root), false);
+        final Program reverseProgram = Utf8Compiler.compile(ProgramCompiler.compileReverse(root), true);
+        final CharacterClasses characterClasses = new CharacterClasses(program);
+
+        this.search = new Dfa(program, characterClasses, true, true);
+        this.prefix = new Dfa(program, characterClasses, true, false);
+        this.entire = new Dfa(program, characterClasses, false, false);
+        this.reverse = new Dfa(reverseProgram, new CharacterClasses(reverseProgram), false, false);
+    }
+
+    /**
+     * Compiles the regex pattern into the new instance of {@link Utf8Automaton} .
+     *
+     * @param regexPattern The regex pattern
+     * @param flags        The combined regex option flags
+     * @return The new instance of {@link Utf8Automaton}
+     *
+     * @exception NullPointerException        If {@code null} is passed as an
+     *                                        argument
+     * @exception UnsupportedPatternException If the pattern cannot be run by a
+     *                                        deterministic automaton
+     */
+    public static Utf8Automaton compile(@NonNull String regexPattern, int flags) {
+        return new Utf8Automaton(RegexParser.parse(regexPattern, flags));
+    }
+
+    /**
+     * Returns the total number of states of the automata.
+     *
+     * @return The number of states
+     */
+    public int getStateCount() {
+        return this.search.getStateCount() + this.prefix.getStateCount() + this.entire.getStateCount()
+                + this.reverse.getStateCount();
+    }
+
+    /**
+     * Attempts to match the entire range of the bytes against the pattern.
+     *
+     * @param input The bytes of the input encoded in UTF-8
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     * @param slots The slots to store the byte offsets of the match, or
+     *              {@code null}
+     * @return {@code true} if, and only if, the entire range matches the pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as the input
+     */
+    public boolean matches(@NonNull byte[] input, int start, int end, int[] slots) {
+        return this.matches(input, null, start, end, slots);
+    }
+
+    /**
+     * Attempts to match the entire range of the buffer against the pattern. The
+     * position and the limit of the buffer are not used.
+     *
+     * @param input The buffer of the input encoded in UTF-8
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     * @param slots The slots to store the byte offsets of the match, or
+     *              {@code null}
+     * @return {@code true} if, and only if, the entire range matches the pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as the input
+     */
+    public boolean matches(@NonNull ByteBuffer input, int start, int end, int[] slots) {
+        return this.matches(null, input, start, end, slots);
+    }
+
+    /**
+     * Attempts to match the range of the bytes, starting at the beginning,
+     * against the pattern.
+     *
+     * @param input The bytes of the input encoded in UTF-8
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     * @param slots The slots to store the byte offsets of the match, or
+     *              {@code null}
+     * @return {@code true} if, and only if, a prefix of the range matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as the input
+     */
+    public boolean lookingAt(@NonNull byte[] input, int start, int end, int[] slots) {
+        return this.lookingAt(input, null, start, end, slots);
+    }
+
+    /**
+     * Attempts to match the range of the buffer, starting at the beginning,
+     * against the pattern. The position and the limit of the buffer are not used.
+     *
+     * @param input The buffer of the input encoded in UTF-8
+     * @param start The start index of the range
+     * @param end   The end index of the range
+     * @param slots The slots to store the byte offsets of the match, or
+     *              {@code null}
+     * @return {@code true} if, and only if, a prefix of the range matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as the input
+     */
+    public boolean lookingAt(@NonNull ByteBuffer input, int start, int end, int[] slots) {
+        return this.lookingAt(null, input, start, end, slots);
+    }
+
+    /**
+     * Attempts to find the first subsequence of the range of the bytes that starts
+     * at or after the index passed as an argument and matches the pattern. An
+     * index inside a character is moved to the beginning of the next character.
+     *
+     * @param input The bytes of the input encoded in UTF-8
+     * @param from  The index to start the search at
+     * @param end   The end index of the range
+     * @param slots The slots to store the byte offsets of the match, or
+     *              {@code null}
+     * @return {@code true} if, and only if, a subsequence of the range matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as the input
+     */
+    public boolean find(@NonNull byte[] input, int from, int end, int[] slots) {
+        return this.find(input, null, from, Integer.MAX_VALUE, end, slots);
+    }
+
+    /**
+     * Attempts to find the first subsequence of the range that starts at or after
+     * the index passed as an argument and matches the pattern, and succeeds only
+     * if that subsequence starts before the limit. The match itself may end after
+     * the limit.
+     *
+     * @param input The bytes of the input encoded in UTF-8
+     * @param from  The index to start the search at
+     * @param limit The index before which the match has to start
+     * @param end   The end index of the range
+     * @param slots The slots to store the byte offsets of the match, or
+     *              {@code null}
+     * @return {@code true} if, and only if, the first subsequence of the range
+     *         that matches the pattern starts before the limit
+     *
+     * @exception NullPointerException If {@code null} is passed as the input
+     */
+    public boolean find(@NonNull byte[] input, int from, int limit, int end, int[] slots) {
+        return this.find(input, null, from, limit, end, slots);
+    }
+
+    /**
+     * Attempts to find the first subsequence of the range of the buffer that
+     * starts at or after the index passed as an argument and matches the pattern.
+     * An index inside a character is moved to the beginning of the next
+     * character. The position and the limit of the buffer are not used.
+     *
+     * @param input The buffer of the input encoded in UTF-8
+     * @param from  The index to start the search at
+     * @param end   The end index of the range
+     * @param slots The slots to store the byte offsets of the match, or
+     *              {@code null}
+     * @return {@code true} if, and only if, a subsequence of the range matches the
+     *         pattern
+     *
+     * @exception NullPointerException If {@code null} is passed as the input
+     */
+    public boolean find(@NonNull ByteBuffer input, int from, int end, int[] slots) {
+        return this.find(null, input, from, Integer.MAX_VALUE, end, slots);
+    }
+
+    /**
+     * Attempts to find the first subsequence of the range of the buffer that
+     * starts at or after the index passed as an argument and matches the pattern,
+     * and succeeds only if that subsequence starts before the limit. The match
+     * itself may end after the limit. The position and the limit of the buffer
+     * are not used.
+     *
+     * @param input The buffer of the input encoded in UTF-8
+     * @param from  The index to start the search at
+     * @param limit The index before which the match has to start
+     * @param end   The end index of the range
+     * @param slots The slots to store the byte offsets of the match, or
+     *              {@code null}
+     * @return {@code true} if, and only if, the first subsequence of the range
+     *         that matches the pattern starts before the limit
+     *
+     * @exception NullPointerException If {@code null} is passed as the input
+     */
+    public boolean find(@NonNull ByteBuffer input, int from, int limit, int end, int[] slots) {
+        return this.find(null, input, from, limit, end, slots);
+    }
+
+    /**
+     * Attempts to match the entire range against the pattern.
+     *
+     * @param array  The bytes of the input, or {@code null} if the input is a
+     *               buffer
+     * @param buffer The buffer of the input, or {@code null} if the input is an
+     *               array
+     * @param start  The start index of the range
+     * @param end    The end index of the range
+     * @param slots  The slots to store the match, or {@code null}
+     * @return {@code true} if, and only if, the entire range matches the pattern
+     */
+    private boolean matches(byte[] array, ByteBuffer buffer, int start, int end, int[] slots) {
+
+        int state = this.entire.getStart();
+
+        for (int position = start; position < end; position++) {
+            state = this.entire.next(state, byteAt(array, buffer, position));
+
+            if (state == TransitionTable.DEAD) {
+                return false;
+            }
+        }
+
+        if (!this.entire.isAccepting(state)) {
+            return false;
+        }
+
+        if (slots != null) {
+            slots[0] = start;
+            slots[1] = end;
+        }
+
+        return true;
+    }
+
+    /**
+     * Attempts to match the range, starting at the beginning, against the
+     * pattern.
+     *
+     * @param array  The bytes of the input, or {@code null} if the input is a
+     *               buffer
+     * @param buffer The buffer of the input, or {@code null} if the input is an
+     *               array
+     * @param start  The start index of the range
+     * @param end    The end index of the range
+     * @param slots  The slots to store the match, or {@code null}
+     * @return {@code true} if, and only if, a prefix of the range matches the
+     *         pattern
+     */
+    private boolean lookingAt(byte[] array, ByteBuffer buffer, int start, int end, int[] slots) {
+
+        final int matchEnd = forward(this.prefix, array, buffer, start, end, slots == null);
+
+        if (matchEnd < 0) {
+            return false;
+        }
+
+        if (slots != null) {
+            slots[0] = start;
+            slots[1] = matchEnd;
+        }
+
+        return true;
+    }
+
+    /**
+     * Attempts to find the first subsequence of the range that starts at or after
+     * the index passed as an argument and matches the pattern, and succeeds only
+     * if that subsequence starts before the limit.
+     *
+     * @param array  The bytes of the input, or {@code null} if the input is a
+     *               buffer
+     * @param buffer The buffer of the input, or {@code null} if the input is an
+     *               array
+     * @param from   The index to start the search at
+     * @param limit  The index before which the match has to start
+     * @param end    The end index of the range
+     * @param slots  The slots to store the match, or {@code null}
+     * @return {@code true} if, and only if, the first subsequence of the range
+     *         that matches the pattern starts before the limit
+     */
+    private boolean find(byte[] array, ByteBuffer buffer, int from, int limit, int end, int[] slots) {
+
+        int start = from;
+
+        while (start < end && (byteAt(array, buffer, start) & 0xc0) == 0x80) {
+            start++;
+        }
+
+        if (start >= limit) {
+            return false;
+        }
+
+        final int matchEnd = limit <= end ? this.forward(array, buffer, start, limit, end)
+                : forward(this.search, array, buffer, start, end, slots == null);
+
+        if (matchEnd < 0) {
+            return false;
+        }
+
+        if (slots != null || limit <= end) {
+            final int matchStart = backward(this.reverse, array, buffer, start, matchEnd);
+
+            if (matchStart >= limit) {
+                return false;
+            } else if (slots != null) {
+                slots[0] = matchStart;
+                slots[1] = matchEnd;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Runs the unanchored forward automaton from the start index, stopping at the
+     * first index after the limit at which no match starting before the limit
+     * can still be found: no match has been found yet, the automaton is back in
+     * its start state, and no match starts at that index.
+     *
+     * @param array  The bytes of the input, or {@code null} if the input is a
+     *               buffer
+     * @param buffer The buffer of the input, or {@code null} if the input is an
+     *               array
+     * @param start  The start index
+     * @param limit  The index before which the match has to start
+     * @param end    The end index of the range
+     * @return The end index of the match, or {@code -1}
+     */
+    private int forward(byte[] array, ByteBuffer buffer, int start, int limit, int end) {
+
+        int state = this.search.getStart();
+        int matchEnd = this.search.isAccepting(state) ? start : -1;
+
+        for (int position = start; position < end; position++) {
+            if (matchEnd < 0 && position >= limit && this.search.isStart(state)
+                    && forward(this.prefix, array, buffer, position, end, true) < 0) {
+                break;
+            }
+
+            state = this.search.next(state, byteAt(array, buffer, position));
+
+            if (state == TransitionTable.DEAD) {
+                break;
+            } else if (this.search.isAccepting(state)) {
+                matchEnd = position + 1;
+            }
+        }
+
+        return matchEnd;
+    }
+
+    /**
+     * Runs the forward automaton from the start index and returns the end index of
+     * the last match found, or {@code -1} if no match is found.
+     *
+     * @param forward The forward automaton
+     * @param array   The bytes of the input, or {@code null} if the input is a
+     *                buffer
+     * @param buffer  The buffer of the input, or {@code null} if the input is an
+     *                array
+     * @param start   The start index
+     * @param end     The end index of the range
+     * @param any     Whether to stop at the first match found
+     * @return The end index of the match, or {@code -1}
+     */
+    private static int forward(Dfa forward, byte[] array, ByteBuffer buffer, int start, int end, boolean any) {
+
+        int state = forward.getStart();
+        int matchEnd = forward.isAccepting(state) ? start : -1;
+
+        for (int position = start; position < end && !(any && matchEnd >= 0); position++) {
+            state = forward.next(state, byteAt(array, buffer, position));
+
+            if (state == TransitionTable.DEAD) {
+                break;
+            } else if (forward.isAccepting(state)) {
+                matchEnd = position + 1;
+            }
+        }
+
+        return matchEnd;
+    }
+
+    /**
+     * Runs the reverse automaton backward from the end index of a match and
+     * returns the start index of the match.
+     *
+     * @param reverse  The reverse automaton
+     * @param array    The bytes of the input, or {@code null} if the input is a
+     *                 buffer
+     * @param buffer   The buffer of the input, or {@code null} if the input is an
+     *                 array
+     * @param from     The index at which the search started
+     * @param matchEnd The end index of the match
+     * @return The start index of the match
+     */
+    private static int backward(Dfa reverse, byte[] array, ByteBuffer buffer, int from, int matchEnd) {
+
+        int state = reverse.getStart();
+        int matchStart = matchEnd;
+
+        for (int position = matchEnd; position > from; position--) {
+            state = reverse.next(state, byteAt(array, buffer, position - 1));
+
+            if (state == TransitionTable.DEAD) {
+                break;
+            } else if (reverse.isAccepting(state)) {
+                matchStart = position - 1;
+            }
+        }
+
+        return matchStart;
+    }
+
+    /**
+     * Returns the unsigned value of the byte at the index of the input.
+     *
+     * @param array  The bytes of the input, or {@code null} if the input is a
+     *               buffer
+     * @param buffer The buffer of the input, or {@code null} if the input is an
+     *               array
+     * @param index  The index
+     * @return The unsigned value of the byte
+     */
+    private static int byteAt(byte[] array, ByteBuffer buffer, int index) {
+        return (array != null ? array[index] : buffer.get(index)) & 0xff;
+    }
+}
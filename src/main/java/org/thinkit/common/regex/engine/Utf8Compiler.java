@@ -0,0 +1,344 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiler translating a {@link Program} over code points into the
+ * equivalent program over the bytes of their UTF-8 encoding.
+ * <p>
+ * Each character set is split into the sequences of byte ranges that encode
+ * its code points, so that the automata built from the translated program take
+ * a byte per transition. The surrogate code points are left out, since they
+ * are not encoded in UTF-8.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class Utf8Compiler {
+
+    /**
+     * The largest code points encoded in one, two and three bytes
+     */
+    private static final int[] MAXIMUM_CODE_POINTS = { 0x7f, 0x7ff, 0xffff };
+
+    /**
+     * The byte program being built
+     */
+    private final Program program;
+
+    /**
+     * Whether the bytes of each character are matched from the last one
+     */
+    private final boolean reverse;
+
+    /**
+     * The sequences of byte ranges of the character sets already split
+     */
+    private final Map<CodePointSet, List<int[]>> sequences = new HashMap<>();
+
+    /**
+     * The opcodes
+     */
+    private int[] opcodes;
+
+    /**
+     * The next program counters
+     */
+    private int[] next;
+
+    /**
+     * The alternative program counters
+     */
+    private int[] alternative;
+
+    /**
+     * The arguments
+     */
+    private int[] arguments;
+
+    /**
+     * The character sets of the bytes
+     */
+    private CodePointSet[] characterSets;
+
+    /**
+     * The owners
+     */
+    private int[] owners;
+
+    /**
+     * The number of instructions
+     */
+    private int size;
+
+    /**
+     * Constructor
+     *
+     * @param program The program over code points
+     * @param reverse Whether the program matches the input backward
+     */
+    private Utf8Compiler(Program program, boolean reverse) {
+        this.program = program;
+        this.reverse = reverse;
+        this.opcodes = Arrays.copyOf(program.opcodes, program.getSize());
+        this.next = Arrays.copyOf(program.next, program.getSize());
+        this.alternative = Arrays.copyOf(program.alternative, program.getSize());
+        this.arguments = Arrays.copyOf(program.arguments, program.getSize());
+        this.characterSets = Arrays.copyOf(program.characterSets, program.getSize());
+        this.owners = Arrays.copyOf(program.owners, program.getSize());
+        this.size = program.getSize();
+    }
+
+    /**
+     * Translates the program over code points into the program over the bytes of
+     * their UTF-8 encoding.
+     *
+     * @param program The program over code points
+     * @param reverse Whether the program matches the input backward, in which
+     *                case the bytes of each character are matched from the last
+     *                one
+     * @return The program over bytes
+     */
+    static Program compile(Program program, boolean reverse) {
+        return new Utf8Compiler(program, reverse).build();
+    }
+
+    /**
+     * Returns the sequences of byte ranges encoding the code points of the range
+     * in UTF-8, where each sequence is an array of the first and last bytes of
+     * each position.
+     *
+     * @param first The first code point of the range
+     * @param last  The last code point of the range
+     * @return The sequences of byte ranges
+     */
+    static List<int[]> split(int first, int last) {
+        final List<int[]> sequences = new ArrayList<>();
+        split(first, last, sequences);
+        return sequences;
+    }
+
+    /**
+     * Builds the program over bytes.
+     *
+     * @return The program over bytes
+     */
+    private Program build() {
+
+        for (int pc = 0; pc < this.program.getSize(); pc++) {
+            if (this.program.opcodes[pc] == Program.CHARACTER) {
+                this.translate(pc);
+            }
+        }
+
+        return new Program(Arrays.copyOf(this.opcodes, this.size), Arrays.copyOf(this.next, this.size),
+                Arrays.copyOf(this.alternative, this.size), Arrays.copyOf(this.arguments, this.size),
+                Arrays.copyOf(this.characterSets, this.size), Arrays.copyOf(this.owners, this.size),
+                this.program.starts, this.program.groupCounts, this.size);
+    }
+
+    /**
+     * Replaces the character instruction with the instructions matching the bytes
+     * of its code points, entered at the same program counter.
+     *
+     * @param pc The program counter of the character instruction
+     */
+    private void translate(int pc) {
+
+        final List<int[]> sequences = this.sequences.computeIfAbsent(this.program.characterSets[pc],
+                Utf8Compiler::split);
+        final int owner = this.program.owners[pc];
+        final int target = this.program.next[pc];
+
+        if (sequences.isEmpty()) {
+            this.characterSets[pc] = CodePointSet.EMPTY;
+            return;
+        }
+
+        int entry = this.emitSequence(sequences.get(sequences.size() - 1), target, owner);
+
+        for (int i = sequences.size() - 2; i >= 0; i--) {
+            entry = this.emit(Program.SPLIT, this.emitSequence(sequences.get(i), target, owner), entry, 0, null,
+                    owner);
+        }
+
+        this.opcodes[pc] = this.opcodes[entry];
+        this.next[pc] = this.next[entry];
+        this.alternative[pc] = this.alternative[entry];
+        this.characterSets[pc] = this.characterSets[entry];
+    }
+
+    /**
+     * Emits the instructions matching the sequence of byte ranges and returns the
+     * entry program counter.
+     *
+     * @param sequence The sequence of byte ranges
+     * @param target   The program counter to continue at after the sequence
+     * @param owner    The owner of the instructions
+     * @return The entry program counter
+     */
+    private int emitSequence(int[] sequence, int target, int owner) {
+
+        final int length = sequence.length / 2;
+        int entry = target;
+
+        for (int i = 0; i < length; i++) {
+            final int position = this.reverse ? i : length - 1 - i;
+            entry = this.emit(Program.CHARACTER, entry, -1, 0,
+                    CodePointSet.range(sequence[position * 2], sequence[position * 2 + 1]), owner);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Emits the instruction and returns its program counter.
+     *
+     * @param opcode       The opcode
+     * @param next         The next program counter
+     * @param alternative  The alternative program counter
+     * @param argument     The argument
+     * @param characterSet The character set
+     * @param owner        The owner
+     * @return The program counter
+     */
+    private int emit(int opcode, int next, int alternative, int argument, CodePointSet characterSet, int owner) {
+
+        if (this.size == this.opcodes.length) {
+            final int capacity = this.size * 2 + 16;
+            this.opcodes = Arrays.copyOf(this.opcodes, capacity);
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.alternative = Arrays.copyOf(this.alternative, capacity);
+            this.arguments = Arrays.copyOf(this.arguments, capacity);
+            this.characterSets = Arrays.copyOf(this.characterSets, capacity);
+            this.owners = Arrays.copyOf(this.owners, capacity);
+        }
+
+        this.opcodes[this.size] = opcode;
+        this.next[this.size] = next;
+        this.alternative[this.size] = alternative;
+        this.arguments[this.size] = argument;
+        this.characterSets[this.size] = characterSet;
+        this.owners[this.size] = owner;
+
+        return this.size++;
+    }
+
+    /**
+     * Returns the sequences of byte ranges encoding the code points of the
+     * character set in UTF-8.
+     *
+     * @param characterSet The character set
+     * @return The sequences of byte ranges
+     */
+    private static List<int[]> split(CodePointSet characterSet) {
+
+        final List<int[]> sequences = new ArrayList<>();
+
+        for (int i = 0; i < characterSet.getRangeCount(); i++) {
+            final int first = characterSet.getRangeStart(i);
+            final int last = characterSet.getRangeEnd(i);
+
+            if (first < Character.MIN_SURROGATE) {
+                split(first, Math.min(last, Character.MIN_SURROGATE - 1), sequences);
+            }
+
+            if (last > Character.MAX_SURROGATE) {
+                split(Math.max(first, Character.MAX_SURROGATE + 1), last, sequences);
+            }
+        }
+
+        return sequences;
+    }
+
+    /**
+     * Adds the sequences of byte ranges encoding the code points of the range in
+     * UTF-8, splitting the range until the code points of each part are encoded
+     * by all the combinations of the bytes of the ranges of a sequence.
+     *
+     * @param first     The first code point of the range
+     * @param last      The last code point of the range
+     * @param sequences The sequences of byte ranges
+     */
+    private static void split(int first, int last, List<int[]> sequences) {
+
+        if (last <= MAXIMUM_CODE_POINTS[0]) {
+            sequences.add(new int[] { first, last });
+            return;
+        }
+
+        for (int maximum : MAXIMUM_CODE_POINTS) {
+            if (first <= maximum && maximum < last) {
+                split(first, maximum, sequences);
+                split(maximum + 1, last, sequences);
+                return;
+            }
+        }
+
+        for (int i = 1; i < 4; i++) {
+            final int mask = (1 << (6 * i)) - 1;
+
+            if ((first & ~mask) != (last & ~mask)) {
+                if ((first & mask) != 0) {
+                    split(first, first | mask, sequences);
+                    split((first | mask) + 1, last, sequences);
+                    return;
+                } else if ((last & mask) != mask) {
+                    split(first, (last & ~mask) - 1, sequences);
+                    split(last & ~mask, last, sequences);
+                    return;
+                }
+            }
+        }
+
+        final byte[] firstBytes = encode(first);
+        final byte[] lastBytes = encode(last);
+        final int[] sequence = new int[firstBytes.length * 2];
+
+        for (int i = 0; i < firstBytes.length; i++) {
+            sequence[i * 2] = firstBytes[i] & 0xff;
+            sequence[i * 2 + 1] = lastBytes[i] & 0xff;
+        }
+
+        sequences.add(sequence);
+    }
+
+    /**
+     * Returns the UTF-8 encoding of the code point.
+     *
+     * @param codePoint The code point
+     * @return The bytes of the encoding
+     */
+    private static byte[] encode(int codePoint) {
+        if (codePoint < 0x80) {
+            return new byte[] { (byte) codePoint };
+        } else if (codePoint < 0x800) {
+            return new byte[] { (byte) (0xc0 | codePoint >> 6), (byte) (0x80 | codePoint & 0x3f) };
+        } else if (codePoint < 0x10000) {
+            return new byte[] { (byte) (0xe0 | codePoint >> 12), (byte) (0x80 | codePoint >> 6 & 0x3f),
+                    (byte) (0x80 | codePoint & 0x3f) };
+        }
+
+        return new byte[] { (byte) (0xf0 | codePoint >> 18), (byte) (0x80 | codePoint >> 12 & 0x3f),
+                (byte) (0x80 | codePoint >> 6 & 0x3f), (byte) (0x80 | codePoint & 0x3f) };
+    }
+}
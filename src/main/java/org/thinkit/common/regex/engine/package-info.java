@@ -0,0 +1,8 @@
+/**
+ * The package for the automaton engines that run the regular subset of the
+ * regular expressions without backtracking.
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+package org.thinkit.common.regex.engine;
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link BatchMatcher} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class BatchMatcherTest {
+
+    /**
+     * The pool testing the chunks, whose threads are daemon threads
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @Nested
+    class TestMatchAll {
+
+        @ParameterizedTest
+        @ValueSource(ints = { 0, 1, 63, 64, 65, 4096, 4097, 100_000 })
+        void testSameAsEachTest(int count) {
+
+            final BitSet expected = new BitSet();
+
+            for (int index = 0; index < count; index++) {
+                if (index % 3 == 0 || index % 64 == 63) {
+                    expected.set(index);
+                }
+            }
+
+            final BatchMatcher batchMatcher = new BatchMatcher(expected::get, count);
+
+            assertEquals(expected, batchMatcher.matchAll());
+            assertEquals(expected, batchMatcher.matchAll(POOL));
+        }
+
+        @Test
+        void testEachValueIsTestedOnce() {
+
+            final AtomicInteger tested = new AtomicInteger();
+            new BatchMatcher(index -> tested.incrementAndGet() > 0, 50_000).matchAll(POOL);
+
+            assertEquals(50_000, tested.get());
+        }
+
+        @Test
+        void testExceptionIsThrown() {
+            final BatchMatcher batchMatcher = new BatchMatcher(index -> {
+                if (index == 30_000) {
+                    throw new IllegalStateException("test");
+                }
+
+                return true;
+            }, 50_000);
+
+            assertThrows(IllegalStateException.class, () -> batchMatcher.matchAll());
+            assertThrows(IllegalStateException.class, () -> batchMatcher.matchAll(POOL));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link ElapsedTimeThreshold} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class ElapsedTimeThresholdTest {
+
+    @Nested
+    class TestCombine {
+
+        @Test
+        void testNoValue() {
+            assertEquals(ElapsedTimeThreshold.DEFAULT_VALUE, new ElapsedTimeThreshold().combine(Set.of()));
+        }
+
+        @Test
+        void testSmallestValue() {
+            assertEquals("500 us", new ElapsedTimeThreshold().combine(Set.of("1 s", "500 us", "20 ms")));
+        }
+    }
+
+    @Nested
+    class TestAccepts {
+
+        @Test
+        void testDefaultValue() {
+            final ElapsedTimeThreshold elapsedTimeThreshold = new ElapsedTimeThreshold();
+
+            assertEquals("20 ms", elapsedTimeThreshold.getValue());
+            assertFalse(elapsedTimeThreshold.accepts(19_999_999L));
+            assertTrue(elapsedTimeThreshold.accepts(20_000_000L));
+        }
+
+        @Test
+        void testValue() {
+            final ElapsedTimeThreshold elapsedTimeThreshold = new ElapsedTimeThreshold();
+            elapsedTimeThreshold.setValue("2 s");
+
+            assertEquals("2 s", elapsedTimeThreshold.getValue());
+            assertFalse(elapsedTimeThreshold.accepts(1_999_999_999L));
+            assertTrue(elapsedTimeThreshold.accepts(2_000_000_000L));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "20", "ms", "20 years", "x ms" })
+        void testInvalidValue(String value) {
+            final ElapsedTimeThreshold elapsedTimeThreshold = new ElapsedTimeThreshold();
+            elapsedTimeThreshold.setValue(value);
+
+            assertFalse(elapsedTimeThreshold.accepts(Long.MAX_VALUE - 1));
+        }
+    }
+}
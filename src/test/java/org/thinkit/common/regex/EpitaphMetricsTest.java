@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.thinkit.common.regex.catalog.MatchOperation;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The test class for the {@link EpitaphMetrics} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class EpitaphMetricsTest {
+
+    /**
+     * Runs the operations passed as an argument with a new sink registered.
+     *
+     * @param operations The operations
+     * @return The sink that recorded the operations
+     */
+    private static InMemoryMetricsSink record(Runnable operations) {
+
+        final InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+        EpitaphMetrics.register(metricsSink);
+
+        try {
+            operations.run();
+        } finally {
+            EpitaphMetrics.unregister(metricsSink);
+        }
+
+        return metricsSink;
+    }
+
+    @Nested
+    class TestRegistration {
+
+        @Test
+        void testRegisterTwice() {
+            final InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+
+            record(() -> {
+                EpitaphMetrics.register(metricsSink);
+                EpitaphMetrics.register(metricsSink);
+
+                try {
+                    EpitaphPattern.builder().pattern("metrics-twice").build().find("metrics-twice");
+                } finally {
+                    EpitaphMetrics.unregister(metricsSink);
+                }
+            });
+
+            assertEquals(1, metricsSink.getMetrics("metrics-twice").getOperation(MatchOperation.FIND).getCount());
+        }
+
+        @Test
+        void testUnregister() {
+            final InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+            EpitaphMetrics.register(metricsSink);
+            EpitaphMetrics.unregister(metricsSink);
+            EpitaphPattern.builder().pattern("metrics-unregistered").build().find("metrics-unregistered");
+
+            assertNull(metricsSink.getMetrics("metrics-unregistered"));
+        }
+
+        @Test
+        void testIsEnabled() {
+            record(() -> assertTrue(EpitaphMetrics.isEnabled()));
+            assertFalse(EpitaphMetrics.isEnabled());
+        }
+
+        @Test
+        void testWhenSinkIsNull() {
+            assertThrows(NullPointerException.class, () -> EpitaphMetrics.register(null));
+        }
+    }
+
+    @Nested
+    class TestCompile {
+
+        @Test
+        void testCache() {
+            final PatternCache patternCache = PatternCache.builder().build();
+            final InMemoryMetricsSink metricsSink = record(() -> {
+                EpitaphPattern.builder().pattern("metrics-[0-9]+").cache(patternCache).build();
+                EpitaphPattern.builder().pattern("metrics-[0-9]+").cache(patternCache).build();
+            });
+
+            final PatternMetrics patternMetrics = metricsSink.getMetrics("metrics-[0-9]+");
+
+            assertEquals(2, patternMetrics.getCompileCount());
+            assertEquals(1, patternMetrics.getCacheHitCount());
+            assertEquals(2, patternMetrics.getCompileLatency().getCount());
+        }
+
+        @Test
+        void testDisabledCache() {
+            final InMemoryMetricsSink metricsSink = record(
+                    () -> EpitaphPattern.builder().pattern("metrics-[a-z]+").cache(PatternCache.disabled()).build());
+
+            final PatternMetrics patternMetrics = metricsSink.getMetrics("metrics-[a-z]+");
+
+            assertEquals(1, patternMetrics.getCompileCount());
+            assertEquals(0, patternMetrics.getCacheHitCount());
+        }
+
+        @Test
+        void testPreset() {
+            final InMemoryMetricsSink metricsSink = record(() -> {
+                EpitaphPattern.builder().pattern(RegexPattern.POST_CODE_JP).build();
+                EpitaphPattern.builder().pattern(RegexPattern.POST_CODE_JP).build();
+            });
+
+            final PatternMetrics patternMetrics = metricsSink.getMetrics(RegexPattern.POST_CODE_JP.getTag());
+
+            assertEquals(2, patternMetrics.getCompileCount());
+            assertTrue(patternMetrics.getCacheHitCount() >= 1);
+        }
+    }
+
+    @Nested
+    class TestEpitaph {
+
+        @Test
+        void testOperations() {
+            final Epitaph epitaph = Epitaph.builder().pattern("[0-9]{3}-metrics").input("123-metrics 456-metrics")
+                    .build();
+            final InMemoryMetricsSink metricsSink = record(() -> {
+                assertTrue(epitaph.find());
+                assertTrue(epitaph.find());
+                assertFalse(epitaph.find());
+                assertTrue(epitaph.lookingAt());
+                assertFalse(epitaph.matches());
+            });
+
+            final PatternMetrics patternMetrics = metricsSink.getMetrics("[0-9]{3}-metrics");
+            final OperationMetrics find = patternMetrics.getOperation(MatchOperation.FIND);
+
+            assertEquals(2, find.getMatchCount());
+            assertEquals(1, find.getNoMatchCount());
+            assertEquals(23, find.getInputLength().getMaximum());
+            assertEquals(1, patternMetrics.getOperation(MatchOperation.LOOKING_AT).getMatchCount());
+            assertEquals(1, patternMetrics.getOperation(MatchOperation.MATCHES).getNoMatchCount());
+        }
+
+        @Test
+        void testReplace() {
+            final Epitaph epitaph = Epitaph.builder().pattern("metrics-replaced").input("metrics-replaced").build();
+            final InMemoryMetricsSink metricsSink = record(() -> {
+                assertEquals("done", epitaph.replaceFirst("done"));
+                assertEquals("done", epitaph.replaceAll("done"));
+                assertEquals("none", epitaph.reset("none").replaceAll("done"));
+                assertEquals("metrics-replaced", epitaph.reset("metrics-replaced").replaceFirst("$0"));
+                assertEquals("metrics-replaced", epitaph.replaceAll("metrics-replaced"));
+            });
+
+            final PatternMetrics patternMetrics = metricsSink.getMetrics("metrics-replaced");
+
+            assertEquals(2, patternMetrics.getOperation(MatchOperation.REPLACE_FIRST).getMatchCount());
+            assertEquals(0, patternMetrics.getOperation(MatchOperation.REPLACE_FIRST).getNoMatchCount());
+            assertEquals(2, patternMetrics.getOperation(MatchOperation.REPLACE_ALL).getMatchCount());
+            assertEquals(1, patternMetrics.getOperation(MatchOperation.REPLACE_ALL).getNoMatchCount());
+        }
+    }
+
+    @Nested
+    class TestEpitaphPattern {
+
+        @Test
+        void testCharacters() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[a-z]+-metrics").build();
+            final InMemoryMetricsSink metricsSink = record(() -> {
+                assertTrue(epitaphPattern.find("see abc-metrics"));
+                assertFalse(epitaphPattern.lookingAt("see abc-metrics"));
+                assertTrue(epitaphPattern.matches("abc-metrics"));
+            });
+
+            final PatternMetrics patternMetrics = metricsSink.getMetrics("[a-z]+-metrics");
+
+            assertEquals(1.0, patternMetrics.getOperation(MatchOperation.FIND).getMatchRatio());
+            assertEquals(0.0, patternMetrics.getOperation(MatchOperation.LOOKING_AT).getMatchRatio());
+            assertEquals(11, patternMetrics.getOperation(MatchOperation.MATCHES).getInputLength().getSum());
+            assertEquals(0, patternMetrics.getCompileCount());
+        }
+
+        @Test
+        void testBytes() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[0-9]+-bytes").build();
+            final InMemoryMetricsSink metricsSink = record(
+                    () -> assertTrue(epitaphPattern.find("番号 42-bytes".getBytes(StandardCharsets.UTF_8))));
+
+            final OperationMetrics find = metricsSink.getMetrics("[0-9]+-bytes").getOperation(MatchOperation.FIND);
+
+            assertEquals(1, find.getMatchCount());
+            assertEquals(15, find.getInputLength().getSum());
+        }
+    }
+}
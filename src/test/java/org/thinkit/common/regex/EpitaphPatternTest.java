@@ -0,0 +1,806 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.thinkit.common.regex.catalog.BacktrackingPolicy;
+import org.thinkit.common.regex.catalog.RegexEngine;
+import org.thinkit.common.regex.catalog.RegexOption;
+import org.thinkit.common.regex.catalog.RegexPattern;
+import org.thinkit.common.regex.engine.Automaton;
+
+/**
+ * The test class for the {@link EpitaphPattern} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class EpitaphPatternTest {
+
+    /**
+     * The pool searching the segments of {@link EpitaphPattern#findAll} , whose
+     * threads are daemon threads
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    /**
+     * The large input split into segments by {@link EpitaphPattern#findAll}
+     */
+    private static final String LARGE_INPUT = generateInput(new Random(20201231L), 300_000);
+
+    @Nested
+    class TestBuilder {
+
+        @Test
+        void testWhenPatternMethodDoesNotCalled() {
+            final IllegalStateException exception = assertThrows(IllegalStateException.class,
+                    () -> EpitaphPattern.builder().build());
+            assertEquals("The regex pattern is required", exception.getMessage());
+        }
+
+        @Test
+        void testPresetIsShared() {
+            assertSame(EpitaphPattern.builder().pattern(RegexPattern.EMAIL_ADDRESS).build(),
+                    EpitaphPattern.builder().pattern(RegexPattern.EMAIL_ADDRESS).build());
+        }
+
+        @Test
+        void testPresetWithOption() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.ALPHABET_UPPER_CASE)
+                    .option(EnumSet.of(RegexOption.CASE_INSENSITIVE)).build();
+
+            assertNotSame(EpitaphPattern.builder().pattern(RegexPattern.ALPHABET_UPPER_CASE).build(), epitaphPattern);
+            assertTrue(epitaphPattern.matches("abc"));
+        }
+
+        @Test
+        void testPatternIsCached() {
+            final PatternCache patternCache = PatternCache.builder().build();
+
+            assertSame(EpitaphPattern.builder().pattern("[0-9]+").cache(patternCache).build(),
+                    EpitaphPattern.builder().pattern("[0-9]+").cache(patternCache).build());
+        }
+    }
+
+    @Nested
+    class TestOneShot {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "test@gmail.com", "test@something.co.jp", "test@my.email.jp" })
+        void testMatches(final String parameter) {
+            assertTrue(EpitaphPattern.builder().pattern(RegexPattern.EMAIL_ADDRESS).build().matches(parameter));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { " test@gmail.com", "test@something.co.jp ", "testmy.email.jp" })
+        void testNotMatch(final String parameter) {
+            assertFalse(EpitaphPattern.builder().pattern(RegexPattern.EMAIL_ADDRESS).build().matches(parameter));
+        }
+
+        @Test
+        void testFind() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build();
+
+            assertTrue(epitaphPattern.find("abc123"));
+            assertFalse(epitaphPattern.find("abcdef"));
+        }
+
+        @Test
+        void testLookingAt() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build();
+
+            assertTrue(epitaphPattern.lookingAt("123abc"));
+            assertFalse(epitaphPattern.lookingAt("abc123"));
+        }
+
+        @Test
+        void testSharedBetweenThreads() throws Exception {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.POST_CODE_JP).build();
+            final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+            try {
+                final List<Future<Boolean>> futures = new ArrayList<>();
+
+                for (int i = 0; i < 64; i++) {
+                    final String input = i % 2 == 0 ? String.format("%03d-%04d", i, i) : String.format("%07d", i);
+                    final boolean expected = i % 2 == 0;
+
+                    futures.add(executorService.submit(() -> {
+                        for (int j = 0; j < 1000; j++) {
+                            if (epitaphPattern.matches(input) != expected) {
+                                return false;
+                            }
+                        }
+
+                        return true;
+                    }));
+                }
+
+                for (Future<Boolean> future : futures) {
+                    assertTrue(future.get());
+                }
+            } finally {
+                executorService.shutdown();
+            }
+        }
+    }
+
+    @Nested
+    class TestEpitaph {
+
+        @Test
+        void testEpitaph() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build();
+            final Epitaph epitaph = epitaphPattern.epitaph("abc123def456");
+
+            assertSame(epitaphPattern, epitaph.pattern());
+            assertTrue(epitaph.find());
+            assertEquals("123", epitaph.group());
+            assertTrue(epitaph.find());
+            assertEquals("456", epitaph.group());
+        }
+    }
+
+    @Nested
+    class TestEngine {
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "EMAIL_ADDRESS", "WEB_URL", "CELL_PHONE_JP", "NUMERIC",
+                "JAPANESE_ALPHABET" })
+        void testDfaIsSelected(final RegexPattern regexPattern) {
+            assertEquals(RegexEngine.DFA, EpitaphPattern.builder().pattern(regexPattern).build().getEngine());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "FIXED_LINE_PHONE_JP", "CELL_PHONE_WITH_HYPHEN_JP",
+                "POST_CODE_JP", "DATE", "DATE_WITH_HYPHEN", "DATE_WITH_SLASH", "IP_ADDRESS" })
+        void testHandCodedIsSelected(final RegexPattern regexPattern) {
+            assertEquals(RegexEngine.HAND_CODED, EpitaphPattern.builder().pattern(regexPattern).build().getEngine());
+            assertEquals(RegexEngine.HAND_CODED,
+                    EpitaphPattern.builder().pattern(regexPattern.getTag()).build().getEngine());
+            assertEquals(RegexEngine.DFA,
+                    EpitaphPattern.builder().pattern(regexPattern).engine(RegexEngine.DFA).build().getEngine());
+        }
+
+        @Test
+        void testHandCodedIsNotSelectedWithFlags() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.POST_CODE_JP)
+                    .option(EnumSet.of(RegexOption.LITERAL)).build();
+
+            assertNotEquals(RegexEngine.HAND_CODED, epitaphPattern.getEngine());
+            assertFalse(epitaphPattern.matches("123-4567"));
+            assertTrue(epitaphPattern.matches(RegexPattern.POST_CODE_JP.getTag()));
+        }
+
+        @Test
+        void testForceHandCodedOnUnsupportedPattern() {
+            assertThrows(IllegalStateException.class, () -> EpitaphPattern.builder().pattern(RegexPattern.NUMERIC)
+                    .engine(RegexEngine.HAND_CODED).build());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "DOMAIN_NAME", "USER_ID", "PASSWORD" })
+        void testJdkIsSelected(final RegexPattern regexPattern) {
+            assertEquals(RegexEngine.JDK, EpitaphPattern.builder().pattern(regexPattern).build().getEngine());
+        }
+
+        @Test
+        void testForceJdk() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC)
+                    .engine(RegexEngine.JDK).build();
+
+            assertEquals(RegexEngine.JDK, epitaphPattern.getEngine());
+            assertTrue(epitaphPattern.find("abc123"));
+            assertSame(epitaphPattern,
+                    EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).engine(RegexEngine.JDK).build());
+        }
+
+        @Test
+        void testLazyDfaIsSelectedForLargeAutomaton() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[ab]*a[ab]{20}").build();
+
+            assertEquals(RegexEngine.LAZY_DFA, epitaphPattern.getEngine());
+            assertTrue(epitaphPattern.matches("ba" + "b".repeat(20)));
+            assertFalse(epitaphPattern.matches("b".repeat(22)));
+            assertThrows(IllegalStateException.class, () -> epitaphPattern.withEngine(RegexEngine.DFA));
+        }
+
+        @Test
+        void testForceLazyDfa() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC)
+                    .engine(RegexEngine.LAZY_DFA).build();
+
+            assertEquals(RegexEngine.LAZY_DFA, epitaphPattern.getEngine());
+            assertTrue(epitaphPattern.find("abc123"));
+            assertFalse(epitaphPattern.find("abc"));
+        }
+
+        @Test
+        void testForceLazyDfaOnUnsupportedPattern() {
+            assertThrows(IllegalStateException.class, () -> EpitaphPattern.builder().pattern(RegexPattern.PASSWORD)
+                    .engine(RegexEngine.LAZY_DFA).build());
+        }
+
+        @Test
+        void testForcePikeVm() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("(a+)+b")
+                    .engine(RegexEngine.PIKE_VM).build();
+
+            assertEquals(RegexEngine.PIKE_VM, epitaphPattern.getEngine());
+            assertFalse(epitaphPattern.matches("a".repeat(100)));
+            assertTrue(epitaphPattern.find("a".repeat(100) + "b"));
+        }
+
+        @Test
+        void testForcePikeVmOnUnsupportedPattern() {
+            assertThrows(IllegalStateException.class, () -> EpitaphPattern.builder().pattern("(a)\\1")
+                    .engine(RegexEngine.PIKE_VM).build());
+        }
+
+        @Test
+        void testForceDfaOnUnsupportedPattern() {
+            assertThrows(IllegalStateException.class,
+                    () -> EpitaphPattern.builder().pattern(RegexPattern.PASSWORD).engine(RegexEngine.DFA).build());
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "test@gmail.com", "mail to test@gmail.com.", "123-4567", "2020-12-31",
+                "192.168.0.1", "090-1234-5678" })
+        void testSameResultsOnEachEngine(final String parameter) {
+            for (RegexPattern regexPattern : RegexPattern.values()) {
+                final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+                final EpitaphPattern jdkPattern = epitaphPattern.withEngine(RegexEngine.JDK);
+
+                assertEquals(jdkPattern.matches(parameter), epitaphPattern.matches(parameter));
+                assertEquals(jdkPattern.find(parameter), epitaphPattern.find(parameter));
+                assertEquals(jdkPattern.lookingAt(parameter), epitaphPattern.lookingAt(parameter));
+            }
+        }
+    }
+
+    @Nested
+    class TestBytes {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "test@gmail.com", "mail to test@gmail.com.", "123-4567", "2020-12-31",
+                "192.168.0.1", "090-1234-5678", "ひらがな", "カタカナ", "漢字", "東京タワー", "abc😀" })
+        void testSameResultsAsString(final String parameter) {
+
+            final byte[] bytes = parameter.getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+            for (RegexPattern regexPattern : RegexPattern.values()) {
+                for (EpitaphPattern epitaphPattern : List.of(EpitaphPattern.builder().pattern(regexPattern).build(),
+                        EpitaphPattern.builder().pattern(regexPattern).engine(RegexEngine.JDK).build())) {
+                    final String message = regexPattern + " " + epitaphPattern.getEngine();
+
+                    assertEquals(epitaphPattern.matches(parameter), epitaphPattern.matches(bytes), message);
+                    assertEquals(epitaphPattern.find(parameter), epitaphPattern.find(bytes), message);
+                    assertEquals(epitaphPattern.lookingAt(parameter), epitaphPattern.lookingAt(bytes), message);
+                    assertEquals(epitaphPattern.matches(parameter), epitaphPattern.matches(direct), message);
+                    assertEquals(epitaphPattern.find(parameter), epitaphPattern.find(direct), message);
+                    assertEquals(epitaphPattern.lookingAt(parameter), epitaphPattern.lookingAt(direct), message);
+                    assertEquals(0, direct.position());
+                }
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "JDK", "DFA" })
+        void testFindWithByteOffsets(final RegexEngine regexEngine) {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.HIRAGANA)
+                    .engine(regexEngine).build();
+            final byte[] bytes = "漢字ひらがなカナのの".getBytes(StandardCharsets.UTF_8);
+            final int[] offsets = new int[2];
+
+            assertTrue(epitaphPattern.find(bytes, 0, offsets));
+            assertArrayEquals(new int[] { 6, 18 }, offsets);
+            assertTrue(epitaphPattern.find(ByteBuffer.wrap(bytes), 18, offsets));
+            assertArrayEquals(new int[] { 24, 30 }, offsets);
+            assertFalse(epitaphPattern.find(bytes, 30, offsets));
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "DOMAIN_NAME", "PASSWORD" })
+        void testFallbackToDecoding(final RegexPattern regexPattern) {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+
+            for (String parameter : List.of("example.com", "Passw0rd!", "あいう example.com")) {
+                final byte[] bytes = parameter.getBytes(StandardCharsets.UTF_8);
+
+                assertEquals(epitaphPattern.matches(parameter), epitaphPattern.matches(bytes));
+                assertEquals(epitaphPattern.find(parameter), epitaphPattern.find(ByteBuffer.wrap(bytes)));
+            }
+        }
+
+        @Test
+        void testBufferRange() {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build();
+            final ByteBuffer buffer = ByteBuffer.wrap("12ab34".getBytes(StandardCharsets.UTF_8));
+
+            assertTrue(epitaphPattern.matches(buffer.position(4)));
+            assertFalse(epitaphPattern.find(buffer.position(2).limit(4)));
+            assertEquals(2, buffer.position());
+        }
+    }
+
+    @Nested
+    class TestFindAll {
+
+        @ParameterizedTest
+        @EnumSource(RegexPattern.class)
+        void testSameAsRepeatedFind(final RegexPattern regexPattern) {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+            final List<PatternMatch> expected = findByPattern(regexPattern.getTag(), LARGE_INPUT, false);
+
+            assertEquals(expected, epitaphPattern.findAll(LARGE_INPUT, POOL));
+            assertEquals(expected, epitaphPattern.withEngine(RegexEngine.JDK).findAll(LARGE_INPUT, POOL));
+        }
+
+        @ParameterizedTest
+        @EnumSource(RegexPattern.class)
+        void testBytes(final RegexPattern regexPattern) {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+            final byte[] bytes = ("xyz" + LARGE_INPUT).getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).position(3);
+            final List<PatternMatch> expected = findByPattern(regexPattern.getTag(), LARGE_INPUT, true);
+
+            assertEquals(expected, epitaphPattern.findAll(direct, POOL));
+            assertEquals(expected, epitaphPattern.findAll(ByteBuffer.wrap(bytes).position(3), POOL));
+            assertEquals(3, direct.position());
+        }
+
+        @Test
+        void testSmallInput() {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build();
+
+            assertEquals(List.of(new PatternMatch(3, 6), new PatternMatch(7, 8)), epitaphPattern.findAll("abc123 4"));
+            assertEquals(List.of(new PatternMatch(3, 4), new PatternMatch(7, 8)),
+                    epitaphPattern.findAll(ByteBuffer.wrap("ひ1ひ2".getBytes(StandardCharsets.UTF_8)).position(3)));
+            assertEquals(List.of(), epitaphPattern.findAll(""));
+        }
+    }
+
+    @Nested
+    class TestMatchesEach {
+
+        @ParameterizedTest
+        @EnumSource(RegexPattern.class)
+        void testSameAsMatches(final RegexPattern regexPattern) {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+            final String[] values = LARGE_INPUT.split(" ");
+            final Pattern pattern = Pattern.compile(regexPattern.getTag());
+            final BitSet expected = new BitSet();
+            final StringBuilder buffer = new StringBuilder();
+            final int[] offsets = new int[values.length + 1];
+
+            for (int i = 0; i < values.length; i++) {
+                expected.set(i, pattern.matcher(values[i]).matches());
+                buffer.append(values[i]);
+                offsets[i + 1] = buffer.length();
+            }
+
+            assertEquals(expected, epitaphPattern.matchesEach(values));
+            assertEquals(expected, epitaphPattern.matchesEach(values, POOL));
+            assertEquals(expected, epitaphPattern.matchesEach(List.of(values)));
+            assertEquals(expected, epitaphPattern.matchesEach(new LinkedList<>(List.of(values)), POOL));
+            assertEquals(expected, epitaphPattern.matchesEach(buffer, offsets));
+            assertEquals(expected, epitaphPattern.matchesEach(buffer, offsets, POOL));
+            assertEquals(expected, epitaphPattern.withEngine(RegexEngine.JDK).matchesEach(buffer, offsets, POOL));
+        }
+
+        @Test
+        void testSplittingSurrogatePair() {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[^a]").build();
+            final BitSet expected = new BitSet();
+            expected.set(1);
+            expected.set(2);
+
+            assertEquals(expected, epitaphPattern.matchesEach("a\uD83D\uDE00", new int[] { 0, 1, 2, 3 }));
+        }
+
+        @Test
+        void testEmpty() {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build();
+
+            assertEquals(new BitSet(), epitaphPattern.matchesEach(List.of()));
+            assertEquals(new BitSet(), epitaphPattern.matchesEach("123", new int[0]));
+            assertEquals(new BitSet(), epitaphPattern.matchesEach("123", new int[] { 3 }));
+        }
+
+        @Test
+        void testInvalidOffsets() {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build();
+
+            assertThrows(IndexOutOfBoundsException.class, () -> epitaphPattern.matchesEach("123", new int[] { 0, 4 }));
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> epitaphPattern.matchesEach("123", new int[] { 2, 1, 3 }));
+            assertThrows(IndexOutOfBoundsException.class, () -> epitaphPattern.matchesEach("123", new int[] { -1 }));
+        }
+
+        @Test
+        void testNullValue() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build();
+            assertThrows(NullPointerException.class,
+                    () -> epitaphPattern.matchesEach(new CharSequence[] { "1", null }, POOL));
+        }
+    }
+
+    @Nested
+    class TestResults {
+
+        @ParameterizedTest
+        @EnumSource(RegexPattern.class)
+        void testSameAsRepeatedFind(final RegexPattern regexPattern) {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+            final List<PatternMatch> expected = findByPattern(regexPattern.getTag(), LARGE_INPUT, false);
+
+            assertEquals(expected, epitaphPattern.results(LARGE_INPUT)
+                    .map(match -> new PatternMatch(match.start(), match.end())).collect(Collectors.toList()));
+            assertEquals(expected, epitaphPattern.results(LARGE_INPUT).parallel()
+                    .map(match -> new PatternMatch(match.start(), match.end())).collect(Collectors.toList()));
+        }
+
+        @Test
+        void testShortCircuit() {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build();
+            final CharSequence input = new PrefixSequence("abc123 4 56 ", 1 << 20);
+
+            assertEquals("123", epitaphPattern.results(input).findFirst().get().group());
+            assertEquals(2, epitaphPattern.results(input).limit(2).count());
+        }
+
+        @Test
+        void testEmptyMatches() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("a*").build();
+            assertEquals(List.of("", "aa", ""),
+                    epitaphPattern.results("baa").map(MatchResult::group).collect(Collectors.toList()));
+        }
+    }
+
+    @Nested
+    class TestBudget {
+
+        /**
+         * The pattern backtracking catastrophically on {@link #hostileInput}
+         */
+        private final String hostilePattern = "(.*a){12}b";
+
+        /**
+         * The input on which {@link #hostilePattern} backtracks catastrophically
+         */
+        private final String hostileInput = "a".repeat(22) + "!";
+
+        @Test
+        void testStepBudgetExceeded() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(this.hostilePattern).engine(RegexEngine.JDK)
+                    .stepBudget(100_000).build();
+            final MatchBudgetExceededException exception = assertThrows(MatchBudgetExceededException.class,
+                    () -> epitaphPattern.find(this.hostileInput));
+
+            assertEquals(this.hostilePattern, exception.getRegexPattern());
+            assertEquals(100_001, exception.getSteps());
+            assertTrue(exception.getOffset() >= 0 && exception.getOffset() < this.hostileInput.length());
+            assertTrue(exception.getMessage().contains(this.hostilePattern));
+        }
+
+        @Test
+        void testTimeoutExceeded() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(this.hostilePattern).engine(RegexEngine.JDK)
+                    .timeout(Duration.ofMillis(50)).build();
+            final MatchBudgetExceededException exception = assertThrows(MatchBudgetExceededException.class,
+                    () -> epitaphPattern.matches(this.hostileInput));
+
+            assertTrue(exception.getElapsed().compareTo(Duration.ofMillis(50)) > 0);
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "JDK", "DFA", "PIKE_VM" })
+        void testAllOperationsAreLimited(RegexEngine engine) {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[a-z]+@[a-z]+").engine(engine)
+                    .stepBudget(10).build();
+            final String input = "mail to test@gmail.com";
+            final String value = "abcdefghijklmnop@gmail";
+
+            assertThrows(MatchBudgetExceededException.class, () -> epitaphPattern.find(input));
+            assertThrows(MatchBudgetExceededException.class, () -> epitaphPattern.matches(value));
+            assertThrows(MatchBudgetExceededException.class, () -> epitaphPattern.lookingAt("a".repeat(20)));
+            assertThrows(MatchBudgetExceededException.class, () -> epitaphPattern.findAll(input, POOL));
+            assertThrows(MatchBudgetExceededException.class,
+                    () -> epitaphPattern.matchesEach(List.of("a@b", value), POOL));
+            assertThrows(MatchBudgetExceededException.class,
+                    () -> epitaphPattern.results(input).collect(Collectors.toList()));
+            assertThrows(MatchBudgetExceededException.class, () -> epitaphPattern.epitaph(input).find());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "JDK", "DFA", "LAZY_DFA", "PIKE_VM" })
+        void testSufficientBudget(RegexEngine engine) {
+            final EpitaphPattern unlimited = EpitaphPattern.builder().pattern(RegexPattern.EMAIL_ADDRESS)
+                    .engine(engine).build();
+            final EpitaphPattern limited = EpitaphPattern.builder().pattern(RegexPattern.EMAIL_ADDRESS).engine(engine)
+                    .stepBudget(10_000_000).timeout(Duration.ofMinutes(1)).build();
+            final String input = LARGE_INPUT.substring(0, 30_000);
+
+            assertSame(engine, limited.getEngine());
+            assertEquals(unlimited.findAll(input, POOL), limited.findAll(input, POOL));
+            assertEquals(unlimited.results(input).map(MatchResult::group).collect(Collectors.toList()),
+                    limited.results(input).map(MatchResult::group).collect(Collectors.toList()));
+            assertEquals(unlimited.find(input), limited.find(input));
+            assertEquals(unlimited.matchesEach(List.of("a@b.c", input)), limited.matchesEach(List.of("a@b.c", input)));
+        }
+
+        @Test
+        void testBudgetPerValue() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[0-9]+").stepBudget(5).build();
+            final String buffer = "1234" + "5678" + "9012";
+
+            assertEquals(BitSet.valueOf(new long[] { 0b111 }),
+                    epitaphPattern.matchesEach(buffer, new int[] { 0, 4, 8, 12 }));
+        }
+
+        @Test
+        void testNoBudget() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[a-z]+").build();
+            final String input = "abc";
+
+            assertSame(input, epitaphPattern.guard(input));
+        }
+
+        @Test
+        void testInvalidBudget() {
+            final EpitaphPattern.Builder builder = EpitaphPattern.builder();
+
+            assertThrows(IllegalArgumentException.class, () -> builder.stepBudget(0));
+            assertThrows(IllegalArgumentException.class, () -> builder.stepBudget(-1));
+            assertThrows(IllegalArgumentException.class, () -> builder.timeout(Duration.ZERO));
+            assertThrows(IllegalArgumentException.class, () -> builder.timeout(Duration.ofMillis(-1)));
+        }
+    }
+
+    @Nested
+    class TestBacktrackingPolicy {
+
+        /**
+         * The pattern backtracking in polynomial time
+         */
+        private final String polynomialPattern = "(.*a){12}b";
+
+        /**
+         * The pattern backtracking in exponential time, which is run by
+         * {@link RegexEngine#JDK} because of its lookahead
+         */
+        private final String exponentialPattern = "(\\w+\\s?)+(?=!)";
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, mode = EnumSource.Mode.EXCLUDE, names = { "PASSWORD" })
+        void testPresetsAccepted(RegexPattern regexPattern) {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern)
+                    .backtrackingPolicy(BacktrackingPolicy.REJECT).build();
+
+            assertSame(EpitaphPattern.builder().pattern(regexPattern).build(), epitaphPattern);
+        }
+
+        @Test
+        void testPresetRejected() {
+            final EpitaphPattern.Builder builder = EpitaphPattern.builder().pattern(RegexPattern.PASSWORD);
+
+            assertThrows(IllegalStateException.class,
+                    () -> builder.backtrackingPolicy(BacktrackingPolicy.REJECT).build());
+            assertThrows(IllegalStateException.class,
+                    () -> builder.backtrackingPolicy(BacktrackingPolicy.LINEAR_ENGINE).build());
+            assertEquals(RegexEngine.JDK, builder.backtrackingPolicy(BacktrackingPolicy.ALLOW).build().getEngine());
+        }
+
+        @Test
+        void testRejected() {
+            final IllegalStateException exception = assertThrows(IllegalStateException.class,
+                    () -> EpitaphPattern.builder().pattern(this.exponentialPattern)
+                            .backtrackingPolicy(BacktrackingPolicy.REJECT).build());
+
+            assertTrue(exception.getMessage().contains("exponential"));
+            assertTrue(exception.getMessage().contains("(\\w+\\s?)+"));
+        }
+
+        @Test
+        void testRoutedToLinearEngine() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(this.polynomialPattern)
+                    .engine(RegexEngine.JDK).backtrackingPolicy(BacktrackingPolicy.LINEAR_ENGINE).build();
+
+            assertEquals(RegexEngine.PIKE_VM, epitaphPattern.getEngine());
+            assertFalse(epitaphPattern.find("a".repeat(10_000) + "!"));
+            assertTrue(epitaphPattern.matches("a".repeat(12) + "b"));
+        }
+
+        @Test
+        void testAutomataAccepted() {
+            assertEquals(RegexEngine.DFA, EpitaphPattern.builder().pattern(this.polynomialPattern)
+                    .backtrackingPolicy(BacktrackingPolicy.REJECT).build().getEngine());
+            assertEquals(RegexEngine.PIKE_VM, EpitaphPattern.builder().pattern(this.polynomialPattern)
+                    .engine(RegexEngine.PIKE_VM).backtrackingPolicy(BacktrackingPolicy.REJECT).build().getEngine());
+        }
+
+        @Test
+        void testLinearAccepted() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[a-z]+(?=@)")
+                    .backtrackingPolicy(BacktrackingPolicy.REJECT).build();
+
+            assertEquals(RegexEngine.JDK, epitaphPattern.getEngine());
+            assertTrue(epitaphPattern.find("test@gmail.com"));
+        }
+
+        @Test
+        void testAllowed() {
+            assertEquals(RegexEngine.JDK,
+                    EpitaphPattern.builder().pattern(this.exponentialPattern).build().getEngine());
+            assertEquals(RegexEngine.JDK, EpitaphPattern.builder().pattern(this.polynomialPattern)
+                    .engine(RegexEngine.JDK).backtrackingPolicy(BacktrackingPolicy.ALLOW).build().getEngine());
+        }
+    }
+
+    /**
+     * The long input whose characters after the prefix cannot be read, which
+     * shows how far the input has been searched.
+     */
+    private static final class PrefixSequence implements CharSequence {
+
+        /**
+         * The prefix
+         */
+        private final String prefix;
+
+        /**
+         * The length
+         */
+        private final int length;
+
+        /**
+         * Constructor
+         *
+         * @param prefix The prefix
+         * @param length The length
+         */
+        PrefixSequence(String prefix, int length) {
+            this.prefix = prefix;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+
+            if (index >= this.prefix.length()) {
+                throw new IllegalStateException("Read after the prefix: " + index);
+            }
+
+            return this.prefix.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return this.prefix.substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return this.prefix;
+        }
+    }
+
+    /**
+     * Returns the matches found by repeated calls of {@link Matcher#find()} . The
+     * byte offsets are offset by three bytes, and the matches between the halves
+     * of a surrogate pair are excluded from them.
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @param bytes        Whether to report the byte offsets of the input encoded
+     *                     in UTF-8
+     * @return The matches
+     */
+    private static List<PatternMatch> findByPattern(String regexPattern, String input, boolean bytes) {
+
+        final Matcher matcher = Pattern.compile(regexPattern).matcher(input);
+        final List<PatternMatch> matches = new ArrayList<>();
+        int index = 0;
+        int offset = 3;
+
+        while (matcher.find()) {
+            if (!bytes) {
+                matches.add(new PatternMatch(matcher.start(), matcher.end()));
+                continue;
+            } else if (Automaton.splitsSurrogatePair(input, matcher.start())
+                    || Automaton.splitsSurrogatePair(input, matcher.end())) {
+                continue;
+            }
+
+            offset += input.substring(index, matcher.start()).getBytes(StandardCharsets.UTF_8).length;
+            final int start = offset;
+            offset += input.substring(matcher.start(), matcher.end()).getBytes(StandardCharsets.UTF_8).length;
+            index = matcher.end();
+            matches.add(new PatternMatch(start, offset));
+        }
+
+        return matches;
+    }
+
+    /**
+     * Generates the input of the words matched by the presets.
+     *
+     * @param random The random number generator
+     * @param length The minimum length of the input
+     * @return The input
+     */
+    private static String generateInput(Random random, int length) {
+
+        final String[] words = { "test@gmail.com", "https://example.com/path?q=1", "090-1234-5678", "123-4567",
+                "2020-12-31", "2020/12/31", "192.168.0.1", "ひらがな", "カタカナ", "漢字", "😀", "abc", "Passw0rd!",
+                "example.com", "12345", "user_01", "\n" };
+        final StringBuilder input = new StringBuilder(length + 64);
+
+        while (input.length() < length) {
+            input.append(words[random.nextInt(words.length)]).append(random.nextInt(4) == 0 ? "" : " ");
+        }
+
+        return input.toString();
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.thinkit.common.regex.catalog.RegexEngine;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The test class for the {@link EpitaphScanner} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class EpitaphScannerTest {
+
+    /**
+     * The input crossing the buffer of the minimum size many times
+     */
+    private static final String INPUT = generateInput(new Random(20201231L), 5000);
+
+    @Nested
+    class TestBuilder {
+
+        @Test
+        void testTooSmallBuffer() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> EpitaphScanner.builder().bufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE - 1));
+        }
+
+        @Test
+        void testNoPattern() {
+            assertThrows(IllegalStateException.class,
+                    () -> EpitaphScanner.builder().input(new StringReader("test")).build());
+        }
+
+        @Test
+        void testNoInput() {
+            assertThrows(IllegalStateException.class,
+                    () -> EpitaphScanner.builder().pattern(RegexPattern.NUMERIC).build());
+        }
+
+        @Test
+        void testTooSmallMaximumBuffer() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> EpitaphScanner.builder().maximumBufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE - 1));
+        }
+
+        @Test
+        void testMaximumBufferSize() {
+            assertEquals(EpitaphScanner.DEFAULT_MAXIMUM_BUFFER_SIZE, EpitaphPattern.builder()
+                    .pattern(RegexPattern.NUMERIC).build().scanner(new StringReader("")).getMaximumBufferSize());
+            assertEquals(1000, EpitaphScanner.builder().pattern(RegexPattern.NUMERIC).input(new StringReader(""))
+                    .bufferSize(300).maximumBufferSize(1000).build().getMaximumBufferSize());
+            assertEquals(EpitaphScanner.DEFAULT_BUFFER_SIZE,
+                    EpitaphScanner.builder().pattern(RegexPattern.NUMERIC).input(new StringReader(""))
+                            .maximumBufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE).build().getMaximumBufferSize());
+        }
+    }
+
+    @Nested
+    class TestFind {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "[0-9]+", "a*", "\\w+@\\w+\\.com", "(?<=-)[0-9]+", "x😀+", "^ab", "[a-z]+$",
+                "b(?=\\s)", "\\bc\\w*", "(?m)^\\d" })
+        void testSameAsMatcher(String regexPattern) throws IOException {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+
+            for (int chunkSize : new int[] { 1, 7, 300, INPUT.length() }) {
+                assertEquals(findByPattern(Pattern.compile(regexPattern), INPUT), find(EpitaphScanner.builder()
+                        .pattern(epitaphPattern).input(new ChunkedReader(INPUT, chunkSize))
+                        .bufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE).build()), regexPattern);
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "EMAIL_ADDRESS", "IP_ADDRESS", "POST_CODE_JP", "NUMERIC",
+                "DOMAIN_NAME" })
+        void testSameAsMatcherOnPreset(RegexPattern regexPattern) throws IOException {
+            assertEquals(findByPattern(Pattern.compile(regexPattern.getTag()), INPUT),
+                    find(EpitaphScanner.builder().pattern(regexPattern).input(new ChunkedReader(INPUT, 100))
+                            .bufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE).build()));
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "JDK", "DFA", "LAZY_DFA", "PIKE_VM" })
+        void testSameOnEachEngine(RegexEngine engine) throws IOException {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[0-9]+(\\.[0-9]+)*")
+                    .engine(engine).build();
+
+            assertEquals(findByPattern(epitaphPattern.getPattern(), INPUT), find(EpitaphScanner.builder()
+                    .pattern(epitaphPattern).input(new ChunkedReader(INPUT, 13)).bufferSize(300).build()));
+        }
+
+        @Test
+        void testMatchCrossingReads() throws IOException {
+            final String input = "x".repeat(250) + "test@gmail.com" + "x".repeat(250);
+
+            try (EpitaphScanner scanner = EpitaphScanner.builder().pattern("@\\w+\\.com")
+                    .input(new ChunkedReader(input, 256)).bufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE).build()) {
+                assertTrue(scanner.find());
+                assertEquals(254, scanner.start());
+                assertEquals(264, scanner.end());
+                assertEquals("@gmail.com", scanner.group());
+                assertFalse(scanner.find());
+            }
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { ".+", "a.*b", "(a|b)*b", "[ab]+c", "x|a[ab]*c" })
+        void testMatchLongerThanBuffer(String regexPattern) throws IOException {
+
+            final String input = "ab".repeat(400) + "\n" + "ba".repeat(500) + "c";
+
+            for (RegexEngine engine : new RegexEngine[] { RegexEngine.JDK, RegexEngine.DFA, RegexEngine.PIKE_VM }) {
+                final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).engine(engine)
+                        .build();
+
+                assertEquals(findByPattern(epitaphPattern.getPattern(), input), find(EpitaphScanner.builder()
+                        .pattern(epitaphPattern).input(new ChunkedReader(input, 100))
+                        .bufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE).build()), regexPattern + " on " + engine);
+            }
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "a*", "x?", "(ab)*", "[0-9]*" })
+        void testNullablePatternOnFirstRead(String regexPattern) throws IOException {
+
+            final String input = "aaaaaaaaaab" + INPUT;
+
+            for (RegexEngine engine : new RegexEngine[] { RegexEngine.JDK, RegexEngine.DFA, RegexEngine.PIKE_VM }) {
+                final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).engine(engine)
+                        .build();
+
+                for (int bufferSize : new int[] { EpitaphScanner.MINIMUM_BUFFER_SIZE, 300 }) {
+                    assertEquals(findByPattern(epitaphPattern.getPattern(), input),
+                            find(EpitaphScanner.builder().pattern(epitaphPattern).input(new ChunkedReader(input, 1))
+                                    .bufferSize(bufferSize).build()),
+                            regexPattern + " on " + engine);
+                }
+            }
+        }
+
+        @Test
+        void testMatchLongerThanMaximumBuffer() throws IOException {
+
+            final EpitaphScanner scanner = EpitaphScanner.builder().pattern(".+")
+                    .input(new StringReader("x".repeat(300) + "\n" + "x".repeat(3000)))
+                    .bufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE).maximumBufferSize(1024).build();
+
+            assertTrue(scanner.find());
+            assertEquals(300, scanner.end());
+
+            final ScanBufferOverflowException exception = assertThrows(ScanBufferOverflowException.class,
+                    () -> scanner.find());
+            assertEquals(301, exception.getOffset());
+            assertEquals(1024, exception.getMaximumBufferSize());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "JDK", "DFA", "PIKE_VM" })
+        void testStepBudget(RegexEngine engine) {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[a-z]+@[a-z]+").engine(engine)
+                    .stepBudget(10).build();
+
+            assertThrows(MatchBudgetExceededException.class,
+                    () -> epitaphPattern.scanner(new StringReader("mail to test@gmail.com")).find());
+        }
+
+        @Test
+        void testNoMatch() throws IOException {
+            final EpitaphScanner scanner = EpitaphPattern.builder().pattern(RegexPattern.NUMERIC).build()
+                    .scanner(new StringReader("abc"));
+
+            assertFalse(scanner.find());
+            assertFalse(scanner.find());
+            assertThrows(IllegalStateException.class, () -> scanner.start());
+            assertThrows(IllegalStateException.class, () -> scanner.group());
+        }
+    }
+
+    @Nested
+    class TestInput {
+
+        @Test
+        void testInputStream() throws IOException {
+            final EpitaphScanner scanner = EpitaphScanner.builder().pattern("😀[0-9]+")
+                    .input(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)
+                    .bufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE).build();
+
+            assertEquals(findByPattern(Pattern.compile("😀[0-9]+"), INPUT), find(scanner));
+        }
+
+        @Test
+        void testChannel() throws IOException {
+            final EpitaphScanner scanner = EpitaphScanner.builder().pattern("😀[0-9]+")
+                    .input(Channels.newChannel(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8))),
+                            StandardCharsets.UTF_8)
+                    .bufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE).build();
+
+            assertEquals(findByPattern(Pattern.compile("😀[0-9]+"), INPUT), find(scanner));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = { EpitaphScanner.MINIMUM_BUFFER_SIZE, 1000, 0 })
+        void testMappedLatin1File(int mappingSize) throws IOException {
+
+            final String input = INPUT.replace("😀", "é");
+            final Path path = createFile(input, StandardCharsets.ISO_8859_1);
+
+            try {
+                final EpitaphScanner.Builder builder = EpitaphScanner.builder().pattern(RegexPattern.EMAIL_ADDRESS)
+                        .input(FileChannel.open(path), StandardCharsets.ISO_8859_1);
+
+                if (mappingSize > 0) {
+                    builder.bufferSize(mappingSize);
+                }
+
+                assertEquals(findByPattern(Pattern.compile(RegexPattern.EMAIL_ADDRESS.getTag()), input),
+                        find(builder.build()));
+            } finally {
+                Files.delete(path);
+            }
+        }
+
+        @Test
+        void testMappedUtf8File() throws IOException {
+
+            final Path path = createFile(INPUT, StandardCharsets.UTF_8);
+
+            try {
+                assertEquals(findByPattern(Pattern.compile("😀[0-9]+"), INPUT),
+                        find(EpitaphScanner.builder().pattern("😀[0-9]+")
+                                .input(FileChannel.open(path), StandardCharsets.UTF_8)
+                                .bufferSize(EpitaphScanner.MINIMUM_BUFFER_SIZE).build()));
+            } finally {
+                Files.delete(path);
+            }
+        }
+
+        @Test
+        void testMappedEmptyFile() throws IOException {
+
+            final Path path = createFile("", StandardCharsets.ISO_8859_1);
+
+            try (EpitaphScanner scanner = EpitaphScanner.builder().pattern("a*")
+                    .input(FileChannel.open(path), StandardCharsets.ISO_8859_1).build()) {
+                assertTrue(scanner.find());
+                assertEquals(0, scanner.end());
+                assertFalse(scanner.find());
+            } finally {
+                Files.delete(path);
+            }
+        }
+
+        @Test
+        void testClose() throws IOException {
+            final StringReader reader = new StringReader("test");
+            EpitaphScanner.builder().pattern(RegexPattern.NUMERIC).input(reader).build().close();
+
+            assertThrows(IOException.class, () -> reader.read());
+        }
+    }
+
+    /**
+     * The reader returning at most the chunk size of characters per read.
+     */
+    private static final class ChunkedReader extends Reader {
+
+        /**
+         * The reader of the input
+         */
+        private final StringReader reader;
+
+        /**
+         * The maximum number of characters per read
+         */
+        private final int chunkSize;
+
+        /**
+         * Constructor
+         *
+         * @param input     The input
+         * @param chunkSize The maximum number of characters per read
+         */
+        ChunkedReader(String input, int chunkSize) {
+            this.reader = new StringReader(input);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return this.reader.read(buffer, offset, Math.min(length, this.chunkSize));
+        }
+
+        @Override
+        public void close() {
+            this.reader.close();
+        }
+    }
+
+    /**
+     * Generates the input of words, numbers, email addresses and IP addresses
+     * separated by various characters.
+     *
+     * @param random The random number generator
+     * @param length The minimum length of the input
+     * @return The input
+     */
+    private static String generateInput(Random random, int length) {
+
+        final String[] words = { "ab", "abc", "test@gmail.com", "x😀😀", "192.168.0.1", "-123", "123-4567", "a-b.com",
+                "😀12", "bcd", "cab", "" };
+        final String[] separators = { " ", "\n", ", ", "-", ".", "@", "😀" };
+        final StringBuilder builder = new StringBuilder();
+
+        while (builder.length() < length) {
+            builder.append(words[random.nextInt(words.length)]);
+            builder.append(separators[random.nextInt(separators.length)]);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Creates the temporary file of the input encoded in the charset.
+     *
+     * @param input   The input
+     * @param charset The charset
+     * @return The path of the file
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    private static Path createFile(String input, Charset charset) throws IOException {
+        return Files.write(Files.createTempFile("epitaph", ".txt"), input.getBytes(charset));
+    }
+
+    /**
+     * Returns the matches found by the scanner.
+     *
+     * @param scanner The scanner
+     * @return The matches formatted as {@code start-end:group}
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    private static List<String> find(EpitaphScanner scanner) throws IOException {
+
+        final List<String> result = new ArrayList<>();
+
+        try (scanner) {
+            while (scanner.find()) {
+                result.add(scanner.start() + "-" + scanner.end() + ":" + scanner.group());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the matches found by repeated calls of {@link Matcher#find()} .
+     *
+     * @param pattern The pattern
+     * @param input   The input
+     * @return The matches formatted as {@code start-end:group}
+     */
+    private static List<String> findByPattern(Pattern pattern, String input) {
+
+        final Matcher matcher = pattern.matcher(input);
+        final List<String> result = new ArrayList<>();
+
+        while (matcher.find()) {
+            result.add(matcher.start() + "-" + matcher.end() + ":" + matcher.group());
+        }
+
+        return result;
+    }
+}
@@ -14,17 +14,34 @@
 
 package org.thinkit.common.regex;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.management.ManagementFactory;
+import java.nio.IntBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.thinkit.common.regex.catalog.BacktrackingPolicy;
+import org.thinkit.common.regex.catalog.RegexEngine;
 import org.thinkit.common.regex.catalog.RegexPattern;
 
+import com.sun.management.ThreadMXBean;
+
 /**
  * The test class for the {@link Epitaph} .
  *
@@ -51,6 +68,466 @@ final class EpitaphTest {
         }
     }
 
+    @Nested
+    class TestReset {
+
+        @Test
+        void testResetWithInput() {
+            final Epitaph epitaph = Epitaph.builder().pattern(RegexPattern.POST_CODE_JP).input("").build();
+
+            assertTrue(epitaph.reset("123-4567").matches());
+            assertFalse(epitaph.reset("1234567").matches());
+            assertTrue(epitaph.reset("000-0000").matches());
+        }
+
+        @Test
+        void testResetRestartsFind() {
+            final Epitaph epitaph = Epitaph.builder().pattern(RegexPattern.NUMERIC).input("12 34").build();
+
+            assertTrue(epitaph.find());
+            assertTrue(epitaph.find());
+            assertFalse(epitaph.find());
+            assertTrue(epitaph.reset().find());
+            assertEquals("12", epitaph.group());
+        }
+
+        @Test
+        void testRegion() {
+            final Epitaph epitaph = Epitaph.builder().pattern(RegexPattern.ALPHABET).input("123abc456").build();
+
+            assertFalse(epitaph.matches());
+            assertTrue(epitaph.region(3, 6).matches());
+            assertEquals(3, epitaph.regionStart());
+            assertEquals(6, epitaph.regionEnd());
+            assertEquals(9, epitaph.reset().regionEnd());
+        }
+
+        @Test
+        void testRegionOutOfBounds() {
+            final Epitaph epitaph = Epitaph.builder().pattern(RegexPattern.ALPHABET).input("abc").build();
+            assertThrows(IndexOutOfBoundsException.class, () -> epitaph.region(2, 4));
+        }
+    }
+
+    @Nested
+    class TestEngine {
+
+        @Test
+        void testGetEngine() {
+            assertEquals(RegexEngine.DFA, Epitaph.builder().pattern(RegexPattern.NUMERIC).input("").build().getEngine());
+            assertEquals(RegexEngine.JDK, Epitaph.builder().pattern(RegexPattern.NUMERIC).input("")
+                    .engine(RegexEngine.JDK).build().getEngine());
+        }
+
+        @Test
+        void testGroupWithoutMatch() {
+            final Epitaph epitaph = Epitaph.builder().pattern(RegexPattern.NUMERIC).input("abc").build();
+
+            assertFalse(epitaph.find());
+            final IllegalStateException exception = assertThrows(IllegalStateException.class, () -> epitaph.group());
+            assertEquals("No match found", exception.getMessage());
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "baa", "a😀b", "ab\nab", "123 abc 456" })
+        void testSameStateAsJdk(final String parameter) {
+            for (String regexPattern : new String[] { "a*", "[0-9]+", "(ab|a)", "\\S+?", "." }) {
+                final Epitaph dfa = Epitaph.builder().pattern(regexPattern).input(parameter).build();
+                final Epitaph jdk = Epitaph.builder().pattern(regexPattern).input(parameter).engine(RegexEngine.JDK)
+                        .build();
+
+                assertEquals(RegexEngine.DFA, dfa.getEngine());
+                assertEquals(jdk.lookingAt(), dfa.lookingAt());
+
+                while (jdk.find()) {
+                    assertTrue(dfa.find());
+                    assertEquals(jdk.group(), dfa.group());
+                }
+
+                assertFalse(dfa.find());
+                assertEquals(jdk.matches(), dfa.matches());
+                assertEquals(jdk.reset().find(), dfa.reset().find());
+                assertEquals(jdk.replaceAll("-"), dfa.replaceAll("-"));
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "DFA", "LAZY_DFA", "PIKE_VM" })
+        void testSameGroupsAsJdk(final RegexEngine regexEngine) {
+            for (String regexPattern : new String[] { "(a)|b", "(a|(b))+", "(?:(a)b)*ac", "(\\w+)@(\\w+)\\.(com|jp)",
+                    "(a*?)(a*)", "(?<year>[0-9]{4})-([0-9]{2})?" }) {
+                final String input = "ba abac test@gmail.com aaa 2020- 2020-12";
+                final Epitaph epitaph = Epitaph.builder().pattern(regexPattern).input(input).engine(regexEngine)
+                        .build();
+                final Epitaph jdk = Epitaph.builder().pattern(regexPattern).input(input).engine(RegexEngine.JDK)
+                        .build();
+                final int groupCount = jdk.pattern().getPattern().matcher("").groupCount();
+
+                while (jdk.find()) {
+                    assertTrue(epitaph.find());
+
+                    for (int group = 0; group <= groupCount; group++) {
+                        assertEquals(jdk.group(group), epitaph.group(group), regexPattern);
+                    }
+                }
+
+                assertFalse(epitaph.find());
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "DFA", "PIKE_VM" })
+        void testGroupOutOfBounds(final RegexEngine regexEngine) {
+            final Epitaph epitaph = Epitaph.builder().pattern("(a)b").input("ab").engine(regexEngine).build();
+
+            assertThrows(IllegalStateException.class, () -> epitaph.group(1));
+            assertTrue(epitaph.matches());
+            assertEquals("a", epitaph.group(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> epitaph.group(2));
+            assertThrows(IndexOutOfBoundsException.class, () -> epitaph.group(-1));
+        }
+
+        @Test
+        void testGroupCapturedByAbandonedAttempt() {
+            final Epitaph dfa = Epitaph.builder().pattern("(?:(a)b)*b").input("abxxa").build();
+            final Epitaph pikeVm = Epitaph.builder().pattern("(?:(a)b)*b").input("abxxa").engine(RegexEngine.PIKE_VM)
+                    .build();
+            final Epitaph jdk = Epitaph.builder().pattern("(?:(a)b)*b").input("abxxa").engine(RegexEngine.JDK)
+                    .build();
+
+            assertTrue(dfa.find());
+            assertTrue(pikeVm.find());
+            assertTrue(jdk.find());
+            assertEquals(RegexEngine.DFA, dfa.getEngine());
+            assertEquals(jdk.group(1), dfa.group(1));
+            assertEquals("b", pikeVm.group());
+            assertNull(pikeVm.group(1));
+        }
+
+        @Test
+        void testPikeVmOnCatastrophicPattern() {
+            final Epitaph epitaph = Epitaph.builder().pattern("(a+)+b").input("a".repeat(100))
+                    .engine(RegexEngine.PIKE_VM).build();
+
+            assertEquals(RegexEngine.PIKE_VM, epitaph.getEngine());
+            assertFalse(epitaph.matches());
+            assertFalse(epitaph.find());
+            assertTrue(epitaph.reset("a".repeat(100) + "b").matches());
+            assertEquals("a".repeat(100), epitaph.group(1));
+        }
+
+        @Test
+        void testRegionSplittingSurrogatePair() {
+            final Epitaph epitaph = Epitaph.builder().pattern(".*").input("a😀").build();
+
+            assertTrue(epitaph.region(0, 2).matches());
+            assertEquals("a\uD83D", epitaph.group());
+        }
+    }
+
+    @Nested
+    class TestOffsets {
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "DFA", "LAZY_DFA", "PIKE_VM", "JDK" })
+        void testSameOffsetsAsJdk(final RegexEngine regexEngine) {
+            for (String regexPattern : new String[] { "(a)|b", "(a|(b))+", "(\\w+)@(\\w+)\\.(com|jp)", "(a*?)(a*)",
+                    "(?<year>[0-9]{4})-([0-9]{2})?" }) {
+                final String input = "ba abac test@gmail.com aaa 2020- 2020-12";
+                final Epitaph epitaph = Epitaph.builder().pattern(regexPattern).input(input).engine(regexEngine)
+                        .build();
+                final Matcher matcher = Pattern.compile(regexPattern).matcher(input);
+
+                assertEquals(matcher.groupCount(), epitaph.groupCount());
+
+                while (matcher.find()) {
+                    assertTrue(epitaph.find());
+                    assertEquals(matcher.start(), epitaph.start(), regexPattern);
+                    assertEquals(matcher.end(), epitaph.end(), regexPattern);
+
+                    for (int group = 0; group <= matcher.groupCount(); group++) {
+                        assertEquals(matcher.start(group), epitaph.start(group), regexPattern);
+                        assertEquals(matcher.end(group), epitaph.end(group), regexPattern);
+                    }
+                }
+
+                assertFalse(epitaph.find());
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "DFA", "JDK" })
+        void testWithoutMatch(final RegexEngine regexEngine) {
+            final Epitaph epitaph = Epitaph.builder().pattern("(a)").input("b").engine(regexEngine).build();
+
+            assertThrows(IllegalStateException.class, () -> epitaph.start());
+            assertFalse(epitaph.find());
+            assertThrows(IllegalStateException.class, () -> epitaph.end());
+            assertThrows(IllegalStateException.class, () -> epitaph.start(1));
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "DFA", "JDK" })
+        void testGroupOutOfBounds(final RegexEngine regexEngine) {
+            final Epitaph epitaph = Epitaph.builder().pattern("(a)").input("a").engine(regexEngine).build();
+
+            assertTrue(epitaph.find());
+            assertThrows(IndexOutOfBoundsException.class, () -> epitaph.start(2));
+            assertThrows(IndexOutOfBoundsException.class, () -> epitaph.end(-1));
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "DFA", "PIKE_VM", "JDK" })
+        void testFindAll(final RegexEngine regexEngine) {
+            final Epitaph epitaph = Epitaph.builder().pattern("[0-9]+").input("1 22 333 4444 55555")
+                    .engine(regexEngine).build();
+            final int[] offsets = new int[5];
+
+            assertEquals(2, epitaph.findAll(offsets));
+            assertArrayEquals(new int[] { 0, 1, 2, 4, 0 }, offsets);
+            assertEquals("22", epitaph.group());
+            assertEquals(2, epitaph.findAll(offsets));
+            assertArrayEquals(new int[] { 5, 8, 9, 13, 0 }, offsets);
+            assertEquals(1, epitaph.findAll(offsets));
+            assertEquals(14, offsets[0]);
+            assertEquals(19, offsets[1]);
+            assertEquals(0, epitaph.findAll(offsets));
+            assertEquals(0, epitaph.findAll(new int[1]));
+        }
+
+        @Test
+        void testFindAllToBuffer() {
+            final Epitaph epitaph = Epitaph.builder().pattern(RegexPattern.NUMERIC).input("1 22 333").build();
+            final IntBuffer offsets = IntBuffer.allocate(5);
+
+            assertEquals(2, epitaph.findAll(offsets));
+            assertEquals(4, offsets.position());
+            assertEquals(0, epitaph.findAll(offsets));
+            offsets.clear();
+            assertEquals(1, epitaph.findAll(offsets));
+            assertEquals(5, offsets.get(0));
+            assertEquals(8, offsets.get(1));
+        }
+
+        @Test
+        void testFindAllAllocatesNothingPerMatch() {
+
+            final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+            final String input = "12 abc 345 ".repeat(100_000);
+            final Epitaph epitaph = Epitaph.builder().pattern("[0-9]+").input(input).build();
+            final int[] offsets = new int[256];
+
+            final long allocated = threadMXBean.getCurrentThreadAllocatedBytes();
+            int count = 0;
+
+            for (int written = epitaph.findAll(offsets); written > 0; written = epitaph.findAll(offsets)) {
+                count += written;
+            }
+
+            assertEquals(200_000, count);
+            assertTrue(threadMXBean.getCurrentThreadAllocatedBytes() - allocated < 100_000);
+        }
+    }
+
+    @Nested
+    class TestGroupView {
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "DFA", "PIKE_VM", "JDK" })
+        void testSameAsGroup(final RegexEngine regexEngine) {
+            final Epitaph epitaph = Epitaph.builder().pattern("(\\w+)@(\\w+)(\\.jp)?").input("a@b c@d.jp")
+                    .engine(regexEngine).build();
+            final MatchView view = new MatchView();
+
+            while (epitaph.find()) {
+                assertEquals(epitaph.group(), epitaph.groupView().toString());
+                assertSame(view, epitaph.groupView(view));
+                assertEquals(epitaph.group(), view.toString());
+
+                for (int group = 1; group <= epitaph.groupCount(); group++) {
+                    assertEquals(epitaph.group(group),
+                            epitaph.groupView(group) == null ? null : epitaph.groupView(group).toString());
+                }
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "DFA", "LAZY_DFA" })
+        void testWholeMatchWithoutCapture(final RegexEngine regexEngine) {
+            final CountingSequence input = new CountingSequence("a@b c@d.jp");
+            final Epitaph epitaph = Epitaph.builder().pattern("(\\w+)@(\\w+)(\\.jp)?").input(input)
+                    .engine(regexEngine).build();
+            final MatchView view = new MatchView();
+
+            assertTrue(epitaph.find());
+            final int reads = input.getReads();
+
+            assertEquals(0, epitaph.start(0));
+            assertEquals(3, epitaph.end(0));
+            assertEquals(3, epitaph.groupView().length());
+            assertSame(view, epitaph.groupView(0, view));
+            assertEquals(reads, input.getReads());
+
+            assertEquals("a", epitaph.group(1));
+            assertTrue(input.getReads() > reads);
+        }
+
+        @Test
+        void testGroupNotMatched() {
+            final Epitaph epitaph = Epitaph.builder().pattern("(a)|b").input("b").build();
+            final MatchView view = new MatchView("xyz", 1, 2);
+
+            assertTrue(epitaph.find());
+            assertNull(epitaph.groupView(1));
+            assertNull(epitaph.groupView(1, view));
+            assertEquals("y", view.toString());
+        }
+
+        @Test
+        void testWithoutMatch() {
+            final Epitaph epitaph = Epitaph.builder().pattern("a").input("b").build();
+
+            assertFalse(epitaph.find());
+            assertThrows(IllegalStateException.class, () -> epitaph.groupView());
+            assertThrows(IllegalStateException.class, () -> epitaph.groupView(new MatchView()));
+        }
+    }
+
+    @Nested
+    class TestResults {
+
+        @Test
+        void testRegion() {
+            final Epitaph epitaph = Epitaph.builder().pattern(RegexPattern.NUMERIC).input("12 34 56").build();
+            epitaph.region(1, 7);
+
+            assertEquals(List.of("2", "34", "5"), epitaph.results().map(MatchResult::group).collect(Collectors.toList()));
+        }
+
+        @Test
+        void testStateIsNotChanged() {
+            final Epitaph epitaph = Epitaph.builder().pattern(RegexPattern.NUMERIC).input("12 34 56").build();
+
+            assertTrue(epitaph.find());
+            assertEquals(3, epitaph.results().count());
+            assertTrue(epitaph.find());
+            assertEquals("34", epitaph.group());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "DFA", "LAZY_DFA", "PIKE_VM", "JDK" })
+        void testSameGroupsAsJdk(final RegexEngine regexEngine) {
+            for (String regexPattern : new String[] { "(a)|b", "(a|(b))+", "(?:(a)b)*ac", "(\\w+)@(\\w+)\\.(com|jp)",
+                    "(a*?)(a*)", "(?<year>[0-9]{4})-([0-9]{2})?" }) {
+                final String input = "ba abac test@gmail.com aaa 2020- 2020-12";
+                final Epitaph epitaph = Epitaph.builder().pattern(regexPattern).input(input).engine(regexEngine)
+                        .build();
+                final List<MatchResult> expected = Pattern.compile(regexPattern).matcher(input).results()
+                        .collect(Collectors.toList());
+                final List<MatchResult> actual = epitaph.results().collect(Collectors.toList());
+
+                assertEquals(expected.size(), actual.size(), regexPattern);
+
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).groupCount(), actual.get(i).groupCount(), regexPattern);
+
+                    for (int group = 0; group <= expected.get(i).groupCount(); group++) {
+                        assertEquals(expected.get(i).start(group), actual.get(i).start(group), regexPattern);
+                        assertEquals(expected.get(i).end(group), actual.get(i).end(group), regexPattern);
+                        assertEquals(expected.get(i).group(group), actual.get(i).group(group), regexPattern);
+                    }
+                }
+            }
+        }
+
+        @Test
+        void testGroupOutOfBounds() {
+            final Epitaph epitaph = Epitaph.builder().pattern("(a)b").input("ab").build();
+            final MatchResult match = epitaph.results().findFirst().get();
+
+            assertThrows(IndexOutOfBoundsException.class, () -> match.group(2));
+            assertThrows(IndexOutOfBoundsException.class, () -> match.start(-1));
+        }
+    }
+
+    @Nested
+    class TestBudget {
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "JDK", "DFA", "PIKE_VM" })
+        void testBudgetPerInput(RegexEngine engine) {
+            final Epitaph epitaph = Epitaph.builder().pattern("[0-9]+").engine(engine).input("12345678901234")
+                    .stepBudget(12).build();
+
+            assertThrows(MatchBudgetExceededException.class, epitaph::find);
+            assertTrue(epitaph.reset("123").find());
+            assertEquals("123", epitaph.group());
+            assertEquals("123", epitaph.groupView().toString());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "JDK", "DFA", "PIKE_VM" })
+        void testBudgetPerOperation(RegexEngine engine) {
+            final Epitaph epitaph = Epitaph.builder().pattern("[0-9]+").engine(engine).input("12 34 56 78 90 12 34")
+                    .stepBudget(12).build();
+
+            assertTrue(epitaph.find());
+            assertTrue(epitaph.find());
+            assertEquals(3, epitaph.findAll(new int[6]));
+            assertEquals("ab 34 56 78 90 12 34", epitaph.replaceFirst("ab"));
+            assertTrue(epitaph.reset().lookingAt());
+        }
+
+        @Test
+        void testBudgetPerMatchOfStream() {
+            final Epitaph epitaph = Epitaph.builder().pattern("[0-9]+").input("12 ".repeat(100)).stepBudget(12)
+                    .build();
+
+            assertEquals(100, epitaph.results().count());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexEngine.class, names = { "JDK", "DFA" })
+        void testTimeoutFromStartOfOperation(RegexEngine engine) throws InterruptedException {
+            final Epitaph epitaph = Epitaph.builder().pattern("[0-9]+").engine(engine)
+                    .input("a".repeat(10_000) + "1").timeout(Duration.ofMillis(100)).build();
+
+            Thread.sleep(200);
+
+            assertTrue(epitaph.find());
+            assertEquals(10_000, epitaph.start());
+        }
+
+        @Test
+        void testTimeout() {
+            final Epitaph epitaph = Epitaph.builder().pattern("(.*a){12}b").engine(RegexEngine.JDK)
+                    .input("a".repeat(22) + "!").timeout(Duration.ofMillis(20)).build();
+
+            assertThrows(MatchBudgetExceededException.class, epitaph::matches);
+        }
+    }
+
+    @Nested
+    class TestBacktrackingPolicy {
+
+        @Test
+        void testRejected() {
+            final Epitaph.Builder builder = Epitaph.builder().pattern("(.*a){12}b").engine(RegexEngine.JDK)
+                    .input("a".repeat(22) + "!").backtrackingPolicy(BacktrackingPolicy.REJECT);
+
+            assertThrows(IllegalStateException.class, builder::build);
+        }
+
+        @Test
+        void testRoutedToLinearEngine() {
+            final Epitaph epitaph = Epitaph.builder().pattern("(.*a){12}b").engine(RegexEngine.JDK)
+                    .input("a".repeat(22) + "!").backtrackingPolicy(BacktrackingPolicy.LINEAR_ENGINE).build();
+
+            assertEquals(RegexEngine.PIKE_VM, epitaph.getEngine());
+            assertFalse(epitaph.matches());
+        }
+    }
+
     @Nested
     class TestEmailAddressPattern {
 
@@ -1518,4 +1995,59 @@ final class EpitaphTest {
                     Epitaph.builder().pattern(RegexPattern.JAPANESE_ALPHANUMERIC).input(parameter).build().matches());
         }
     }
+
+    /**
+     * The input which counts the characters read from it.
+     */
+    private static final class CountingSequence implements CharSequence {
+
+        /**
+         * The text
+         */
+        private final String text;
+
+        /**
+         * The number of characters read
+         */
+        private int reads;
+
+        /**
+         * Constructor
+         *
+         * @param text The text
+         */
+        CountingSequence(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Returns the number of characters read.
+         *
+         * @return The number of characters read
+         */
+        int getReads() {
+            return this.reads;
+        }
+
+        @Override
+        public int length() {
+            return this.text.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            this.reads++;
+            return this.text.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return this.text.substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return this.text;
+        }
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * The test class for the {@link FlightRecorderSink} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class FlightRecorderSinkTest {
+
+    /**
+     * Runs the operations passed as an argument with the sink registered while a
+     * recording enabling the events is running.
+     *
+     * @param elapsedTimeThreshold The elapsed time threshold of the slow match
+     *                             events
+     * @param operations           The operations
+     * @return The recorded events of the sink
+     * @throws IOException If an I/O error occurs
+     */
+    private static List<RecordedEvent> record(String elapsedTimeThreshold, Runnable operations) throws IOException {
+
+        final Path path = Files.createTempFile("epitaph", ".jfr");
+        final FlightRecorderSink flightRecorderSink = new FlightRecorderSink();
+
+        try (Recording recording = new Recording()) {
+            recording.enable(CompileEvent.class);
+            recording.enable(SlowMatchEvent.class).with("elapsedTimeThreshold", elapsedTimeThreshold);
+            recording.start();
+
+            EpitaphMetrics.register(flightRecorderSink);
+
+            try {
+                operations.run();
+            } finally {
+                EpitaphMetrics.unregister(flightRecorderSink);
+            }
+
+            recording.stop();
+            recording.dump(path);
+
+            return RecordingFile.readAllEvents(path).stream()
+                    .filter(event -> event.getEventType().getName().startsWith("org.thinkit.common.regex."))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Returns the default value of the setting of the event type.
+     *
+     * @param eventClass The class of the event
+     * @param name       The name of the setting
+     * @return The default value of the setting
+     */
+    private static String defaultSettingOf(Class<? extends Event> eventClass, String name) {
+        return EventType.getEventType(eventClass).getSettingDescriptors().stream()
+                .filter(setting -> setting.getName().equals(name)).findFirst().get().getDefaultValue();
+    }
+
+    /**
+     * Returns the events of the name passed as an argument.
+     *
+     * @param events The events
+     * @param name   The name of the event type
+     * @return The events of the name
+     */
+    private static List<RecordedEvent> eventsOf(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    @Nested
+    class TestSettings {
+
+        @Test
+        void testDisabledByDefault() {
+            assertEquals("false", defaultSettingOf(CompileEvent.class, "enabled"));
+            assertEquals("false", defaultSettingOf(SlowMatchEvent.class, "enabled"));
+        }
+
+        @Test
+        void testDefaultThreshold() {
+            assertEquals("20 ms", defaultSettingOf(SlowMatchEvent.class, "elapsedTimeThreshold"));
+        }
+
+        @Test
+        void testCompileWithoutThreshold() {
+            assertTrue(EventType.getEventType(CompileEvent.class).getSettingDescriptors().stream()
+                    .noneMatch(setting -> setting.getName().equals("elapsedTimeThreshold")));
+        }
+    }
+
+    @Nested
+    class TestEvents {
+
+        @Test
+        void testCompile() throws IOException {
+            final PatternCache patternCache = PatternCache.builder().build();
+            final List<RecordedEvent> events = eventsOf(record("1 h", () -> {
+                EpitaphPattern.builder().pattern("jfr-[0-9]+").cache(patternCache).build();
+                EpitaphPattern.builder().pattern("jfr-[0-9]+").cache(patternCache).build();
+            }), "org.thinkit.common.regex.Compile");
+
+            assertEquals(2, events.size());
+            assertEquals("jfr-[0-9]+", events.get(0).getString("regexPattern"));
+            assertEquals(0, events.get(0).getInt("flags"));
+            assertFalse(events.get(0).getBoolean("cacheHit"));
+            assertTrue(events.get(1).getBoolean("cacheHit"));
+            assertTrue(events.get(0).getDuration("elapsedTime").toNanos() > 0);
+        }
+
+        @Test
+        void testSlowMatch() throws IOException {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("jfr-[a-z]+").build();
+            final List<RecordedEvent> events = eventsOf(
+                    record("0 ns", () -> epitaphPattern.find("see jfr-match")),
+                    "org.thinkit.common.regex.SlowMatch");
+
+            assertEquals(1, events.size());
+            assertEquals("jfr-[a-z]+", events.get(0).getString("regexPattern"));
+            assertEquals("find", events.get(0).getString("operation"));
+            assertEquals(13, events.get(0).getInt("inputLength"));
+            assertTrue(events.get(0).getBoolean("matched"));
+            assertEquals(Thread.currentThread().getName(), events.get(0).getThread().getJavaName());
+        }
+
+        @Test
+        void testFastMatch() throws IOException {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("jfr-fast").build();
+            final List<RecordedEvent> events = eventsOf(
+                    record("1 h", () -> epitaphPattern.find("jfr-fast")),
+                    "org.thinkit.common.regex.SlowMatch");
+
+            assertTrue(events.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.thinkit.common.regex.catalog.MatchOperation;
+
+/**
+ * The test class for the {@link InMemoryMetricsSink} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class InMemoryMetricsSinkTest {
+
+    @Nested
+    class TestHistogram {
+
+        @ParameterizedTest
+        @ValueSource(longs = { 0, 1, 31, 32, 33, 63, 64, 1000, 123456789, 1L << 40, (1L << 41) - 1 })
+        void testValueIsInItsBucket(long value) {
+            final int index = ConcurrentHistogram.indexOf(value);
+            final long highest = ConcurrentHistogram.highestValueOf(index);
+
+            assertTrue(value <= highest);
+            assertTrue(index == 0 || ConcurrentHistogram.highestValueOf(index - 1) < value);
+            assertTrue(highest - value <= value / 16);
+        }
+
+        @Test
+        void testLargeValueIsInLastBucket() {
+            assertEquals(ConcurrentHistogram.BUCKET_COUNT - 1, ConcurrentHistogram.indexOf(Long.MAX_VALUE));
+        }
+
+        @Test
+        void testPercentiles() {
+            final ConcurrentHistogram histogram = new ConcurrentHistogram();
+
+            for (long value = 1; value <= 1000; value++) {
+                histogram.record(value);
+            }
+
+            final HistogramSnapshot snapshot = histogram.snapshot();
+
+            assertEquals(1000, snapshot.getCount());
+            assertEquals(500500, snapshot.getSum());
+            assertEquals(500.5, snapshot.getMean());
+            assertEquals(1000, snapshot.getMaximum());
+            assertEquals(1, snapshot.getValueAtPercentile(0.0));
+            assertEquals(1000, snapshot.getValueAtPercentile(100.0));
+
+            final long median = snapshot.getValueAtPercentile(50.0);
+            assertTrue(median >= 500 && median <= 500 + 500 / 16);
+        }
+
+        @Test
+        void testEmpty() {
+            final HistogramSnapshot snapshot = new ConcurrentHistogram().snapshot();
+            assertEquals(0, snapshot.getCount());
+            assertEquals(0.0, snapshot.getMean());
+            assertEquals(0, snapshot.getValueAtPercentile(99.0));
+        }
+
+        @Test
+        void testWhenPercentileIsOutOfRange() {
+            final HistogramSnapshot snapshot = new ConcurrentHistogram().snapshot();
+            final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> snapshot.getValueAtPercentile(100.5));
+            assertEquals("The percentile must be from 0.0 to 100.0", exception.getMessage());
+        }
+    }
+
+    @Nested
+    class TestRecord {
+
+        @Test
+        void testCompile() {
+            final InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+            metricsSink.recordCompile("[0-9]+", 0, 2000, false);
+            metricsSink.recordCompile("[0-9]+", 0, 100, true);
+            metricsSink.recordCompile("[0-9]+", 0, 100, true);
+
+            final PatternMetrics patternMetrics = metricsSink.getMetrics("[0-9]+");
+
+            assertEquals("[0-9]+", patternMetrics.getRegexPattern());
+            assertEquals(3, patternMetrics.getCompileCount());
+            assertEquals(2, patternMetrics.getCacheHitCount());
+            assertEquals(3, patternMetrics.getCompileLatency().getCount());
+            assertEquals(2000, patternMetrics.getCompileLatency().getMaximum());
+            assertTrue(patternMetrics.getOperations().isEmpty());
+        }
+
+        @Test
+        void testMatch() {
+            final InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+            metricsSink.recordMatch("[0-9]+", MatchOperation.FIND, 10, true, 500);
+            metricsSink.recordMatch("[0-9]+", MatchOperation.FIND, 20, false, 700);
+            metricsSink.recordMatch("[0-9]+", MatchOperation.FIND, 30, true, 900);
+            metricsSink.recordMatch("[0-9]+", MatchOperation.MATCHES, 5, false, 100);
+
+            final PatternMetrics patternMetrics = metricsSink.getMetrics("[0-9]+");
+            final OperationMetrics find = patternMetrics.getOperation(MatchOperation.FIND);
+
+            assertEquals(2, patternMetrics.getOperations().size());
+            assertEquals(2, find.getMatchCount());
+            assertEquals(1, find.getNoMatchCount());
+            assertEquals(2.0 / 3, find.getMatchRatio());
+            assertEquals(60, find.getInputLength().getSum());
+            assertEquals(30, find.getInputLength().getMaximum());
+            assertEquals(900, find.getLatency().getMaximum());
+            assertEquals(0.0, patternMetrics.getOperation(MatchOperation.MATCHES).getMatchRatio());
+            assertEquals(0, patternMetrics.getOperation(MatchOperation.REPLACE_ALL).getCount());
+        }
+
+        @Test
+        void testPatternsAreOrdered() {
+            final InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+            metricsSink.recordMatch("b", MatchOperation.FIND, 1, true, 1);
+            metricsSink.recordMatch("a", MatchOperation.FIND, 1, true, 1);
+
+            assertEquals(List.of("a", "b"), new ArrayList<>(metricsSink.getMetrics().keySet()));
+        }
+
+        @Test
+        void testReset() {
+            final InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+            metricsSink.recordMatch("a", MatchOperation.FIND, 1, true, 1);
+            metricsSink.reset();
+
+            assertNull(metricsSink.getMetrics("a"));
+            assertTrue(metricsSink.getMetrics().isEmpty());
+        }
+
+        @Test
+        void testConcurrentRecording() throws Exception {
+            final InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+            try {
+                final List<Future<?>> futures = new ArrayList<>();
+
+                for (int i = 0; i < 4; i++) {
+                    futures.add(executor.submit(() -> {
+                        for (int j = 0; j < 10000; j++) {
+                            metricsSink.recordMatch("a", MatchOperation.FIND, j, j % 2 == 0, j);
+                        }
+                    }));
+                }
+
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            final OperationMetrics find = metricsSink.getMetrics("a").getOperation(MatchOperation.FIND);
+
+            assertEquals(40000, find.getCount());
+            assertEquals(20000, find.getMatchCount());
+            assertEquals(40000, find.getLatency().getCount());
+            assertEquals(9999, find.getInputLength().getMaximum());
+        }
+    }
+}
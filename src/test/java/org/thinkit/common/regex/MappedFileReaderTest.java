@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link MappedFileReader} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class MappedFileReaderTest {
+
+    /**
+     * The input of characters of one to four bytes in UTF-8
+     */
+    private static final String INPUT = "abcあいう😀é€".repeat(50) + "end";
+
+    @Nested
+    class TestRead {
+
+        @ParameterizedTest
+        @ValueSource(ints = { 1, 2, 3, 5, 1024 })
+        void testSameAsString(int length) throws IOException {
+            for (int mappingSize : new int[] { 4, 7, 16, 1 << 20 }) {
+                assertEquals(INPUT, read(INPUT.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, mappingSize,
+                        length), "mapping size " + mappingSize);
+            }
+        }
+
+        @Test
+        void testOtherCharset() throws IOException {
+            assertEquals(INPUT, read(INPUT.getBytes(StandardCharsets.UTF_16LE), StandardCharsets.UTF_16LE, 9, 5));
+        }
+
+        @Test
+        void testMalformedInput() throws IOException {
+            final byte[] bytes = { 'a', (byte) 0xe3, (byte) 0x81, 'b', (byte) 0xf0 };
+
+            assertEquals(new String(bytes, StandardCharsets.UTF_8),
+                    read(bytes, StandardCharsets.UTF_8, 4, 10));
+        }
+
+        @Test
+        void testEmptyFile() throws IOException {
+            assertEquals("", read(new byte[0], StandardCharsets.UTF_8, 16, 16));
+        }
+    }
+
+    /**
+     * Reads the file of the bytes by the reader.
+     *
+     * @param bytes       The bytes of the file
+     * @param charset     The charset of the file
+     * @param mappingSize The maximum number of bytes mapped at a time
+     * @param length      The number of characters requested per read
+     * @return The characters read
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    private static String read(byte[] bytes, Charset charset, int mappingSize, int length) throws IOException {
+
+        final Path path = Files.write(Files.createTempFile("epitaph", ".txt"), bytes);
+        final StringBuilder builder = new StringBuilder();
+        final char[] buffer = new char[length];
+
+        try (Reader reader = new MappedFileReader(FileChannel.open(path), charset, mappingSize)) {
+            int count;
+
+            while ((count = reader.read(buffer, 0, length)) >= 0) {
+                builder.append(buffer, 0, count);
+            }
+        } finally {
+            Files.delete(path);
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.thinkit.common.regex.catalog.RegexEngine;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The test class for the {@link MatchSpliterator} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class MatchSpliteratorTest {
+
+    /**
+     * The large input split into many parts
+     */
+    private static final String INPUT = generateInput(new Random(20201231L), 1 << 18);
+
+    @Nested
+    class TestTryAdvance {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "[0-9]+", "a[^z]*z", "x*", "\\w+@\\w+\\.com", "b", "z[^z]{1000}" })
+        void testSameAsRepeatedFind(String regexPattern) {
+            for (RegexEngine engine : List.of(RegexEngine.DFA, RegexEngine.LAZY_DFA, RegexEngine.PIKE_VM,
+                    RegexEngine.JDK)) {
+                final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).engine(engine)
+                        .build();
+
+                assertEquals(findByPattern(regexPattern, INPUT, 0, INPUT.length()),
+                        collect(new MatchSpliterator(epitaphPattern, INPUT, 0, INPUT.length())), regexPattern);
+            }
+        }
+
+        @Test
+        void testRange() {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[0-9]+").build();
+
+            assertEquals(findByPattern("[0-9]+", INPUT, 1000, 50_000),
+                    collect(new MatchSpliterator(epitaphPattern, INPUT, 1000, 50_000)));
+        }
+
+        @Test
+        void testEndSplittingSurrogatePair() {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[^a]").build();
+
+            assertEquals(findByPattern("[^a]", "a😀b", 0, 2), collect(new MatchSpliterator(epitaphPattern, "a😀b", 0, 2)));
+        }
+    }
+
+    @Nested
+    class TestTrySplit {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "[0-9]+", "a[^z]*z", "\\w+@\\w+\\.com", "b", "z[^z]{1000}", "(?s).{5000}" })
+        void testSameAsRepeatedFind(String regexPattern) {
+            for (RegexEngine engine : List.of(RegexEngine.DFA, RegexEngine.LAZY_DFA, RegexEngine.PIKE_VM)) {
+                final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).engine(engine)
+                        .build();
+                final List<String> actual = new ArrayList<>();
+                splitAndCollect(new MatchSpliterator(epitaphPattern, INPUT, 0, INPUT.length()), actual);
+
+                assertEquals(findByPattern(regexPattern, INPUT, 0, INPUT.length()), actual, regexPattern);
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "FIXED_LINE_PHONE_JP", "POST_CODE_JP", "DATE_WITH_HYPHEN",
+                "IP_ADDRESS" })
+        void testHandCoded(RegexPattern regexPattern) {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern(regexPattern).build();
+            final List<String> actual = new ArrayList<>();
+            splitAndCollect(new MatchSpliterator(epitaphPattern, INPUT, 0, INPUT.length()), actual);
+
+            assertEquals(RegexEngine.HAND_CODED, epitaphPattern.getEngine());
+            assertEquals(findByPattern(regexPattern.getTag(), INPUT, 0, INPUT.length()), actual);
+        }
+
+        @Test
+        void testLargeInputIsSplit() {
+
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[0-9]+").build();
+            final Spliterator<MatchResult> spliterator = new MatchSpliterator(epitaphPattern, INPUT, 0,
+                    INPUT.length());
+            final long size = spliterator.estimateSize();
+
+            assertNotNull(spliterator.trySplit());
+            assertTrue(spliterator.estimateSize() < size);
+        }
+
+        @Test
+        void testSmallInputIsNotSplit() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[0-9]+").build();
+            assertNull(new MatchSpliterator(epitaphPattern, INPUT, 0, 1000).trySplit());
+        }
+
+        @Test
+        void testJdkIsNotSplit() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[0-9]+").engine(RegexEngine.JDK)
+                    .build();
+            assertNull(new MatchSpliterator(epitaphPattern, INPUT, 0, INPUT.length()).trySplit());
+        }
+
+        @Test
+        void testNullablePatternIsNotSplit() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("x*").build();
+            assertNull(new MatchSpliterator(epitaphPattern, INPUT, 0, INPUT.length()).trySplit());
+        }
+    }
+
+    @Nested
+    class TestCharacteristics {
+
+        @Test
+        void testString() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[0-9]+").build();
+            assertEquals(Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE,
+                    new MatchSpliterator(epitaphPattern, "123", 0, 3).characteristics());
+        }
+
+        @Test
+        void testMutableInput() {
+            final EpitaphPattern epitaphPattern = EpitaphPattern.builder().pattern("[0-9]+").build();
+            assertEquals(Spliterator.ORDERED | Spliterator.NONNULL,
+                    new MatchSpliterator(epitaphPattern, new StringBuilder("123"), 0, 3).characteristics());
+        }
+    }
+
+    /**
+     * Returns the matches of the spliterator.
+     *
+     * @param spliterator The spliterator
+     * @return The matches formatted as {@code start-end}
+     */
+    private static List<String> collect(Spliterator<MatchResult> spliterator) {
+        final List<String> result = new ArrayList<>();
+        spliterator.forEachRemaining(match -> result.add(match.start() + "-" + match.end()));
+        return result;
+    }
+
+    /**
+     * Splits the spliterator as far as it can be split, and adds the matches of
+     * the parts in order to the list.
+     *
+     * @param spliterator The spliterator
+     * @param result      The list of the matches formatted as {@code start-end}
+     */
+    private static void splitAndCollect(Spliterator<MatchResult> spliterator, List<String> result) {
+
+        final Spliterator<MatchResult> prefix = spliterator.trySplit();
+
+        if (prefix != null) {
+            splitAndCollect(prefix, result);
+            splitAndCollect(spliterator, result);
+        } else {
+            result.addAll(collect(spliterator));
+        }
+    }
+
+    /**
+     * Returns the matches found by repeated calls of {@link Matcher#find()} in the
+     * region.
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @param start        The start index of the region
+     * @param end          The end index of the region
+     * @return The matches formatted as {@code start-end}
+     */
+    private static List<String> findByPattern(String regexPattern, String input, int start, int end) {
+
+        final Matcher matcher = Pattern.compile(regexPattern).matcher(input).region(start, end);
+        final List<String> result = new ArrayList<>();
+
+        while (matcher.find()) {
+            result.add(matcher.start() + "-" + matcher.end());
+        }
+
+        return result;
+    }
+
+    /**
+     * Generates the input of words, numbers, dates, addresses and phone numbers.
+     *
+     * @param random The random number generator
+     * @param length The length of the input
+     * @return The input
+     */
+    private static String generateInput(Random random, int length) {
+
+        final String[] words = { "abc", "xyz", "123", "test@gmail.com", "a", "z", "bbb", "x", "0", "\n",
+                "2020-12-31", "192.168.0.1", "123-4567", "0312345678" };
+        final StringBuilder input = new StringBuilder(length + 16);
+
+        while (input.length() < length) {
+            input.append(words[random.nextInt(words.length)]).append(random.nextInt(8) == 0 ? "" : " ");
+        }
+
+        return input.substring(0, length);
+    }
+}
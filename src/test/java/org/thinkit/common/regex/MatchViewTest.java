@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link MatchView} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class MatchViewTest {
+
+    @Nested
+    class TestCharSequence {
+
+        @Test
+        void testEmptyView() {
+            final MatchView view = new MatchView();
+
+            assertEquals(0, view.length());
+            assertEquals("", view.toString());
+            assertThrows(IndexOutOfBoundsException.class, () -> view.charAt(0));
+        }
+
+        @Test
+        void testRange() {
+            final MatchView view = new MatchView("abc123def", 3, 6);
+
+            assertEquals(3, view.length());
+            assertEquals('1', view.charAt(0));
+            assertEquals('3', view.charAt(2));
+            assertEquals("123", view.toString());
+            assertEquals(3, view.getStart());
+            assertEquals(6, view.getEnd());
+            assertThrows(IndexOutOfBoundsException.class, () -> view.charAt(3));
+            assertThrows(IndexOutOfBoundsException.class, () -> view.charAt(-1));
+        }
+
+        @Test
+        void testSubSequence() {
+            final MatchView view = new MatchView("abc123def", 3, 6).subSequence(1, 3);
+
+            assertEquals("23", view.toString());
+            assertEquals(4, view.getStart());
+            assertThrows(IndexOutOfBoundsException.class, () -> view.subSequence(1, 3));
+            assertThrows(IndexOutOfBoundsException.class, () -> view.subSequence(2, 1));
+        }
+
+        @Test
+        void testMutableInput() {
+            final StringBuilder input = new StringBuilder("abc");
+            final MatchView view = new MatchView(input, 1, 3);
+            input.setCharAt(1, 'x');
+
+            assertEquals("xc", view.toString());
+        }
+    }
+
+    @Nested
+    class TestContent {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "123", "テスト", "😀x" })
+        void testContentHashCode(String content) {
+            assertEquals(content.hashCode(), new MatchView("<" + content + ">", 1, content.length() + 1)
+                    .contentHashCode());
+        }
+
+        @Test
+        void testContentEquals() {
+            final MatchView view = new MatchView("abc123def", 3, 6);
+
+            assertTrue(view.contentEquals("123"));
+            assertTrue(view.contentEquals(new StringBuilder("123")));
+            assertFalse(view.contentEquals("124"));
+            assertFalse(view.contentEquals("1234"));
+            assertThrows(NullPointerException.class, () -> view.contentEquals(null));
+        }
+
+        @Test
+        void testAppendTo() throws IOException {
+            final StringWriter writer = new StringWriter();
+
+            assertSame(writer, new MatchView("abc123def", 3, 6).appendTo(writer));
+            assertEquals("123", writer.toString());
+            assertEquals("x123", new MatchView("abc123def", 3, 6).appendTo(new StringBuilder("x")).toString());
+        }
+    }
+}
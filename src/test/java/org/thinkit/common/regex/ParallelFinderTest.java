@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link ParallelFinder} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class ParallelFinderTest {
+
+    /**
+     * The pool searching the segments, whose threads are daemon threads
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    /**
+     * The large input split into many segments
+     */
+    private static final String INPUT = generateInput(new Random(20201231L), 1 << 20);
+
+    @Nested
+    class TestFindAll {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "[0-9]+", "a[^z]*z", "x*", "\\w+@\\w+\\.com", "b", "(?s).{70000}", "z[^z]{1000}",
+                "[0-9]+(?= )" })
+        void testSameAsRepeatedFind(String regexPattern) {
+            assertArrayEquals(findByPattern(regexPattern, INPUT), findAll(regexPattern, INPUT, 0, INPUT.length()),
+                    regexPattern);
+        }
+
+        @Test
+        void testRange() {
+
+            final int start = 100_000;
+            final int end = 900_000;
+            final int[] expected = Arrays.stream(findByPattern("a[^z]*z", INPUT.substring(start, end)))
+                    .map(index -> index + start).toArray();
+
+            assertArrayEquals(expected, findAll("a[^z]*z", INPUT, start, end));
+        }
+
+        @Test
+        void testSmallInputIsNotSplit() {
+
+            final AtomicInteger searches = new AtomicInteger();
+            final ParallelFinder finder = new ParallelFinder(() -> {
+                searches.incrementAndGet();
+                return search(Pattern.compile("b").matcher("abcb"));
+            }, 0, 4);
+
+            assertArrayEquals(new int[] { 1, 2, 3, 4 }, finder.findAll(POOL, index -> index));
+            assertEquals(1, searches.get());
+        }
+
+        @Test
+        void testLargeInputIsSplit() {
+
+            final AtomicInteger searches = new AtomicInteger();
+            final ParallelFinder finder = new ParallelFinder(() -> {
+                searches.incrementAndGet();
+                return search(Pattern.compile("b").matcher(INPUT));
+            }, 0, INPUT.length());
+
+            finder.findAll(POOL, index -> index);
+
+            assertTrue(searches.get() > POOL.getParallelism());
+        }
+
+        @Test
+        void testSequentialSearchIsNotSplit() {
+
+            final AtomicInteger searches = new AtomicInteger();
+            final ParallelFinder finder = new ParallelFinder(() -> {
+                searches.incrementAndGet();
+                return search(Pattern.compile("b").matcher(INPUT));
+            }, 0, INPUT.length());
+
+            assertArrayEquals(findByPattern("b", INPUT), finder.findAllSequentially());
+            assertEquals(1, searches.get());
+        }
+
+        @Test
+        void testExceptionIsThrown() {
+
+            final ParallelFinder finder = new ParallelFinder(() -> (from, limit, slots) -> {
+                throw new IllegalStateException();
+            }, 0, INPUT.length());
+
+            assertThrows(IllegalStateException.class, () -> finder.findAll(POOL, index -> index));
+        }
+    }
+
+    /**
+     * Returns the start and end indexes of the matches in the range found by the
+     * finder.
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @param start        The start index of the range
+     * @param end          The end index of the range
+     * @return The start and end indexes of the matches in pairs
+     */
+    private static int[] findAll(String regexPattern, String input, int start, int end) {
+
+        final Pattern pattern = Pattern.compile(regexPattern);
+
+        return new ParallelFinder(() -> search(pattern.matcher(input).region(start, end)), start, end).findAll(POOL,
+                index -> index);
+    }
+
+    /**
+     * Returns the search by the matcher.
+     *
+     * @param matcher The matcher
+     * @return The search
+     */
+    private static ParallelFinder.Search search(Matcher matcher) {
+
+        final int end = matcher.regionEnd();
+
+        return (from, limit, slots) -> {
+            matcher.region(from, end);
+
+            if (from >= limit || !matcher.find() || matcher.start() >= limit) {
+                return false;
+            }
+
+            slots[0] = matcher.start();
+            slots[1] = matcher.end();
+            return true;
+        };
+    }
+
+    /**
+     * Returns the start and end indexes of the matches found by repeated calls of
+     * {@link Matcher#find()} .
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @return The start and end indexes of the matches in pairs
+     */
+    private static int[] findByPattern(String regexPattern, String input) {
+
+        final Matcher matcher = Pattern.compile(regexPattern).matcher(input);
+        final StringBuilder offsets = new StringBuilder();
+
+        while (matcher.find()) {
+            offsets.append(matcher.start()).append(' ').append(matcher.end()).append(' ');
+        }
+
+        return offsets.length() == 0 ? new int[0]
+                : Arrays.stream(offsets.toString().split(" ")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Generates the input of words, numbers and mail addresses.
+     *
+     * @param random The random number generator
+     * @param length The length of the input
+     * @return The input
+     */
+    private static String generateInput(Random random, int length) {
+
+        final String[] words = { "abc", "xyz", "123", "test@gmail.com", "a", "z", "bbb", "x", "0", "\n" };
+        final StringBuilder input = new StringBuilder(length + 16);
+
+        while (input.length() < length) {
+            input.append(words[random.nextInt(words.length)]).append(random.nextInt(8) == 0 ? "" : " ");
+        }
+
+        return input.substring(0, length);
+    }
+}
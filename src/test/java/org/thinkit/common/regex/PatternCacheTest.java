@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.thinkit.common.regex.catalog.CacheEvictionPolicy;
+import org.thinkit.common.regex.catalog.RegexOption;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The test class for the {@link PatternCache} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class PatternCacheTest {
+
+    @Nested
+    class TestBuilder {
+
+        @Test
+        void testDefaultValues() {
+            final PatternCache patternCache = PatternCache.builder().build();
+            assertTrue(patternCache.isEnabled());
+            assertEquals(256, patternCache.getMaximumSize());
+            assertEquals(CacheEvictionPolicy.LEAST_RECENTLY_USED, patternCache.getEvictionPolicy());
+        }
+
+        @Test
+        void testWhenMaximumSizeIsNegative() {
+            final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> PatternCache.builder().maximumSize(-1));
+            assertEquals("The maximum size must not be negative", exception.getMessage());
+        }
+
+        @Test
+        void testWhenExpirationIsNegative() {
+            final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> PatternCache.builder().expiration(Duration.ofSeconds(-1)));
+            assertEquals("The expiration must not be negative", exception.getMessage());
+        }
+    }
+
+    @Nested
+    class TestCompile {
+
+        @Test
+        void testHit() {
+            final PatternCache patternCache = PatternCache.builder().build();
+            final Pattern pattern = patternCache.compile("[0-9]+", 0);
+
+            assertSame(pattern, patternCache.compile("[0-9]+", 0));
+            assertEquals(1, patternCache.getStatistics().getHitCount());
+            assertEquals(1, patternCache.getStatistics().getMissCount());
+            assertEquals(0.5, patternCache.getStatistics().getHitRate());
+        }
+
+        @Test
+        void testFlagsArePartOfKey() {
+            final PatternCache patternCache = PatternCache.builder().build();
+            final Pattern pattern = patternCache.compile("[a-z]+", 0);
+
+            assertNotSame(pattern, patternCache.compile("[a-z]+", Pattern.CASE_INSENSITIVE));
+            assertEquals(2, patternCache.getStatistics().getMissCount());
+            assertEquals(2, patternCache.size());
+        }
+
+        @Test
+        void testEviction() {
+            final PatternCache patternCache = PatternCache.builder().maximumSize(2).build();
+            patternCache.compile("a", 0);
+            patternCache.compile("b", 0);
+            patternCache.compile("c", 0);
+
+            assertEquals(2, patternCache.size());
+            assertEquals(1, patternCache.getStatistics().getEvictionCount());
+        }
+
+        @Test
+        void testDisabled() {
+            final PatternCache patternCache = PatternCache.disabled();
+            final Pattern pattern = patternCache.compile("[0-9]+", 0);
+
+            assertFalse(patternCache.isEnabled());
+            assertNotSame(pattern, patternCache.compile("[0-9]+", 0));
+            assertEquals(0, patternCache.size());
+            assertEquals(0, patternCache.getStatistics().getRequestCount());
+        }
+
+        @Test
+        void testInvalidateAll() {
+            final PatternCache patternCache = PatternCache.builder()
+                    .evictionPolicy(CacheEvictionPolicy.EXPIRE_AFTER_ACCESS).expiration(Duration.ofMinutes(1)).build();
+            patternCache.compile("[0-9]+", 0);
+            patternCache.invalidateAll();
+
+            assertEquals(0, patternCache.size());
+        }
+    }
+
+    @Nested
+    class TestEpitaph {
+
+        @Test
+        void testBuilderUsesCache() {
+            final PatternCache patternCache = PatternCache.builder().build();
+
+            for (int i = 0; i < 10; i++) {
+                assertTrue(Epitaph.builder().pattern("[0-9]+").input("12345").cache(patternCache).build().matches());
+            }
+
+            assertEquals(1, patternCache.getStatistics().getMissCount());
+            assertEquals(9, patternCache.getStatistics().getHitCount());
+        }
+
+        @Test
+        void testBuilderDoesNotCachePreset() {
+            final PatternCache patternCache = PatternCache.builder().build();
+
+            assertTrue(Epitaph.builder().pattern(RegexPattern.NUMERIC).input("12345").cache(patternCache).build()
+                    .matches());
+            assertEquals(0, patternCache.getStatistics().getRequestCount());
+        }
+
+        @Test
+        void testBuilderUsesOptionsAsKey() {
+            final PatternCache patternCache = PatternCache.builder().build();
+
+            assertFalse(Epitaph.builder().pattern("[a-z]+").input("TEST").cache(patternCache).build().matches());
+            assertTrue(Epitaph.builder().pattern("[a-z]+").input("TEST")
+                    .option(EnumSet.of(RegexOption.CASE_INSENSITIVE)).cache(patternCache).build().matches());
+            assertEquals(2, patternCache.getStatistics().getMissCount());
+        }
+    }
+}
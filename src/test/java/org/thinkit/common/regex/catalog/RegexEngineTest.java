@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The test class for the {@link RegexEngine} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class RegexEngineTest {
+
+    /**
+     * The expected tags
+     */
+    private static final Map<Integer, String> EXPECTED_TAGS = new HashMap<>() {
+
+        /**
+         * Serial Verison UID
+         */
+        private static final long serialVersionUID = -6240185533079614203L;
+
+        {
+            put(0, "jdk");
+            put(1, "dfa");
+            put(2, "lazy_dfa");
+            put(3, "pike_vm");
+            put(4, "hand_coded");
+        }
+    };
+
+    @Test
+    void testCodeValues() {
+
+        int expected = 0;
+
+        for (RegexEngine regexEngine : RegexEngine.values()) {
+            assertEquals(expected++, regexEngine.getCode());
+        }
+    }
+
+    @Test
+    void testTagValues() {
+
+        int code = 0;
+
+        for (RegexEngine regexEngine : RegexEngine.values()) {
+            assertEquals(EXPECTED_TAGS.get(code++), regexEngine.getTag());
+        }
+    }
+}
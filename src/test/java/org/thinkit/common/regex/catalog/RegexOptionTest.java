@@ -16,6 +16,7 @@ package org.thinkit.common.regex.catalog;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -72,4 +73,11 @@ final class RegexOptionTest {
             assertEquals(EXPECTED_TAGS.get(code++), regexOption.getTag());
         }
     }
+
+    @Test
+    void testToFlags() {
+        assertEquals(0, RegexOption.toFlags(EnumSet.noneOf(RegexOption.class)));
+        assertEquals(Pattern.CASE_INSENSITIVE | Pattern.MULTILINE,
+                RegexOption.toFlags(EnumSet.of(RegexOption.CASE_INSENSITIVE, RegexOption.MULTILINE)));
+    }
 }
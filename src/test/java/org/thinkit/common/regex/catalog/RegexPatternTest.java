@@ -15,11 +15,22 @@
 package org.thinkit.common.regex.catalog;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.thinkit.common.regex.Epitaph;
+import org.thinkit.common.regex.EpitaphMetrics;
+import org.thinkit.common.regex.InMemoryMetricsSink;
+import org.thinkit.common.regex.PatternMetrics;
 
 /**
  * The test class for the {@link RegexPattern} .
@@ -96,4 +107,55 @@ final class RegexPatternTest {
             assertEquals(EXPECTED_TAGS.get(code++), regexPattern.getTag());
         }
     }
+
+    @ParameterizedTest
+    @EnumSource(RegexPattern.class)
+    void testGetPattern(final RegexPattern regexPattern) {
+        final Pattern pattern = regexPattern.getPattern();
+
+        assertEquals(regexPattern.getTag(), pattern.pattern());
+        assertSame(pattern, regexPattern.getPattern());
+    }
+
+    @ParameterizedTest
+    @EnumSource(RegexPattern.class)
+    void testGetPatternWithOption(final RegexPattern regexPattern) {
+        final Pattern pattern = regexPattern.getPattern(EnumSet.of(RegexOption.CASE_INSENSITIVE));
+
+        assertEquals(Pattern.CASE_INSENSITIVE, pattern.flags() & Pattern.CASE_INSENSITIVE);
+        assertSame(pattern, regexPattern.getPattern(Pattern.CASE_INSENSITIVE));
+        assertNotSame(pattern, regexPattern.getPattern());
+    }
+
+    @Test
+    void testWarmUp() throws Exception {
+        RegexPattern.warmUp(EnumSet.of(RegexOption.MULTILINE)).get(10, TimeUnit.SECONDS);
+
+        for (RegexPattern regexPattern : RegexPattern.values()) {
+            assertEquals(Pattern.MULTILINE, regexPattern.getPattern(Pattern.MULTILINE).flags() & Pattern.MULTILINE);
+        }
+    }
+
+    @Test
+    void testWarmUpEpitaphPattern() throws Exception {
+        RegexPattern.warmUp(EnumSet.of(RegexOption.UNIX_LINES)).get(10, TimeUnit.SECONDS);
+
+        final InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+        EpitaphMetrics.register(metricsSink);
+
+        try {
+            for (RegexPattern regexPattern : RegexPattern.values()) {
+                Epitaph.builder().pattern(regexPattern).option(EnumSet.of(RegexOption.UNIX_LINES)).input("").build();
+            }
+        } finally {
+            EpitaphMetrics.unregister(metricsSink);
+        }
+
+        for (RegexPattern regexPattern : RegexPattern.values()) {
+            final PatternMetrics patternMetrics = metricsSink.getMetrics(regexPattern.getTag());
+
+            assertEquals(1, patternMetrics.getCompileCount());
+            assertEquals(1, patternMetrics.getCacheHitCount());
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.thinkit.common.regex.catalog.BacktrackingComplexity;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The test class for the {@link BacktrackingAnalyzer} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class BacktrackingAnalyzerTest {
+
+    @Nested
+    class TestPresets {
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "XML_FILE", "JAVA_FILE", "TEXT_FILE", "JSON_FILE" })
+        void testExponentialPresets(RegexPattern regexPattern) {
+            assertComplexity(BacktrackingComplexity.EXPONENTIAL, regexPattern.getTag());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "EMAIL_ADDRESS", "WEB_URL", "PASSWORD" })
+        void testPolynomialPresets(RegexPattern regexPattern) {
+            assertComplexity(BacktrackingComplexity.POLYNOMIAL, regexPattern.getTag());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, mode = EnumSource.Mode.EXCLUDE, names = { "XML_FILE", "JAVA_FILE",
+                "TEXT_FILE", "JSON_FILE", "EMAIL_ADDRESS", "WEB_URL", "PASSWORD" })
+        void testLinearPresets(RegexPattern regexPattern) {
+            assertComplexity(BacktrackingComplexity.LINEAR, regexPattern.getTag());
+        }
+
+        @Test
+        void testFindings() {
+            final BacktrackingReport report = BacktrackingAnalyzer.analyze(RegexPattern.XML_FILE.getTag(), 0);
+
+            assertEquals(BacktrackingComplexity.EXPONENTIAL, report.getComplexity());
+            assertEquals("The repetitions ([A-Za-z]+-?)+ and [0-9A-Za-z]+ can divide the same characters between them",
+                    report.getFindings().get(0));
+            assertEquals("The iterations of ([A-Za-z]+-?)+ can divide the same characters between [A-Za-z]+ and [A-Za-z]+",
+                    report.getFindings().get(1));
+        }
+    }
+
+    @Nested
+    class TestAnalyze {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "(a+)+b", "(a*)*b", "(a|a)*b", "(a|ab)+c", "(.*a)+b", "(\\w+\\s?)+$", "(x+x+)+y",
+                "(?:a|b+)+c" })
+        void testExponential(String regexPattern) {
+            assertComplexity(BacktrackingComplexity.EXPONENTIAL, regexPattern);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "\\d+\\d+x", "a*a*", "(.*a){12}b", ".*-.*=", "(a+)b?a+", "(?=.*\\s+)x" })
+        void testPolynomial(String regexPattern) {
+            assertComplexity(BacktrackingComplexity.POLYNOMIAL, regexPattern);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "abc", "a+b+", "\\w+@\\w+", "(ab|ac)+", "([-.]\\w+)*", "(a++)+b", "(?>a+)+b",
+                "a*+a*", ".*a", "(a+b)+", "(a|b){3}", "\\d{1,3}(,\\d{3})*" })
+        void testLinear(String regexPattern) {
+            assertComplexity(BacktrackingComplexity.LINEAR, regexPattern);
+        }
+
+        @Test
+        void testReport() {
+            assertTrue(BacktrackingAnalyzer.analyze("[a-z]+", 0).isLinear());
+            assertTrue(BacktrackingAnalyzer.analyze("[a-z]+", 0).getFindings().isEmpty());
+            assertFalse(BacktrackingAnalyzer.analyze("(a+)+", 0).isLinear());
+            assertEquals(1, BacktrackingAnalyzer.analyze("(a+)+", 0).getFindings().size());
+        }
+
+        @Test
+        void testCaseInsensitive() {
+            assertComplexity(BacktrackingComplexity.LINEAR, "[a-z]+[A-Z]+");
+            assertEquals(BacktrackingComplexity.POLYNOMIAL,
+                    BacktrackingAnalyzer.analyze("[a-z]+[A-Z]+", java.util.regex.Pattern.CASE_INSENSITIVE)
+                            .getComplexity());
+        }
+    }
+
+    /**
+     * Asserts the complexity of the regex pattern passed as an argument.
+     *
+     * @param expected     The expected complexity
+     * @param regexPattern The regex pattern
+     */
+    private static void assertComplexity(BacktrackingComplexity expected, String regexPattern) {
+        assertEquals(expected, BacktrackingAnalyzer.analyze(regexPattern, 0).getComplexity(), regexPattern);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link CodePointSet} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class CodePointSetTest {
+
+    @Nested
+    class TestContains {
+
+        @ParameterizedTest
+        @ValueSource(ints = { '0', '5', '9' })
+        void testDigit(int codePoint) {
+            assertTrue(CodePointSet.DIGIT.contains(codePoint));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = { '/', ':', 'a', 0x0660 })
+        void testNotDigit(int codePoint) {
+            assertFalse(CodePointSet.DIGIT.contains(codePoint));
+        }
+
+        @Test
+        void testSupplementaryCodePoint() {
+            final CodePointSet set = CodePointSet.single(0x1F600);
+
+            assertTrue(set.contains(0x1F600));
+            assertFalse(set.contains(0x1F601));
+            assertFalse(set.contains(0xD83D));
+        }
+    }
+
+    @Nested
+    class TestOf {
+
+        @Test
+        void testOverlappingRangesAreMerged() {
+            final CodePointSet set = CodePointSet.of(new int[] { 'a', 'f', 'c', 'k', 'l', 'm' });
+
+            assertEquals(1, set.getRangeCount());
+            assertEquals('a', set.getRangeStart(0));
+            assertEquals('m', set.getRangeEnd(0));
+        }
+
+        @Test
+        void testEqualsIgnoresRangeOrder() {
+            assertEquals(CodePointSet.of(new int[] { 'x', 'z', 'a', 'c' }),
+                    CodePointSet.of(new int[] { 'a', 'c', 'x', 'z' }));
+        }
+    }
+
+    @Nested
+    class TestOperations {
+
+        @Test
+        void testUnion() {
+            final CodePointSet set = CodePointSet.range('a', 'c').union(CodePointSet.range('x', 'z'));
+
+            assertEquals(6, set.size());
+            assertTrue(set.contains('b'));
+            assertFalse(set.contains('m'));
+        }
+
+        @Test
+        void testIntersect() {
+            assertEquals(CodePointSet.range('c', 'f'),
+                    CodePointSet.range('a', 'f').intersect(CodePointSet.range('c', 'z')));
+        }
+
+        @Test
+        void testComplement() {
+            final CodePointSet set = CodePointSet.DIGIT.complement();
+
+            assertFalse(set.contains('0'));
+            assertTrue(set.contains(Character.MIN_CODE_POINT));
+            assertTrue(set.contains(Character.MAX_CODE_POINT));
+            assertEquals(CodePointSet.DIGIT, set.complement());
+        }
+
+        @Test
+        void testComplementOfEmptyIsAll() {
+            assertEquals(CodePointSet.ALL, CodePointSet.EMPTY.complement());
+            assertTrue(CodePointSet.ALL.complement().isEmpty());
+        }
+
+        @Test
+        void testCaseInsensitive() {
+            final CodePointSet set = CodePointSet.range('a', 'c').union(CodePointSet.single('1'))
+                    .caseInsensitive();
+
+            assertEquals(7, set.size());
+            assertTrue(set.contains('B'));
+            assertFalse(set.contains('D'));
+        }
+
+        @Test
+        void testOverlapsAndContainsAll() {
+            final CodePointSet set = CodePointSet.range('a', 'z');
+
+            assertTrue(set.overlaps(CodePointSet.range('x', '~')));
+            assertFalse(set.overlaps(CodePointSet.DIGIT));
+            assertTrue(set.containsAll(CodePointSet.range('m', 'p')));
+            assertFalse(set.containsAll(CodePointSet.range('x', '~')));
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link DfaAutomaton} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class DfaAutomatonTest {
+
+    /**
+     * The regex patterns compared with {@link Pattern}
+     */
+    private static final List<String> REGEX_PATTERNS = List.of("a+?", "(ab|a)c?", "[^a]*", "x?.", "b{2,}|c", "\\S+",
+            "a|ab", "(a|b)*?b", "[0-9]{3}-[0-9]{4}", "\\w+([-+.]\\w+)*@\\w+([-.]\\w+)*\\.\\w+([-.]\\w+)*", "😀+",
+            "(?i)ab", ".*");
+
+    @Nested
+    class TestCompile {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "(?=a)b", "a\\1", "^a", "a$", "\\bb", "a*+", "(?>a)" })
+        void testUnsupportedPattern(String regexPattern) {
+            assertThrows(UnsupportedPatternException.class, () -> DfaAutomaton.compile(regexPattern, 0));
+        }
+
+        @Test
+        void testTooManyStates() {
+            assertThrows(UnsupportedPatternException.class, () -> DfaAutomaton.compile("[ab]*a[ab]{20}", 0));
+        }
+    }
+
+    @Nested
+    class TestFind {
+
+        @Test
+        void testLeftmostFirst() {
+            assertEquals(List.of("0-1", "2-3"), find("a|ab", "abab", 0, 4));
+            assertEquals(List.of("0-2"), find("ab|a", "ab", 0, 2));
+        }
+
+        @Test
+        void testEmptyMatchesAdvanceByOne() {
+            assertEquals(List.of("0-0", "1-3", "3-3"), find("a*", "baa", 0, 3));
+        }
+
+        @Test
+        void testWithoutSlots() {
+            final DfaAutomaton automaton = DfaAutomaton.compile("[0-9]+", 0);
+
+            assertTrue(automaton.find("abc123", 0, 6, null));
+            assertFalse(automaton.find("abc123", 0, 3, null));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "aaa", "abab", "xaxbxc", "a😀b😀", "aab\nab", "ccc abc bca",
+                "123-4567 test@gmail.com", "\uD83Dab\uDE00" })
+        void testSameAsRepeatedFind(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                for (int start = 0; start <= input.length(); start++) {
+                    for (int end = start; end <= input.length(); end++) {
+                        if (!Automaton.splitsSurrogatePair(input, end)) {
+                            assertEquals(findByPattern(regexPattern, input, start, end),
+                                    find(regexPattern, input, start, end), regexPattern);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestFindBeforeLimit {
+
+        @Test
+        void testMatchCrossingLimit() {
+
+            final DfaAutomaton automaton = DfaAutomaton.compile("a*b", 0);
+            final int[] slots = new int[2];
+
+            assertTrue(automaton.find("xaaab", 0, 2, 5, slots));
+            assertEquals(1, slots[0]);
+            assertEquals(5, slots[1]);
+            assertFalse(automaton.find("xaaab", 2, 2, 5, slots));
+            assertFalse(automaton.find("xy aaab", 0, 2, 7, slots));
+            assertFalse(automaton.find("xy aaab", 0, 2, 7, null));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "aaab", "abab", "xaxbxc", "a😀b😀", "aab\nab", "ccc abc bca",
+                "123-4567 test@gmail.com", "\uD83Dab\uDE00", "xaaab yab" })
+        void testSameAsFind(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                assertFindBeforeLimit(DfaAutomaton.compile(regexPattern, 0), input, regexPattern);
+            }
+        }
+    }
+
+    @Nested
+    class TestFindSplitPoint {
+
+        @Test
+        void testSplitPoint() {
+
+            final DfaAutomaton automaton = DfaAutomaton.compile("[0-9]{3}-[0-9]{4}", 0);
+
+            assertEquals(9, automaton.findSplitPoint("123-4567 890", 0, 12));
+            assertEquals(9, automaton.findSplitPoint("123-4567 890", 5, 12));
+            assertEquals(-1, automaton.findSplitPoint("123-4567 890", 9, 12));
+            assertEquals(1, automaton.findSplitPoint("a 123-4567", 0, 10));
+            assertEquals(-1, automaton.findSplitPoint("a 123-4567", 2, 10));
+        }
+
+        @Test
+        void testNullablePattern() {
+            assertEquals(-1, DfaAutomaton.compile("a*", 0).findSplitPoint("bab", 0, 3));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "aaab", "abab", "xaxbxc", "a😀b😀", "aab\nab", "ccc abc bca",
+                "123-4567 test@gmail.com", "\uD83Dab\uDE00", "xaaab yab",
+                "ab 123-4567, 890-1234 x@y.zz aab bb" })
+        void testMatchesSplit(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                assertSplitPoints(DfaAutomaton.compile(regexPattern, 0), input, regexPattern);
+            }
+        }
+    }
+
+    @Nested
+    class TestLookingAt {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "abc", "ab😀", "bb", "123-4567", "\uDE00a" })
+        void testSameAsLookingAt(String input) {
+
+            final int[] slots = new int[2];
+
+            for (String regexPattern : REGEX_PATTERNS) {
+                final Matcher matcher = Pattern.compile(regexPattern).matcher(input);
+                final boolean expected = matcher.lookingAt();
+
+                assertEquals(expected, DfaAutomaton.compile(regexPattern, 0).lookingAt(input, 0, input.length(), slots),
+                        regexPattern);
+
+                if (expected) {
+                    assertEquals(matcher.end(), slots[1], regexPattern);
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestMatches {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "ab", "abc", "aaa", "123-4567", "😀😀", "test@gmail.com" })
+        void testSameAsMatches(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                assertEquals(Pattern.compile(regexPattern).matcher(input).matches(),
+                        DfaAutomaton.compile(regexPattern, 0).matches(input, 0, input.length(), null), regexPattern);
+            }
+        }
+    }
+
+    /**
+     * Returns the matches found by repeated searches of the automaton in the
+     * region, following the rules of {@link Matcher#find()} .
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @param start        The start index of the region
+     * @param end          The end index of the region
+     * @return The matches formatted as {@code start-end}
+     */
+    private static List<String> find(String regexPattern, String input, int start, int end) {
+
+        final DfaAutomaton automaton = DfaAutomaton.compile(regexPattern, 0);
+        final List<String> result = new ArrayList<>();
+        final int[] slots = new int[2];
+        int first = -1;
+        int last = start;
+
+        while (true) {
+            final int from = last == first ? last + 1 : last;
+
+            if (from > end || !automaton.find(input, from, end, slots)) {
+                return result;
+            }
+
+            first = slots[0];
+            last = slots[1];
+            result.add(first + "-" + last);
+        }
+    }
+
+    /**
+     * Returns the matches found by repeated calls of {@link Matcher#find()} in the
+     * region.
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @param start        The start index of the region
+     * @param end          The end index of the region
+     * @return The matches formatted as {@code start-end}
+     */
+    private static List<String> findByPattern(String regexPattern, String input, int start, int end) {
+
+        final Matcher matcher = Pattern.compile(regexPattern).matcher(input).region(start, end);
+        final List<String> result = new ArrayList<>();
+
+        while (matcher.find()) {
+            result.add(matcher.start() + "-" + matcher.end());
+        }
+
+        return result;
+    }
+
+    /**
+     * Asserts that the search before each limit finds the match found by the
+     * search without the limit if that match starts before the limit, and no
+     * match otherwise.
+     *
+     * @param automaton The automaton
+     * @param input     The input
+     * @param message   The message of the failure
+     */
+    private static void assertFindBeforeLimit(Automaton automaton, String input, String message) {
+
+        final int[] expected = new int[2];
+        final int[] actual = new int[2];
+
+        for (int from = 0; from <= input.length(); from++) {
+            for (int limit = from; limit <= input.length() + 1; limit++) {
+                final boolean found = automaton.find(input, from, input.length(), expected) && expected[0] < limit;
+
+                assertEquals(found, automaton.find(input, from, limit, input.length(), actual), message);
+
+                if (found) {
+                    assertArrayEquals(expected, actual, message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Asserts that the matches found one after another from any index before
+     * each split point are the matches starting before the split point found in
+     * the same way, none of which crosses the split point, followed by the
+     * matches found from the split point.
+     *
+     * @param automaton The automaton
+     * @param input     The input
+     * @param message   The message of the failure
+     */
+    static void assertSplitPoints(Automaton automaton, String input, String message) {
+        for (int from = 0; from < input.length(); from++) {
+            final int splitPoint = automaton.findSplitPoint(input, from, input.length());
+
+            if (splitPoint < 0) {
+                continue;
+            }
+
+            assertTrue(splitPoint > from && splitPoint < input.length(), message);
+
+            for (int start = 0; start < splitPoint; start++) {
+                final List<String> expected = findBeforeLimit(automaton, input, start, input.length() + 1);
+                final List<String> actual = findBeforeLimit(automaton, input, start, splitPoint);
+
+                if (!actual.isEmpty()) {
+                    final String last = actual.get(actual.size() - 1);
+                    assertTrue(Integer.parseInt(last.substring(last.indexOf('-') + 1)) <= splitPoint, message);
+                }
+
+                actual.addAll(findBeforeLimit(automaton, input, splitPoint, input.length() + 1));
+
+                assertEquals(expected, actual, message + " split at " + splitPoint);
+            }
+        }
+    }
+
+    /**
+     * Returns the matches starting before the limit found by repeated calls of
+     * {@link Automaton#find(CharSequence, int, int, int, int[])} .
+     *
+     * @param automaton The automaton
+     * @param input     The input
+     * @param start     The index to start at
+     * @param limit     The index before which the matches have to start
+     * @return The matches formatted as {@code start-end}
+     */
+    private static List<String> findBeforeLimit(Automaton automaton, String input, int start, int limit) {
+
+        final List<String> result = new ArrayList<>();
+        final int[] slots = new int[2];
+        int from = start;
+
+        while (from <= input.length() && automaton.find(input, from, limit, input.length(), slots)) {
+            result.add(slots[0] + "-" + slots[1]);
+            from = slots[0] == slots[1] ? slots[1] + 1 : slots[1];
+        }
+
+        return result;
+    }
+}
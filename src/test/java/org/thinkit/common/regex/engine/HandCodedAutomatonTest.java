@@ -0,0 +1,324 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The test class for the {@link HandCodedAutomaton} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class HandCodedAutomatonTest {
+
+    /**
+     * The valid and nearly valid inputs of the presets mutated into the corpus
+     */
+    private static final List<String> SAMPLES = List.of("0312345678", "0901234567", "090-1234-5678",
+            "070-0000-9999", "060-1234-5678", "123-4567", "000-0000", "20201231", "2020-12-31", "2020/12/31",
+            "1999-02-30", "2020-13-01", "2020-00-10", "2020/10/32", "192.168.0.1", "255.255.255.255", "0.0.0.0",
+            "256.1.1.1", "10.01.2.3", "1.2.3.2567", "1.2.3");
+
+    /**
+     * The characters the corpus is made of
+     */
+    private static final String ALPHABET = "0123456789012345-/.:a ";
+
+    /**
+     * The number of inputs of the corpus
+     */
+    private static final int CORPUS_SIZE = 3000;
+
+    /**
+     * The generated corpus
+     */
+    private static final List<String> CORPUS = generateCorpus(new Random(20201231L));
+
+    @Nested
+    class TestCompile {
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "FIXED_LINE_PHONE_JP", "CELL_PHONE_WITH_HYPHEN_JP",
+                "POST_CODE_JP", "DATE", "DATE_WITH_HYPHEN", "DATE_WITH_SLASH", "IP_ADDRESS" })
+        void testSupportedPreset(RegexPattern regexPattern) {
+            assertTrue(HandCodedAutomaton.compile(regexPattern.getTag(), 0) instanceof HandCodedAutomaton);
+            assertTrue(HandCodedAutomaton.compile(regexPattern.getTag(),
+                    Pattern.CASE_INSENSITIVE | Pattern.MULTILINE) instanceof HandCodedAutomaton);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "[0-9]+", "\\d{3}-\\d{4}|a", "\\d{3}-\\d{5}" })
+        void testUnsupportedPattern(String regexPattern) {
+            assertThrows(UnsupportedPatternException.class, () -> HandCodedAutomaton.compile(regexPattern, 0));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = { Pattern.LITERAL, Pattern.CANON_EQ, Pattern.UNICODE_CHARACTER_CLASS })
+        void testUnsupportedFlags(int flags) {
+            assertThrows(UnsupportedPatternException.class,
+                    () -> HandCodedAutomaton.compile(RegexPattern.POST_CODE_JP.getTag(), flags));
+        }
+
+        @Test
+        void testNullPattern() {
+            assertThrows(NullPointerException.class, () -> HandCodedAutomaton.compile(null, 0));
+        }
+    }
+
+    @Nested
+    class TestDifferential {
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "FIXED_LINE_PHONE_JP", "CELL_PHONE_WITH_HYPHEN_JP",
+                "POST_CODE_JP", "DATE", "DATE_WITH_HYPHEN", "DATE_WITH_SLASH", "IP_ADDRESS" })
+        void testSameAsMatches(RegexPattern regexPattern) {
+
+            final Pattern pattern = Pattern.compile(regexPattern.getTag());
+            final HandCodedAutomaton automaton = HandCodedAutomaton.compile(regexPattern.getTag(), 0);
+
+            for (String input : CORPUS) {
+                for (int start = 0; start <= input.length(); start++) {
+                    assertEquals(pattern.matcher(input).region(start, input.length()).matches(),
+                            automaton.matches(input, start, input.length(), null), input);
+                }
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "FIXED_LINE_PHONE_JP", "CELL_PHONE_WITH_HYPHEN_JP",
+                "POST_CODE_JP", "DATE", "DATE_WITH_HYPHEN", "DATE_WITH_SLASH", "IP_ADDRESS" })
+        void testSameAsLookingAt(RegexPattern regexPattern) {
+
+            final Pattern pattern = Pattern.compile(regexPattern.getTag());
+            final HandCodedAutomaton automaton = HandCodedAutomaton.compile(regexPattern.getTag(), 0);
+            final int[] slots = new int[2];
+
+            for (String input : CORPUS) {
+                for (int end = 0; end <= input.length(); end++) {
+                    final Matcher matcher = pattern.matcher(input).region(0, end);
+                    final boolean expected = matcher.lookingAt();
+
+                    assertEquals(expected, automaton.lookingAt(input, 0, end, slots), input);
+
+                    if (expected) {
+                        assertEquals(matcher.end(), slots[1], input);
+                    }
+                }
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "FIXED_LINE_PHONE_JP", "CELL_PHONE_WITH_HYPHEN_JP",
+                "POST_CODE_JP", "DATE", "DATE_WITH_HYPHEN", "DATE_WITH_SLASH", "IP_ADDRESS" })
+        void testSameAsRepeatedFind(RegexPattern regexPattern) {
+
+            final Pattern pattern = Pattern.compile(regexPattern.getTag());
+            final HandCodedAutomaton automaton = HandCodedAutomaton.compile(regexPattern.getTag(), 0);
+
+            for (String input : CORPUS) {
+                for (int start = 0; start <= input.length(); start++) {
+                    assertEquals(findByPattern(pattern, input, start, input.length()),
+                            find(automaton, input, start, input.length()), input);
+                    assertEquals(findByPattern(pattern, input, 0, start), find(automaton, input, 0, start), input);
+                }
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "FIXED_LINE_PHONE_JP", "CELL_PHONE_WITH_HYPHEN_JP",
+                "POST_CODE_JP", "DATE", "DATE_WITH_HYPHEN", "DATE_WITH_SLASH", "IP_ADDRESS" })
+        void testSameAsFindBeforeLimit(RegexPattern regexPattern) {
+
+            final HandCodedAutomaton automaton = HandCodedAutomaton.compile(regexPattern.getTag(), 0);
+
+            for (String input : CORPUS) {
+                assertFindBeforeLimit(automaton, input, input);
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "FIXED_LINE_PHONE_JP", "CELL_PHONE_WITH_HYPHEN_JP",
+                "POST_CODE_JP", "DATE", "DATE_WITH_HYPHEN", "DATE_WITH_SLASH", "IP_ADDRESS" })
+        void testMatchesSplit(RegexPattern regexPattern) {
+
+            final HandCodedAutomaton automaton = HandCodedAutomaton.compile(regexPattern.getTag(), 0);
+
+            for (String input : CORPUS) {
+                DfaAutomatonTest.assertSplitPoints(automaton, input, input);
+            }
+        }
+    }
+
+    /**
+     * Generates the corpus of the samples, their mutations and random strings.
+     *
+     * @param random The random number generator
+     * @return The corpus
+     */
+    private static List<String> generateCorpus(Random random) {
+
+        final List<String> corpus = new ArrayList<>(SAMPLES);
+
+        while (corpus.size() < CORPUS_SIZE) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    corpus.add(mutate(random, SAMPLES.get(random.nextInt(SAMPLES.size()))));
+                    break;
+
+                case 1:
+                    corpus.add(mutate(random, SAMPLES.get(random.nextInt(SAMPLES.size())))
+                            + ALPHABET.charAt(random.nextInt(ALPHABET.length()))
+                            + mutate(random, SAMPLES.get(random.nextInt(SAMPLES.size()))));
+                    break;
+
+                default:
+                    final StringBuilder builder = new StringBuilder();
+
+                    for (int i = random.nextInt(24); i > 0; i--) {
+                        builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                    }
+
+                    corpus.add(builder.toString());
+                    break;
+            }
+        }
+
+        return corpus;
+    }
+
+    /**
+     * Replaces, inserts or deletes a few characters of the sample at random.
+     *
+     * @param random The random number generator
+     * @param sample The sample
+     * @return The mutated sample
+     */
+    private static String mutate(Random random, String sample) {
+
+        final StringBuilder builder = new StringBuilder(sample);
+
+        for (int i = random.nextInt(3); i > 0 && builder.length() > 0; i--) {
+            final int index = random.nextInt(builder.length());
+            final char character = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    builder.setCharAt(index, character);
+                    break;
+
+                case 1:
+                    builder.insert(index, character);
+                    break;
+
+                default:
+                    builder.deleteCharAt(index);
+                    break;
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Returns the matches found by repeated searches of the automaton in the
+     * region, following the rules of {@link Matcher#find()} .
+     *
+     * @param automaton The automaton
+     * @param input     The input
+     * @param start     The start index of the region
+     * @param end       The end index of the region
+     * @return The matches formatted as {@code start-end}
+     */
+    private static List<String> find(HandCodedAutomaton automaton, String input, int start, int end) {
+
+        final List<String> result = new ArrayList<>();
+        final int[] slots = new int[2];
+        int from = start;
+
+        while (from <= end && automaton.find(input, from, end, slots)) {
+            result.add(slots[0] + "-" + slots[1]);
+            from = slots[1];
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the matches found by repeated calls of {@link Matcher#find()} in the
+     * region.
+     *
+     * @param pattern The pattern
+     * @param input   The input
+     * @param start   The start index of the region
+     * @param end     The end index of the region
+     * @return The matches formatted as {@code start-end}
+     */
+    private static List<String> findByPattern(Pattern pattern, String input, int start, int end) {
+
+        final Matcher matcher = pattern.matcher(input).region(start, end);
+        final List<String> result = new ArrayList<>();
+
+        while (matcher.find()) {
+            result.add(matcher.start() + "-" + matcher.end());
+        }
+
+        return result;
+    }
+
+    /**
+     * Asserts that the search before each limit finds the match found by the
+     * search without the limit if that match starts before the limit, and no
+     * match otherwise.
+     *
+     * @param automaton The automaton
+     * @param input     The input
+     * @param message   The message of the failure
+     */
+    private static void assertFindBeforeLimit(Automaton automaton, String input, String message) {
+
+        final int[] expected = new int[2];
+        final int[] actual = new int[2];
+
+        for (int from = 0; from <= input.length(); from++) {
+            for (int limit = from; limit <= input.length() + 1; limit++) {
+                final boolean found = automaton.find(input, from, input.length(), expected) && expected[0] < limit;
+
+                assertEquals(found, automaton.find(input, from, limit, input.length(), actual), message);
+
+                if (found) {
+                    assertArrayEquals(expected, actual, message);
+                }
+            }
+        }
+    }
+}
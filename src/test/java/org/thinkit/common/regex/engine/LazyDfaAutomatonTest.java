@@ -0,0 +1,343 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link LazyDfaAutomaton} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class LazyDfaAutomatonTest {
+
+    /**
+     * The regex patterns compared with {@link Pattern}
+     */
+    private static final List<String> REGEX_PATTERNS = List.of("a+?", "(ab|a)c?", "[^a]*", "x?.", "b{2,}|c", "\\S+",
+            "a|ab", "(a|b)*?b", "[0-9]{3}-[0-9]{4}", "\\w+([-+.]\\w+)*@\\w+([-.]\\w+)*\\.\\w+([-.]\\w+)*", "😀+",
+            "(?i)ab", ".*", "[ab]*a[ab]{20}");
+
+    /**
+     * The cache size small enough to flush the caches repeatedly
+     */
+    private static final long SMALL_CACHE_SIZE = 4 * 1024;
+
+    @Nested
+    class TestCompile {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "(?=a)b", "a\\1", "^a", "a$", "\\bb", "a*+", "(?>a)" })
+        void testUnsupportedPattern(String regexPattern) {
+            assertThrows(UnsupportedPatternException.class, () -> LazyDfaAutomaton.compile(regexPattern, 0));
+        }
+
+        @Test
+        void testTooManyStatesForDfa() {
+            assertThrows(UnsupportedPatternException.class, () -> DfaAutomaton.compile("[ab]*a[ab]{20}", 0));
+
+            final LazyDfaAutomaton automaton = LazyDfaAutomaton.compile("[ab]*a[ab]{20}", 0);
+
+            assertTrue(automaton.matches("ba" + "b".repeat(20), 0, 22, null));
+            assertFalse(automaton.matches("bb" + "b".repeat(20), 0, 22, null));
+        }
+
+        @ParameterizedTest
+        @ValueSource(longs = { 0, -1 })
+        void testCacheSizeIsNotPositive(long cacheSize) {
+            assertThrows(IllegalArgumentException.class, () -> LazyDfaAutomaton.compile("a", 0, cacheSize));
+        }
+    }
+
+    @Nested
+    class TestCache {
+
+        @Test
+        void testFlushWhenFull() {
+
+            final LazyDfaAutomaton automaton = LazyDfaAutomaton.compile("[ab]*a[ab]{20}", 0, SMALL_CACHE_SIZE);
+            final String input = randomInput(new Random(0), 2000);
+            final int[] slots = new int[2];
+
+            assertEquals(matchesByPattern("[ab]*a[ab]{20}", input), automaton.matches(input, 0, input.length(), null));
+            assertEquals(findByPattern("[ab]*a[ab]{20}", input, 0, input.length()),
+                    find(automaton, input, 0, input.length()));
+            assertTrue(automaton.getFlushCount() > 0);
+            assertTrue(automaton.lookingAt(input, 0, input.length(), slots));
+        }
+
+        @Test
+        void testFallbackWhenThrashing() {
+
+            final LazyDfaAutomaton automaton = LazyDfaAutomaton.compile("[ab]*a[ab]{20}b", 0, SMALL_CACHE_SIZE);
+            final String input = randomInput(new Random(1), 20000);
+
+            assertEquals(Pattern.compile("[ab]*a[ab]{20}b").matcher(input).find(),
+                    automaton.find(input, 0, input.length(), null));
+            assertTrue(automaton.isSearchUncached());
+
+            assertFalse(automaton.find("ccc", 0, 3, null));
+            assertFalse(automaton.isSearchUncached());
+        }
+
+        @Test
+        void testCacheIsReused() {
+
+            final LazyDfaAutomaton automaton = LazyDfaAutomaton.compile("[0-9]{3}-[0-9]{4}", 0);
+
+            for (int i = 0; i < 100; i++) {
+                assertTrue(automaton.find("tel: 123-4567", 0, 13, null));
+            }
+
+            assertEquals(0, automaton.getFlushCount());
+        }
+
+        @Test
+        void testEachThreadHasItsOwnCache() throws InterruptedException {
+
+            final LazyDfaAutomaton automaton = LazyDfaAutomaton.compile("[ab]*a[ab]{20}", 0, SMALL_CACHE_SIZE);
+            final String input = randomInput(new Random(2), 2000);
+            final List<String> expected = findByPattern("[ab]*a[ab]{20}", input, 0, input.length());
+            final List<List<String>> results = new ArrayList<>();
+            final List<Thread> threads = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+                final Thread thread = new Thread(() -> {
+                    final List<String> result = find(automaton, input, 0, input.length());
+
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                });
+
+                threads.add(thread);
+                thread.start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(4, results.size());
+            results.forEach(result -> assertEquals(expected, result));
+        }
+    }
+
+    @Nested
+    class TestFind {
+
+        @Test
+        void testLeftmostFirst() {
+            assertEquals(List.of("0-1", "2-3"), find(LazyDfaAutomaton.compile("a|ab", 0), "abab", 0, 4));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "aaa", "abab", "xaxbxc", "a😀b😀", "aab\nab", "ccc abc bca",
+                "123-4567 test@gmail.com", "\uD83Dab\uDE00", "abababababababababababab" })
+        void testSameAsRepeatedFind(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                for (long cacheSize : new long[] { SMALL_CACHE_SIZE, LazyDfaAutomaton.DEFAULT_CACHE_SIZE }) {
+                    final LazyDfaAutomaton automaton = LazyDfaAutomaton.compile(regexPattern, 0, cacheSize);
+
+                    for (int start = 0; start <= input.length(); start++) {
+                        for (int end = start; end <= input.length(); end++) {
+                            if (!Automaton.splitsSurrogatePair(input, end)) {
+                                assertEquals(findByPattern(regexPattern, input, start, end),
+                                        find(automaton, input, start, end), regexPattern);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestFindBeforeLimit {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "aaab", "abab", "xaxbxc", "a😀b😀", "aab\nab", "ccc abc bca",
+                "123-4567 test@gmail.com", "\uD83Dab\uDE00", "xaaab yab" })
+        void testSameAsFind(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                for (long cacheSize : new long[] { SMALL_CACHE_SIZE, LazyDfaAutomaton.DEFAULT_CACHE_SIZE }) {
+                    assertFindBeforeLimit(LazyDfaAutomaton.compile(regexPattern, 0, cacheSize), input, regexPattern);
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestLookingAt {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "abc", "ab😀", "bb", "123-4567", "\uDE00a" })
+        void testSameAsLookingAt(String input) {
+
+            final int[] slots = new int[2];
+
+            for (String regexPattern : REGEX_PATTERNS) {
+                final Matcher matcher = Pattern.compile(regexPattern).matcher(input);
+                final boolean expected = matcher.lookingAt();
+
+                assertEquals(expected,
+                        LazyDfaAutomaton.compile(regexPattern, 0).lookingAt(input, 0, input.length(), slots),
+                        regexPattern);
+
+                if (expected) {
+                    assertEquals(matcher.end(), slots[1], regexPattern);
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestMatches {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "ab", "abc", "aaa", "123-4567", "😀😀", "test@gmail.com" })
+        void testSameAsMatches(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                assertEquals(matchesByPattern(regexPattern, input),
+                        LazyDfaAutomaton.compile(regexPattern, 0).matches(input, 0, input.length(), null),
+                        regexPattern);
+            }
+        }
+    }
+
+    /**
+     * Returns the random input consisting of {@code a} and {@code b} .
+     *
+     * @param random The random number generator
+     * @param length The length of the input
+     * @return The random input
+     */
+    private static String randomInput(Random random, int length) {
+
+        final StringBuilder input = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            input.append(random.nextBoolean() ? 'a' : 'b');
+        }
+
+        return input.toString();
+    }
+
+    /**
+     * Tests if the entire input matches the regex pattern by {@link Pattern} .
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @return {@code true} if the entire input matches, otherwise {@code false}
+     */
+    private static boolean matchesByPattern(String regexPattern, String input) {
+        return Pattern.compile(regexPattern).matcher(input).matches();
+    }
+
+    /**
+     * Returns the matches found by repeated searches of the automaton in the
+     * region, following the rules of {@link Matcher#find()} .
+     *
+     * @param automaton The automaton
+     * @param input     The input
+     * @param start     The start index of the region
+     * @param end       The end index of the region
+     * @return The matches formatted as {@code start-end}
+     */
+    private static List<String> find(LazyDfaAutomaton automaton, String input, int start, int end) {
+
+        final List<String> result = new ArrayList<>();
+        final int[] slots = new int[2];
+        int first = -1;
+        int last = start;
+
+        while (true) {
+            final int from = last == first ? last + 1 : last;
+
+            if (from > end || !automaton.find(input, from, end, slots)) {
+                return result;
+            }
+
+            first = slots[0];
+            last = slots[1];
+            result.add(first + "-" + last);
+        }
+    }
+
+    /**
+     * Returns the matches found by repeated calls of {@link Matcher#find()} in the
+     * region.
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @param start        The start index of the region
+     * @param end          The end index of the region
+     * @return The matches formatted as {@code start-end}
+     */
+    private static List<String> findByPattern(String regexPattern, String input, int start, int end) {
+
+        final Matcher matcher = Pattern.compile(regexPattern).matcher(input).region(start, end);
+        final List<String> result = new ArrayList<>();
+
+        while (matcher.find()) {
+            result.add(matcher.start() + "-" + matcher.end());
+        }
+
+        return result;
+    }
+
+    /**
+     * Asserts that the search before each limit finds the match found by the
+     * search without the limit if that match starts before the limit, and no
+     * match otherwise.
+     *
+     * @param automaton The automaton
+     * @param input     The input
+     * @param message   The message of the failure
+     */
+    private static void assertFindBeforeLimit(Automaton automaton, String input, String message) {
+
+        final int[] expected = new int[2];
+        final int[] actual = new int[2];
+
+        for (int from = 0; from <= input.length(); from++) {
+            for (int limit = from; limit <= input.length() + 1; limit++) {
+                final boolean found = automaton.find(input, from, input.length(), expected) && expected[0] < limit;
+
+                assertEquals(found, automaton.find(input, from, limit, input.length(), actual), message);
+
+                if (found) {
+                    assertArrayEquals(expected, actual, message);
+                }
+            }
+        }
+    }
+}
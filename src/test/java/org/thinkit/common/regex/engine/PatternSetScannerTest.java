@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link PatternSetScanner} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class PatternSetScannerTest {
+
+    @Nested
+    class TestScan {
+
+        @Test
+        void testEmptyMatchesAdvanceByOne() {
+            assertEquals(List.of("0:0-0", "0:1-3", "0:3-3"), scan(List.of("a*"), "baa"));
+        }
+
+        @Test
+        void testEmptyMatchInsideSurrogatePair() {
+            assertEquals(find(List.of("a*"), "😀"), scan(List.of("a*"), "😀"));
+        }
+
+        @Test
+        void testLeftmostFirst() {
+            assertEquals(List.of("0:0-1", "1:0-2"), scan(List.of("a|ab", "ab|a"), "ab"));
+        }
+
+        @Test
+        void testMatchEndingBehindScanHeadIsRescanned() {
+            final List<String> regexPatterns = List.of("ab|abcd_", "bc", "c+");
+            assertEquals(find(regexPatterns, "abcabcd_cc"), scan(regexPatterns, "abcabcd_cc"));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "aaa", "abab", "xaxbxc", "a😀b😀", "aab\nab", "ccc abc bca" })
+        void testSameAsRepeatedFind(String input) {
+            final List<String> regexPatterns = List.of("a+?", "(ab|a)c?", "[^a]*", "x?.", "b{2,}|c", "\\S+");
+            assertEquals(find(regexPatterns, input), scan(regexPatterns, input));
+        }
+    }
+
+    @Nested
+    class TestFindAny {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "b1", "xyz", "a😀" })
+        void testSameAsFind(String input) {
+
+            final List<String> regexPatterns = List.of("a", "[0-9]", "x.z", "b?", "😀");
+            final BitSet expected = new BitSet();
+
+            for (int i = 0; i < regexPatterns.size(); i++) {
+                if (Pattern.compile(regexPatterns.get(i)).matcher(input).find()) {
+                    expected.set(i);
+                }
+            }
+
+            assertEquals(expected, createScanner(regexPatterns).findAny(input));
+        }
+    }
+
+    @Nested
+    class TestMatchEntire {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "ab", "abc", "aaa" })
+        void testSameAsMatches(String input) {
+
+            final List<String> regexPatterns = List.of("a*", "ab", "a.c", "[a-c]+", "b");
+            final BitSet expected = new BitSet();
+
+            for (int i = 0; i < regexPatterns.size(); i++) {
+                if (Pattern.compile(regexPatterns.get(i)).matcher(input).matches()) {
+                    expected.set(i);
+                }
+            }
+
+            assertEquals(expected, createScanner(regexPatterns).matchEntire(input));
+        }
+    }
+
+    /**
+     * Creates the scanner of the regex patterns.
+     *
+     * @param regexPatterns The regex patterns
+     * @return The scanner
+     */
+    private static PatternSetScanner createScanner(List<String> regexPatterns) {
+
+        final List<RegexNode> roots = new ArrayList<>();
+
+        for (String regexPattern : regexPatterns) {
+            roots.add(RegexParser.parse(regexPattern, 0));
+        }
+
+        return new PatternSetScanner(ProgramCompiler.compile(roots));
+    }
+
+    /**
+     * Returns the matches reported by the scanner, ordered by the pattern index.
+     *
+     * @param regexPatterns The regex patterns
+     * @param input         The input
+     * @return The matches formatted as {@code pattern:start-end}
+     */
+    private static List<String> scan(List<String> regexPatterns, String input) {
+
+        final List<List<String>> matches = new ArrayList<>();
+        regexPatterns.forEach(regexPattern -> matches.add(new ArrayList<>()));
+
+        createScanner(regexPatterns).scan(input,
+                (pattern, start, end) -> matches.get(pattern).add(pattern + ":" + start + "-" + end));
+
+        final List<String> result = new ArrayList<>();
+        matches.forEach(result::addAll);
+
+        return result;
+    }
+
+    /**
+     * Returns the matches found by repeated calls of {@link Matcher#find()} ,
+     * ordered by the pattern index.
+     *
+     * @param regexPatterns The regex patterns
+     * @param input         The input
+     * @return The matches formatted as {@code pattern:start-end}
+     */
+    private static List<String> find(List<String> regexPatterns, String input) {
+
+        final List<String> result = new ArrayList<>();
+
+        for (int i = 0; i < regexPatterns.size(); i++) {
+            final Matcher matcher = Pattern.compile(regexPatterns.get(i)).matcher(input);
+
+            while (matcher.find()) {
+                result.add(i + ":" + matcher.start() + "-" + matcher.end());
+            }
+        }
+
+        return result;
+    }
+}
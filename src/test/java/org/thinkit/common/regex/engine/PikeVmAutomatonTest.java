@@ -0,0 +1,292 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link PikeVmAutomaton} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class PikeVmAutomatonTest {
+
+    /**
+     * The regex patterns compared with {@link Pattern}
+     */
+    private static final List<String> REGEX_PATTERNS = List.of("a+?", "(ab|a)c?", "[^a]*", "x?.", "(b{2,})|(c)",
+            "(\\S)+", "(a)|(ab)", "((a)|b)*?b", "([0-9]{3})-([0-9]{4})",
+            "(\\w+)([-+.]\\w+)*@\\w+([-.]\\w+)*\\.\\w+([-.]\\w+)*", "(😀)+", "(?i)(a)(b)", "(.*)", "(a|(b))+",
+            "(?:(a)b)*ac", "(a*?)(a*)", "(?<name>a)(b)?");
+
+    @Nested
+    class TestCompile {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "(?=a)b", "a\\1", "^a", "a$", "\\bb", "a*+", "(?>a)" })
+        void testUnsupportedPattern(String regexPattern) {
+            assertThrows(UnsupportedPatternException.class, () -> PikeVmAutomaton.compile(regexPattern, 0));
+        }
+
+        @Test
+        void testGroupCount() {
+            assertEquals(0, PikeVmAutomaton.compile("abc", 0).getGroupCount());
+            assertEquals(3, PikeVmAutomaton.compile("(a)(?:b)((c)|d)", 0).getGroupCount());
+        }
+
+        @Test
+        void testIsCapturing() {
+            assertTrue(PikeVmAutomaton.compile("a", 0).isCapturing());
+            assertFalse(DfaAutomaton.compile("a", 0).isCapturing());
+        }
+    }
+
+    @Nested
+    class TestFind {
+
+        @Test
+        void testLeftmostFirst() {
+            assertEquals(List.of("[0, 1]", "[2, 3]"), find("a|ab", "abab", 0, 4));
+            assertEquals(List.of("[0, 2, 0, 1]"), find("(a)b|a", "ab", 0, 2));
+        }
+
+        @Test
+        void testWithoutSlots() {
+            final PikeVmAutomaton automaton = PikeVmAutomaton.compile("([0-9])+", 0);
+
+            assertTrue(automaton.find("abc123", 0, 6, null));
+            assertFalse(automaton.find("abc123", 0, 3, null));
+        }
+
+        @Test
+        void testReuseAfterEarlyReturn() {
+            final PikeVmAutomaton automaton = PikeVmAutomaton.compile("[^x]*", 0);
+            final int[] slots = new int[2];
+
+            assertTrue(automaton.find("ab", 0, 2, null));
+            assertTrue(automaton.find("xab", 1, 3, slots));
+            assertArrayEquals(new int[] { 1, 3 }, slots);
+        }
+
+        @Test
+        void testLinearTimeOnCatastrophicPattern() {
+            final PikeVmAutomaton automaton = PikeVmAutomaton.compile("(a+)+b", 0);
+            final String input = "a".repeat(100_000);
+
+            assertFalse(automaton.find(input, 0, input.length(), new int[4]));
+            assertFalse(automaton.matches(input, 0, input.length(), null));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "aaa", "abab", "xaxbxc", "a😀b😀", "aab\nab", "ccc abc bca",
+                "123-4567 test@gmail.com", "\uD83Dab\uDE00", "abacbbc" })
+        void testSameAsRepeatedFind(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                for (int start = 0; start <= input.length(); start++) {
+                    for (int end = start; end <= input.length(); end++) {
+                        if (!Automaton.splitsSurrogatePair(input, end)) {
+                            assertEquals(findByPattern(regexPattern, input, start, end),
+                                    find(regexPattern, input, start, end), regexPattern);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestFindBeforeLimit {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "aaab", "abab", "xaxbxc", "a😀b😀", "aab\nab", "ccc abc bca",
+                "123-4567 test@gmail.com", "\uD83Dab\uDE00", "xaaab yab" })
+        void testSameAsFind(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                assertFindBeforeLimit(PikeVmAutomaton.compile(regexPattern, 0), input, regexPattern);
+            }
+        }
+    }
+
+    @Nested
+    class TestFindSplitPoint {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "aaab", "abab", "xaxbxc", "a😀b😀", "aab\nab", "ccc abc bca",
+                "123-4567 test@gmail.com", "\uD83Dab\uDE00", "xaaab yab", "ab 123-4567, 890-1234 x@y.zz aab bb" })
+        void testMatchesSplit(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                DfaAutomatonTest.assertSplitPoints(PikeVmAutomaton.compile(regexPattern, 0), input, regexPattern);
+            }
+        }
+    }
+
+    @Nested
+    class TestLookingAt {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "abc", "ab😀", "bb", "123-4567", "\uDE00a", "abac" })
+        void testSameAsLookingAt(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                final Matcher matcher = Pattern.compile(regexPattern).matcher(input);
+                final int[] slots = new int[(matcher.groupCount() + 1) * 2];
+                final boolean expected = matcher.lookingAt();
+
+                assertEquals(expected,
+                        PikeVmAutomaton.compile(regexPattern, 0).lookingAt(input, 0, input.length(), slots),
+                        regexPattern);
+
+                if (expected) {
+                    assertArrayEquals(slotsOf(matcher), slots, regexPattern);
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestMatches {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", "a", "ab", "abc", "aaa", "123-4567", "😀😀", "test@gmail.com", "abac" })
+        void testSameAsMatches(String input) {
+            for (String regexPattern : REGEX_PATTERNS) {
+                final Matcher matcher = Pattern.compile(regexPattern).matcher(input);
+                final int[] slots = new int[(matcher.groupCount() + 1) * 2];
+                final boolean expected = matcher.matches();
+
+                assertEquals(expected,
+                        PikeVmAutomaton.compile(regexPattern, 0).matches(input, 0, input.length(), slots),
+                        regexPattern);
+
+                if (expected) {
+                    assertArrayEquals(slotsOf(matcher), slots, regexPattern);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the slots of the match of the matcher.
+     *
+     * @param matcher The matcher
+     * @return The slots
+     */
+    private static int[] slotsOf(Matcher matcher) {
+
+        final int[] slots = new int[(matcher.groupCount() + 1) * 2];
+
+        for (int group = 0; group <= matcher.groupCount(); group++) {
+            slots[group * 2] = matcher.start(group);
+            slots[group * 2 + 1] = matcher.end(group);
+        }
+
+        return slots;
+    }
+
+    /**
+     * Returns the matches and their groups found by repeated searches of the
+     * automaton in the region, following the rules of {@link Matcher#find()} .
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @param start        The start index of the region
+     * @param end          The end index of the region
+     * @return The slots of the matches formatted as strings
+     */
+    private static List<String> find(String regexPattern, String input, int start, int end) {
+
+        final PikeVmAutomaton automaton = PikeVmAutomaton.compile(regexPattern, 0);
+        final List<String> result = new ArrayList<>();
+        final int[] slots = new int[(automaton.getGroupCount() + 1) * 2];
+        int first = -1;
+        int last = start;
+
+        while (true) {
+            final int from = last == first ? last + 1 : last;
+
+            if (from > end || !automaton.find(input, from, end, slots)) {
+                return result;
+            }
+
+            first = slots[0];
+            last = slots[1];
+            result.add(Arrays.toString(slots));
+        }
+    }
+
+    /**
+     * Returns the matches and their groups found by repeated calls of
+     * {@link Matcher#find()} in the region.
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @param start        The start index of the region
+     * @param end          The end index of the region
+     * @return The slots of the matches formatted as strings
+     */
+    private static List<String> findByPattern(String regexPattern, String input, int start, int end) {
+
+        final Matcher matcher = Pattern.compile(regexPattern).matcher(input).region(start, end);
+        final List<String> result = new ArrayList<>();
+
+        while (matcher.find()) {
+            result.add(Arrays.toString(slotsOf(matcher)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Asserts that the search before each limit finds the match found by the
+     * search without the limit if that match starts before the limit, and no
+     * match otherwise.
+     *
+     * @param automaton The automaton
+     * @param input     The input
+     * @param message   The message of the failure
+     */
+    private static void assertFindBeforeLimit(Automaton automaton, String input, String message) {
+
+        final int[] expected = new int[2];
+        final int[] actual = new int[2];
+
+        for (int from = 0; from <= input.length(); from++) {
+            for (int limit = from; limit <= input.length() + 1; limit++) {
+                final boolean found = automaton.find(input, from, input.length(), expected) && expected[0] < limit;
+
+                assertEquals(found, automaton.find(input, from, limit, input.length(), actual), message);
+
+                if (found) {
+                    assertArrayEquals(expected, actual, message);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link ProgramCompiler} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class ProgramCompilerTest {
+
+    @Nested
+    class TestCompile {
+
+        @Test
+        void testMultiplePatterns() {
+            final Program program = ProgramCompiler
+                    .compile(List.of(RegexParser.parse("(a)(b)", 0), RegexParser.parse("[0-9]*", 0)));
+
+            assertEquals(2, program.getPatternCount());
+            assertEquals(2, program.getGroupCount(0));
+            assertEquals(0, program.getGroupCount(1));
+            assertFalse(program.isNullable(0));
+            assertTrue(program.isNullable(1));
+        }
+
+        @Test
+        void testFirstSet() {
+            final Program program = ProgramCompiler.compile(RegexParser.parse("a?(b|c)d", 0));
+            assertEquals(CodePointSet.range('a', 'c'), program.getFirstSet(0));
+        }
+
+        @Test
+        void testSplitSet() {
+            assertEquals(CodePointSet.of(new int[] { '-', '-', '0', '9' }).complement(),
+                    ProgramCompiler.compile(RegexParser.parse("[0-9]{3}-[0-9]{4}", 0)).getSplitSet(0));
+            assertEquals(CodePointSet.range('a', 'b').complement(),
+                    ProgramCompiler.compile(RegexParser.parse("(a|b)c", 0)).getSplitSet(0));
+            assertEquals(CodePointSet.EMPTY, ProgramCompiler.compile(RegexParser.parse("a*", 0)).getSplitSet(0));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "(?=a)", "(?<!a)b", "(a)\\1", "^a", "a\\b", "(?>a)", "a*+", "(a?)*", "(a|)+",
+                "\\uD800" })
+        void testUnsupportedConstruct(String regexPattern) {
+            final RegexNode root = RegexParser.parse(regexPattern, 0);
+            assertThrows(UnsupportedPatternException.class, () -> ProgramCompiler.compile(root));
+        }
+
+        @Test
+        void testProgramSizeLimit() {
+            final RegexNode root = RegexParser.parse("(a{1000}){1000}", 0);
+            assertThrows(UnsupportedPatternException.class, () -> ProgramCompiler.compile(root));
+        }
+    }
+}
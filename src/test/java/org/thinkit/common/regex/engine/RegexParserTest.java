@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The test class for the {@link RegexParser} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class RegexParserTest {
+
+    @Nested
+    class TestParse {
+
+        @Test
+        void testCharacterClass() {
+            final RegexNode node = RegexParser.parse("[a-c&&[^b]]", 0);
+
+            assertEquals(RegexNode.Type.CHARACTER_SET, node.getType());
+            assertEquals(CodePointSet.of(new int[] { 'a', 'a', 'c', 'c' }), node.getCharacterSet());
+        }
+
+        @Test
+        void testLiteralHyphenInCharacterClass() {
+            final RegexNode node = RegexParser.parse("[\\w-.]", 0);
+
+            assertTrue(node.getCharacterSet().contains('-'));
+            assertTrue(node.getCharacterSet().contains('.'));
+            assertTrue(node.getCharacterSet().contains('_'));
+        }
+
+        @Test
+        void testRepetition() {
+            final RegexNode node = RegexParser.parse("a{2,5}?", 0);
+
+            assertEquals(RegexNode.Type.REPETITION, node.getType());
+            assertEquals(2, node.getMinimum());
+            assertEquals(5, node.getMaximum());
+            assertEquals(RegexNode.Kind.RELUCTANT, node.getKind());
+        }
+
+        @Test
+        void testInlineFlagsAreRestoredAtGroupEnd() {
+            final RegexNode node = RegexParser.parse("(?:(?i)a)a", 0);
+
+            assertEquals(RegexNode.Type.CONCATENATION, node.getType());
+            assertTrue(node.getChildren().get(0).getCharacterSet().contains('A'));
+            assertFalse(node.getChildren().get(1).getCharacterSet().contains('A'));
+        }
+
+        @Test
+        void testLiteralFlag() {
+            final RegexNode node = RegexParser.parse("a.b", Pattern.LITERAL);
+
+            assertEquals(3, node.getChildren().size());
+            assertFalse(node.getChildren().get(1).getCharacterSet().contains('x'));
+        }
+
+        @Test
+        void testCountGroups() {
+            assertEquals(3, RegexParser.countGroups(RegexParser.parse("(a)(?:b)(?<name>c)(d)", 0)));
+        }
+
+        @ParameterizedTest
+        @EnumSource(RegexPattern.class)
+        void testAllPresetsAreParsed(RegexPattern regexPattern) {
+            assertDoesNotThrow(() -> RegexParser.parse(regexPattern.getTag(), 0));
+        }
+    }
+
+    @Nested
+    class TestUnsupported {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "\\p{IsLatin}", "(?x)a b", "(?u)a", "a+{2}", "\\R" })
+        void testUnsupportedConstruct(String regexPattern) {
+            assertThrows(UnsupportedPatternException.class, () -> RegexParser.parse(regexPattern, 0));
+        }
+
+        @Test
+        void testUnsupportedFlag() {
+            assertThrows(UnsupportedPatternException.class, () -> RegexParser.parse("a", Pattern.COMMENTS));
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.thinkit.common.regex.catalog.RegexPattern;
+
+/**
+ * The test class for the {@link Utf8Automaton} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class Utf8AutomatonTest {
+
+    /**
+     * The regex patterns compared with {@link Pattern}
+     */
+    private static final List<String> REGEX_PATTERNS = List.of("a+?", "(ab|a)c?", "[^a]*", "x?.", "b{2,}|c", "\\S+",
+            "a|ab", "[ぁ-ん]+", "[一-龯]+|😀", ".", "[^ぁ-ん]+", "(?i)ab", ".*", "é|e", "a*", "[\\x{80}-\\x{10ffff}]");
+
+    /**
+     * The inputs compared with {@link Pattern}
+     */
+    private static final List<String> INPUTS = List.of("", "a", "aaa", "abab", "xaxbxc", "a😀b😀", "aab\nab",
+            "ひらがなと漢字とカタカナ", "éeÉ", "abcあいう😀é€x", "test@gmail.com 東京", "\u0080߿ࠀ￿");
+
+    @Nested
+    class TestCompile {
+
+        @ParameterizedTest
+        @ValueSource(strings = { "(?=a)b", "a\\1", "^a", "a$", "\\bb", "a*+", "(?>a)" })
+        void testUnsupportedPattern(String regexPattern) {
+            assertThrows(UnsupportedPatternException.class, () -> Utf8Automaton.compile(regexPattern, 0));
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = RegexPattern.class, names = { "HIRAGANA", "KATAKANA", "JAPANESE_KANJI",
+                "JAPANESE_ALPHABET", "EMAIL_ADDRESS", "IP_ADDRESS", "DATE" })
+        void testPreset(RegexPattern regexPattern) {
+            assertTrue(Utf8Automaton.compile(regexPattern.getTag(), 0).getStateCount() > 0);
+        }
+    }
+
+    @Nested
+    class TestFind {
+
+        @Test
+        void testByteOffsets() {
+            final Utf8Automaton automaton = Utf8Automaton.compile(RegexPattern.HIRAGANA.getTag(), 0);
+            final byte[] input = "abcひらがなdef".getBytes(StandardCharsets.UTF_8);
+            final int[] slots = new int[2];
+
+            assertTrue(automaton.find(input, 0, input.length, slots));
+            assertEquals(3, slots[0]);
+            assertEquals(15, slots[1]);
+        }
+
+        @Test
+        void testStartInsideCharacter() {
+            final Utf8Automaton automaton = Utf8Automaton.compile("a*", 0);
+            final byte[] input = "é".getBytes(StandardCharsets.UTF_8);
+            final int[] slots = new int[2];
+
+            assertTrue(automaton.find(input, 1, input.length, slots));
+            assertEquals(2, slots[0]);
+            assertEquals(2, slots[1]);
+        }
+
+        @Test
+        void testInvalidBytes() {
+            final Utf8Automaton automaton = Utf8Automaton.compile(".", 0);
+            final byte[] input = { (byte) 0xe3, (byte) 0x81, 'a' };
+            final int[] slots = new int[2];
+
+            assertTrue(automaton.find(input, 0, input.length, slots));
+            assertEquals(2, slots[0]);
+            assertEquals(3, slots[1]);
+        }
+
+        @Test
+        void testSameAsRepeatedFind() {
+            for (String input : INPUTS) {
+                for (String regexPattern : REGEX_PATTERNS) {
+                    final List<String> expected = findByPattern(regexPattern, input);
+                    final byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+                    final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+                    direct.put(1, bytes);
+
+                    assertEquals(expected, find(regexPattern, bytes, null, 0, bytes.length), regexPattern);
+                    assertEquals(shift(expected, 1), find(regexPattern, null, direct, 1, bytes.length + 1),
+                            regexPattern);
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestFindBeforeLimit {
+
+        @Test
+        void testSameAsFind() {
+            for (String input : INPUTS) {
+                for (String regexPattern : REGEX_PATTERNS) {
+                    final Utf8Automaton automaton = Utf8Automaton.compile(regexPattern, 0);
+                    final byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+                    final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+                    final int[] expected = new int[2];
+                    final int[] actual = new int[2];
+
+                    for (int from = 0; from <= bytes.length; from++) {
+                        for (int limit = from; limit <= bytes.length + 1; limit++) {
+                            final boolean found = automaton.find(bytes, from, bytes.length, expected)
+                                    && expected[0] < limit;
+
+                            assertEquals(found, automaton.find(bytes, from, limit, bytes.length, actual), regexPattern);
+                            assertEquals(found, automaton.find(direct, from, limit, bytes.length, null), regexPattern);
+
+                            if (found) {
+                                assertArrayEquals(expected, actual, regexPattern);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestLookingAt {
+
+        @Test
+        void testSameAsLookingAt() {
+
+            final int[] slots = new int[2];
+
+            for (String input : INPUTS) {
+                for (String regexPattern : REGEX_PATTERNS) {
+                    final Matcher matcher = Pattern.compile(regexPattern).matcher(input);
+                    final byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+                    final boolean expected = matcher.lookingAt();
+
+                    assertEquals(expected,
+                            Utf8Automaton.compile(regexPattern, 0).lookingAt(ByteBuffer.wrap(bytes), 0,
+                                    bytes.length, slots),
+                            regexPattern);
+
+                    if (expected) {
+                        assertEquals(byteOffset(input, matcher.end()), slots[1], regexPattern);
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    class TestMatches {
+
+        @Test
+        void testSameAsMatches() {
+            for (String input : INPUTS) {
+                for (String regexPattern : REGEX_PATTERNS) {
+                    final byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+
+                    assertEquals(Pattern.compile(regexPattern).matcher(input).matches(),
+                            Utf8Automaton.compile(regexPattern, 0).matches(bytes, 0, bytes.length, null),
+                            regexPattern + " " + input);
+                }
+            }
+        }
+
+        @Test
+        void testInvalidBytes() {
+            assertFalse(Utf8Automaton.compile(".", 0).matches(new byte[] { (byte) 0xff }, 0, 1, null));
+        }
+    }
+
+    /**
+     * Returns the matches found by repeated searches of the automaton, following
+     * the rules of {@link Matcher#find()} .
+     *
+     * @param regexPattern The regex pattern
+     * @param array        The bytes of the input, or {@code null}
+     * @param buffer       The buffer of the input, or {@code null}
+     * @param start        The start index of the range
+     * @param end          The end index of the range
+     * @return The matches formatted as {@code start-end} in bytes
+     */
+    private static List<String> find(String regexPattern, byte[] array, ByteBuffer buffer, int start, int end) {
+
+        final Utf8Automaton automaton = Utf8Automaton.compile(regexPattern, 0);
+        final List<String> result = new ArrayList<>();
+        final int[] slots = new int[2];
+        int first = -1;
+        int last = start;
+
+        while (true) {
+            final int from = last == first ? last + 1 : last;
+
+            if (from > end || !(array != null ? automaton.find(array, from, end, slots)
+                    : automaton.find(buffer, from, end, slots))) {
+                return result;
+            }
+
+            first = slots[0];
+            last = slots[1];
+            result.add(first + "-" + last);
+        }
+    }
+
+    /**
+     * Returns the matches found by repeated calls of {@link Matcher#find()} ,
+     * except the empty matches that {@link Matcher} finds between the halves of a
+     * surrogate pair, which have no byte offset.
+     *
+     * @param regexPattern The regex pattern
+     * @param input        The input
+     * @return The matches formatted as {@code start-end} in bytes
+     */
+    private static List<String> findByPattern(String regexPattern, String input) {
+
+        final Matcher matcher = Pattern.compile(regexPattern).matcher(input);
+        final List<String> result = new ArrayList<>();
+
+        while (matcher.find()) {
+            if (matcher.start() > 0 && matcher.start() < input.length()
+                    && Character.isSurrogatePair(input.charAt(matcher.start() - 1), input.charAt(matcher.start()))) {
+                continue;
+            }
+
+            result.add(byteOffset(input, matcher.start()) + "-" + byteOffset(input, matcher.end()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Shifts the matches by the number of bytes.
+     *
+     * @param matches The matches formatted as {@code start-end}
+     * @param shift   The number of bytes
+     * @return The shifted matches
+     */
+    private static List<String> shift(List<String> matches, int shift) {
+
+        final List<String> result = new ArrayList<>();
+
+        for (String match : matches) {
+            final String[] offsets = match.split("-");
+            result.add((Integer.parseInt(offsets[0]) + shift) + "-" + (Integer.parseInt(offsets[1]) + shift));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the byte offset of the index of the input encoded in UTF-8.
+     *
+     * @param input The input
+     * @param index The index
+     * @return The byte offset
+     */
+    private static int byteOffset(String input, int index) {
+        return input.substring(0, index).getBytes(StandardCharsets.UTF_8).length;
+    }
+}
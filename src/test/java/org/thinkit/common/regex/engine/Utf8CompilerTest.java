@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.common.regex.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The test class for the {@link Utf8Compiler} .
+ *
+ * @author Kato Shinya
+ * @since 1.0.3
+ */
+final class Utf8CompilerTest {
+
+    @Nested
+    class TestSplit {
+
+        @Test
+        void testAscii() {
+            final List<int[]> sequences = Utf8Compiler.split('a', 'z');
+
+            assertEquals(1, sequences.size());
+            assertEquals('a', sequences.get(0)[0]);
+            assertEquals('z', sequences.get(0)[1]);
+        }
+
+        @Test
+        void testHiragana() {
+            final List<int[]> sequences = Utf8Compiler.split('ぁ', 'ん');
+
+            assertEquals(2, sequences.size());
+            assertEquals(List.of("e3-e3 81-81 81-bf", "e3-e3 82-82 80-93"),
+                    List.of(format(sequences.get(0)), format(sequences.get(1))));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = { 0x00, 0x7f, 0x80, 0x7ff, 0x800, 0xfff, 0x1000, 0xd7ff, 0xe000, 0xffff, 0x10000,
+                0x3ffff, 0x40000, 0x10ffff })
+        void testEncodingsAreCoveredExactlyOnce(int first) {
+            for (int last : new int[] { first, first + 1, first + 0x3f, first + 0x800, first + 0x12345,
+                    Character.MAX_CODE_POINT }) {
+                final int end = Math.min(last, Character.MAX_CODE_POINT);
+
+                if (first <= Character.MAX_SURROGATE && end >= Character.MIN_SURROGATE) {
+                    continue;
+                }
+
+                final List<int[]> sequences = Utf8Compiler.split(first, end);
+
+                for (int codePoint = Math.max(0, first - 0x100); codePoint <= Math.min(Character.MAX_CODE_POINT,
+                        end + 0x100); codePoint += codePoint < first + 0x1000 || codePoint > end - 0x1000 ? 1 : 0x3b) {
+                    if (codePoint < Character.MIN_SURROGATE || codePoint > Character.MAX_SURROGATE) {
+                        assertEquals(codePoint >= first && codePoint <= end ? 1 : 0,
+                                countCovering(sequences, encode(codePoint)), Integer.toHexString(codePoint));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of sequences of byte ranges that match the bytes.
+     *
+     * @param sequences The sequences of byte ranges
+     * @param bytes     The bytes
+     * @return The number of sequences matching the bytes
+     */
+    private static int countCovering(List<int[]> sequences, byte[] bytes) {
+
+        int count = 0;
+
+        for (int[] sequence : sequences) {
+            boolean covering = sequence.length == bytes.length * 2;
+
+            for (int i = 0; covering && i < bytes.length; i++) {
+                covering = (bytes[i] & 0xff) >= sequence[i * 2] && (bytes[i] & 0xff) <= sequence[i * 2 + 1];
+            }
+
+            if (covering) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the UTF-8 encoding of the code point.
+     *
+     * @param codePoint The code point
+     * @return The bytes of the encoding
+     */
+    private static byte[] encode(int codePoint) {
+        return new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Formats the sequence of byte ranges.
+     *
+     * @param sequence The sequence of byte ranges
+     * @return The byte ranges formatted as {@code first-last} in hexadecimal
+     */
+    private static String format(int[] sequence) {
+
+        final StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < sequence.length; i += 2) {
+            builder.append(i == 0 ? "" : " ").append(Integer.toHexString(sequence[i])).append('-')
+                    .append(Integer.toHexString(sequence[i + 1]));
+        }
+
+        return builder.toString();
+    }
+}